@@ -371,6 +371,43 @@ public interface DatabaseDialect extends ConnectionProvider {
     return buildInsertStatement(table, keyColumns, nonKeyColumns);
   }
 
+  /**
+   * Build an INSERT prepared statement expression that inserts several rows with one multi-row
+   * {@code VALUES (...), (...)} clause. The variables of each row are in the same order as those of
+   * {@link #buildInsertStatement(TableId, Collection, Collection, TableDefinition)}, row after row.
+   *
+   * @param table         the identifier of the table; may not be null
+   * @param keyColumns    the identifiers of the columns in the primary/unique key; may not be null
+   *                      but may be empty
+   * @param nonKeyColumns the identifiers of the other columns in the table; may not be null but may
+   *                      be empty
+   * @param definition    the table definition; may be null if unknown
+   * @param rows          the number of rows; between 1 and {@link #maxMultiRowInsertRows(int)}
+   * @return the INSERT statement; may not be null
+   * @throws UnsupportedOperationException if the dialect does not support multi-row inserts
+   */
+  default String buildMultiRowInsertStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rows
+  ) {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Get the largest number of rows that one statement built by
+   * {@link #buildMultiRowInsertStatement(TableId, Collection, Collection, TableDefinition, int)}
+   * may insert, within the limits the database and driver put on bind variables and rows.
+   *
+   * @param columns the number of variables of each row; at least 1
+   * @return the maximum number of rows; 0 if the dialect does not support multi-row inserts
+   */
+  default int maxMultiRowInsertRows(int columns) {
+    return 0;
+  }
+
   /**
    * Build the UPDATE prepared statement expression for the given table and its columns. Variables
    * for each key column should also appear in the WHERE clause of the statement.
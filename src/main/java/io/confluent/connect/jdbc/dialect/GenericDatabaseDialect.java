@@ -71,6 +71,7 @@ import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
 import io.confluent.connect.jdbc.sink.JdbcSinkConfig.InsertMode;
 import io.confluent.connect.jdbc.sink.JdbcSinkConfig.PrimaryKeyMode;
 import io.confluent.connect.jdbc.sink.PreparedStatementBinder;
+import io.confluent.connect.jdbc.sink.metadata.DistributionPolicy;
 import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
 import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
 import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
@@ -112,6 +113,8 @@ public class GenericDatabaseDialect implements DatabaseDialect {
   // The maximum precision that can be achieved in a signed 64-bit integer is 2^63 ~= 9.223372e+18
   private static final int MAX_INTEGER_TYPE_PRECISION = 18;
 
+  protected static final int DEFAULT_MAX_BIND_PARAMETERS = 2000;
+
   private static final String PRECISION_FIELD = "connect.decimal.precision";
 
   /**
@@ -873,6 +876,7 @@ public class GenericDatabaseDialect implements DatabaseDialect {
     TableDefinition tableDefn = new TableDefinition(tableId, columnDefns.values(), tableType);
    // tableDefn.setSchema(getTableSchema(connection, tableId));
     tableDefn.setOrderedColumns(getOrderedColumns(connection, tableId));
+    tableDefn.setDistributionPolicy(getDistributionPolicy(connection, tableId));
     return tableDefn;
   }
 
@@ -880,6 +884,10 @@ public class GenericDatabaseDialect implements DatabaseDialect {
     return null;
   }
 
+  protected DistributionPolicy getDistributionPolicy(Connection connection, TableId tableId) {
+    return null;
+  }
+
   protected TableType tableTypeFor(
       Connection connection,
       TableId tableId
@@ -1568,6 +1576,47 @@ public class GenericDatabaseDialect implements DatabaseDialect {
     return builder.toString();
   }
 
+  @Override
+  public String buildMultiRowInsertStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rows
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("INSERT INTO ");
+    builder.append(table);
+    builder.append("(");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(") VALUES");
+    for (int row = 0; row < rows; row++) {
+      builder.append(row == 0 ? "(" : ",(");
+      builder.appendMultiple(",", "?", keyColumns.size() + nonKeyColumns.size());
+      builder.append(")");
+    }
+    return builder.toString();
+  }
+
+  @Override
+  public int maxMultiRowInsertRows(int columns) {
+    return maxBindParameters() / columns;
+  }
+
+  /**
+   * Get the largest number of bind variables of one prepared statement. By default this is a
+   * conservative {@value #DEFAULT_MAX_BIND_PARAMETERS}; dialects whose driver accepts more override
+   * it.
+   *
+   * @return the maximum number of bind variables
+   */
+  protected int maxBindParameters() {
+    return DEFAULT_MAX_BIND_PARAMETERS;
+  }
+
   @Override
   @SuppressWarnings("deprecation")
   public String buildUpdateStatement(
@@ -129,6 +129,11 @@ public class MySqlDatabaseDialect extends GenericDatabaseDialect {
     }
   }
 
+  @Override
+  protected int maxBindParameters() {
+    return 65535;
+  }
+
   @Override
   public String buildUpsertQueryStatement(
       TableId table,
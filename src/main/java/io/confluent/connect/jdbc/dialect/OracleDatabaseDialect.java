@@ -308,6 +308,12 @@ public class OracleDatabaseDialect extends GenericDatabaseDialect {
     return Collections.singletonList(builder.toString());
   }
 
+  @Override
+  public int maxMultiRowInsertRows(int columns) {
+    // Oracle has no multi-row VALUES clause
+    return 0;
+  }
+
   @Override
   public String buildUpsertQueryStatement(
       final TableId table,
@@ -18,10 +18,12 @@ package io.confluent.connect.jdbc.dialect;
 import io.confluent.connect.jdbc.dialect.DatabaseDialectProvider.SubprotocolBasedProvider;
 import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
 import io.confluent.connect.jdbc.sink.metadata.ColumnDetails;
+import io.confluent.connect.jdbc.sink.metadata.DistributionPolicy;
 import io.confluent.connect.jdbc.sink.metadata.SinkRecordField;
 import io.confluent.connect.jdbc.source.ColumnMapping;
 import io.confluent.connect.jdbc.util.ColumnDefinition;
 import io.confluent.connect.jdbc.util.ColumnId;
+import io.confluent.connect.jdbc.util.DateTimeUtils;
 import io.confluent.connect.jdbc.util.ExpressionBuilder;
 import io.confluent.connect.jdbc.util.ExpressionBuilder.Transform;
 import io.confluent.connect.jdbc.util.IdentifierRules;
@@ -38,9 +40,14 @@ import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Time;
 import org.apache.kafka.connect.data.Timestamp;
 import org.apache.kafka.connect.errors.DataException;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.sql.*;
 import java.util.*;
 
@@ -72,6 +79,8 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
   static final String JSONB_TYPE_NAME = "jsonb";
   static final String UUID_TYPE_NAME = "uuid";
 
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
   /**
    * Define the PG datatypes that require casting upon insert/update statements.
    */
@@ -358,6 +367,40 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
     return builder.toString();
   }
 
+  @Override
+  public String buildMultiRowInsertStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      TableDefinition definition,
+      int rows
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("INSERT INTO ");
+    builder.append(table);
+    builder.append(" (");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(") VALUES ");
+    for (int row = 0; row < rows; row++) {
+      builder.append(row == 0 ? "(" : ",(");
+      builder.appendList()
+             .delimitedBy(",")
+             .transformedBy(this.columnValueVariables(definition))
+             .of(keyColumns, nonKeyColumns);
+      builder.append(")");
+    }
+    return builder.toString();
+  }
+
+  @Override
+  protected int maxBindParameters() {
+    // the protocol counts bind variables in a 16 bit integer
+    return Short.MAX_VALUE;
+  }
+
   @Override
   public String buildUpdateStatement(
       TableId table,
@@ -426,6 +469,218 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
     return builder.toString();
   }
 
+  /**
+   * Build the {@code COPY ... FROM STDIN} statement that loads rows in the CSV form written by
+   * {@link #appendCopyValue(StringBuilder, Schema, Object)}: comma separated, unquoted empty
+   * fields for nulls and one row per line.
+   *
+   * @param table the table to load; may not be null
+   * @param keyColumns the key columns, in row order; may be empty
+   * @param nonKeyColumns the non-key columns, following the key columns; may be empty
+   * @return the COPY statement; never null
+   */
+  public String buildCopyStatement(
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("COPY ");
+    builder.append(table);
+    builder.append(" (");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(") FROM STDIN (FORMAT csv)");
+    return builder.toString();
+  }
+
+  /**
+   * Build the statement creating an empty temporary staging table with the given columns of
+   * {@code table}, without their constraints. It is dropped at the latest when the transaction
+   * commits.
+   */
+  public String buildCreateStagingTableStatement(
+      TableId staging,
+      TableId table,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+    builder.append("CREATE TEMPORARY TABLE ");
+    builder.append(staging);
+    builder.append(" ON COMMIT DROP AS SELECT ");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(" FROM ");
+    builder.append(table);
+    builder.append(" WITH NO DATA");
+    return builder.toString();
+  }
+
+  /**
+   * Build the statement applying the rows of a staging table to {@code table}: an
+   * {@code INSERT ... ON CONFLICT} for {@link JdbcSinkConfig.InsertMode#UPSERT} and an
+   * {@code UPDATE ... FROM} for {@link JdbcSinkConfig.InsertMode#UPDATE}. The staging table may
+   * hold at most one row per key.
+   */
+  public String buildMergeFromStagingStatement(
+      TableId table,
+      TableId staging,
+      Collection<ColumnId> keyColumns,
+      Collection<ColumnId> nonKeyColumns,
+      JdbcSinkConfig.InsertMode insertMode
+  ) {
+    ExpressionBuilder builder = expressionBuilder();
+    if (insertMode == JdbcSinkConfig.InsertMode.UPDATE) {
+      builder.append("UPDATE ");
+      builder.append(table);
+      builder.append(" AS dst SET ");
+      builder.appendList()
+             .delimitedBy(", ")
+             .transformedBy((b, col) -> b.appendColumnName(col.name())
+                                         .append(" = src.")
+                                         .appendColumnName(col.name()))
+             .of(nonKeyColumns);
+      builder.append(" FROM ");
+      builder.append(staging);
+      builder.append(" AS src WHERE ");
+      builder.appendList()
+             .delimitedBy(" AND ")
+             .transformedBy((b, col) -> b.append("dst.")
+                                         .appendColumnName(col.name())
+                                         .append(" = src.")
+                                         .appendColumnName(col.name()))
+             .of(keyColumns);
+      return builder.toString();
+    }
+    builder.append("INSERT INTO ");
+    builder.append(table);
+    builder.append(" (");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(") SELECT ");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns, nonKeyColumns);
+    builder.append(" FROM ");
+    builder.append(staging);
+    builder.append(" ON CONFLICT (");
+    builder.appendList()
+           .delimitedBy(",")
+           .transformedBy(ExpressionBuilder.columnNames())
+           .of(keyColumns);
+    if (nonKeyColumns.isEmpty()) {
+      builder.append(") DO NOTHING");
+    } else {
+      builder.append(") DO UPDATE SET ");
+      builder.appendList()
+             .delimitedBy(",")
+             .transformedBy((b, col) -> b.appendColumnName(col.name())
+                                         .append("=EXCLUDED.")
+                                         .appendColumnName(col.name()))
+             .of(nonKeyColumns);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Whether values of the given schema can be written by
+   * {@link #appendCopyValue(StringBuilder, Schema, Object)}. Arrays, maps and structs cannot.
+   */
+  public boolean supportsCopy(Schema schema) {
+    switch (schema.type()) {
+      case ARRAY:
+      case MAP:
+      case STRUCT:
+        return false;
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Append a value as a CSV field of a COPY row. Nulls are left empty, strings are always quoted
+   * so that an empty string stays distinct from null, and dates and times are written in the
+   * configured time zone like the prepared statement binding does.
+   */
+  public void appendCopyValue(StringBuilder row, Schema schema, Object value) {
+    if (value == null) {
+      return;
+    }
+    if (schema.name() != null) {
+      switch (schema.name()) {
+        case Decimal.LOGICAL_NAME:
+          row.append(((BigDecimal) value).toPlainString());
+          return;
+        case Date.LOGICAL_NAME:
+          row.append(DateTimeUtils.formatDate((java.util.Date) value, timeZone()));
+          return;
+        case Time.LOGICAL_NAME:
+          row.append(DateTimeUtils.formatTime((java.util.Date) value, timeZone()));
+          return;
+        case Timestamp.LOGICAL_NAME: {
+          java.util.Date timestamp = (java.util.Date) value;
+          int offsetMinutes = timeZone().getOffset(timestamp.getTime()) / 60000;
+          row.append(DateTimeUtils.formatTimestamp(timestamp, timeZone()))
+             .append(offsetMinutes < 0 ? '-' : '+')
+             .append(String.format("%02d:%02d", Math.abs(offsetMinutes) / 60,
+                 Math.abs(offsetMinutes) % 60));
+          return;
+        }
+        default:
+          break;
+      }
+    }
+    switch (schema.type()) {
+      case BOOLEAN:
+        row.append((Boolean) value ? 't' : 'f');
+        return;
+      case STRING:
+        appendCopyQuoted(row, (String) value);
+        return;
+      case BYTES: {
+        byte[] bytes = value instanceof ByteBuffer
+                       ? Utils.toArray((ByteBuffer) value) : (byte[]) value;
+        row.append("\\x");
+        for (byte b : bytes) {
+          row.append(Character.forDigit((b >> 4) & 0xf, 16))
+              .append(Character.forDigit(b & 0xf, 16));
+        }
+        return;
+      }
+      default:
+        row.append(value);
+    }
+  }
+
+  private static void appendCopyQuoted(StringBuilder row, String value) {
+    row.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"') {
+        row.append('"');
+      }
+      row.append(c);
+    }
+    row.append('"');
+  }
+
+  /**
+   * Open a stream that sends its bytes to a {@code COPY ... FROM STDIN} statement. Closing the
+   * stream ends the copy.
+   */
+  public OutputStream copyIn(Connection connection, String copySql) throws SQLException {
+    return new PGCopyOutputStream(
+        connection.unwrap(PGConnection.class), copySql, COPY_BUFFER_SIZE);
+  }
+
   @Override
   protected void formatColumnValue(
       ExpressionBuilder builder,
@@ -651,4 +906,68 @@ public class PostgreSqlDatabaseDialect extends GenericDatabaseDialect {
     }
     return null;
   }
+
+  /**
+   * Reads the hash distribution of a Greenplum table from {@code gp_distribution_policy}. Returns
+   * null for randomly distributed or replicated tables, and for databases whose catalog has no
+   * {@code distkey}, {@code distclass} and {@code numsegments}, i.e. PostgreSQL and Greenplum
+   * before 6. The catalog is checked first so that no failing query aborts the transaction.
+   */
+  @Override
+  protected DistributionPolicy getDistributionPolicy(Connection connection, TableId tableId) {
+    String probe = "SELECT count(*) FROM pg_catalog.pg_attribute a "
+        + "JOIN pg_catalog.pg_class c ON c.oid = a.attrelid "
+        + "JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace "
+        + "WHERE n.nspname = 'pg_catalog' AND c.relname = 'gp_distribution_policy' "
+        + "AND a.attname IN ('distkey', 'distclass', 'numsegments')";
+    String query = "SELECT a.attname, t.typname, oc.opcname, p.numsegments "
+        + "FROM pg_catalog.gp_distribution_policy p "
+        + "JOIN pg_catalog.pg_class c ON c.oid = p.localoid "
+        + "JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace "
+        + "CROSS JOIN LATERAL unnest(p.distkey::int2[], p.distclass::oid[]) "
+        + "WITH ORDINALITY AS k(attnum, opclass, position) "
+        + "JOIN pg_catalog.pg_attribute a ON a.attrelid = c.oid AND a.attnum = k.attnum "
+        + "JOIN pg_catalog.pg_type t ON t.oid = a.atttypid "
+        + "JOIN pg_catalog.pg_opclass oc ON oc.oid = k.opclass "
+        + "WHERE c.relname = ? AND n.nspname = COALESCE(?, current_schema()) "
+        + "ORDER BY k.position";
+    String schema = tableId.schemaName();
+    if (schema == null && config instanceof JdbcSinkConfig) {
+      schema = ((JdbcSinkConfig) config).dbSchema;
+    }
+    try (Statement statement = connection.createStatement();
+         ResultSet probed = statement.executeQuery(probe)) {
+      if (!probed.next() || probed.getInt(1) != 3) {
+        return null;
+      }
+    } catch (SQLException e) {
+      log.debug("Could not check for gp_distribution_policy", e);
+      return null;
+    }
+    try (PreparedStatement statement = connection.prepareStatement(query)) {
+      statement.setString(1, tableId.tableName());
+      statement.setString(2, schema);
+      List<DistributionPolicy.KeyColumn> keyColumns = new ArrayList<>();
+      int numSegments = 0;
+      try (ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          keyColumns.add(new DistributionPolicy.KeyColumn(
+              resultSet.getString(1),
+              resultSet.getString(2),
+              resultSet.getString(3)
+          ));
+          numSegments = resultSet.getInt(4);
+        }
+      }
+      if (keyColumns.isEmpty()) {
+        return null;
+      }
+      DistributionPolicy policy = new DistributionPolicy(keyColumns, numSegments);
+      log.info("Distribution of {}: {}", tableId, policy);
+      return policy;
+    } catch (SQLException e) {
+      log.warn("Could not read the distribution policy of {}", tableId, e);
+      return null;
+    }
+  }
 }
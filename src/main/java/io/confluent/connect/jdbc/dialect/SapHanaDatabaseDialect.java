@@ -136,6 +136,12 @@ public class SapHanaDatabaseDialect extends GenericDatabaseDialect {
     return Collections.singletonList(builder.toString());
   }
 
+  @Override
+  public int maxMultiRowInsertRows(int columns) {
+    // SAP HANA has no multi-row VALUES clause
+    return 0;
+  }
+
   @Override
   public String buildUpsertQueryStatement(
       TableId table,
@@ -400,6 +400,18 @@ public class SqlServerDatabaseDialect extends GenericDatabaseDialect {
     return Collections.singletonList(builder.toString());
   }
 
+  @Override
+  public int maxMultiRowInsertRows(int columns) {
+    // a VALUES clause has at most 1000 rows
+    return Math.min(1000, super.maxMultiRowInsertRows(columns));
+  }
+
+  @Override
+  protected int maxBindParameters() {
+    // the limit is 2100, one less leaves room for the driver's own parameters
+    return 2099;
+  }
+
   @Override
   public String buildUpsertQueryStatement(
       TableId table,
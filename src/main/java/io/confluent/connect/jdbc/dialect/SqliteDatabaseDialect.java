@@ -111,6 +111,12 @@ public class SqliteDatabaseDialect extends GenericDatabaseDialect {
     return queries;
   }
 
+  @Override
+  protected int maxBindParameters() {
+    // SQLITE_MAX_VARIABLE_NUMBER of SQLite versions before 3.32.0
+    return 999;
+  }
+
   @Override
   public String buildUpsertQueryStatement(
       TableId table,
@@ -294,6 +294,12 @@ public class SybaseDatabaseDialect extends GenericDatabaseDialect {
     return Collections.singletonList(builder.toString());
   }
 
+  @Override
+  public int maxMultiRowInsertRows(int columns) {
+    // Adaptive Server has no multi-row VALUES clause
+    return 0;
+  }
+
   @Override
   public String buildUpsertQueryStatement(
       TableId table,
@@ -99,6 +99,12 @@ public class VerticaDatabaseDialect extends GenericDatabaseDialect {
     }
   }
 
+  @Override
+  public int maxMultiRowInsertRows(int columns) {
+    // Vertica has no multi-row VALUES clause
+    return 0;
+  }
+
   @Override
   public List<String> buildAlterTable(
       TableId table,
@@ -2,6 +2,7 @@ package io.confluent.connect.jdbc.gp;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
 import io.confluent.connect.jdbc.dialect.PostgreSqlDatabaseDialect;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
 import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
 import io.confluent.connect.jdbc.sink.metadata.ColumnDetails;
 import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
@@ -29,7 +30,9 @@ public abstract class GpDataIngestionService implements IGPDataIngestionService
     protected List<String> insertColumnsList;
     protected List<String> nonKeyColumns;
     protected List<Map<String, String>> columnsWithDataType;
-    protected List<List<String>> data;
+    protected ColumnarBatch batch;
+    protected List<SinkRecord> batchRecords;
+    protected RowExtractionPlan extractionPlan;
     protected int totalColumns;
     protected int totalKeyColumns;
     protected int totalNonKeyColumns;
@@ -107,6 +110,14 @@ public abstract class GpDataIngestionService implements IGPDataIngestionService
         return String.join(delimiter, fieldsDataTypeList);
     }
 
+    /**
+     * Whether records passed to {@link #ingest(List)} may still be uncommitted when it returns. Such
+     * services report durable records to the task's offset tracker themselves.
+     */
+    public boolean defersCommit() {
+        return false;
+    }
+
     @Override
     public void ingest(List<SinkRecord> records) {
         keyColumns = new ArrayList<>(fieldsMetadata.keyFieldNames);
@@ -168,130 +179,53 @@ public abstract class GpDataIngestionService implements IGPDataIngestionService
         }
         // print all counts in one shot
         log.info("Total Columns: {}, Total Key Columns: {}, Total Non Key Columns: {}, Total Records: {}", totalColumns, totalKeyColumns, totalNonKeyColumns, totalRecords);
-        log.info("Update mode is {}", config.updateMode.name());
+        JdbcSinkConfig.UpdateMode updateMode = updateMode();
+        log.info("Update mode is {}", updateMode.name());
+
+        if (config.printDebugLogs) {
+            tableDefinition.getOrderedColumns().forEach(c -> log.info(">>>>>TableDefinition Column: {} - {}", c.getColumnName(), c.getDataType()));
+        }
+
+        // all records of a binder share the value schema, so the plan only changes with the column list
+        if (extractionPlan == null || !extractionPlan.columns().equals(insertColumnsList)) {
+            extractionPlan = RowExtractionPlan.compile(config, schemaPair.valueSchema, tableDefinition, insertColumnsList);
+        }
+        batch = extractionPlan.newBatch(records.size());
 
-        data = new ArrayList<>();
-        if (config.updateMode == JdbcSinkConfig.UpdateMode.DEFAULT) {
+        if (updateMode == JdbcSinkConfig.UpdateMode.DEFAULT) {
 
             for (SinkRecord record : records) {
                 addRow(record);
             }
+            batchRecords = records;
         } else {
 
+            boolean lastRowOnly = updateMode == JdbcSinkConfig.UpdateMode.LAST_ROW_ONLY;
+            boolean offHeap = config.updateModeOffHeapThreshold > 0 && records.size() >= config.updateModeOffHeapThreshold;
+            List<SinkRecord> selectedRecords = KeyDeduplicator.forColumns(keyColumns, schemaPair.keySchema, schemaPair.valueSchema)
+                    .select(records, lastRowOnly, offHeap);
 
-            if (config.updateMode == JdbcSinkConfig.UpdateMode.LAST_ROW_ONLY) {
-                Collections.reverse(records);
-            }
-
-            List<String> addedKeysList = new ArrayList<>();
-
-            for (SinkRecord record : records) {
-
-                String recordKey = "";
-                for (String key : keyColumns) {
-                    recordKey += String.valueOf(((Struct) record.key()).get(key));
-                }
-                if (addedKeysList.contains(recordKey)) {
-                    continue;
-                }
-                addedKeysList.add(recordKey);
-
+            for (SinkRecord record : selectedRecords) {
                 addRow(record);
             }
-
-            if (config.updateMode == JdbcSinkConfig.UpdateMode.LAST_ROW_ONLY) {
-                Collections.reverse(data);
-            }
-            log.info("Total records after applying update mode: {}", data.size());
+            batchRecords = selectedRecords;
+            log.info("Total records after applying update mode: {}", batch.rowCount());
         }
     }
 
-    private void addRow(SinkRecord record) {
-        List row = new ArrayList(totalColumns);
-        final Struct valueStruct = (Struct) record.value();
-
-//        valueStruct.schema().fields().forEach(field -> {
-//            if (config.printDebugLogs) {
-//                try {
-//                    String value = String.valueOf(valueStruct.get(field.name()));
-//                    log.info("==>>>> Field: {} - {} - {}", field.name(), field.schema().type().name(), field.schema().valueSchema().type());
-//
-//                }catch (Exception e){
-//                }
-//            }
-//        });
-
-        // print tableDefinition.getOrderedColumns()
-        tableDefinition.getOrderedColumns().forEach(c -> {
-            if (config.printDebugLogs) {
-                log.info(">>>>>TableDefinition Column: {} - {}", c.getColumnName(), c.getDataType());
-            }
-        });
-
-
-        for (int i = 0; i < totalColumns; i++) {
-            String value = null;
-            String key = insertColumnsList.get(i).toString();
-            try {
-                value = String.valueOf(valueStruct.get(key));
-            } catch (Exception e) {
-                try {
-
-                    String alternateKey = config.columnAlternative.get(key);
-                    if (alternateKey != null) {
-                        if (alternateKey != null) {
-                            if (alternateKey.startsWith("#")) {
-                                UniqueIdType sak = UniqueIdType.fromString(alternateKey.substring(1));
-                                if (sak != null) {
-                                    value = sak.generateUniqueId();
-                                } else {
-                                    value = alternateKey.substring(1);
-                                }
-                            } else {
-                                value = String.valueOf(valueStruct.get(alternateKey));
-
-                            }
-                        }
-                    }
-
-                } catch (Exception e1) {
-                    log.error("Error while getting alternative value for column {} from record {}", key, record);
-                }
-                log.error("Error while getting value for column {} from record {}", key, record);
-//                        if(tableDefinition.getOrderedColumns()!=null) {
-//                            final int j = i;
-//                            ColumnDetails column = tableDefinition.getOrderedColumns().stream().filter(c -> c.getColumnName().equals(allColumns.get(j).toString())).findFirst().orElse(null);
-//                            if (column != null && column.getColumnDefault() != null) {
-//                                value = "DEFAULT";
-//                            }
-//                        }
-            }
-            if (value == null) {
-                value = config.nullString;
-            }
+    /**
+     * How rows that share a key are reduced before loading, {@code update.mode} unless the load
+     * needs unique keys.
+     */
+    protected JdbcSinkConfig.UpdateMode updateMode() {
+        return config.updateMode;
+    }
 
-            // date format
-            if (config.timestampAutoConvert && value != null && value.length() > 0) {
-                ColumnDetails column = tableDefinition.getOrderedColumn(key);
-                if (column != null && column.getDateType() != null) {
-                    if (config.printDebugLogs) {
-                        log.info("Date Value before conversion: {} for column: {}", value, key);
-                    }
-                    value = column.getDateType().format(config, value);
-                    if (config.printDebugLogs) {
-                        log.info("Date Value after: {} for column: {}", value, key);
-                    }
-                }
-            }
-            if (config.printDebugLogs) {
-                log.info("Adding value: {} for column: {}", value, key);
-            }
-            row.add(i, value);
-        }
+    private void addRow(SinkRecord record) {
+        extractionPlan.appendRow((Struct) record.value(), batch);
         if (config.printDebugLogs) {
-            log.info("Adding row: {}", row);
+            log.info("Adding row: {}", Arrays.toString(batch.rowValues(batch.rowCount() - 1, config.nullString, null)));
         }
-        data.add(row);
     }
 
     protected String getGpfDistHost() {
@@ -0,0 +1,222 @@
+package io.confluent.connect.jdbc.gp;
+
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps one record per key for the FIRST_ROW_ONLY and LAST_ROW_ONLY update modes.
+ *
+ * <p>Keys are hashed straight from the key fields into an open addressing index that stores record
+ * positions, and hash hits are confirmed by comparing the field values themselves, so composite
+ * keys never collide through their string forms. The index can live off-heap for very large
+ * batches.
+ */
+public class KeyDeduplicator {
+
+    private enum KeySource {
+        KEY_STRUCT, KEY_VALUE, VALUE_STRUCT
+    }
+
+    private final KeySource[] sources;
+    private final Field[] fields;
+
+    private KeyDeduplicator(KeySource[] sources, Field[] fields) {
+        this.sources = sources;
+        this.fields = fields;
+    }
+
+    /**
+     * Resolves each key column against the record key schema first and the value schema second.
+     */
+    public static KeyDeduplicator forColumns(List<String> keyColumns, Schema keySchema, Schema valueSchema) {
+        KeySource[] sources = new KeySource[keyColumns.size()];
+        Field[] fields = new Field[keyColumns.size()];
+        boolean structKey = keySchema != null && keySchema.type() == Schema.Type.STRUCT;
+        for (int i = 0; i < keyColumns.size(); i++) {
+            String column = keyColumns.get(i);
+            Field field = structKey ? keySchema.field(column) : null;
+            if (field != null) {
+                sources[i] = KeySource.KEY_STRUCT;
+            } else if (keySchema != null && !structKey && keyColumns.size() == 1) {
+                sources[i] = KeySource.KEY_VALUE;
+            } else {
+                field = valueSchema == null ? null : valueSchema.field(column);
+                if (field == null) {
+                    throw new ConnectException("Key column " + column + " is not present in the record key or value schema");
+                }
+                sources[i] = KeySource.VALUE_STRUCT;
+            }
+            fields[i] = field;
+        }
+        return new KeyDeduplicator(sources, fields);
+    }
+
+    /**
+     * Returns the first (or last) record of every key, in their original order.
+     */
+    public List<SinkRecord> select(List<SinkRecord> records, boolean keepLast, boolean offHeap) {
+        int count = records.size();
+        SlotTable slots = offHeap ? new OffHeapSlotTable(tableSize(count)) : new HeapSlotTable(tableSize(count));
+        BitSet selected = new BitSet(count);
+        for (int n = 0; n < count; n++) {
+            int index = keepLast ? count - 1 - n : n;
+            if (add(slots, records, index)) {
+                selected.set(index);
+            }
+        }
+
+        List<SinkRecord> result = new ArrayList<>(selected.cardinality());
+        for (int index = selected.nextSetBit(0); index >= 0; index = selected.nextSetBit(index + 1)) {
+            result.add(records.get(index));
+        }
+        return result;
+    }
+
+    private boolean add(SlotTable slots, List<SinkRecord> records, int index) {
+        SinkRecord record = records.get(index);
+        int hash = hash(record);
+        int mask = slots.capacity() - 1;
+        for (int pos = hash & mask; ; pos = (pos + 1) & mask) {
+            int occupant = slots.record(pos);
+            if (occupant < 0) {
+                slots.put(pos, index, hash);
+                return true;
+            }
+            if (slots.hash(pos) == hash && sameKey(records.get(occupant), record)) {
+                return false;
+            }
+        }
+    }
+
+    private Object keyValue(SinkRecord record, int column) {
+        switch (sources[column]) {
+            case KEY_STRUCT:
+                return ((Struct) record.key()).get(fields[column]);
+            case KEY_VALUE:
+                return record.key();
+            default:
+                return ((Struct) record.value()).get(fields[column]);
+        }
+    }
+
+    int hash(SinkRecord record) {
+        int hash = 1;
+        for (int i = 0; i < sources.length; i++) {
+            Object value = keyValue(record, i);
+            int valueHash = value == null ? 0 : value instanceof byte[] ? Arrays.hashCode((byte[]) value) : value.hashCode();
+            hash = 31 * hash + valueHash;
+        }
+        // spread the bits, the index only uses the low ones
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    boolean sameKey(SinkRecord left, SinkRecord right) {
+        for (int i = 0; i < sources.length; i++) {
+            if (!Objects.deepEquals(keyValue(left, i), keyValue(right, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int tableSize(int records) {
+        int size = Integer.highestOneBit(Math.max(records, 1) * 2 - 1) << 1;
+        return Math.max(size, 16);
+    }
+
+    private interface SlotTable {
+        int capacity();
+
+        /**
+         * Returns the record index stored in the slot, or -1 if the slot is empty.
+         */
+        int record(int slot);
+
+        int hash(int slot);
+
+        void put(int slot, int record, int hash);
+    }
+
+    private static final class HeapSlotTable implements SlotTable {
+        private final int[] records;
+        private final int[] hashes;
+
+        HeapSlotTable(int capacity) {
+            records = new int[capacity];
+            hashes = new int[capacity];
+            Arrays.fill(records, -1);
+        }
+
+        @Override
+        public int capacity() {
+            return records.length;
+        }
+
+        @Override
+        public int record(int slot) {
+            return records[slot];
+        }
+
+        @Override
+        public int hash(int slot) {
+            return hashes[slot];
+        }
+
+        @Override
+        public void put(int slot, int record, int hash) {
+            records[slot] = record;
+            hashes[slot] = hash;
+        }
+    }
+
+    /**
+     * Same layout as {@link HeapSlotTable}, interleaved in a direct buffer so the index of a very
+     * large batch does not have to be carried by the heap. Record indexes are stored plus one so a
+     * freshly allocated (zeroed) buffer reads as empty.
+     */
+    private static final class OffHeapSlotTable implements SlotTable {
+        private final ByteBuffer slots;
+        private final int capacity;
+
+        OffHeapSlotTable(int capacity) {
+            this.capacity = capacity;
+            this.slots = ByteBuffer.allocateDirect(capacity * 8);
+        }
+
+        @Override
+        public int capacity() {
+            return capacity;
+        }
+
+        @Override
+        public int record(int slot) {
+            return slots.getInt(slot * 8) - 1;
+        }
+
+        @Override
+        public int hash(int slot) {
+            return slots.getInt(slot * 8 + 4);
+        }
+
+        @Override
+        public void put(int slot, int record, int hash) {
+            slots.putInt(slot * 8, record + 1);
+            slots.putInt(slot * 8 + 4, hash);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package io.confluent.connect.jdbc.gp;
+
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.metadata.ColumnDetails;
+import io.confluent.connect.jdbc.sink.metadata.DateTimeConverter;
+import io.confluent.connect.jdbc.util.TableDefinition;
+import io.confluent.connect.jdbc.util.UniqueIdType;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resolves, once per value schema, where each insert column of a GP load takes its value from:
+ * a field of the record, an alternative field, a generated id or a constant. Rows are then
+ * extracted by field index, without name lookups or exception driven fallbacks.
+ */
+public class RowExtractionPlan {
+    private static final Logger log = LoggerFactory.getLogger(RowExtractionPlan.class);
+
+    enum Source {
+        FIELD, ID_GENERATOR, CONSTANT, MISSING
+    }
+
+    private final JdbcSinkConfig config;
+    private final Schema valueSchema;
+    private final List<String> columns;
+    private final Source[] sources;
+    private final Field[] fields;
+    private final UniqueIdType[] generators;
+    private final String[] constants;
+    private final DateTimeConverter[] dateConverters;
+    private final List<ColumnVector.Type> columnTypes;
+
+    private RowExtractionPlan(JdbcSinkConfig config, Schema valueSchema, List<String> columns) {
+        int count = columns.size();
+        this.config = config;
+        this.valueSchema = valueSchema;
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        this.sources = new Source[count];
+        this.fields = new Field[count];
+        this.generators = new UniqueIdType[count];
+        this.constants = new String[count];
+        this.dateConverters = new DateTimeConverter[count];
+        this.columnTypes = new ArrayList<>(count);
+    }
+
+    /**
+     * Compiles the plan for the given value schema and insert columns. Columns that cannot be
+     * resolved are reported here, once, and are loaded as nulls.
+     */
+    public static RowExtractionPlan compile(JdbcSinkConfig config, Schema valueSchema, TableDefinition tableDefinition, List<String> insertColumns) {
+        RowExtractionPlan plan = new RowExtractionPlan(config, valueSchema, insertColumns);
+        for (int i = 0; i < insertColumns.size(); i++) {
+            String column = insertColumns.get(i);
+            Field field = valueSchema == null ? null : valueSchema.field(column);
+            if (field != null) {
+                plan.sources[i] = Source.FIELD;
+                plan.fields[i] = field;
+            } else {
+                plan.resolveAlternative(i, column);
+            }
+
+            if (config.timestampAutoConvert && tableDefinition != null) {
+                ColumnDetails details = tableDefinition.getOrderedColumn(column);
+                if (details != null && details.getDateType() != null) {
+                    String logicalName = plan.fields[i] == null ? null : plan.fields[i].schema().name();
+                    plan.dateConverters[i] = details.getDateType().converter(config, logicalName);
+                }
+            }
+            plan.columnTypes.add(plan.vectorType(i));
+        }
+        if (config.printDebugLogs) {
+            log.info("Compiled extraction plan for columns {} with sources {}", insertColumns, Arrays.toString(plan.sources));
+        }
+        return plan;
+    }
+
+    private void resolveAlternative(int index, String column) {
+        String alternateKey = config.columnAlternative.get(column);
+        if (alternateKey == null) {
+            log.warn("Column {} is not present in the record schema and has no alternative, it will be loaded as null", column);
+            sources[index] = Source.MISSING;
+        } else if (alternateKey.startsWith("#")) {
+            UniqueIdType generator = UniqueIdType.fromString(alternateKey.substring(1));
+            if (generator != null) {
+                sources[index] = Source.ID_GENERATOR;
+                generators[index] = generator;
+            } else {
+                sources[index] = Source.CONSTANT;
+                constants[index] = alternateKey.substring(1);
+            }
+        } else {
+            Field field = valueSchema == null ? null : valueSchema.field(alternateKey);
+            if (field == null) {
+                log.warn("Alternative field {} for column {} is not present in the record schema, it will be loaded as null", alternateKey, column);
+                sources[index] = Source.MISSING;
+            } else {
+                sources[index] = Source.FIELD;
+                fields[index] = field;
+            }
+        }
+    }
+
+    /**
+     * Values that are rewritten as text before loading (generated ids, constants, converted dates
+     * and logical types) are buffered as text, everything else keeps the primitive type of its
+     * Connect schema.
+     */
+    private ColumnVector.Type vectorType(int index) {
+        if (sources[index] != Source.FIELD || dateConverters[index] != null) {
+            return ColumnVector.Type.BYTES;
+        }
+        Schema schema = fields[index].schema();
+        if (schema.name() != null) {
+            return ColumnVector.Type.BYTES;
+        }
+        switch (schema.type()) {
+            case INT8:
+            case INT16:
+            case INT32:
+            case INT64:
+                return ColumnVector.Type.LONG;
+            case FLOAT32:
+                return ColumnVector.Type.FLOAT;
+            case FLOAT64:
+                return ColumnVector.Type.DOUBLE;
+            case BOOLEAN:
+                return ColumnVector.Type.BOOLEAN;
+            case BYTES:
+                return ColumnVector.Type.BINARY;
+            default:
+                return ColumnVector.Type.BYTES;
+        }
+    }
+
+    public Schema valueSchema() {
+        return valueSchema;
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+
+    public List<ColumnVector.Type> columnTypes() {
+        return columnTypes;
+    }
+
+    public ColumnarBatch newBatch(int capacity) {
+        return new ColumnarBatch(columns, columnTypes, capacity);
+    }
+
+    public Object extract(int index, Struct value) {
+        Object result;
+        switch (sources[index]) {
+            case FIELD:
+                result = value.get(fields[index]);
+                break;
+            case ID_GENERATOR:
+                result = generators[index].generateUniqueId();
+                break;
+            case CONSTANT:
+                result = constants[index];
+                break;
+            default:
+                return null;
+        }
+        if (result != null && dateConverters[index] != null) {
+            result = dateConverters[index].convert(result);
+        }
+        return result;
+    }
+
+    public void appendRow(Struct value, ColumnarBatch batch) {
+        for (int i = 0; i < sources.length; i++) {
+            batch.column(i).appendObject(extract(i, value));
+        }
+        batch.endRow();
+    }
+}
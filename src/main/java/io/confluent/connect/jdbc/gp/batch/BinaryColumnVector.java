@@ -0,0 +1,64 @@
+package io.confluent.connect.jdbc.gp.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Column vector for Connect BYTES values. The raw bytes are kept in the arena; their text form is
+ * the Greenplum {@code bytea} hex format, e.g. {@code \x0aff}.
+ */
+public class BinaryColumnVector extends BytesColumnVector {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    public BinaryColumnVector(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public Type type() {
+        return Type.BINARY;
+    }
+
+    @Override
+    public void appendObject(Object value) {
+        if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            append(bytes, 0, bytes.length);
+        } else if (value instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) value).slice();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            append(bytes, 0, bytes.length);
+        } else {
+            super.appendObject(value);
+        }
+    }
+
+    @Override
+    public void writeText(int row, OutputStream out) throws IOException {
+        out.write(hex(row));
+    }
+
+    @Override
+    public String getString(int row) {
+        return isNull(row) ? null : new String(hex(row), StandardCharsets.US_ASCII);
+    }
+
+    private byte[] hex(int row) {
+        byte[] data = data();
+        int start = start(row);
+        int length = length(row);
+        byte[] text = new byte[2 + length * 2];
+        text[0] = '\\';
+        text[1] = 'x';
+        for (int i = 0; i < length; i++) {
+            int b = data[start + i] & 0xFF;
+            text[2 + i * 2] = HEX[b >>> 4];
+            text[3 + i * 2] = HEX[b & 0x0F];
+        }
+        return text;
+    }
+}
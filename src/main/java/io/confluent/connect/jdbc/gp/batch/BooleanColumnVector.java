@@ -0,0 +1,69 @@
+package io.confluent.connect.jdbc.gp.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Column vector for BOOLEAN values, packed into a bitmap.
+ */
+public class BooleanColumnVector extends ColumnVector {
+
+    private static final byte[] TRUE = "true".getBytes();
+    private static final byte[] FALSE = "false".getBytes();
+
+    private long[] bits;
+
+    public BooleanColumnVector(int capacity) {
+        super(capacity);
+        this.bits = new long[(this.capacity + 63) >>> 6];
+    }
+
+    @Override
+    public Type type() {
+        return Type.BOOLEAN;
+    }
+
+    public void append(boolean value) {
+        ensureCapacity(size + 1);
+        if (value) {
+            bits[size >>> 6] |= 1L << size;
+        } else {
+            bits[size >>> 6] &= ~(1L << size);
+        }
+        size++;
+    }
+
+    @Override
+    public void appendObject(Object value) {
+        if (value == null) {
+            appendNull();
+        } else {
+            append((Boolean) value);
+        }
+    }
+
+    public boolean getBoolean(int row) {
+        return (bits[row >>> 6] & (1L << row)) != 0;
+    }
+
+    @Override
+    public void writeText(int row, OutputStream out) throws IOException {
+        out.write(getBoolean(row) ? TRUE : FALSE);
+    }
+
+    @Override
+    public String getString(int row) {
+        return isNull(row) ? null : Boolean.toString(getBoolean(row));
+    }
+
+    @Override
+    protected int valueHash(int row) {
+        return Boolean.hashCode(getBoolean(row));
+    }
+
+    @Override
+    protected void growValues(int newCapacity) {
+        bits = Arrays.copyOf(bits, (newCapacity + 63) >>> 6);
+    }
+}
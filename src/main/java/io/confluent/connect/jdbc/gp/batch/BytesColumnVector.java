@@ -0,0 +1,141 @@
+package io.confluent.connect.jdbc.gp.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Column vector for text. Every cell is a slice of one shared UTF-8 byte arena, so strings are
+ * encoded once when they are appended and never held as {@link String} objects.
+ */
+public class BytesColumnVector extends ColumnVector {
+
+    private static final int INITIAL_BYTES_PER_VALUE = 16;
+
+    private int[] offsets;
+    private byte[] data;
+
+    public BytesColumnVector(int capacity) {
+        super(capacity);
+        this.offsets = new int[this.capacity + 1];
+        this.data = new byte[this.capacity * INITIAL_BYTES_PER_VALUE];
+    }
+
+    @Override
+    public Type type() {
+        return Type.BYTES;
+    }
+
+    @Override
+    public void appendNull() {
+        super.appendNull();
+        offsets[size] = offsets[size - 1];
+    }
+
+    public void append(byte[] value, int offset, int length) {
+        ensureCapacity(size + 1);
+        int start = offsets[size];
+        ensureDataCapacity(start + length);
+        System.arraycopy(value, offset, data, start, length);
+        offsets[++size] = start + length;
+    }
+
+    /**
+     * Appends the UTF-8 encoding of the value straight into the arena. Unpaired surrogates are
+     * replaced by '?', the same as {@link String#getBytes(java.nio.charset.Charset)}.
+     */
+    public void appendUtf8(CharSequence value) {
+        ensureCapacity(size + 1);
+        int length = value.length();
+        int pos = offsets[size];
+        ensureDataCapacity(pos + length * 3);
+        byte[] bytes = data;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[pos++] = (byte) (0xC0 | (c >> 6));
+                bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                bytes[pos++] = '?';
+            } else {
+                bytes[pos++] = (byte) (0xE0 | (c >> 12));
+                bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        offsets[++size] = pos;
+    }
+
+    @Override
+    public void appendObject(Object value) {
+        if (value == null) {
+            appendNull();
+        } else if (value instanceof CharSequence) {
+            appendUtf8((CharSequence) value);
+        } else {
+            appendUtf8(String.valueOf(value));
+        }
+    }
+
+    public int start(int row) {
+        return offsets[row];
+    }
+
+    public int length(int row) {
+        return offsets[row + 1] - offsets[row];
+    }
+
+    /**
+     * The backing arena. Only the ranges described by {@link #start(int)} and {@link #length(int)}
+     * hold data, and the array may be replaced when the vector grows.
+     */
+    public byte[] data() {
+        return data;
+    }
+
+    @Override
+    public void writeText(int row, OutputStream out) throws IOException {
+        out.write(data, offsets[row], length(row));
+    }
+
+    @Override
+    public String getString(int row) {
+        return isNull(row) ? null : new String(data, offsets[row], length(row), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        offsets[0] = 0;
+    }
+
+    @Override
+    protected int valueHash(int row) {
+        int hash = 1;
+        for (int i = offsets[row], end = offsets[row + 1]; i < end; i++) {
+            hash = 31 * hash + data[i];
+        }
+        return hash;
+    }
+
+    @Override
+    protected void growValues(int newCapacity) {
+        offsets = Arrays.copyOf(offsets, newCapacity + 1);
+    }
+
+    private void ensureDataCapacity(int required) {
+        if (required > data.length) {
+            data = Arrays.copyOf(data, Math.max(required, data.length + (data.length >> 1)));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.confluent.connect.jdbc.gp.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * One column of a {@link ColumnarBatch}. Values are held in primitive arrays and nulls in a
+ * bitmap, so appending a cell never allocates an object.
+ */
+public abstract class ColumnVector {
+
+    public enum Type {
+        LONG, FLOAT, DOUBLE, BOOLEAN, BYTES, BINARY
+    }
+
+    private long[] nulls;
+    protected int capacity;
+    protected int size;
+
+    protected ColumnVector(int capacity) {
+        this.capacity = Math.max(capacity, 1);
+        this.nulls = new long[wordsFor(this.capacity)];
+    }
+
+    public abstract Type type();
+
+    /**
+     * Appends a value taken from a Connect struct. Implementations convert the value to their
+     * primitive representation; {@code null} is recorded as a null cell.
+     */
+    public abstract void appendObject(Object value);
+
+    /**
+     * Writes the text form of the given row, as it would appear in a delimited file. The caller is
+     * responsible for handling null cells.
+     */
+    public abstract void writeText(int row, OutputStream out) throws IOException;
+
+    /**
+     * Returns the text form of the given row, or {@code null} for a null cell.
+     */
+    public abstract String getString(int row);
+
+    /**
+     * Returns a hash of the value in the given row, 0 for a null cell. Equal values of a column
+     * hash alike, so rows can be partitioned by key without materializing the values.
+     */
+    public int hash(int row) {
+        return isNull(row) ? 0 : valueHash(row);
+    }
+
+    protected abstract int valueHash(int row);
+
+    protected abstract void growValues(int newCapacity);
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int row) {
+        return (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    public void appendNull() {
+        ensureCapacity(size + 1);
+        nulls[size >>> 6] |= 1L << size;
+        size++;
+    }
+
+    public void reset() {
+        Arrays.fill(nulls, 0, Math.min(nulls.length, wordsFor(size)), 0L);
+        size = 0;
+    }
+
+    protected void ensureCapacity(int required) {
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(required, capacity + (capacity >> 1));
+        nulls = Arrays.copyOf(nulls, wordsFor(newCapacity));
+        growValues(newCapacity);
+        capacity = newCapacity;
+    }
+
+    private static int wordsFor(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    static void writeAscii(String value, OutputStream out) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            out.write(value.charAt(i));
+        }
+    }
+}
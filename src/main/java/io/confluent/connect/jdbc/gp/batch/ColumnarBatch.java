@@ -0,0 +1,139 @@
+package io.confluent.connect.jdbc.gp.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Column oriented buffer for the rows of one Greenplum load. Each column is a typed
+ * {@link ColumnVector}, and the transports encode rows straight from the vectors with a
+ * {@link DelimitedRowEncoder}.
+ */
+public class ColumnarBatch {
+
+    private final List<String> columnNames;
+    private final ColumnVector[] columns;
+    private int rowCount;
+
+    public ColumnarBatch(List<String> columnNames, List<ColumnVector.Type> types, int capacity) {
+        if (columnNames.size() != types.size()) {
+            throw new IllegalArgumentException("Expected a type for each of the " + columnNames.size() + " columns, got " + types.size());
+        }
+        this.columnNames = Collections.unmodifiableList(new ArrayList<>(columnNames));
+        this.columns = new ColumnVector[types.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = newVector(types.get(i), capacity);
+        }
+    }
+
+    public static ColumnVector newVector(ColumnVector.Type type, int capacity) {
+        switch (type) {
+            case LONG:
+                return new LongColumnVector(capacity);
+            case FLOAT:
+                return new DoubleColumnVector(capacity, true);
+            case DOUBLE:
+                return new DoubleColumnVector(capacity, false);
+            case BOOLEAN:
+                return new BooleanColumnVector(capacity);
+            case BINARY:
+                return new BinaryColumnVector(capacity);
+            default:
+                return new BytesColumnVector(capacity);
+        }
+    }
+
+    public List<String> columnNames() {
+        return columnNames;
+    }
+
+    public int columnCount() {
+        return columns.length;
+    }
+
+    public ColumnVector column(int index) {
+        return columns[index];
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Marks the current row as complete. Every column must have received exactly one value.
+     */
+    public void endRow() {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].size() != rowCount + 1) {
+                throw new IllegalStateException("Column " + columnNames.get(i) + " has " + columns[i].size() + " values, expected " + (rowCount + 1));
+            }
+        }
+        rowCount++;
+    }
+
+    public void reset() {
+        for (ColumnVector column : columns) {
+            column.reset();
+        }
+        rowCount = 0;
+    }
+
+    /**
+     * Splits the rows into {@code partitions} groups of row indexes, keeping the row order within a
+     * group. Rows with equal values in the {@code keyColumns} always land in the same group; without
+     * key columns the rows are split into contiguous ranges of similar size.
+     */
+    public int[][] partitionRows(int[] keyColumns, int partitions) {
+        int[] partitionOf = new int[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            int partition;
+            if (keyColumns.length == 0) {
+                partition = (int) ((long) row * partitions / rowCount);
+            } else {
+                int hash = 1;
+                for (int column : keyColumns) {
+                    hash = 31 * hash + columns[column].hash(row);
+                }
+                // spread the low bits, String-like hashes of short keys cluster otherwise
+                hash ^= hash >>> 16;
+                partition = Math.floorMod(hash, partitions);
+            }
+            partitionOf[row] = partition;
+        }
+        return groupRows(partitionOf, partitions);
+    }
+
+    /**
+     * Groups row indexes by the partition {@code partitionOf} assigns them, keeping the row order
+     * within a group.
+     */
+    public static int[][] groupRows(int[] partitionOf, int partitions) {
+        int[] sizes = new int[partitions];
+        for (int partition : partitionOf) {
+            sizes[partition]++;
+        }
+        int[][] rows = new int[partitions][];
+        for (int i = 0; i < partitions; i++) {
+            rows[i] = new int[sizes[i]];
+            sizes[i] = 0;
+        }
+        for (int row = 0; row < partitionOf.length; row++) {
+            int partition = partitionOf[row];
+            rows[partition][sizes[partition]++] = row;
+        }
+        return rows;
+    }
+
+    /**
+     * Copies the text form of one row into {@code reuse}, substituting {@code nullValue} for null
+     * cells. Meant for logging, the load paths encode from the vectors.
+     */
+    public String[] rowValues(int row, String nullValue, String[] reuse) {
+        String[] values = reuse != null && reuse.length == columns.length ? reuse : new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            String value = columns[i].getString(row);
+            values[i] = value == null ? nullValue : value;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,192 @@
+package io.confluent.connect.jdbc.gp.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Encodes {@link ColumnarBatch} rows as Greenplum CSV or TEXT lines straight into an output
+ * stream. Text cells are written from the batch arena and only copied through an escape pass when
+ * they contain a delimiter, quote, escape or line break.
+ *
+ * <p>The delimiter and quote must be single ASCII characters, as Greenplum requires, so they can
+ * never occur inside a multi-byte UTF-8 sequence.
+ */
+public final class DelimitedRowEncoder implements RowEncoder {
+
+    public enum Format {
+        CSV, TEXT
+    }
+
+    private static final byte BACKSLASH = '\\';
+
+    private final Format format;
+    private final byte delimiter;
+    private final byte quote;
+    private final byte[] nullValue;
+    private final byte[] lineSeparator;
+    private final boolean plainNumbers;
+
+    private DelimitedRowEncoder(Format format, String delimiter, String quote, String nullString, String lineSeparator) {
+        this.format = format;
+        this.delimiter = asciiByte(delimiter, "delimiter");
+        this.quote = format == Format.CSV ? asciiByte(quote, "quote") : BACKSLASH;
+        this.nullValue = nullString == null ? new byte[0] : nullString.getBytes(StandardCharsets.UTF_8);
+        this.lineSeparator = lineSeparator.getBytes(StandardCharsets.UTF_8);
+        // numbers and booleans are written as is unless the delimiter or quote could appear in them
+        this.plainNumbers = !usedInNumbers((char) this.delimiter) && !usedInNumbers((char) this.quote);
+    }
+
+    /**
+     * CSV as read by Greenplum with {@code FORMAT 'CSV'}: values holding the delimiter, the quote or a
+     * line break are quoted, and quotes are doubled.
+     */
+    public static DelimitedRowEncoder csv(String delimiter, String quote, String nullString, String lineSeparator) {
+        return new DelimitedRowEncoder(Format.CSV, delimiter, quote == null || quote.isEmpty() ? "\"" : quote, nullString, lineSeparator);
+    }
+
+    /**
+     * TEXT as read by Greenplum with {@code FORMAT 'TEXT'}: backslash, delimiter and line breaks are
+     * backslash escaped. Nulls default to {@code \N}.
+     */
+    public static DelimitedRowEncoder text(String delimiter, String nullString, String lineSeparator) {
+        return new DelimitedRowEncoder(Format.TEXT, delimiter, null, nullString == null ? "\\N" : nullString, lineSeparator);
+    }
+
+    public Format format() {
+        return format;
+    }
+
+    public void writeHeader(List<String> columnNames, OutputStream out) throws IOException {
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (i > 0) {
+                out.write(delimiter);
+            }
+            byte[] name = columnNames.get(i).getBytes(StandardCharsets.UTF_8);
+            writeValue(name, 0, name.length, out);
+        }
+        out.write(lineSeparator);
+    }
+
+    @Override
+    public void writeRow(ColumnarBatch batch, int row, OutputStream out) throws IOException {
+        int columns = batch.columnCount();
+        for (int i = 0; i < columns; i++) {
+            if (i > 0) {
+                out.write(delimiter);
+            }
+            writeCell(batch.column(i), row, out);
+        }
+        out.write(lineSeparator);
+    }
+
+    public void writeRows(ColumnarBatch batch, int fromRow, int toRow, OutputStream out) throws IOException {
+        for (int row = fromRow; row < toRow; row++) {
+            writeRow(batch, row, out);
+        }
+    }
+
+    private void writeCell(ColumnVector column, int row, OutputStream out) throws IOException {
+        if (column.isNull(row)) {
+            out.write(nullValue);
+        } else if (column instanceof BinaryColumnVector) {
+            byte[] value = column.getString(row).getBytes(StandardCharsets.US_ASCII);
+            writeValue(value, 0, value.length, out);
+        } else if (column instanceof BytesColumnVector) {
+            BytesColumnVector bytes = (BytesColumnVector) column;
+            writeValue(bytes.data(), bytes.start(row), bytes.length(row), out);
+        } else if (plainNumbers) {
+            column.writeText(row, out);
+        } else {
+            byte[] value = column.getString(row).getBytes(StandardCharsets.UTF_8);
+            writeValue(value, 0, value.length, out);
+        }
+    }
+
+    private void writeValue(byte[] data, int offset, int length, OutputStream out) throws IOException {
+        if (format == Format.CSV) {
+            if (needsQuoting(data, offset, length)) {
+                writeQuoted(data, offset, length, out);
+            } else {
+                out.write(data, offset, length);
+            }
+        } else {
+            writeTextEscaped(data, offset, length, out);
+        }
+    }
+
+    private boolean needsQuoting(byte[] data, int offset, int length) {
+        // an unquoted empty string or null marker would be read back as null
+        if (length == nullValue.length && regionEquals(data, offset, nullValue)) {
+            return true;
+        }
+        // a lone \. is the end of data marker
+        if (length == 2 && data[offset] == BACKSLASH && data[offset + 1] == '.') {
+            return true;
+        }
+        for (int i = offset, end = offset + length; i < end; i++) {
+            byte b = data[i];
+            if (b == delimiter || b == quote || b == '\n' || b == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeQuoted(byte[] data, int offset, int length, OutputStream out) throws IOException {
+        out.write(quote);
+        int runStart = offset;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            if (data[i] == quote) {
+                out.write(data, runStart, i + 1 - runStart);
+                out.write(quote);
+                runStart = i + 1;
+            }
+        }
+        out.write(data, runStart, offset + length - runStart);
+        out.write(quote);
+    }
+
+    private void writeTextEscaped(byte[] data, int offset, int length, OutputStream out) throws IOException {
+        int runStart = offset;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            byte b = data[i];
+            byte escaped;
+            if (b == BACKSLASH || b == delimiter) {
+                escaped = b;
+            } else if (b == '\n') {
+                escaped = 'n';
+            } else if (b == '\r') {
+                escaped = 'r';
+            } else {
+                continue;
+            }
+            out.write(data, runStart, i - runStart);
+            out.write(BACKSLASH);
+            out.write(escaped);
+            runStart = i + 1;
+        }
+        out.write(data, runStart, offset + length - runStart);
+    }
+
+    private static boolean regionEquals(byte[] data, int offset, byte[] expected) {
+        for (int i = 0; i < expected.length; i++) {
+            if (data[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean usedInNumbers(char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '+';
+    }
+
+    private static byte asciiByte(String value, String name) {
+        if (value == null || value.length() != 1 || value.charAt(0) > 0x7F) {
+            throw new IllegalArgumentException("The " + name + " must be a single ASCII character, got '" + value + "'");
+        }
+        return (byte) value.charAt(0);
+    }
+}
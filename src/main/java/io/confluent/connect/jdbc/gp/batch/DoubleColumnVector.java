@@ -0,0 +1,67 @@
+package io.confluent.connect.jdbc.gp.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Column vector for FLOAT32 and FLOAT64 values. Single precision values are stored widened but
+ * rendered with {@link Float#toString(float)} so their text form is unchanged.
+ */
+public class DoubleColumnVector extends ColumnVector {
+
+    private final boolean singlePrecision;
+    private double[] values;
+
+    public DoubleColumnVector(int capacity, boolean singlePrecision) {
+        super(capacity);
+        this.singlePrecision = singlePrecision;
+        this.values = new double[this.capacity];
+    }
+
+    @Override
+    public Type type() {
+        return singlePrecision ? Type.FLOAT : Type.DOUBLE;
+    }
+
+    public void append(double value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    @Override
+    public void appendObject(Object value) {
+        if (value == null) {
+            appendNull();
+        } else {
+            append(((Number) value).doubleValue());
+        }
+    }
+
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    public void writeText(int row, OutputStream out) throws IOException {
+        writeAscii(getString(row), out);
+    }
+
+    @Override
+    public String getString(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        return singlePrecision ? Float.toString((float) values[row]) : Double.toString(values[row]);
+    }
+
+    @Override
+    protected int valueHash(int row) {
+        return Double.hashCode(values[row]);
+    }
+
+    @Override
+    protected void growValues(int newCapacity) {
+        values = Arrays.copyOf(values, newCapacity);
+    }
+}
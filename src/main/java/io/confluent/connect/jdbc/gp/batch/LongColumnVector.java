@@ -0,0 +1,82 @@
+package io.confluent.connect.jdbc.gp.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Column vector for the Connect integer types (INT8 to INT64).
+ */
+public class LongColumnVector extends ColumnVector {
+
+    private static final byte[] MIN_VALUE = Long.toString(Long.MIN_VALUE).getBytes();
+
+    private long[] values;
+
+    public LongColumnVector(int capacity) {
+        super(capacity);
+        this.values = new long[this.capacity];
+    }
+
+    @Override
+    public Type type() {
+        return Type.LONG;
+    }
+
+    public void append(long value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    @Override
+    public void appendObject(Object value) {
+        if (value == null) {
+            appendNull();
+        } else {
+            append(((Number) value).longValue());
+        }
+    }
+
+    public long getLong(int row) {
+        return values[row];
+    }
+
+    @Override
+    public void writeText(int row, OutputStream out) throws IOException {
+        writeLong(values[row], out);
+    }
+
+    @Override
+    public String getString(int row) {
+        return isNull(row) ? null : Long.toString(values[row]);
+    }
+
+    @Override
+    protected int valueHash(int row) {
+        return Long.hashCode(values[row]);
+    }
+
+    @Override
+    protected void growValues(int newCapacity) {
+        values = Arrays.copyOf(values, newCapacity);
+    }
+
+    static void writeLong(long value, OutputStream out) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            out.write(MIN_VALUE);
+            return;
+        }
+        if (value < 0) {
+            out.write('-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            out.write((int) ('0' + (value / divisor) % 10));
+            divisor /= 10;
+        }
+    }
+}
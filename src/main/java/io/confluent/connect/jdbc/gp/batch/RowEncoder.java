@@ -0,0 +1,12 @@
+package io.confluent.connect.jdbc.gp.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes single rows of a {@link ColumnarBatch} in the wire format of a load path.
+ */
+public interface RowEncoder {
+
+    void writeRow(ColumnarBatch batch, int row, OutputStream out) throws IOException;
+}
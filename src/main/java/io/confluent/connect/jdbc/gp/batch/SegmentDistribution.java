@@ -0,0 +1,216 @@
+package io.confluent.connect.jdbc.gp.batch;
+
+import io.confluent.connect.jdbc.sink.metadata.DistributionPolicy;
+
+import java.util.List;
+
+/**
+ * Computes the Greenplum segment a row of a {@link ColumnarBatch} is stored on, the same way
+ * Greenplum 6 and 7 hash the distribution key: every key column is hashed with the hash function
+ * of its operator class, the column hashes are combined by rotating and xor-ing, and the result is
+ * reduced to a segment with jump consistent hashing.
+ *
+ * <p>Only the default operator classes of the integer types ({@code int2_ops}, {@code int4_ops},
+ * {@code int8_ops}) and of text ({@code text_ops}, also used by varchar) are supported, over
+ * columns held in {@link LongColumnVector}s and {@link BytesColumnVector}s respectively. Text is
+ * hashed as UTF-8, so the database has to use that encoding and a deterministic collation.
+ */
+public class SegmentDistribution {
+
+    private enum KeyHash {
+        INT4, INT8, TEXT
+    }
+
+    private final int[] keyColumns;
+    private final KeyHash[] keyHashes;
+    private final int numSegments;
+
+    private SegmentDistribution(int[] keyColumns, KeyHash[] keyHashes, int numSegments) {
+        this.keyColumns = keyColumns;
+        this.keyHashes = keyHashes;
+        this.numSegments = numSegments;
+    }
+
+    /**
+     * Matches a distribution policy to the columns of a batch.
+     *
+     * @return the distribution, or null when a key column is not in the batch or cannot be hashed
+     */
+    public static SegmentDistribution of(DistributionPolicy policy, ColumnarBatch batch) {
+        if (policy == null || policy.getKeyColumns().isEmpty() || policy.getNumSegments() < 1) {
+            return null;
+        }
+        List<DistributionPolicy.KeyColumn> keys = policy.getKeyColumns();
+        int[] keyColumns = new int[keys.size()];
+        KeyHash[] keyHashes = new KeyHash[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            int column = columnIndex(batch.columnNames(), keys.get(i).getName());
+            if (column < 0) {
+                return null;
+            }
+            KeyHash keyHash = keyHash(keys.get(i).getOpclass(), batch.column(column).type());
+            if (keyHash == null) {
+                return null;
+            }
+            keyColumns[i] = column;
+            keyHashes[i] = keyHash;
+        }
+        return new SegmentDistribution(keyColumns, keyHashes, policy.getNumSegments());
+    }
+
+    private static int columnIndex(List<String> columnNames, String name) {
+        int index = columnNames.indexOf(name);
+        if (index < 0) {
+            for (int i = 0; i < columnNames.size(); i++) {
+                if (columnNames.get(i).equalsIgnoreCase(name)) {
+                    return i;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static KeyHash keyHash(String opclass, ColumnVector.Type type) {
+        if (opclass == null) {
+            return null;
+        }
+        switch (opclass) {
+            case "int2_ops":
+            case "int4_ops":
+                return type == ColumnVector.Type.LONG ? KeyHash.INT4 : null;
+            case "int8_ops":
+                return type == ColumnVector.Type.LONG ? KeyHash.INT8 : null;
+            case "text_ops":
+                return type == ColumnVector.Type.BYTES ? KeyHash.TEXT : null;
+            default:
+                return null;
+        }
+    }
+
+    public int numSegments() {
+        return numSegments;
+    }
+
+    public int segmentOf(ColumnarBatch batch, int row) {
+        int hash = 0;
+        for (int i = 0; i < keyColumns.length; i++) {
+            hash = Integer.rotateLeft(hash, 1);
+            ColumnVector column = batch.column(keyColumns[i]);
+            if (!column.isNull(row)) {
+                hash ^= keyHash(keyHashes[i], column, row);
+            }
+        }
+        return jumpConsistentHash(hash, numSegments);
+    }
+
+    /**
+     * Groups the rows of a batch by the segment that stores them.
+     */
+    public int[][] segmentRows(ColumnarBatch batch) {
+        int[] segmentOf = new int[batch.rowCount()];
+        for (int row = 0; row < segmentOf.length; row++) {
+            segmentOf[row] = segmentOf(batch, row);
+        }
+        return ColumnarBatch.groupRows(segmentOf, numSegments);
+    }
+
+    private static int keyHash(KeyHash keyHash, ColumnVector column, int row) {
+        switch (keyHash) {
+            case INT4:
+                return hashInt4((int) ((LongColumnVector) column).getLong(row));
+            case INT8:
+                return hashInt8(((LongColumnVector) column).getLong(row));
+            default:
+                BytesColumnVector text = (BytesColumnVector) column;
+                return hashBytes(text.data(), text.start(row), text.length(row));
+        }
+    }
+
+    static int hashInt4(int value) {
+        int a = 0x9e3779b9 + 4 + 3923095;
+        int b = a;
+        int c = a;
+        a += value;
+        return finalMix(a, b, c);
+    }
+
+    static int hashInt8(long value) {
+        int lohalf = (int) value;
+        int hihalf = (int) (value >> 32);
+        lohalf ^= value >= 0 ? hihalf : ~hihalf;
+        return hashInt4(lohalf);
+    }
+
+    /**
+     * Bob Jenkins' lookup3 hash as PostgreSQL's {@code hash_any} computes it on little-endian
+     * machines.
+     */
+    static int hashBytes(byte[] data, int offset, int length) {
+        int a = 0x9e3779b9 + length + 3923095;
+        int b = a;
+        int c = a;
+        int k = offset;
+        int len = length;
+        while (len >= 12) {
+            a += word(data, k);
+            b += word(data, k + 4);
+            c += word(data, k + 8);
+            // mix
+            a -= c; a ^= Integer.rotateLeft(c, 4); c += b;
+            b -= a; b ^= Integer.rotateLeft(a, 6); a += c;
+            c -= b; c ^= Integer.rotateLeft(b, 8); b += a;
+            a -= c; a ^= Integer.rotateLeft(c, 16); c += b;
+            b -= a; b ^= Integer.rotateLeft(a, 19); a += c;
+            c -= b; c ^= Integer.rotateLeft(b, 4); b += a;
+            k += 12;
+            len -= 12;
+        }
+        // the lowest byte of c is reserved for the length
+        switch (len) {
+            case 11: c += (data[k + 10] & 0xff) << 24;
+            case 10: c += (data[k + 9] & 0xff) << 16;
+            case 9: c += (data[k + 8] & 0xff) << 8;
+            case 8: b += (data[k + 7] & 0xff) << 24;
+            case 7: b += (data[k + 6] & 0xff) << 16;
+            case 6: b += (data[k + 5] & 0xff) << 8;
+            case 5: b += data[k + 4] & 0xff;
+            case 4: a += (data[k + 3] & 0xff) << 24;
+            case 3: a += (data[k + 2] & 0xff) << 16;
+            case 2: a += (data[k + 1] & 0xff) << 8;
+            case 1: a += data[k] & 0xff;
+            default:
+                break;
+        }
+        return finalMix(a, b, c);
+    }
+
+    private static int word(byte[] data, int k) {
+        return (data[k] & 0xff) | (data[k + 1] & 0xff) << 8 | (data[k + 2] & 0xff) << 16 | (data[k + 3] & 0xff) << 24;
+    }
+
+    private static int finalMix(int a, int b, int c) {
+        c ^= b; c -= Integer.rotateLeft(b, 14);
+        a ^= c; a -= Integer.rotateLeft(c, 11);
+        b ^= a; b -= Integer.rotateLeft(a, 25);
+        c ^= b; c -= Integer.rotateLeft(b, 16);
+        a ^= c; a -= Integer.rotateLeft(c, 4);
+        b ^= a; b -= Integer.rotateLeft(a, 14);
+        c ^= b; c -= Integer.rotateLeft(b, 24);
+        return c;
+    }
+
+    /**
+     * Lamping and Veach's jump consistent hash of an unsigned 32 bit hash.
+     */
+    static int jumpConsistentHash(int hash, int buckets) {
+        long key = hash & 0xffffffffL;
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
@@ -2,6 +2,9 @@ package io.confluent.connect.jdbc.gp.gpfdist;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
 import io.confluent.connect.jdbc.gp.GpDataIngestionService;
+import io.confluent.connect.jdbc.gp.batch.DelimitedRowEncoder;
+import io.confluent.connect.jdbc.gp.batch.SegmentDistribution;
+import io.confluent.connect.jdbc.gp.gpfdist.framweork.GpfdistBatch;
 import io.confluent.connect.jdbc.gp.gpfdist.framweork.GpfdistSimpleServer;
 import io.confluent.connect.jdbc.gp.gpfdist.framweork.GpfdistSinkConfiguration;
 import io.confluent.connect.jdbc.gp.gpfdist.framweork.support.GreenplumLoad;
@@ -11,6 +14,8 @@ import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
 import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
 import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
 import io.confluent.connect.jdbc.util.TableDefinition;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.errors.RetriableException;
 import org.apache.kafka.connect.sink.SinkRecord;
 
 import org.slf4j.Logger;
@@ -32,6 +37,11 @@ public class GpfdistDataIngestionService extends GpDataIngestionService {
         super(config, dialect, tableName, fieldsMetadata);
     }
 
+    /**
+     * @throws RetriableException when the previous load of the table does not finish in time
+     * @throws ConnectException when the batch could not be loaded, so that its records are not
+     *     committed
+     */
     @Override
     public void ingest(List<SinkRecord> records) {
         super.ingest(records);
@@ -39,24 +49,64 @@ public class GpfdistDataIngestionService extends GpDataIngestionService {
             // convert it as following col1 datatype, col2 datatype, col3 datatype...
             String columnsWithDataType = createColumnNameDataTypeString(",");
             String columns = String.join(",", insertColumnsList); // , added deliberately - don't use config's delimiter
-            String externalTableName = "ext_" + tableName + "_" + UUID.randomUUID().toString().replace("-", "_");
+            // with gp.reuse.table the load service appends a signature of the table definition instead
+            String externalTableName = "ext_" + tableName.replaceAll("[^A-Za-z0-9_]", "_").toLowerCase();
+            if (!config.gpReuseTable) {
+                externalTableName += "_" + UUID.randomUUID().toString().replace("-", "_");
+            }
 
             log.info("Ingesting records into external table " + externalTableName);
             GpfdistSinkConfiguration gpfdistSinkConfiguration =
                     new GpfdistSinkConfiguration(config, externalTableName, tableName, columns, columnsWithDataType, keyColumns, nonKeyColumns, "", emptyList(), emptyList());
 
-            GpfdistSimpleServer.getInstance().setRecords(data);
-            GreenplumLoad gpload = gpfdistSinkConfiguration.greenplumLoad(dialect);
-            gpload.load(getServerContext());
+            DelimitedRowEncoder encoder = DelimitedRowEncoder.csv(String.valueOf(config.getDelimiter()), config.csvQuote, config.nullString, config.dataLineSeparator);
+            SegmentDistribution distribution = null;
+            if (config.gpfdistDistributionAware && tableDefinition != null) {
+                distribution = SegmentDistribution.of(tableDefinition.getDistributionPolicy(), batch);
+                log.debug("Distribution of {}: {}", tableName, distribution != null ? distribution.numSegments() + " segments" : "not used");
+            }
+            try (GpfdistBatch registered = GpfdistSimpleServer.getInstance().register(tableName, batch, encoder, distribution, config.gpfdistRegisterTimeoutMs)) {
+                GreenplumLoad gpload = gpfdistSinkConfiguration.greenplumLoad(dialect);
+                gpload.load(getServerContext(registered.path()));
+                if (!registered.isServed()) {
+                    log.warn("Load of " + tableName + " finished before all rows of " + registered.path() + " were read");
+                }
+            }
 
+        } catch (RetriableException e) {
+            // the previous load of the table still runs, let the task retry the batch later
+            throw e;
         } catch (Exception e) {
-            log.error("Error running gpfdist", e);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Error running gpfdist for {}", tableName, e);
+            throw new ConnectException("Error running gpfdist for " + tableName, e);
         }
     }
 
-    public RuntimeContext getServerContext() {
+    @Override
+    protected JdbcSinkConfig.UpdateMode updateMode() {
+        return updateMode(config);
+    }
+
+    /**
+     * INSERT ... ON CONFLICT fails when two rows of one load share a key, and the rows of the
+     * external table have no order to pick the latest by, so such merges keep the last row per key
+     * unless {@code update.mode} already picks one.
+     */
+    static JdbcSinkConfig.UpdateMode updateMode(JdbcSinkConfig config) {
+        if (config.insertMode == JdbcSinkConfig.InsertMode.MERGE
+                && config.gpMergeStrategy == JdbcSinkConfig.MergeStrategy.ON_CONFLICT
+                && config.updateMode == JdbcSinkConfig.UpdateMode.DEFAULT) {
+            return JdbcSinkConfig.UpdateMode.LAST_ROW_ONLY;
+        }
+        return config.updateMode;
+    }
+
+    public RuntimeContext getServerContext(String path) {
         final RuntimeContext context = new RuntimeContext(
-                NetworkUtils.getGPFDistUri(config.getGpfdistHost(), config.getGpfdistPort()));
+                NetworkUtils.getGPFDistUri(config.getGpfdistHost(), config.getGpfdistPort(), path));
         return context;
     }
 }
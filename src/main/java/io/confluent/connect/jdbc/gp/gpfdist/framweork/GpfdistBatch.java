@@ -0,0 +1,107 @@
+package io.confluent.connect.jdbc.gp.gpfdist.framweork;
+
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.DelimitedRowEncoder;
+import io.confluent.connect.jdbc.gp.batch.SegmentDistribution;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A batch registered with the {@link GpfdistSimpleServer} under the URL path of its target table,
+ * from when it is flushed until its load has finished.
+ *
+ * <p>Each load query reading the path gets its own {@link GpfdistScan}; the batch counts as served
+ * once the segments of one of them have taken every row. Closing the batch removes it from the server, after which
+ * requests for its path fail.
+ *
+ * <p>With the {@link SegmentDistribution} of the target table, scans by as many segments as the
+ * table is distributed over send every segment the rows it stores.
+ */
+public class GpfdistBatch implements AutoCloseable {
+
+    private final String path;
+    private final ColumnarBatch batch;
+    private final DelimitedRowEncoder encoder;
+    private final SegmentDistribution distribution;
+    private final Runnable onClose;
+    private final Map<String, GpfdistScan> scans = new ConcurrentHashMap<>();
+    private final CountDownLatch served = new CountDownLatch(1);
+    private int[][] segmentRows;
+
+    GpfdistBatch(String path, ColumnarBatch batch, DelimitedRowEncoder encoder, Runnable onClose) {
+        this(path, batch, encoder, null, onClose);
+    }
+
+    GpfdistBatch(String path, ColumnarBatch batch, DelimitedRowEncoder encoder, SegmentDistribution distribution, Runnable onClose) {
+        this.path = path;
+        this.batch = batch;
+        this.encoder = encoder;
+        this.distribution = distribution;
+        this.onClose = onClose;
+        if (batch.rowCount() == 0) {
+            served.countDown();
+        }
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public ColumnarBatch batch() {
+        return batch;
+    }
+
+    public DelimitedRowEncoder encoder() {
+        return encoder;
+    }
+
+    /**
+     * Returns the scan of a query, starting it on the first request. Requests without a scan id
+     * each read the whole batch.
+     */
+    GpfdistScan scan(String scanId, int segmentCount) {
+        if (scanId == null) {
+            return new GpfdistScan(batch, 1);
+        }
+        return scans.computeIfAbsent(scanId, id -> {
+            if (distribution != null && distribution.numSegments() == segmentCount) {
+                return new GpfdistScan(batch, segmentRows());
+            }
+            return new GpfdistScan(batch, segmentCount);
+        });
+    }
+
+    private synchronized int[][] segmentRows() {
+        if (segmentRows == null) {
+            segmentRows = distribution.segmentRows(batch);
+        }
+        return segmentRows;
+    }
+
+    void sent(GpfdistScan scan, int rows) {
+        if (scan.sent(rows)) {
+            served.countDown();
+        }
+    }
+
+    public boolean isServed() {
+        return served.getCount() == 0;
+    }
+
+    /**
+     * Waits until the segments of one query have taken every row.
+     *
+     * @return whether the batch was served in time
+     */
+    public boolean awaitServed(long timeout, TimeUnit unit) throws InterruptedException {
+        return served.await(timeout, unit);
+    }
+
+    @Override
+    public void close() {
+        onClose.run();
+    }
+}
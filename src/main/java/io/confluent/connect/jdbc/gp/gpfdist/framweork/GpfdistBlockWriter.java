@@ -0,0 +1,117 @@
+package io.confluent.connect.jdbc.gp.gpfdist.framweork;
+
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.DelimitedRowEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Streams encoded rows to a segment in blocks of about {@code blockBytes}.
+ *
+ * <p>Rows are encoded from the batch into one reused buffer, and a block is sent as soon as it is
+ * full, so a response never holds more than one block and one row in memory and the segment gets
+ * its first block without waiting for the rest. Blocks only ever end after a whole line.
+ */
+public class GpfdistBlockWriter {
+
+    public static final int DEFAULT_BLOCK_BYTES = 64 * 1024;
+
+    private final OutputStream out;
+    private final boolean proto1;
+    private final String fileName;
+    private final int blockBytes;
+    private final BlockBuffer block;
+    private long blockLineNumber;
+    private long nextLineNumber;
+    private long bytes;
+    private long rows;
+
+    public GpfdistBlockWriter(OutputStream out, boolean proto1, String fileName, int blockBytes) {
+        this.out = out;
+        this.proto1 = proto1;
+        this.fileName = fileName;
+        this.blockBytes = Math.max(1, blockBytes);
+        this.block = new BlockBuffer(this.blockBytes);
+    }
+
+    /**
+     * Writes rows {@code fromRow} to {@code toRow} (exclusive), sending blocks as they fill up.
+     */
+    public void writeRows(DelimitedRowEncoder encoder, ColumnarBatch batch, int fromRow, int toRow) throws IOException {
+        for (int row = fromRow; row < toRow; ) {
+            row = writeBlock(encoder, batch, row, toRow);
+        }
+    }
+
+    /**
+     * Writes rows from {@code fromRow} until a block has been sent or {@code toRow} is reached.
+     *
+     * @return the first row not written yet
+     */
+    public int writeBlock(DelimitedRowEncoder encoder, ColumnarBatch batch, int fromRow, int toRow) throws IOException {
+        return writeBlock(encoder, batch, null, fromRow, toRow);
+    }
+
+    /**
+     * Like {@link #writeBlock(DelimitedRowEncoder, ColumnarBatch, int, int)}, but {@code fromRow}
+     * and {@code toRow} are positions in {@code order}, which lists the rows of the batch in the
+     * order they are sent; null sends them as they are. Line numbers follow the positions.
+     */
+    public int writeBlock(DelimitedRowEncoder encoder, ColumnarBatch batch, int[] order, int fromRow, int toRow) throws IOException {
+        if (fromRow + 1 != nextLineNumber) {
+            // a block carries the line number of its first line, so it cannot span a gap
+            flushBlock();
+        }
+        for (int row = fromRow; row < toRow; ) {
+            if (block.size() == 0) {
+                blockLineNumber = row + 1;
+            }
+            encoder.writeRow(batch, order == null ? row : order[row], block);
+            nextLineNumber = row + 2;
+            rows++;
+            row++;
+            if (block.size() >= blockBytes) {
+                flushBlock();
+                return row;
+            }
+        }
+        return toRow;
+    }
+
+    /**
+     * Sends the last block and the end of the data.
+     */
+    public void finish() throws IOException {
+        flushBlock();
+        GpfdistProtocol.writeEnd(out, proto1, fileName, bytes, rows + 1);
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    private void flushBlock() throws IOException {
+        if (block.size() == 0) {
+            return;
+        }
+        GpfdistProtocol.writeBlock(out, proto1, fileName, bytes, blockLineNumber, block.array(), block.size());
+        bytes += block.size();
+        block.reset();
+    }
+
+    private static final class BlockBuffer extends ByteArrayOutputStream {
+        BlockBuffer(int size) {
+            super(size);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.confluent.connect.jdbc.gp.gpfdist.framweork;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request headers and response framing of the gpfdist protocol as spoken by Greenplum segments.
+ *
+ * <p>Protocol 0 is the plain data, ended by the end of the response. With protocol 1, which
+ * segments ask for through {@code X-GP-PROTO: 1}, every block of data is preceded by a header
+ * carrying the file name ({@code F}), byte offset ({@code O}), line number ({@code L}) and data
+ * length ({@code D}); a block with no data marks the end of the data.
+ */
+public final class GpfdistProtocol {
+
+    public static final String SEGMENT_ID = "X-GP-SEGMENT-ID";
+    public static final String SEGMENT_COUNT = "X-GP-SEGMENT-COUNT";
+    public static final String PROTO = "X-GP-PROTO";
+    public static final String XID = "X-GP-XID";
+    public static final String CID = "X-GP-CID";
+    public static final String SN = "X-GP-SN";
+
+    private GpfdistProtocol() {
+    }
+
+    /**
+     * Identifies the query a segment request belongs to, or returns null when the request does
+     * not carry the transaction, command and scan ids, e.g. when it does not come from a segment.
+     * Header names are looked up as given, so {@code requestHeaders} should ignore their case.
+     */
+    public static String scanId(Map<String, String> requestHeaders) {
+        String xid = requestHeaders.get(XID);
+        String cid = requestHeaders.get(CID);
+        String sn = requestHeaders.get(SN);
+        if (xid == null || cid == null || sn == null) {
+            return null;
+        }
+        return xid + ":" + cid + ":" + sn;
+    }
+
+    public static int intHeader(Map<String, String> requestHeaders, String name, int defaultValue) {
+        String value = requestHeaders.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public static boolean isProto1(Map<String, String> requestHeaders) {
+        return intHeader(requestHeaders, PROTO, 0) == 1;
+    }
+
+    /**
+     * Headers of a data response, apart from those of the transfer itself.
+     */
+    public static Map<String, String> responseHeaders(boolean proto1) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", "text/plain");
+        headers.put("Expires", "0");
+        headers.put("X-GPFDIST-VERSION", "1.0.0");
+        if (proto1) {
+            headers.put(PROTO, "1");
+        }
+        headers.put("Cache-Control", "no-cache");
+        return headers;
+    }
+
+    /**
+     * Writes one block of data. With protocol 1 the block header goes first; {@code offset} is the
+     * byte offset of the block in the response and {@code lineNumber} the number of its first line.
+     */
+    public static void writeBlock(OutputStream out, boolean proto1, String fileName, long offset, long lineNumber, byte[] data, int length) throws IOException {
+        if (proto1) {
+            writeHeader(out, fileName, offset, lineNumber, length);
+        }
+        out.write(data, 0, length);
+    }
+
+    /**
+     * Signals the end of the data. Only protocol 1 has a marker; protocol 0 ends with the response.
+     */
+    public static void writeEnd(OutputStream out, boolean proto1, String fileName, long offset, long lineNumber) throws IOException {
+        if (proto1) {
+            writeHeader(out, fileName, offset, lineNumber, 0);
+        }
+        out.flush();
+    }
+
+    private static void writeHeader(OutputStream out, String fileName, long offset, long lineNumber, int length) throws IOException {
+        byte[] name = fileName.getBytes(StandardCharsets.UTF_8);
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeByte('F');
+        header.writeInt(name.length);
+        header.write(name);
+        header.writeByte('O');
+        header.writeInt(8);
+        header.writeLong(offset);
+        header.writeByte('L');
+        header.writeInt(8);
+        header.writeLong(lineNumber);
+        header.writeByte('D');
+        header.writeInt(length);
+    }
+}
@@ -0,0 +1,73 @@
+package io.confluent.connect.jdbc.gp.gpfdist.framweork;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * The response to one segment request, produced a block at a time so that server engines can
+ * interleave many responses and only produce the next block once the previous one has been sent.
+ */
+public class GpfdistResponse {
+
+    private final GpfdistBatch registered;
+    private final GpfdistScan scan;
+    private final int segmentId;
+    private final boolean proto1;
+    private final GpfdistBlockWriter writer;
+    private int row;
+    private int endRow;
+    private boolean finished;
+
+    GpfdistResponse(GpfdistBatch registered, GpfdistScan scan, int segmentId, boolean proto1, String fileName, OutputStream body) {
+        this.registered = registered;
+        this.scan = scan;
+        this.segmentId = segmentId;
+        this.proto1 = proto1;
+        this.writer = new GpfdistBlockWriter(body, proto1, fileName, GpfdistBlockWriter.DEFAULT_BLOCK_BYTES);
+    }
+
+    public Map<String, String> headers() {
+        return GpfdistProtocol.responseHeaders(proto1);
+    }
+
+    /**
+     * Writes the next block to the body, or the end of the data once every block of the scan has
+     * been claimed.
+     *
+     * @return false once the end of the data has been written
+     */
+    public boolean writeNext() throws IOException {
+        if (finished) {
+            return false;
+        }
+        long sentBytes = writer.bytes();
+        while (writer.bytes() == sentBytes) {
+            if (row == endRow) {
+                int block = scan.claim(segmentId);
+                if (block < 0) {
+                    writer.finish();
+                    finished = true;
+                    return false;
+                }
+                row = scan.firstRow(block);
+                endRow = scan.endRow(block);
+                registered.sent(scan, endRow - row);
+            }
+            row = writer.writeBlock(registered.encoder(), scan.batch(), scan.order(), row, endRow);
+        }
+        return true;
+    }
+
+    public int segmentId() {
+        return segmentId;
+    }
+
+    public long rows() {
+        return writer.rows();
+    }
+
+    public long bytes() {
+        return writer.bytes();
+    }
+}
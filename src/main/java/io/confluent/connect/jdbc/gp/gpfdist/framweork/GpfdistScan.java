@@ -0,0 +1,162 @@
+package io.confluent.connect.jdbc.gp.gpfdist.framweork;
+
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One read of a batch by the segments of a Greenplum query.
+ *
+ * <p>The rows are cut into blocks that the segments claim while they stream, so that every row is
+ * sent exactly once however many segments connect. A segment first takes the blocks it owns, which
+ * spreads the batch evenly when all segments pull at once, and then helps with the blocks of
+ * segments that are slower or never connect, for example when {@code gp_external_max_segs} is
+ * lower than the number of segments. Thread safe.
+ *
+ * <p>By default block {@code b} holds consecutive rows and belongs to the segment with
+ * {@code X-GP-SEGMENT-ID} {@code b % segmentCount}. A scan started with the rows of every segment
+ * sends the rows in that order instead, and a segment owns the blocks of its own rows, so that rows
+ * arrive on the segment that stores them and Greenplum does not have to move them on. Block
+ * bounds are then positions in that order, see {@link #order()}.
+ */
+public class GpfdistScan {
+
+    static final int MAX_ROWS_PER_BLOCK = 10000;
+    private static final int BLOCKS_PER_SEGMENT = 4;
+
+    private final ColumnarBatch batch;
+    private final int segmentCount;
+    private final int[] order;
+    private final int[] blockStart;
+    private final int[] blockEnd;
+    private final int[][] ownBlocks;
+    private final BitSet claimed;
+    private final int[] nextOwnBlock;
+    private final AtomicInteger sentRows = new AtomicInteger();
+
+    public GpfdistScan(ColumnarBatch batch, int segmentCount) {
+        this(batch, segmentCount, defaultRowsPerBlock(batch.rowCount(), segmentCount));
+    }
+
+    GpfdistScan(ColumnarBatch batch, int segmentCount, int rowsPerBlock) {
+        this(batch, Math.max(1, segmentCount), rowsPerBlock, null);
+    }
+
+    /**
+     * Starts a scan that sends the rows of {@code segmentRows[s]} to segment {@code s} where it can.
+     */
+    public GpfdistScan(ColumnarBatch batch, int[][] segmentRows) {
+        this(batch, segmentRows.length, defaultRowsPerBlock(batch.rowCount(), segmentRows.length), segmentRows);
+    }
+
+    GpfdistScan(ColumnarBatch batch, int segmentCount, int rowsPerBlock, int[][] segmentRows) {
+        this.batch = batch;
+        this.segmentCount = segmentCount;
+        rowsPerBlock = Math.max(1, rowsPerBlock);
+        int rows = batch.rowCount();
+        this.ownBlocks = new int[segmentCount][];
+        if (segmentRows == null) {
+            this.order = null;
+            int blockCount = (rows + rowsPerBlock - 1) / rowsPerBlock;
+            this.blockStart = new int[blockCount];
+            this.blockEnd = new int[blockCount];
+            for (int block = 0; block < blockCount; block++) {
+                blockStart[block] = block * rowsPerBlock;
+                blockEnd[block] = Math.min(rows, (block + 1) * rowsPerBlock);
+            }
+            for (int segment = 0; segment < segmentCount; segment++) {
+                int owned = segment < blockCount ? (blockCount - segment + segmentCount - 1) / segmentCount : 0;
+                ownBlocks[segment] = new int[owned];
+                for (int i = 0; i < owned; i++) {
+                    ownBlocks[segment][i] = segment + i * segmentCount;
+                }
+            }
+        } else {
+            this.order = new int[rows];
+            int blockCount = 0;
+            for (int[] segment : segmentRows) {
+                blockCount += (segment.length + rowsPerBlock - 1) / rowsPerBlock;
+            }
+            this.blockStart = new int[blockCount];
+            this.blockEnd = new int[blockCount];
+            int position = 0;
+            int block = 0;
+            for (int segment = 0; segment < segmentCount; segment++) {
+                int[] own = segmentRows[segment];
+                System.arraycopy(own, 0, order, position, own.length);
+                ownBlocks[segment] = new int[(own.length + rowsPerBlock - 1) / rowsPerBlock];
+                for (int i = 0; i < ownBlocks[segment].length; i++, block++) {
+                    ownBlocks[segment][i] = block;
+                    blockStart[block] = position + i * rowsPerBlock;
+                    blockEnd[block] = position + Math.min(own.length, (i + 1) * rowsPerBlock);
+                }
+                position += own.length;
+            }
+        }
+        this.claimed = new BitSet(blockStart.length);
+        this.nextOwnBlock = new int[segmentCount];
+    }
+
+    static int defaultRowsPerBlock(int rows, int segmentCount) {
+        long blocks = (long) Math.max(1, segmentCount) * BLOCKS_PER_SEGMENT;
+        return (int) Math.max(1, Math.min(MAX_ROWS_PER_BLOCK, (rows + blocks - 1) / blocks));
+    }
+
+    public ColumnarBatch batch() {
+        return batch;
+    }
+
+    public int segmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * Returns the rows of the batch in the order they are sent, or null when they are sent as they
+     * are in the batch.
+     */
+    public int[] order() {
+        return order;
+    }
+
+    /**
+     * Claims the next block for a segment.
+     *
+     * @return the block, or -1 once every block has been claimed
+     */
+    public synchronized int claim(int segmentId) {
+        if (segmentId >= 0 && segmentId < segmentCount) {
+            int[] own = ownBlocks[segmentId];
+            while (nextOwnBlock[segmentId] < own.length) {
+                int block = own[nextOwnBlock[segmentId]++];
+                if (!claimed.get(block)) {
+                    claimed.set(block);
+                    return block;
+                }
+            }
+        }
+        int block = claimed.nextClearBit(0);
+        if (block >= blockStart.length) {
+            return -1;
+        }
+        claimed.set(block);
+        return block;
+    }
+
+    /**
+     * Counts rows that have been written to a segment.
+     *
+     * @return whether every row of the batch has now been sent
+     */
+    public boolean sent(int rows) {
+        return sentRows.addAndGet(rows) >= batch.rowCount();
+    }
+
+    public int firstRow(int block) {
+        return blockStart[block];
+    }
+
+    public int endRow(int block) {
+        return blockEnd[block];
+    }
+}
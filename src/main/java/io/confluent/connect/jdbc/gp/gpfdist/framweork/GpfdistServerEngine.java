@@ -0,0 +1,38 @@
+package io.confluent.connect.jdbc.gp.gpfdist.framweork;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * The HTTP server that gpfdist requests are served on.
+ */
+public interface GpfdistServerEngine {
+
+    /**
+     * Opens the responses to data requests.
+     */
+    interface Handler {
+        /**
+         * Opens the response to a GET of {@code path} that writes its blocks to {@code body}.
+         *
+         * @param headers the request headers, looked up ignoring case
+         * @return the response, or null when nothing is served under the path
+         */
+        GpfdistResponse open(String path, Map<String, String> headers, OutputStream body);
+    }
+
+    /**
+     * Starts serving requests below {@code contextPath}.
+     *
+     * @param port the port to listen on, 0 for any free port
+     * @return the port the server listens on
+     */
+    int start(int port, String contextPath, Handler handler) throws IOException;
+
+    /**
+     * Stops accepting requests and closes the server, waiting at most {@code delayMs} for the
+     * responses in progress.
+     */
+    void stop(int delayMs);
+}
@@ -1,30 +1,42 @@
-
 package io.confluent.connect.jdbc.gp.gpfdist.framweork;
 
-import com.sun.net.httpserver.Headers;
-import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
-import com.sun.net.httpserver.HttpServer;
-
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.DelimitedRowEncoder;
+import io.confluent.connect.jdbc.gp.batch.SegmentDistribution;
 import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import org.apache.kafka.connect.errors.RetriableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
 import java.io.OutputStream;
-import java.net.InetSocketAddress;
-import java.util.List;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves batches to Greenplum segments over the gpfdist protocol.
+ *
+ * <p>One server per worker is shared by all tasks and tables: every flush registers its batch
+ * under the path of its target table below {@code /data}, which the external table of that target
+ * table reads from. Every
+ * segment of a load query sends its own request; the requests of one query share a
+ * {@link GpfdistScan} so that the segments pull disjoint parts of the batch in parallel. The HTTP
+ * side is left to the {@link GpfdistServerEngine} chosen with {@code gpfdist.server.engine}.
+ */
 public class GpfdistSimpleServer {
 
     private static final Logger log = LoggerFactory.getLogger(GpfdistSimpleServer.class);
 
+    private static final int STOP_DELAY_MS = 4000;
+
     // make sigelton
     private static GpfdistSimpleServer instance = null;
     private JdbcSinkConfig config;
 
-    public static GpfdistSimpleServer getInstance() {
+    public static synchronized GpfdistSimpleServer getInstance() {
         if(instance == null) {
             instance = new GpfdistSimpleServer();
         }
@@ -34,30 +46,74 @@ public class GpfdistSimpleServer {
 private GpfdistSimpleServer() {
         // do nothing
     }
-    private  boolean autoStop;
-    private List<List<String>> records;
+    public static final String DATA_PATH = "/data";
+
+    private final Map<String, GpfdistBatch> batches = new ConcurrentHashMap<>();
     private int port;
-    private HttpServer server;
+    private GpfdistServerEngine engine;
+
+    /**
+     * Registers the batch of one flush under {@code /data/<name>} until the returned handle is
+     * closed. The external table of a target table always reads the same path, so a flush for a
+     * name that is still being loaded waits until that load has finished, for at most
+     * {@code timeoutMs}.
+     *
+     * @throws RetriableException when the previous load of {@code name} did not finish in time
+     */
+    public GpfdistBatch register(String name, ColumnarBatch batch, DelimitedRowEncoder encoder, long timeoutMs) throws InterruptedException {
+        return register(name, batch, encoder, null, timeoutMs);
+    }
 
-    public void setRecords(List<List<String>> records) {
-        this.records = records;
+    /**
+     * Registers a batch like {@link #register(String, ColumnarBatch, DelimitedRowEncoder, long)},
+     * sending segments the rows they store according to {@code distribution} when it is not null.
+     */
+    public GpfdistBatch register(String name, ColumnarBatch batch, DelimitedRowEncoder encoder, SegmentDistribution distribution, long timeoutMs) throws InterruptedException {
+        String path = DATA_PATH + "/" + urlEncode(name);
+        GpfdistBatch registered = new GpfdistBatch(path, batch, encoder, distribution, () -> unregister(path));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (batches) {
+            while (batches.putIfAbsent(path, registered) != null) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    throw new RetriableException("The previous load of " + path + " did not finish within " + timeoutMs + " ms");
+                }
+                log.debug("Waiting for the load of {} to finish", path);
+                batches.wait(remainingMs);
+            }
+        }
+        return registered;
     }
 
-    public List<List<String>> getRecords() {
-        return records;
+    private void unregister(String path) {
+        synchronized (batches) {
+            batches.remove(path);
+            batches.notifyAll();
+        }
+    }
+
+    private static String urlEncode(String segment) {
+        try {
+            return URLEncoder.encode(segment, StandardCharsets.UTF_8.name()).replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
      * Start a server.
      *
-     * @return the http server
+     * @return the port the server listens on
      * @throws Exception the exception
      */
-    public synchronized HttpServer start() throws Exception {
-        if (server == null) {
-            server = startServer();
+    public synchronized int start() throws Exception {
+        if (engine == null) {
+            GpfdistServerEngine started = newEngine();
+            port = started.start(port, DATA_PATH, this::open);
+            engine = started;
+            log.info("Server is running on port {} with {}", port, started.getClass().getSimpleName());
         }
-        return server;
+        return port;
     }
 
     /**
@@ -66,11 +122,10 @@ private GpfdistSimpleServer() {
      * @throws Exception the exception
      */
     public synchronized void stop() throws Exception {
-        if (server != null) {
-            int delay = 4000;
-           server.stop(delay);
+        if (engine != null) {
+            engine.stop(STOP_DELAY_MS);
         }
-        server = null;
+        engine = null;
     }
 
     /**
@@ -82,65 +137,36 @@ private GpfdistSimpleServer() {
         return port;
     }
 
-    private HttpServer startServer() throws IOException {
-        HttpServer server = HttpServer.create(new InetSocketAddress(getLocalPort()), 0);
-        server.createContext("/data", new DataHandler());
-        server.setExecutor(null); // Use the default executor
-        server.start();
-        log.info("Server is running on port "+getLocalPort());
-        return server;
+    private GpfdistServerEngine newEngine() {
+        switch (config.gpfdistServerEngine) {
+            case NIO:
+                return new NioServerEngine(config.gpfdistServerWorkers, config.gpfdistServerKeepAlive);
+            case HTTP_SERVER:
+            default:
+                return new HttpServerEngine(config.gpfdistServerWorkers, config.gpfdistServerKeepAlive);
+        }
     }
 
-    public void init(JdbcSinkConfig config) {
+    public synchronized void init(JdbcSinkConfig config) {
+        if (engine != null) {
+            // already serving for another task of this worker
+            return;
+        }
         this.config = config;
         this.port = config.getGpfdistPort();
-        // this.autoStop = config.getGpfdistAutoStop();
-    }
-
-
-    class DataHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException { // TODO handle duplicate requests - gpfdist sends multiple request
-            log.info("Handling request from gpfdist: "+exchange.getRequestMethod());
-
-            List<List<String>> batch = GpfdistSimpleServer.this.getBatch(); // Implement logic to get a batch of data
-            String responseBody = convertDataToString(batch);
-            log.debug("Sending data from gpfdist: "+responseBody);
-
-           Headers headers = exchange.getResponseHeaders();
-            // Set response headers
-            headers.set("Content-Type", "text/plain");
-            headers.set("Expires", "0");
-            headers.set("X-GPFDIST-VERSION", "1.0.0");
-            headers.set("X-GP-PROTO", "1");
-            headers.set("Cache-Control", "no-cache");
-            headers.set("Connection", "close");
-
-            // Send response headers with the content length
-            exchange.sendResponseHeaders(200, responseBody.length());
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(responseBody.getBytes());
-            }
-            if(autoStop){
-                try {
-                    stop();
-                } catch (Exception e) {
-                   log.error("Error stopping server", e);
-                }
-            }
-        }
-    }
-
-    private List<List<String>> getBatch() {
-        return records;
     }
 
-    private String convertDataToString(List<List<String>> data) {
-        StringBuilder sb = new StringBuilder();
-        for (List<String> line : data) {
-            sb.append(String.join(config.getDelimiter().toString(), line)).append(config.dataLineSeparator);
+    private GpfdistResponse open(String path, Map<String, String> headers, OutputStream body) {
+        GpfdistBatch registered = batches.get(path);
+        if (registered == null) {
+            log.warn("No batch registered under {}", path);
+            return null;
         }
-        return sb.toString();
+        int segmentId = GpfdistProtocol.intHeader(headers, GpfdistProtocol.SEGMENT_ID, 0);
+        int segmentCount = GpfdistProtocol.intHeader(headers, GpfdistProtocol.SEGMENT_COUNT, 1);
+        log.debug("Serving {} to segment {} of {}", path, segmentId, segmentCount);
+        GpfdistScan scan = registered.scan(GpfdistProtocol.scanId(headers), segmentCount);
+        return new GpfdistResponse(registered, scan, segmentId, GpfdistProtocol.isProto1(headers), path, body);
     }
 
 }
@@ -113,7 +113,9 @@ public class GpfdistSinkConfiguration {
 		}
 		else if (format == Format.CSV) {
 			Character delim = delimiter != null ? delimiter : Character.valueOf(',');
-			readableTable.setCsvFormat('"', delim, config.nullString, new String[]{}, '"');
+			// quote and escape must match what DelimitedRowEncoder writes
+			Character quote = config.csvQuote != null && !config.csvQuote.isEmpty() ? config.csvQuote.charAt(0) : Character.valueOf('"');
+			readableTable.setCsvFormat(quote, delim, config.nullString, new String[]{}, quote);
 		}
 // Format type: csv
 //Format options: delimiter ',' null '' escape '"' quote '"' header
@@ -129,6 +131,8 @@ public class GpfdistSinkConfiguration {
 				updateColumns, updateCondition);
 		loadConfiguration.setSqlBefore(sqlBefore);
 		loadConfiguration.setSqlAfter(sqlAfter);
+		loadConfiguration.setReuseTables(config.gpReuseTable);
+		loadConfiguration.setMergeStrategy(config.gpMergeStrategy);
 		return loadConfiguration;
 
 	}
@@ -0,0 +1,110 @@
+package io.confluent.connect.jdbc.gp.gpfdist.framweork;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves gpfdist requests with the JDK's {@link HttpServer}, one thread per request in progress.
+ *
+ * <p>With a fixed number of workers, requests beyond that number wait for a free thread. Without,
+ * every request gets its own thread: a virtual thread when the JDK has them, a pooled platform
+ * thread otherwise.
+ */
+public class HttpServerEngine implements GpfdistServerEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpServerEngine.class);
+
+    private final int workers;
+    private final boolean keepAlive;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param workers number of request threads, 0 for one thread per request
+     */
+    public HttpServerEngine(int workers, boolean keepAlive) {
+        this.workers = workers;
+        this.keepAlive = keepAlive;
+    }
+
+    @Override
+    public int start(int port, String contextPath, Handler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(contextPath, exchange -> handle(exchange, handler));
+        executor = workers > 0 ? Executors.newFixedThreadPool(workers, threadFactory()) : perRequestExecutor();
+        server.setExecutor(executor);
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void stop(int delayMs) {
+        if (server != null) {
+            // HttpServer waits in whole seconds
+            server.stop((delayMs + 999) / 1000);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+            if (!header.getValue().isEmpty()) {
+                headers.put(header.getKey(), header.getValue().get(0));
+            }
+        }
+        String path = exchange.getRequestURI().getRawPath();
+        if (!keepAlive) {
+            exchange.getResponseHeaders().set("Connection", "close");
+        }
+        try (OutputStream body = exchange.getResponseBody()) {
+            GpfdistResponse response = handler.open(path, headers, body);
+            if (response == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            response.headers().forEach(exchange.getResponseHeaders()::set);
+            // the blocks a segment gets are only known while it streams, so the length is not sent
+            exchange.sendResponseHeaders(200, 0);
+            while (response.writeNext()) {
+                // blocks go straight to the chunked response body
+            }
+            log.debug("Sent {} rows, {} bytes of {} to segment {}", response.rows(), response.bytes(), path, response.segmentId());
+        }
+    }
+
+    private static ExecutorService perRequestExecutor() {
+        try {
+            // Java 21+, looked up reflectively so that the connector still runs on Java 8
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(threadFactory());
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "gpfdist-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
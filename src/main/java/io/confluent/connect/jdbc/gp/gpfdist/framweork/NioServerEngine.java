@@ -0,0 +1,364 @@
+package io.confluent.connect.jdbc.gp.gpfdist.framweork;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Serves gpfdist requests from a few non-blocking event loops instead of a thread per request.
+ *
+ * <p>Connections are spread over the loops, and each loop only encodes the next block of a
+ * response once the socket has taken the previous one, so a slow segment never holds a thread and
+ * memory stays at one block per connection. Responses are sent with chunked transfer encoding;
+ * with keep-alive, a segment can send its next request over the same connection.
+ */
+public class NioServerEngine implements GpfdistServerEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(NioServerEngine.class);
+
+    private static final int MAX_HEADER_BYTES = 64 * 1024;
+    private static final int ACCEPT_BACKLOG = 1024;
+    private static final long SELECT_TIMEOUT_MS = 100;
+    private static final byte[] CHUNK_END = "\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final int workers;
+    private final boolean keepAlive;
+    private ServerSocketChannel serverChannel;
+    private EventLoop[] loops;
+    private volatile boolean running;
+    private volatile long stopDeadline;
+
+    /**
+     * @param workers number of event loops, 0 for one per processor
+     */
+    public NioServerEngine(int workers, boolean keepAlive) {
+        this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.keepAlive = keepAlive;
+    }
+
+    @Override
+    public int start(int port, String contextPath, Handler handler) throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        serverChannel.configureBlocking(false);
+        running = true;
+        loops = new EventLoop[workers];
+        for (int i = 0; i < workers; i++) {
+            loops[i] = new EventLoop(i, contextPath, handler);
+        }
+        serverChannel.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+        for (EventLoop loop : loops) {
+            loop.start();
+        }
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    @Override
+    public void stop(int delayMs) {
+        if (!running) {
+            return;
+        }
+        stopDeadline = System.currentTimeMillis() + delayMs;
+        running = false;
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            log.warn("Error closing gpfdist server socket", e);
+        }
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        for (EventLoop loop : loops) {
+            try {
+                loop.join(delayMs + SELECT_TIMEOUT_MS * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private final class EventLoop extends Thread {
+        final Selector selector;
+        final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+        final String contextPath;
+        final Handler handler;
+        int nextLoop;
+
+        EventLoop(int index, String contextPath, Handler handler) throws IOException {
+            super("gpfdist-nio-" + index);
+            setDaemon(true);
+            this.selector = Selector.open();
+            this.contextPath = contextPath;
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running || (!selector.keys().isEmpty() && System.currentTimeMillis() < stopDeadline)) {
+                    selector.select(SELECT_TIMEOUT_MS);
+                    registerAccepted();
+                    if (!running) {
+                        closeIdle();
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                connection.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.write();
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            log.debug("Closing gpfdist connection after error", e);
+                            connection.close();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.error("gpfdist event loop {} failed", getName(), e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    closeQuietly(key);
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    log.debug("Error closing selector", e);
+                }
+            }
+        }
+
+        void closeIdle() {
+            for (SelectionKey key : selector.keys()) {
+                Object connection = key.attachment();
+                if (connection instanceof Connection && ((Connection) connection).isIdle()) {
+                    closeQuietly(key);
+                }
+            }
+        }
+
+        void accept() throws IOException {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                EventLoop loop = loops[nextLoop++ % loops.length];
+                loop.accepted.add(channel);
+                if (loop != this) {
+                    loop.selector.wakeup();
+                }
+            }
+            registerAccepted();
+        }
+
+        void registerAccepted() throws IOException {
+            SocketChannel channel;
+            while ((channel = accepted.poll()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new Connection(channel, key, contextPath, handler));
+            }
+        }
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            log.debug("Error closing gpfdist connection", e);
+        }
+    }
+
+    /**
+     * One client connection: reads a request, then writes its response chunk by chunk.
+     */
+    private final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final String contextPath;
+        final Handler handler;
+        final BodyBuffer body = new BodyBuffer();
+        ByteBuffer in = ByteBuffer.allocate(4096);
+        ByteBuffer[] out;
+        GpfdistResponse response;
+        boolean closeAfterResponse;
+
+        Connection(SocketChannel channel, SelectionKey key, String contextPath, Handler handler) {
+            this.channel = channel;
+            this.key = key;
+            this.contextPath = contextPath;
+            this.handler = handler;
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            int headerEnd = headerEnd();
+            if (headerEnd < 0) {
+                if (!in.hasRemaining()) {
+                    if (in.capacity() >= MAX_HEADER_BYTES) {
+                        respondEmpty(431, "Request Header Fields Too Large", true);
+                        return;
+                    }
+                    ByteBuffer larger = ByteBuffer.allocate(in.capacity() * 2);
+                    in.flip();
+                    larger.put(in);
+                    in = larger;
+                }
+                return;
+            }
+            String head = new String(in.array(), 0, headerEnd, StandardCharsets.ISO_8859_1);
+            // segments send nothing after their GET until the response has been read
+            in.clear();
+            dispatch(head);
+        }
+
+        private int headerEnd() {
+            byte[] bytes = in.array();
+            for (int i = 3; i < in.position(); i++) {
+                if (bytes[i] == '\n' && bytes[i - 1] == '\r' && bytes[i - 2] == '\n' && bytes[i - 3] == '\r') {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+
+        private void dispatch(String head) {
+            String[] lines = head.split("\r\n");
+            String[] requestLine = lines[0].split(" ");
+            Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if (colon > 0) {
+                    headers.putIfAbsent(lines[i].substring(0, colon).trim(), lines[i].substring(colon + 1).trim());
+                }
+            }
+            if (requestLine.length < 3) {
+                respondEmpty(400, "Bad Request", true);
+                return;
+            }
+            boolean close = !keepAlive || !"HTTP/1.1".equals(requestLine[2]) || "close".equalsIgnoreCase(headers.get("Connection"));
+            if (!"GET".equals(requestLine[0])) {
+                respondEmpty(405, "Method Not Allowed", close);
+                return;
+            }
+            String target = requestLine[1];
+            int query = target.indexOf('?');
+            String path = query < 0 ? target : target.substring(0, query);
+            body.reset();
+            response = path.startsWith(contextPath) ? handler.open(path, headers, body) : null;
+            if (response == null) {
+                respondEmpty(404, "Not Found", close);
+                return;
+            }
+            StringBuilder status = new StringBuilder("HTTP/1.1 200 OK\r\n");
+            response.headers().forEach((name, value) -> status.append(name).append(": ").append(value).append("\r\n"));
+            status.append("Transfer-Encoding: chunked\r\n");
+            status.append("Connection: ").append(close ? "close" : "keep-alive").append("\r\n\r\n");
+            send(close, ByteBuffer.wrap(status.toString().getBytes(StandardCharsets.ISO_8859_1)));
+        }
+
+        private void respondEmpty(int code, String reason, boolean close) {
+            String status = "HTTP/1.1 " + code + " " + reason + "\r\nContent-Length: 0\r\nConnection: " + (close ? "close" : "keep-alive") + "\r\n\r\n";
+            send(close, ByteBuffer.wrap(status.getBytes(StandardCharsets.ISO_8859_1)));
+        }
+
+        private void send(boolean close, ByteBuffer... buffers) {
+            closeAfterResponse = close;
+            out = buffers;
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+
+        boolean isIdle() {
+            return out == null && response == null;
+        }
+
+        /**
+         * Sends what is pending and then at most one more chunk, so that the connections of a loop
+         * take turns.
+         */
+        void write() throws IOException {
+            if (out != null) {
+                channel.write(out);
+                if (out[out.length - 1].hasRemaining()) {
+                    return;
+                }
+                out = null;
+            }
+            if (response != null) {
+                body.reset();
+                boolean more = response.writeNext();
+                out = chunk(!more);
+                if (!more) {
+                    log.debug("Sent {} rows, {} bytes to segment {}", response.rows(), response.bytes(), response.segmentId());
+                    response = null;
+                }
+                channel.write(out);
+                return;
+            }
+            if (closeAfterResponse) {
+                close();
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        private ByteBuffer[] chunk(boolean last) {
+            if (body.size() == 0) {
+                return new ByteBuffer[] {ByteBuffer.wrap(last ? LAST_CHUNK : new byte[0])};
+            }
+            ByteBuffer size = ByteBuffer.wrap((Integer.toHexString(body.size()) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            ByteBuffer data = ByteBuffer.wrap(body.array(), 0, body.size());
+            if (!last) {
+                return new ByteBuffer[] {size, data, ByteBuffer.wrap(CHUNK_END)};
+            }
+            return new ByteBuffer[] {size, data, ByteBuffer.wrap(CHUNK_END), ByteBuffer.wrap(LAST_CHUNK)};
+        }
+
+        void close() {
+            closeQuietly(key);
+        }
+    }
+
+    private static final class BodyBuffer extends ByteArrayOutputStream {
+        BodyBuffer() {
+            super(GpfdistBlockWriter.DEFAULT_BLOCK_BYTES + 1024);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -9,12 +9,21 @@ import org.slf4j.LoggerFactory;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DefaultLoadService implements LoadService {
 
     private static final Logger log = LoggerFactory.getLogger(DefaultLoadService.class);
+
+    /**
+     * Reused external and staging tables known to exist, shared by all tasks of the worker.
+     */
+    private static final Set<String> knownTables = ConcurrentHashMap.newKeySet();
+
     private final DatabaseDialect jdbcTemplate;
 
     public DefaultLoadService(DatabaseDialect jdbcTemplate) {
@@ -36,22 +45,25 @@ public class DefaultLoadService implements LoadService {
             loadConfiguration.getExternalTable().setName("ext_" + loadConfiguration.getTable() + loadConfiguration.getExternalTable().getName());
         }
 
+        if (loadConfiguration.shouldReuseTables()) {
+            loadReusingTables(loadConfiguration, context != null ? context.getLocations() : null);
+            return;
+        }
+
         // setup jdbc operations
         JdbcCommands operations = new JdbcCommands(jdbcTemplate);
 
 
         if (loadConfiguration.getMode() == JdbcSinkConfig.InsertMode.MERGE) {
 
-            loadConfiguration.setStagingTableName(loadConfiguration.getExternalTable().getName().replaceAll("ext_", "stg_"));
+            loadConfiguration.setStagingTableName(SqlUtils.stagingTableName(loadConfiguration.getExternalTable().getName()));
             // create staging & external table
-            String sqlCreateStgTable = SqlUtils.createStagingTable(loadConfiguration);
-            log.info("sqlCreateStgTable={}", sqlCreateStgTable);
-
-            String truncateStgTable = SqlUtils.truncateStagingTable(loadConfiguration);
-
-            List sqlCreateTables =new ArrayList<>();
-            sqlCreateTables.add(sqlCreateStgTable);
-            sqlCreateTables.add(truncateStgTable);
+            List<String> sqlCreateTables = new ArrayList<>();
+            if (usesStagingTable(loadConfiguration)) {
+                String sqlCreateStgTable = SqlUtils.createStagingTable(loadConfiguration);
+                log.info("sqlCreateStgTable={}", sqlCreateStgTable);
+                sqlCreateTables.add(sqlCreateStgTable);
+            }
             if (!isTableExist(loadConfiguration.getExternalTable().getName())) {
                 log.info("Table {} does not exist. Creating it.", loadConfiguration.getExternalTable().getName());
                 String sqlCreateExtTable = SqlUtils.createExternalReadableTable(loadConfiguration, context != null ? context.getLocations() : null);
@@ -60,27 +72,14 @@ public class DefaultLoadService implements LoadService {
             }
             operations.setPrepareSql(sqlCreateTables);
 
-            // step 1 - insert into staging table
-            String sqlInsertToStg = SqlUtils.loadToStaging(loadConfiguration);
-            log.info("sqlInsert={}", sqlInsertToStg);
-
-            String sqlUpdateFromStg = SqlUtils.updateFromStaging(loadConfiguration);
-            log.info("sqlUpdateFromStg={}", sqlUpdateFromStg);
-
-            String sqlInsertFromStg = SqlUtils.insertFromStaging(loadConfiguration);
-            log.info("sqlInsertFromStg={}", sqlInsertFromStg);
-
+            List<String> sqlMerge = mergeSql(loadConfiguration);
+            log.info("sqlMerge={}", sqlMerge);
+            operations.setRunSql(sqlMerge);
 
-            operations.setRunSql(Arrays.asList(sqlInsertToStg,sqlUpdateFromStg,sqlInsertFromStg));
 
-
-            if (!loadConfiguration.shouldReuseTables()) {// add drop stg table
-                String sqlDropTable = SqlUtils.dropExternalReadableTable(loadConfiguration);
-                log.debug("sqlDropTable={}", sqlDropTable);
-                operations.setCleanSql(Arrays.asList(sqlDropTable));
-            }else{
-                log.info("Reusing tables. Will not drop them.");
-            }
+            String sqlDropTable = SqlUtils.dropExternalReadableTable(loadConfiguration);
+            log.debug("sqlDropTable={}", sqlDropTable);
+            operations.setCleanSql(Arrays.asList(sqlDropTable));
 
 
         } else {
@@ -107,6 +106,86 @@ public class DefaultLoadService implements LoadService {
         }
     }
 
+    /**
+     * Loads through an external table, and a staging table for merges, that are created once and
+     * then kept for every later load with the same definition. Once they are known to exist, a
+     * load is only the INSERT ... SELECT (and the merge statements).
+     */
+    private void loadReusingTables(LoadConfiguration loadConfiguration, List<String> locations) throws Exception {
+        ReadableTable externalTable = loadConfiguration.getExternalTable();
+        externalTable.setName(SqlUtils.signedTableName(externalTable.getName(), SqlUtils.createExternalReadableTable(loadConfiguration, locations)));
+        String externalTableName = externalTable.getName();
+        String stagingTableName = SqlUtils.stagingTableName(externalTableName);
+        loadConfiguration.setStagingTableName(stagingTableName);
+
+        List<String> prepareSql = new ArrayList<>();
+        if (!knownTables.contains(externalTableName) && !isTableExist(externalTableName)) {
+            log.info("Creating external table {}", externalTableName);
+            prepareSql.add(SqlUtils.createExternalReadableTable(loadConfiguration, locations));
+        }
+        List<String> runSql = new ArrayList<>();
+        boolean staging = usesStagingTable(loadConfiguration);
+        if (staging && !knownTables.contains(stagingTableName)) {
+            prepareSql.add(SqlUtils.createStagingTable(loadConfiguration));
+        }
+        if (loadConfiguration.getMode() == JdbcSinkConfig.InsertMode.MERGE) {
+            runSql.addAll(mergeSql(loadConfiguration));
+        } else {
+            runSql.add(SqlUtils.load(loadConfiguration));
+        }
+        log.debug("prepareSql={} runSql={}", prepareSql, runSql);
+
+        JdbcCommands operations = new JdbcCommands(jdbcTemplate);
+        operations.setPrepareSql(prepareSql);
+        operations.setRunSql(runSql);
+        operations.setCleanSql(Collections.emptyList());
+        operations.setBeforeSqls(loadConfiguration.getSqlBefore());
+        operations.setAfterSqls(loadConfiguration.getSqlAfter());
+
+        if (!operations.execute() && operations.getLastException() != null) {
+            // the tables may have been dropped behind our back, check again next time
+            knownTables.remove(externalTableName);
+            knownTables.remove(stagingTableName);
+            log.error("Error in load", operations.getLastException());
+            throw operations.getLastException();
+        }
+        knownTables.add(externalTableName);
+        if (staging) {
+            knownTables.add(stagingTableName);
+        }
+    }
+
+    private static boolean usesStagingTable(LoadConfiguration loadConfiguration) {
+        return loadConfiguration.getMode() == JdbcSinkConfig.InsertMode.MERGE
+                && loadConfiguration.getMergeStrategy() != JdbcSinkConfig.MergeStrategy.ON_CONFLICT;
+    }
+
+    /**
+     * Statements of a merge load, in order, for the merge strategy of the configuration. The
+     * staging strategies update the matched rows first and skip that step when there is nothing
+     * to update.
+     */
+    static List<String> mergeSql(LoadConfiguration loadConfiguration) {
+        List<String> sql = new ArrayList<>();
+        if (loadConfiguration.getMergeStrategy() == JdbcSinkConfig.MergeStrategy.ON_CONFLICT) {
+            sql.add(SqlUtils.upsertFromExternal(loadConfiguration));
+            return sql;
+        }
+        sql.add(SqlUtils.truncateStagingTable(loadConfiguration));
+        sql.add(SqlUtils.loadToStaging(loadConfiguration));
+        List<String> updateColumns = loadConfiguration.getUpdateColumns();
+        if (updateColumns != null && !updateColumns.isEmpty()) {
+            sql.add(SqlUtils.updateFromStaging(loadConfiguration));
+        }
+        if (loadConfiguration.getMergeStrategy() == JdbcSinkConfig.MergeStrategy.DELETE_USING) {
+            sql.add(SqlUtils.deleteMatchedFromStaging(loadConfiguration));
+            sql.add(SqlUtils.insertRemainingFromStaging(loadConfiguration));
+        } else {
+            sql.add(SqlUtils.insertFromStaging(loadConfiguration));
+        }
+        return sql;
+    }
+
     private boolean isTableExist(String name) {
         String checkTableExistsQuery = SqlUtils.createQueryToCheckTableExists(name);
         ResultSet rs = null;
@@ -23,6 +23,8 @@ public class LoadConfiguration {
 
 	private JdbcSinkConfig.InsertMode mode;
 
+	private JdbcSinkConfig.MergeStrategy mergeStrategy = JdbcSinkConfig.MergeStrategy.UPDATE_INSERT;
+
 	private List<String> matchColumns;
 
 	private List<String> updateColumns;
@@ -83,6 +85,14 @@ public class LoadConfiguration {
 		this.mode = mode;
 	}
 
+	public JdbcSinkConfig.MergeStrategy getMergeStrategy() {
+		return mergeStrategy;
+	}
+
+	public void setMergeStrategy(JdbcSinkConfig.MergeStrategy mergeStrategy) {
+		this.mergeStrategy = mergeStrategy;
+	}
+
 	public List<String> getMatchColumns() {
 		return matchColumns;
 	}
@@ -9,6 +9,10 @@ package io.confluent.connect.jdbc.gp.gpfdist.framweork.support;
 public class NetworkUtils {
 
 	public static String getGPFDistUri(String address, int port) {
-		return "gpfdist://" + address + ":" + port + "/data";
+		return getGPFDistUri(address, port, "/data");
+	}
+
+	public static String getGPFDistUri(String address, int port, String path) {
+		return "gpfdist://" + address + ":" + port + path;
 	}
 }
@@ -4,8 +4,10 @@ package io.confluent.connect.jdbc.gp.gpfdist.framweork.support;
 import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
 
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -20,11 +22,18 @@ public abstract class SqlUtils {
 	//{"format=csv","delimiter=,","null=","escape="","quote="","location_uris=              ","execute_on=ALL_SEGMENTS","log_errors=disable","encoding=UTF8","is_writable=false"}
 
 
+	/**
+	 * Longest identifier Greenplum keeps, longer ones are truncated.
+	 */
+	private static final int MAX_IDENTIFIER_LENGTH = 63;
+
+	private static final int SIGNATURE_LENGTH = 12;
+
 	public static String createQueryToCheckTableExists(String tableName) {
 
-		// SELECT EXISTS (SELECT 1 FROM pg_tables WHERE tablename = 'your_external_table')
+		// pg_class rather than pg_tables, which does not list external tables on Greenplum 7
 		StringBuilder buf = new StringBuilder();
-		buf.append("SELECT EXISTS (SELECT 1 FROM pg_tables WHERE tablename = '");
+		buf.append("SELECT EXISTS (SELECT 1 FROM pg_class WHERE relname = '");
 		buf.append(tableName);
 		buf.append("')");
 		return buf.toString();
@@ -38,7 +47,7 @@ public abstract class SqlUtils {
 
 		// unique table name
 		buf.append("CREATE TABLE IF NOT EXISTS ");
-		buf.append(config.getExternalTable().getName().replaceAll("ext_", "stg_"));
+		buf.append(config.getStagingTableName());
 		buf.append(" ( ");
 
 		// column types or like
@@ -60,6 +69,22 @@ public abstract class SqlUtils {
 	}
 
 
+	/**
+	 * Appends a signature of {@code definition} to {@code baseName}, so that a table reused across
+	 * loads gets a new name whenever its definition changes.
+	 */
+	public static String signedTableName(String baseName, String definition) {
+		String signature = UUID.nameUUIDFromBytes(definition.getBytes(StandardCharsets.UTF_8)).toString()
+				.replace("-", "").substring(0, SIGNATURE_LENGTH);
+		int maxBaseLength = MAX_IDENTIFIER_LENGTH - SIGNATURE_LENGTH - 1;
+		String base = baseName.length() > maxBaseLength ? baseName.substring(0, maxBaseLength) : baseName;
+		return base + "_" + signature;
+	}
+
+	public static String stagingTableName(String externalTableName) {
+		return externalTableName.replaceFirst("^ext_", "stg_");
+	}
+
 	public static String createExternalReadableTable(LoadConfiguration config,
 			List<String> overrideLocations) {
 
@@ -270,25 +295,29 @@ public abstract class SqlUtils {
 //	}
 //
 
+	/**
+	 * Inserts the staged rows that have no match in the target, one per key.
+	 *
+	 * @param config the load configuration
+	 * @return the insert DML
+	 */
 	public static String insertFromStaging(LoadConfiguration config) {
-		StringBuilder b = new StringBuilder();
-
-			// TODO - following to java
-//		String sql = "INSERT INTO " + this.getQualifiedTablename();
-//		sql += "(" + cols.stream().map(a -> a.getFirstElement()).collect(Collectors.joining(", ")) + ") ";
-//		sql += "(SELECT " + cols.stream().map(a -> "from_table." + a.getFirstElement()).collect(Collectors.joining(", ")) + " ";
-//		sql += "FROM (SELECT *, ROW_NUMBER() OVER (PARTITION BY " + String.join(", ", matchColumns) + ") AS gpload_row_number ";
-//		sql += "FROM " + this.stagingTableName + ") AS from_table ";
-//		sql += "LEFT OUTER JOIN " + this.getQualifiedTablename() + " into_table ";
-//		sql += "ON " + String.join(" AND ", match);
-//		String[] where = this.mapStuff("gpload:output:match_columns", /* Lambda equivalent in Java */, 0);
-//		sql += "WHERE " + String.join(" AND ", where);
-//		sql += " AND gpload_row_number=1)";
-
+		return insertFromStaging(config, true);
+	}
 
-//		String stagingTableName = "stg_" + config.getExternalTable().getName();
-//		creatStagingTableIfRe
+	/**
+	 * Inserts every staged row, one per key, for when the matched rows have already been deleted
+	 * from the staging table by {@link #deleteMatchedFromStaging(LoadConfiguration)}.
+	 *
+	 * @param config the load configuration
+	 * @return the insert DML
+	 */
+	public static String insertRemainingFromStaging(LoadConfiguration config) {
+		return insertFromStaging(config, false);
+	}
 
+	private static String insertFromStaging(LoadConfiguration config, boolean excludeMatched) {
+		StringBuilder b = new StringBuilder();
 
 		b.append("INSERT INTO ");
 		b.append(config.getTable());
@@ -300,18 +329,13 @@ public abstract class SqlUtils {
 		b.append(" (SELECT ");
 		if (config.gpfUseColumnsInSelect && StringUtils.hasText(config.getColumns())) {
 			// add from_table. prefix to columns
-//			String fromColumns = Arrays.stream(config.getColumns().split(",")).map(a -> "from_table." + a).collect(Collectors.joining(", ")).join(", ");
-//			b.append(fromColumns);
-
 			String[] columns = config.getColumns().split(",");
 			for (int i = 0; i < columns.length; i++) {
-				b.append("from_table." + columns[i]);
+				b.append("from_table." + columns[i].trim());
 				if (i + 1 < columns.length) {
 					b.append(", ");
 				}
 			}
-
-
 		}
 		else {
 			b.append("*");
@@ -322,12 +346,102 @@ public abstract class SqlUtils {
 		b.append(") AS gpload_row_number FROM ");
 		b.append(config.getStagingTableName());
 		b.append(") AS from_table ");
-		b.append(" WHERE ");
+		if (excludeMatched) {
+			b.append("LEFT OUTER JOIN ");
+			b.append(config.getTable());
+			b.append(" into_table ON ");
+			b.append(matchCondition(config, "into_table", "from_table"));
+			b.append(" WHERE into_table.");
+			b.append(config.getMatchColumns().get(0));
+			b.append(" IS NULL AND ");
+		}
+		else {
+			b.append(" WHERE ");
+		}
 		b.append("gpload_row_number=1)");
 
 		return b.toString();
 	}
 
+	/**
+	 * Deletes the staged rows that match a row of the target, which have been applied by
+	 * {@link #updateFromStaging(LoadConfiguration)}, so that the rest can be inserted without
+	 * joining the target again.
+	 *
+	 * @param config the load configuration
+	 * @return the delete DML
+	 */
+	public static String deleteMatchedFromStaging(LoadConfiguration config) {
+		StringBuilder b = new StringBuilder();
+		b.append("DELETE FROM ");
+		b.append(config.getStagingTableName());
+		b.append(" staging_table USING ");
+		b.append(config.getTable());
+		b.append(" into_table WHERE ");
+		b.append(matchCondition(config, "staging_table", "into_table"));
+		return b.toString();
+	}
+
+	/**
+	 * Merges the rows of the external table straight into the target with
+	 * {@code INSERT ... ON CONFLICT}, which needs Greenplum 7 and a unique index on the match
+	 * columns. Rows of one load must not share a key, the ingestion service keeps the last row of
+	 * every key for this strategy.
+	 *
+	 * @param config the load configuration
+	 * @return the upsert DML
+	 */
+	public static String upsertFromExternal(LoadConfiguration config) {
+		StringBuilder b = new StringBuilder();
+		b.append("INSERT INTO ");
+		b.append(config.getTable());
+		b.append(" AS into_table");
+		if(config.gpfUseColumnsInInsert && StringUtils.hasText(config.getColumns())){
+			b.append(" (");
+			b.append(config.getColumns());
+			b.append(")");
+		}
+		b.append(" SELECT ");
+		if (config.gpfUseColumnsInSelect && StringUtils.hasText(config.getColumns())) {
+			b.append(config.getColumns());
+		}
+		else {
+			b.append("*");
+		}
+		b.append(" FROM ");
+		b.append(config.getExternalTable().getName());
+		b.append(" ON CONFLICT (");
+		b.append(String.join(", ", config.getMatchColumns()));
+		List<String> updateColumns = config.getUpdateColumns();
+		if (updateColumns == null || updateColumns.isEmpty()) {
+			b.append(") DO NOTHING");
+			return b.toString();
+		}
+		b.append(") DO UPDATE SET ");
+		for (int i = 0; i < updateColumns.size(); i++) {
+			b.append(updateColumns.get(i) + "=EXCLUDED." + updateColumns.get(i));
+			if (i + 1 < updateColumns.size()) {
+				b.append(", ");
+			}
+		}
+		if (StringUtils.hasText(config.getUpdateCondition())) {
+			b.append(" WHERE " + config.getUpdateCondition());
+		}
+		return b.toString();
+	}
+
+	private static String matchCondition(LoadConfiguration config, String left, String right) {
+		StringBuilder b = new StringBuilder();
+		for (int i = 0; i < config.getMatchColumns().size(); i++) {
+			String column = config.getMatchColumns().get(i);
+			b.append(left + "." + column + "=" + right + "." + column);
+			if (i + 1 < config.getMatchColumns().size()) {
+				b.append(" AND ");
+			}
+		}
+		return b.toString();
+	}
+
 	public static String updateFromStaging(LoadConfiguration config){
 		StringBuilder b = new StringBuilder();
 		b.append("UPDATE ");
@@ -4,190 +4,240 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-import de.siegmar.fastcsv.writer.CsvWriter;
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
 import io.confluent.connect.jdbc.gp.GpDataIngestionService;
+import io.confluent.connect.jdbc.gp.batch.DelimitedRowEncoder;
 import io.confluent.connect.jdbc.gp.gpload.config.GPloadConfig;
-import io.confluent.connect.jdbc.sink.GPBinder;
 import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
 import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
 import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
-import io.confluent.connect.jdbc.util.CommonUtils;
 import io.confluent.connect.jdbc.util.TableDefinition;
+import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
 
 public class GPLoadDataIngestionService extends GpDataIngestionService {
-    private static final Logger log = LoggerFactory.getLogger(GPBinder.class);
-    private final String tempDir;
+    private static final Logger log = LoggerFactory.getLogger(GPLoadDataIngestionService.class);
+    private static final String DATA_FILE_PLACEHOLDER = "${GPLOAD_DATA_FILE}";
+    private static final ObjectMapper YAML_MAPPER = new ObjectMapper(new YAMLFactory())
+            .setPropertyNamingStrategy(new UpperCaseStrategy())
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private static class UpperCaseStrategy extends PropertyNamingStrategy.PropertyNamingStrategyBase {
+
+        @Override
+        public String translate(String propertyName) {
+            return propertyName.toUpperCase();
+        }
+    }
+
+    private final File tempDir;
+    private final GploadPipeline pipeline;
+    private final GploadJournal journal;
+    private List<Object> controlFileKey;
+    private String controlFileTemplate;
+
     public GPLoadDataIngestionService(JdbcSinkConfig config, DatabaseDialect dialect, TableDefinition tableDefinition, FieldsMetadata fieldsMetadata, SchemaPair schemaPair){
+        this(config, dialect, tableDefinition, fieldsMetadata, schemaPair, null);
+    }
+
+    /**
+     * @param pipeline runs the loads in the background, null to run gpload for every batch before
+     *     returning from {@link #ingest(List)}
+     */
+    public GPLoadDataIngestionService(JdbcSinkConfig config, DatabaseDialect dialect, TableDefinition tableDefinition, FieldsMetadata fieldsMetadata, SchemaPair schemaPair, GploadPipeline pipeline){
        super(config,dialect, tableDefinition, fieldsMetadata, schemaPair);
-        tempDir = System.getProperty("java.io.tmpdir") + "/gpload/";
-        new File(tempDir).mkdirs();
+        tempDir = new File(System.getProperty("java.io.tmpdir"), "gpload");
+        tempDir.mkdirs();
+        this.pipeline = pipeline;
+        this.journal = GploadJournal.forTable(tempDir, tableName);
+        for (String name : journal.takeRecoveredSpooled()) {
+            // their records were never committed, Kafka delivers them again
+            if (!config.keepGpFiles) {
+                log.info("Deleting unfinished gpload files {} of an earlier run", name);
+                new SpooledLoad(tempDir, name).delete();
+            }
+        }
     }
 
+    @Override
+    public boolean defersCommit() {
+        return pipeline != null;
+    }
+
+    /**
+     * @throws ConnectException when the batch could not be spooled or gpload reported errors, so
+     *     that its records are not committed
+     */
     @Override
     public void ingest(List<SinkRecord> records) {
         super.ingest(records);
+        SpooledLoad load = null;
         try {
-
-            String suffix = ".csv";
-            File csvFile = File.createTempFile(tableName, suffix, new File(tempDir));
-            FileWriter writer = new FileWriter(csvFile);
+            load = SpooledLoad.create(tempDir, tableName, config.gploadSpoolCompression == JdbcSinkConfig.SpoolCompression.GZIP);
+            File csvFile = load.csvFile();
             String absolutePath = csvFile.toString();
             log.info("Writing to file {}", absolutePath);
-            try (CsvWriter csv = CsvWriter.builder().build(writer)) {
-                csv.writeRow(insertColumnsList);
-                data.forEach(record -> {
-                    csv.writeRow(record);
-                });
-                log.info("Rows count", records.size());
-            } catch (Exception e) {
-                log.error("Error while writing to file {}", absolutePath, e);
+            DelimitedRowEncoder encoder = DelimitedRowEncoder.csv(config.delimiter, config.csvQuote, config.nullString, config.dataLineSeparator);
+            try (OutputStream out = load.openData()) {
+                encoder.writeHeader(insertColumnsList, out);
+                encoder.writeRows(batch, 0, batch.rowCount(), out);
+                log.info("Rows count {}", batch.rowCount());
             }
 
-            String localIpOrHost = getGpfDistHost();
-            log.info("gpfdist running on {}", localIpOrHost);
+            Files.write(load.yamlFile().toPath(), controlFile(csvFile).getBytes(StandardCharsets.UTF_8));
 
-            GPloadConfig.Source.Builder sourceBuilder = new GPloadConfig.Source.Builder()
-                    .localHostname(Arrays.asList(localIpOrHost))
-                    .file(Arrays.asList(csvFile.getAbsolutePath()));
-            if (config.portRange.size() > 1) {
-                sourceBuilder.portRange(config.portRange);
-            } else if (config.portRange.size() == 1) {
-                sourceBuilder.port(config.portRange.get(0));
-            }
-            GPloadConfig.Source source = sourceBuilder.build();
-
-            GPloadConfig.Input input = new GPloadConfig.Input.Builder()
-                    .format("csv")
-                    .columns(columnsWithDataType)
-                    .delimiter(config.delimiter)
-                    .errorLimit(config.gpErrorsLimit)
-                    .header(true)
-                    .quote(config.csvQuote)
-                    .encoding(config.csvEncoding)
-                    .source(source)
-                    .nullAs(config.nullString)
-                    .logErrors(config.gpLogErrors)
-                    .maxLineLength(config.gpMaxLineLength)
-                    .build();
-
-            GPloadConfig.Output output = new GPloadConfig.Output.Builder()
-                    .table(dbConnection.getSchema() + "." + tableName)
-                    .mode(config.insertMode.toString().toLowerCase())
-                    //.mapping(fieldsMap) one to one mapping of source and destination fields
-                    .updateColumns(updateColumnsList)
-                    .matchColumns(keyColumns).build();
-
-            GPloadConfig.External external = new GPloadConfig.External.Builder()
-                    .schema(dbConnection.getSchema()).build();
-
-            GPloadConfig.Preload preload = new GPloadConfig.Preload.Builder().fastMatch(config.gpFastMatch).reuseTables(config.gpReuseTable).build();
-
-
-            GPloadConfig.GPload gpload = new GPloadConfig.GPload.Builder()
-                    .input(Arrays.asList(input))
-                    .output(Arrays.asList(output))
-                    .external(Arrays.asList(external))
-                    .preload(Arrays.asList(preload)).build();
-            GPloadConfig gPloadConfig = new GPloadConfig.Builder().gpload(gpload)
-                    .user(dbConnection.getUsername())
-                    .password(dbConnection.getPassword())
-                    .host(dbConnection.getHost())
-                    .port(dbConnection.getPort())
-                    .database(dbConnection.getDatabase()).version("1.0.0.1").build();
-            class UpperCaseStrategy extends PropertyNamingStrategy.PropertyNamingStrategyBase {
-
-                @Override
-                public String translate(String propertyName) {
-
-                    return propertyName.toUpperCase();
-                }
-            }
-            File yamlFile = File.createTempFile(tableName, ".yml", new File(tempDir));
-            ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-            mapper.setPropertyNamingStrategy(new UpperCaseStrategy());
-            mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-            mapper.writeValue(yamlFile, gPloadConfig);
-
-            File logFile = File.createTempFile(tableName, ".log", new File(tempDir));
             String gploadBinary = "gpload";
             if (config.greenplumHome != null) {
                 gploadBinary = config.greenplumHome + "/bin/gpload";
             }
 
-            // check if there are any pending files
-
-            loadFile(gploadBinary, yamlFile, csvFile, logFile);
+            // older loads go first, and a batch that fails because of them is not loaded yet
+            loadFailedFiles(gploadBinary);
 
-            if(!config.keepGpFiles) {
-                loadPendingFiles(gploadBinary);
+            if (pipeline != null) {
+                pipeline.submit(tableName, journal, load, records);
+                return;
             }
+
+            loadFile(gploadBinary, load);
         } catch (Exception e) {
-            log.error("Error running gpload", e);
-            e.printStackTrace();
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Error running gpload for {}", tableName, e);
+            if (load != null && !config.keepGpFiles) {
+                // Kafka delivers the records again, the files of this attempt are not needed
+                load.delete();
+            }
+            throw e instanceof ConnectException
+                    ? (ConnectException) e
+                    : new ConnectException("Error running gpload for " + tableName, e);
         }
     }
 
-    private void loadPendingFiles(String gploadBinary) {
-        log.info("Checking for pending files");
-        File[] files = new File(tempDir).listFiles();
-        if (files == null || files.length == 0) {
-            log.info("No pending files found");
-            return;
+    /**
+     * Returns the control file loading {@code csvFile}. Only the data file changes from batch to
+     * batch, so the YAML is generated once for the columns of the table and reused until they
+     * change.
+     */
+    private String controlFile(File csvFile) throws IOException {
+        List<Object> key = Arrays.asList(columnsWithDataType, updateColumnsList, keyColumns);
+        if (!key.equals(controlFileKey)) {
+            controlFileTemplate = YAML_MAPPER.writeValueAsString(gploadConfig(DATA_FILE_PLACEHOLDER));
+            controlFileKey = key;
+            log.info("Generated gpload control file for {}", tableName);
         }
+        String dataFile = csvFile.getAbsolutePath().replace("\\", "\\\\").replace("\"", "\\\"");
+        return controlFileTemplate.replace(DATA_FILE_PLACEHOLDER, dataFile);
+    }
 
-        for (File file : files) {
-            if (file.getName().endsWith(".yml")) {
-                log.info("Pending file {}", file.getAbsolutePath());
-
-                try {
-                    // extract name and create csv and log file with same names
-                    String name = file.getName().replace(".yml", "");
-                    File csvFile = new File(tempDir + name + ".csv");
-                    File logFile = new File(tempDir + name + ".log");
-                    //log
-                    loadFile(gploadBinary, file, csvFile, logFile);
-
-
+    private GPloadConfig gploadConfig(String dataFile) {
+        String localIpOrHost = getGpfDistHost();
+        log.info("gpfdist running on {}", localIpOrHost);
+
+        GPloadConfig.Source.Builder sourceBuilder = new GPloadConfig.Source.Builder()
+                .localHostname(Arrays.asList(localIpOrHost))
+                .file(Arrays.asList(dataFile));
+        if (config.portRange.size() > 1) {
+            sourceBuilder.portRange(config.portRange);
+        } else if (config.portRange.size() == 1) {
+            sourceBuilder.port(config.portRange.get(0));
+        }
+        GPloadConfig.Source source = sourceBuilder.build();
+
+        GPloadConfig.Input input = new GPloadConfig.Input.Builder()
+                .format("csv")
+                .columns(columnsWithDataType)
+                .delimiter(config.delimiter)
+                .errorLimit(config.gpErrorsLimit)
+                .header(true)
+                .quote(config.csvQuote)
+                .encoding(config.csvEncoding)
+                .source(source)
+                .nullAs(config.nullString)
+                .logErrors(config.gpLogErrors)
+                .maxLineLength(config.gpMaxLineLength)
+                .build();
+
+        GPloadConfig.Output output = new GPloadConfig.Output.Builder()
+                .table(dbConnection.getSchema() + "." + tableName)
+                .mode(config.insertMode.toString().toLowerCase())
+                //.mapping(fieldsMap) one to one mapping of source and destination fields
+                .updateColumns(updateColumnsList)
+                .matchColumns(keyColumns).build();
+
+        GPloadConfig.External external = new GPloadConfig.External.Builder()
+                .schema(dbConnection.getSchema()).build();
+
+        GPloadConfig.Preload preload = new GPloadConfig.Preload.Builder().fastMatch(config.gpFastMatch).reuseTables(config.gpReuseTable).build();
+
+
+        GPloadConfig.GPload gpload = new GPloadConfig.GPload.Builder()
+                .input(Arrays.asList(input))
+                .output(Arrays.asList(output))
+                .external(Arrays.asList(external))
+                .preload(Arrays.asList(preload)).build();
+        return new GPloadConfig.Builder().gpload(gpload)
+                .user(dbConnection.getUsername())
+                .password(dbConnection.getPassword())
+                .host(dbConnection.getHost())
+                .port(dbConnection.getPort())
+                .database(dbConnection.getDatabase()).version("1.0.0.1").build();
+    }
 
-                }catch (Exception e){
-                    log.error("Error while loading pending files", e);
+    /**
+     * Runs the failed loads of the journal again, whose records were already committed.
+     *
+     * @throws ConnectException when a load failed more than {@code max.retries} times, files are
+     *     kept in the spool directory
+     */
+    private void loadFailedFiles(String gploadBinary) {
+        List<String> failed = journal.claimFailed();
+        if (failed.isEmpty()) {
+            return;
+        }
+        log.info("Retrying {} failed gpload runs of {}", failed.size(), tableName);
+        ConnectException exhausted = null;
+        for (String name : failed) {
+            try {
+                loadFile(gploadBinary, new SpooledLoad(tempDir, name));
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                log.error("Error while loading pending files", e);
+                int failures = journal.failed(name);
+                if (failures > config.maxRetries && exhausted == null) {
+                    exhausted = new ConnectException("gpload of " + name + " failed " + failures + " times, files are kept in the spool directory", e);
                 }
             }
         }
-
+        if (exhausted != null) {
+            throw exhausted;
+        }
     }
 
-    private void loadFile(String gploadBinary, File yamlFile, File csvFile, File logFile) throws Exception{
-        String gploadCommand = gploadBinary + " -l " + logFile.getAbsolutePath() + " -f " + yamlFile.getAbsolutePath();
-        log.info("Running gpload command {}", gploadCommand);
-
-        ArrayList<String> cmdOutput = CommonUtils.executeCommand(gploadCommand);
-        log.info("gpload output: {}", cmdOutput);
-
-        String errors = checkGPloadOutputForErrors(cmdOutput);
-        if (errors.length() > 0) {
-            log.error("Errors in GPLoad:{}", errors);
-            log.error("Yaml: {}", yamlFile.getAbsolutePath());
-            log.error("Command: {}", gploadCommand);
-            log.error("Keeping files for further analysis");
+    /**
+     * @throws ConnectException when gpload reported errors
+     */
+    private void loadFile(String gploadBinary, SpooledLoad load) throws Exception {
+        if (!load.run(gploadBinary)) {
+            throw new ConnectException("gpload of " + load.name() + " for " + tableName + " reported errors");
+        }
+        journal.done(load.name());
+        if (!config.keepGpFiles) {
+            load.delete();
         } else {
-            log.info("GPload finished successfully");
-            if (!config.keepGpFiles) {
-                log.info("Deleting GP files");
-                CommonUtils.deleteFile(yamlFile);
-                CommonUtils.deleteFile(logFile);
-                CommonUtils.deleteFile(csvFile);
-            } else {
-                log.info("Keeping GP files");
-            }
+            log.info("Keeping GP files");
         }
     }
 
@@ -0,0 +1,180 @@
+package io.confluent.connect.jdbc.gp.gpload;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Manifest of the gpload spool files of one table that have not been loaded yet, so that pending
+ * loads are found without listing the spool directory.
+ *
+ * <p>The journal is an append-only file of {@code <state> <name>} lines, where {@code name} is the
+ * common base name of the csv, yml and log file of a load. A load is {@link State#SPOOLED} while
+ * the pipelined mode has it queued or running; its records are not committed to Kafka yet. A load
+ * is {@link State#FAILED} when its records were committed although gpload failed, so it has to be
+ * retried from its files. Synchronous loads now fail the batch instead, but journals written before
+ * can still hold such loads. Entries are removed with a {@code DONE} line; the file is compacted
+ * when it is read and truncated whenever no entry is left.
+ *
+ * <p>All tasks of a worker share one journal per table through {@link #forTable(File, String)}.
+ * Thread safe.
+ */
+public class GploadJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(GploadJournal.class);
+
+    private static final Map<String, GploadJournal> journals = new ConcurrentHashMap<>();
+
+    public enum State {
+        SPOOLED, FAILED, DONE
+    }
+
+    private final File file;
+    private final Map<String, State> entries = new LinkedHashMap<>();
+    private final List<String> retrying = new ArrayList<>();
+    private final Map<String, Integer> failures = new HashMap<>();
+    private final List<String> recovered = new ArrayList<>();
+
+    GploadJournal(File file) {
+        this.file = file;
+        read();
+    }
+
+    public static GploadJournal forTable(File dir, String tableName) {
+        File file = new File(dir, tableName + ".journal");
+        return journals.computeIfAbsent(file.getAbsolutePath(), path -> new GploadJournal(file));
+    }
+
+    public synchronized void spooled(String name) {
+        record(State.SPOOLED, name);
+    }
+
+    /**
+     * @return how often the load failed since the journal was read
+     */
+    public synchronized int failed(String name) {
+        retrying.remove(name);
+        record(State.FAILED, name);
+        return failures.merge(name, 1, Integer::sum);
+    }
+
+    public synchronized void done(String name) {
+        retrying.remove(name);
+        failures.remove(name);
+        record(State.DONE, name);
+    }
+
+    /**
+     * Claims the failed loads for a retry, so that no other task retries them at the same time.
+     * Every claimed load has to be reported {@link #done(String)} or {@link #failed(String)} again.
+     */
+    public synchronized List<String> claimFailed() {
+        List<String> claimed = new ArrayList<>();
+        for (Map.Entry<String, State> entry : entries.entrySet()) {
+            if (entry.getValue() == State.FAILED && !retrying.contains(entry.getKey())) {
+                claimed.add(entry.getKey());
+            }
+        }
+        retrying.addAll(claimed);
+        return claimed;
+    }
+
+    /**
+     * Returns the loads that were spooled by the pipelined mode of an earlier run of the worker and
+     * never finished, once. Their records were not committed, so Kafka delivers them again.
+     */
+    public synchronized List<String> takeRecoveredSpooled() {
+        List<String> taken = new ArrayList<>(recovered);
+        recovered.clear();
+        return taken;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void record(State state, String name) {
+        if (state == State.DONE) {
+            entries.remove(name);
+        } else {
+            entries.put(name, state);
+        }
+        try {
+            if (entries.isEmpty()) {
+                // nothing left to recover, start over with an empty file
+                new FileOutputStream(file, false).close();
+                return;
+            }
+            try (OutputStream out = new FileOutputStream(file, true)) {
+                out.write((state.name() + " " + name + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            log.error("Could not update gpload journal {}", file, e);
+        }
+    }
+
+    private void read() {
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space < 0) {
+                    continue;
+                }
+                State state;
+                try {
+                    state = State.valueOf(line.substring(0, space));
+                } catch (IllegalArgumentException e) {
+                    log.warn("Ignoring line {} of gpload journal {}", line, file);
+                    continue;
+                }
+                String name = line.substring(space + 1);
+                if (state == State.DONE) {
+                    entries.remove(name);
+                } else {
+                    entries.put(name, state);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not read gpload journal {}", file, e);
+        }
+        // spooled loads of a previous run are left to Kafka's redelivery
+        for (Map.Entry<String, State> entry : new ArrayList<>(entries.entrySet())) {
+            if (entry.getValue() == State.SPOOLED) {
+                recovered.add(entry.getKey());
+                entries.remove(entry.getKey());
+            }
+        }
+        log.info("Read gpload journal {}: {} failed loads, {} unfinished spooled loads", file, entries.size(), recovered.size());
+        rewrite();
+    }
+
+    private void rewrite() {
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<String, State> entry : entries.entrySet()) {
+            content.append(entry.getValue().name()).append(' ').append(entry.getKey()).append('\n');
+        }
+        try (OutputStream out = new FileOutputStream(file, false)) {
+            out.write(content.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.error("Could not rewrite gpload journal {}", file, e);
+        }
+    }
+}
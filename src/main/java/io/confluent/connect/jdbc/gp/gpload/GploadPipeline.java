@@ -0,0 +1,208 @@
+package io.confluent.connect.jdbc.gp.gpload;
+
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.OffsetTracker;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs gpload in the background when {@code gpload.concurrent.loads} is set, so that the task
+ * spools the next batch while Greenplum loads the previous ones.
+ *
+ * <p>Loads of a table finish in any order, but their offsets are handed to the
+ * {@link OffsetTracker} in submission order: only once a load and every load submitted before it
+ * succeeded. A failed load is run again by {@link #poll()} after {@code retry.backoff.ms}; when it
+ * failed more than {@code max.retries} times the task fails and its uncommitted records are
+ * delivered again. The update and upsert insert modes run one load per table at a time and later
+ * loads wait for a failed one, so that rows are merged in offset order. {@link #submit} blocks
+ * while a table has twice its concurrent loads spooled.
+ *
+ * <p>Instances belong to one task. Loads complete on the pipeline's threads.
+ */
+public class GploadPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(GploadPipeline.class);
+
+    private static final long CLOSE_TIMEOUT_MS = 10000;
+
+    private enum State {
+        QUEUED, RUNNING, FAILED, SUCCEEDED
+    }
+
+    private static class Load {
+        final SpooledLoad spooled;
+        final GploadJournal journal;
+        final Map<TopicPartition, Long> offsets;
+        State state = State.QUEUED;
+        int failures;
+        long failedAt;
+
+        Load(SpooledLoad spooled, GploadJournal journal, Map<TopicPartition, Long> offsets) {
+            this.spooled = spooled;
+            this.journal = journal;
+            this.offsets = offsets;
+        }
+    }
+
+    private static class TableLoads {
+        final Deque<Load> loads = new ArrayDeque<>();
+        final int maxRunning;
+        final boolean ordered;
+        int running;
+
+        TableLoads(int maxRunning, boolean ordered) {
+            this.maxRunning = maxRunning;
+            this.ordered = ordered;
+        }
+    }
+
+    private final JdbcSinkConfig config;
+    private final OffsetTracker offsetTracker;
+    private final String gploadBinary;
+    private final ExecutorService executor;
+    private final Map<String, TableLoads> tables = new HashMap<>();
+
+    public GploadPipeline(JdbcSinkConfig config, OffsetTracker offsetTracker) {
+        this.config = config;
+        this.offsetTracker = offsetTracker;
+        this.gploadBinary = config.greenplumHome != null ? config.greenplumHome + "/bin/gpload" : "gpload";
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "gpload-pipeline");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues the load of {@code records}, which were spooled to {@code spooled}.
+     */
+    public synchronized void submit(String tableName, GploadJournal journal, SpooledLoad spooled, Collection<SinkRecord> records) {
+        TableLoads table = tables.computeIfAbsent(tableName, name -> {
+            boolean ordered = config.insertMode != JdbcSinkConfig.InsertMode.INSERT;
+            return new TableLoads(ordered ? 1 : config.gploadConcurrentLoads, ordered);
+        });
+        while (table.loads.size() >= 2 * table.maxRunning) {
+            log.info("{} gpload runs of {} pending, waiting for one to finish", table.loads.size(), tableName);
+            retryDue(table);
+            try {
+                wait(Math.max(config.retryBackoffMs, 100));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConnectException("Interrupted while waiting for gpload runs of " + tableName, e);
+            }
+        }
+        journal.spooled(spooled.name());
+        table.loads.add(new Load(spooled, journal, OffsetTracker.maxOffsets(records)));
+        schedule(table);
+    }
+
+    /**
+     * Runs failed loads again once their backoff passed.
+     *
+     * @throws ConnectException when a load failed more than {@code max.retries} times
+     */
+    public synchronized void poll() {
+        for (TableLoads table : tables.values()) {
+            retryDue(table);
+        }
+    }
+
+    /**
+     * Stops starting loads and waits a while for the running ones. Their records stay uncommitted
+     * unless they finish in time.
+     */
+    public void close() {
+        synchronized (this) {
+            executor.shutdown();
+        }
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                log.warn("gpload runs did not finish within {} ms", CLOSE_TIMEOUT_MS);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void retryDue(TableLoads table) {
+        long now = System.currentTimeMillis();
+        for (Load load : table.loads) {
+            if (load.state != State.FAILED) {
+                continue;
+            }
+            if (load.failures > config.maxRetries) {
+                throw new ConnectException("gpload of " + load.spooled.name() + " failed " + load.failures + " times, files are kept in the spool directory");
+            }
+            if (now - load.failedAt >= config.retryBackoffMs) {
+                log.info("Retrying gpload of {}", load.spooled.name());
+                load.state = State.QUEUED;
+            }
+        }
+        schedule(table);
+    }
+
+    private void schedule(TableLoads table) {
+        for (Load load : table.loads) {
+            if (table.running >= table.maxRunning || executor.isShutdown()) {
+                return;
+            }
+            if (load.state == State.FAILED && table.ordered) {
+                // later loads of the table wait for the retry
+                return;
+            }
+            if (load.state == State.QUEUED) {
+                start(table, load);
+            }
+        }
+    }
+
+    private void start(TableLoads table, Load load) {
+        load.state = State.RUNNING;
+        table.running++;
+        executor.execute(() -> {
+            boolean succeeded;
+            try {
+                succeeded = load.spooled.run(gploadBinary);
+            } catch (Exception e) {
+                log.error("Error running gpload of {}", load.spooled.name(), e);
+                succeeded = false;
+            }
+            completed(table, load, succeeded);
+        });
+    }
+
+    private synchronized void completed(TableLoads table, Load load, boolean succeeded) {
+        table.running--;
+        if (succeeded) {
+            load.state = State.SUCCEEDED;
+        } else {
+            load.state = State.FAILED;
+            load.failures++;
+            load.failedAt = System.currentTimeMillis();
+        }
+        while (!table.loads.isEmpty() && table.loads.peek().state == State.SUCCEEDED) {
+            Load done = table.loads.poll();
+            offsetTracker.markDurable(done.offsets);
+            done.journal.done(done.spooled.name());
+            if (!config.keepGpFiles) {
+                done.spooled.delete();
+            }
+        }
+        schedule(table);
+        notifyAll();
+    }
+}
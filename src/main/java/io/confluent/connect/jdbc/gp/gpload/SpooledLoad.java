@@ -0,0 +1,131 @@
+package io.confluent.connect.jdbc.gp.gpload;
+
+import io.confluent.connect.jdbc.util.CommonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The files of one gpload run: the data ({@code <name>.csv}, or {@code <name>.csv.gz} when
+ * compressed), the control file ({@code <name>.yml}) and the gpload log ({@code <name>.log}), all in
+ * the spool directory under one base name.
+ */
+public class SpooledLoad {
+
+    private static final Logger log = LoggerFactory.getLogger(SpooledLoad.class);
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final String CSV = ".csv";
+    private static final String CSV_GZ = ".csv.gz";
+
+    private final String name;
+    private final boolean compressed;
+    private final File csvFile;
+    private final File yamlFile;
+    private final File logFile;
+
+    /**
+     * The load of an earlier batch, compressed if its data file is.
+     */
+    public SpooledLoad(File dir, String name) {
+        this(dir, name, new File(dir, name + CSV_GZ).exists());
+    }
+
+    public SpooledLoad(File dir, String name, boolean compressed) {
+        this.name = name;
+        this.compressed = compressed;
+        this.csvFile = new File(dir, name + (compressed ? CSV_GZ : CSV));
+        this.yamlFile = new File(dir, name + ".yml");
+        this.logFile = new File(dir, name + ".log");
+    }
+
+    /**
+     * Reserves a new base name for a load of {@code tableName}.
+     */
+    public static SpooledLoad create(File dir, String tableName, boolean compressed) throws IOException {
+        String suffix = compressed ? CSV_GZ : CSV;
+        File csvFile = File.createTempFile(tableName, suffix, dir);
+        String fileName = csvFile.getName();
+        return new SpooledLoad(dir, fileName.substring(0, fileName.length() - suffix.length()), compressed);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public File csvFile() {
+        return csvFile;
+    }
+
+    /**
+     * Opens the data file for writing through a large buffer, gzip compressing it if the load is
+     * compressed. gpfdist decompresses {@code .gz} files itself while serving them.
+     */
+    public OutputStream openData() throws IOException {
+        OutputStream out = Files.newOutputStream(csvFile.toPath());
+        if (!compressed) {
+            return new BufferedOutputStream(out, BUFFER_SIZE);
+        }
+        try {
+            return new BufferedOutputStream(new GZIPOutputStream(out, BUFFER_SIZE) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            }, BUFFER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    public File yamlFile() {
+        return yamlFile;
+    }
+
+    public File logFile() {
+        return logFile;
+    }
+
+    /**
+     * Runs gpload on the files.
+     *
+     * @return whether gpload reported no errors
+     * @throws java.io.IOException when gpload exits with a non-zero code, for example when it
+     *     fails on the control file before loading anything
+     */
+    public boolean run(String gploadBinary) throws Exception {
+        List<String> command = Arrays.asList(gploadBinary, "-l", logFile.getAbsolutePath(), "-f", yamlFile.getAbsolutePath());
+        log.info("Running gpload command {}", command);
+
+        ArrayList<String> cmdOutput = CommonUtils.executeCommand(command);
+        log.info("gpload output: {}", cmdOutput);
+
+        String errors = GPLoadDataIngestionService.checkGPloadOutputForErrors(cmdOutput);
+        if (errors.length() > 0) {
+            log.error("Errors in GPLoad:{}", errors);
+            log.error("Yaml: {}", yamlFile.getAbsolutePath());
+            log.error("Command: {}", command);
+            log.error("Keeping files for further analysis");
+            return false;
+        }
+        log.info("GPload of {} finished successfully", name);
+        return true;
+    }
+
+    public void delete() {
+        log.info("Deleting GP files of {}", name);
+        CommonUtils.deleteFile(yamlFile);
+        CommonUtils.deleteFile(logFile);
+        CommonUtils.deleteFile(csvFile);
+    }
+}
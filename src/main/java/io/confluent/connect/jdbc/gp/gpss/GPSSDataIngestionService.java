@@ -6,6 +6,7 @@ import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
 import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
 import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
 import io.confluent.connect.jdbc.util.TableDefinition;
+import org.apache.kafka.connect.sink.ErrantRecordReporter;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,19 +17,42 @@ public class GPSSDataIngestionService extends GpDataIngestionService {
 
     private static final Logger log = LoggerFactory.getLogger(GPSSDataIngestionService.class);
 
+    private final GPSSWrapper gpssWrapper;
+    private final GpssTransactions transactions;
+
     public GPSSDataIngestionService(JdbcSinkConfig config, DatabaseDialect dialect, TableDefinition tabDef, FieldsMetadata fieldsMetadata, SchemaPair schemaPair) {
+        this(config, dialect, tabDef, fieldsMetadata, schemaPair, null, null);
+    }
+
+    /**
+     * @param transactions the task's open GPSS transactions, or null to open and close the table for every batch
+     * @param reporter receives the records of rows Greenplum rejected, may be null
+     */
+    public GPSSDataIngestionService(JdbcSinkConfig config, DatabaseDialect dialect, TableDefinition tabDef, FieldsMetadata fieldsMetadata, SchemaPair schemaPair, GpssTransactions transactions, ErrantRecordReporter reporter) {
         super(config, dialect, tabDef, fieldsMetadata, schemaPair);
+        gpssWrapper = new GPSSWrapper(config, reporter);
+        this.transactions = transactions;
     }
 
     public GPSSDataIngestionService(JdbcSinkConfig config, DatabaseDialect dialect, String tableName, FieldsMetadata fieldsMetadata) {
         super(config, dialect, tableName, fieldsMetadata);
+        gpssWrapper = new GPSSWrapper(config);
+        transactions = null;
     }
 
     @Override
     public void ingest(List<SinkRecord> records) {
         super.ingest(records);
-        GPSSWrapper gpssWrapper = new GPSSWrapper(config);
-        gpssWrapper.ingestBatch(tableName, insertColumnsList, keyColumns, nonKeyColumns, getSinkColumnDetails(),"", data);
+        if (transactions != null) {
+            gpssWrapper.appendBatch(transactions, tableName, insertColumnsList, keyColumns, nonKeyColumns, getSinkColumnDetails(), "", batch, batchRecords, records);
+        } else {
+            gpssWrapper.ingestBatch(tableName, insertColumnsList, keyColumns, nonKeyColumns, getSinkColumnDetails(),"", batch, batchRecords);
+        }
+    }
+
+    @Override
+    public boolean defersCommit() {
+        return transactions != null;
     }
 
 
@@ -1,30 +1,54 @@
 package io.confluent.connect.jdbc.gp.gpss;
 
-import com.google.protobuf.ByteString;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.DelimitedRowEncoder;
+import io.confluent.connect.jdbc.gp.batch.RowEncoder;
 import io.confluent.connect.jdbc.gp.gpss.api.*;
 import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
 import io.confluent.connect.jdbc.sink.metadata.ColumnDetails;
-import io.confluent.connect.jdbc.util.ConnectionURLParser;
-import io.grpc.ManagedChannel;
-import io.grpc.ManagedChannelBuilder;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.connect.sink.ErrantRecordReporter;
+import org.apache.kafka.connect.sink.SinkRecord;
 
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class GPSSWrapper
 {
     static final Log log = LogFactory.getLog(GPSSWrapper.class);
+
+    private static final AtomicInteger WRITER_THREADS = new AtomicInteger();
+
     private final JdbcSinkConfig config;
 
+    private final GpssConnectionManager connections;
+    private final ErrantRecordReporter reporter;
+
     GPSSWrapper(JdbcSinkConfig config) {
-        this.config = config;
+        this(config, (ErrantRecordReporter) null);
     }
 
-    ManagedChannel channel = null;
-    Session mSession = null;
-    GpssGrpc.GpssBlockingStub bStub = null;
+    /**
+     * @param reporter receives the records of rows Greenplum rejected, may be null
+     */
+    GPSSWrapper(JdbcSinkConfig config, ErrantRecordReporter reporter) {
+        this(config, GpssConnectionManager.getInstance(), reporter);
+    }
+
+    GPSSWrapper(JdbcSinkConfig config, GpssConnectionManager connections) {
+        this(config, connections, null);
+    }
+
+    GPSSWrapper(JdbcSinkConfig config, GpssConnectionManager connections, ErrantRecordReporter reporter) {
+        this.config = config;
+        this.connections = connections;
+        this.reporter = reporter;
+    }
 
     /**
      * Verify the basic configuration;
@@ -33,24 +57,29 @@ public class GPSSWrapper
      * 3. Verify we can query the DB metadata to make sure we have access to schema
      */
     public void checkEnv() {
-        openGpssChannel();
-        connectToGP();
-        List<String> schemaNameList = listSchemas();
-        schemaNameList.forEach(schema -> log.debug("Schema Name ->" + schema));
-        List<String> tables = listTables(config.dbSchema);
-        tables.forEach(table -> {
-            log.debug("Table Name ->" + table);
-            Map<String, String> columnsMap = fetchTableInfo(table);
-            columnsMap.forEach( (colname, dbtype) -> {
-                log.debug( "column " + colname + " type: " + dbtype );
-            });
-        });
-        closeGpssChannel();
+        try (GpssConnectionManager.Lease lease = connections.acquire(config)) {
+            try {
+                List<String> schemaNameList = listSchemas(lease);
+                schemaNameList.forEach(schema -> log.debug("Schema Name ->" + schema));
+                List<String> tables = listTables(lease, config.dbSchema);
+                tables.forEach(table -> {
+                    log.debug("Table Name ->" + table);
+                    Map<String, String> columnsMap = fetchTableInfo(lease, table);
+                    columnsMap.forEach( (colname, dbtype) -> {
+                        log.debug( "column " + colname + " type: " + dbtype );
+                    });
+                });
+            } catch (RuntimeException e) {
+                lease.invalidate();
+                throw e;
+            }
+        }
     }
     /**
-     * Ingest data to specified database table.
+     * Ingest data to specified database table. {@code batchRecords} holds the record of each row of
+     * the batch, rows Greenplum rejects are reported for them.
      */
-    public void ingestBatch(String tableName, List<String> insertColumns, List<String> matchColumns, List<String> updateColumns, List<ColumnDetails> columnsWithDataType, String condition, List<List<String>> data) {
+    public void ingestBatch(String tableName, List<String> insertColumns, List<String> matchColumns, List<String> updateColumns, List<ColumnDetails> columnsWithDataType, String condition, ColumnarBatch batch, List<SinkRecord> batchRecords) {
 
         if(config.printDebugLogs){
             log.info("GPSSWrapper:ingestBatch:tableName: " + tableName);
@@ -58,75 +87,132 @@ public class GPSSWrapper
             log.info("GPSSWrapper:ingestBatch:matchColumns: " + matchColumns);
             log.info("GPSSWrapper:ingestBatch:updateColumns: " + updateColumns);
             log.info("GPSSWrapper:ingestBatch:condition: " + condition);
-            log.info("GPSSWrapper:ingestBatch:data: " + data);
+            log.info("GPSSWrapper:ingestBatch:rows: " + batch.rowCount());
         }
 
-
-        if(channel == null || channel.isShutdown() || channel.isTerminated()) {
-            log.debug("Opening GPSS channel  .......");
-            openGpssChannel();
-        }
-        if(mSession == null || !mSession.isInitialized()) {
-            log.debug("Opening GPSS session  .......");
-            connectToGP();
+        if (config.gpssWriteSessions > 1 && batch.rowCount() > 1) {
+            int[] keyColumns = sessionKeyColumns(tableName, matchColumns, batch);
+            if (keyColumns != null) {
+                ingestParallel(tableName, insertColumns, matchColumns, updateColumns, columnsWithDataType, condition, batch, batchRecords, keyColumns);
+                return;
+            }
         }
-        log.debug("Setting up GP table to write .......");
-        openTableForWrite(tableName, insertColumns, matchColumns, updateColumns, columnsWithDataType,  condition);
-        log.debug(" writing events to GP table .......");
-        writeToTable(data);
-        log.debug("Closing up GP table after write .......");
-        String status = closeTable();
-        log.info("GP table Write CloseRequest tStats: " + status);
-       if(!config.gpssUseStickySession) {
-           log.info("GP table Write CloseRequest tStats: " + status);
-           log.debug("Closing Channel till next iteration .......");
-           closeGpssChannel();
-       }
+        TransferStats stats = ingestRows(tableName, tableName, insertColumns, matchColumns, updateColumns, columnsWithDataType, condition, batch, null);
+        reportRejected(tableName, stats, batch, encoder(), batchRecords);
     }
 
-    private void openGpssChannel() {
-        try {
-            channel = ManagedChannelBuilder.forAddress(config.gpssHost, Integer.parseInt(config.gpssPort)).usePlaintext().build(); // TODO - use tls
-            bStub = GpssGrpc.newBlockingStub(channel);
-
-        } catch (Exception e) {
-            log.error("Exception while connecting to Stream Server", e);
-            throw new RuntimeException("Exception while connecting to Stream Server", e);
+    /**
+     * The batch columns to assign rows to sessions by, or {@code null} when the batch has to go
+     * through a single session. Each session commits on its own, so a batch that fails after some
+     * sessions committed is written again by the retry. That is only safe for merges and updates,
+     * which apply the same change again, and only if every change to a key goes through the same
+     * session, which needs all match columns in the batch.
+     */
+    private int[] sessionKeyColumns(String tableName, List<String> matchColumns, ColumnarBatch batch) {
+        if (config.insertMode == JdbcSinkConfig.InsertMode.INSERT) {
+            log.debug("Writing " + tableName + " through one session, a retried insert would duplicate the rows of committed sessions");
+            return null;
+        }
+        if (matchColumns.isEmpty()) {
+            log.warn("Writing " + tableName + " through one session, it has no match columns to assign rows to sessions by");
+            return null;
+        }
+        int[] keyColumns = new int[matchColumns.size()];
+        for (int i = 0; i < keyColumns.length; i++) {
+            keyColumns[i] = batch.columnNames().indexOf(matchColumns.get(i));
+            if (keyColumns[i] < 0) {
+                log.warn("Writing " + tableName + " through one session, match column " + matchColumns.get(i) + " is not among the written columns " + batch.columnNames());
+                return null;
+            }
         }
+        return keyColumns;
     }
 
-    private void closeGpssChannel() {
+    /**
+     * Writes the batch through several sessions at once. Rows are assigned to sessions by hash of
+     * the match columns, so every change to a key goes through the same session and keeps its
+     * order. The sessions run on threads of their own that are stopped once the batch is written.
+     */
+    private void ingestParallel(String tableName, List<String> insertColumns, List<String> matchColumns, List<String> updateColumns, List<ColumnDetails> columnsWithDataType, String condition, ColumnarBatch batch, List<SinkRecord> batchRecords, int[] keyColumns) {
+        int[][] partitions = batch.partitionRows(keyColumns, Math.min(config.gpssWriteSessions, batch.rowCount()));
+
+        ExecutorService writers = Executors.newFixedThreadPool(partitions.length, task -> {
+            Thread thread = new Thread(task, "gpss-writer-" + WRITER_THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<TransferStats>> sessions = new ArrayList<>(partitions.length);
+        TransferStats.Builder total = TransferStats.newBuilder();
+        RuntimeException failure = null;
         try {
-            channel.shutdown().awaitTermination(3, TimeUnit.SECONDS); // TODO - make configurable
+            for (int i = 0; i < partitions.length; i++) {
+                int[] rows = partitions[i];
+                if (rows.length == 0) {
+                    continue;
+                }
+                String label = tableName + " session " + (i + 1) + "/" + partitions.length;
+                sessions.add(writers.submit(() -> ingestRows(tableName, label, insertColumns, matchColumns, updateColumns, columnsWithDataType, condition, batch, rows)));
+            }
 
-        } catch (Exception e) {
-            log.error("Exception while closing channel to Stream Server", e);
-            throw new RuntimeException("Exception while closing channel to Stream Server", e);
+            for (Future<TransferStats> session : sessions) {
+                try {
+                    TransferStats stats = session.get();
+                    total.setSuccessCount(total.getSuccessCount() + stats.getSuccessCount())
+                            .setErrorCount(total.getErrorCount() + stats.getErrorCount())
+                            .addAllErrorRows(stats.getErrorRowsList());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while writing to " + tableName, e);
+                } catch (ExecutionException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                }
+            }
+        } finally {
+            // interrupts the sessions still running when the wait was interrupted
+            writers.shutdownNow();
+        }
+        if (failure != null) {
+            throw failure;
         }
+        log.info("GP table " + tableName + " written by " + sessions.size() + " sessions: " + total.getSuccessCount() + " rows loaded, " + total.getErrorCount() + " rejected");
+        reportRejected(tableName, total.build(), batch, encoder(), batchRecords);
     }
 
-    private void connectToGP() {
-        try {
-
-            ConnectionURLParser connection = new ConnectionURLParser(config.connectionUrl);
-
-            ConnectRequest connReq = ConnectRequest.newBuilder().setHost(connection.getHost()).setPort(connection.getPort())
-                    .setUsername(connection.getUsername()).setPassword(connection.getPassword()).setDB(connection.getDatabase())
-                    .setUseSSL(false).build();
-            mSession = bStub.connect(connReq);
-        } catch (Exception e) {
-            log.error("Exception while connecting to Greenplum Server", e);
-            throw new RuntimeException("Exception while connecting to Greenplum Server", e);
+    /**
+     * Opens the table on a session of its own, writes the given rows ({@code null} for all) and
+     * closes it.
+     */
+    private TransferStats ingestRows(String tableName, String label, List<String> insertColumns, List<String> matchColumns, List<String> updateColumns, List<ColumnDetails> columnsWithDataType, String condition, ColumnarBatch batch, int[] rows) {
+        try (GpssConnectionManager.Lease lease = connections.acquire(config)) {
+            try {
+                log.debug("Setting up GP table to write .......");
+                openTableForWrite(lease, tableName, insertColumns, matchColumns, updateColumns, columnsWithDataType, condition);
+                log.debug(" writing events to GP table .......");
+                writeToTable(lease, label, batch, rows, encoder());
+                log.debug("Closing up GP table after write .......");
+                TransferStats stats = closeTable(lease);
+                log.info("GP table " + label + " Write CloseRequest tStats: " + stats);
+                return stats;
+            } catch (RuntimeException e) {
+                // the session may still have the table open, don't hand it to the next batch
+                lease.invalidate();
+                throw e;
+            }
         }
     }
 
-    private List<String> listSchemas() {
+    private List<String> listSchemas(GpssConnectionManager.Lease lease) {
         try {
             // create a list schema request builder
-            ListSchemaRequest lsReq = ListSchemaRequest.newBuilder().setSession(mSession).build();
+            ListSchemaRequest lsReq = ListSchemaRequest.newBuilder().setSession(lease.session()).build();
 
             // use the blocking stub to call the ListSchema service
-            List<Schema> listSchema = bStub.listSchema(lsReq).getSchemasList();
+            List<Schema> listSchema = lease.stub().listSchema(lsReq).getSchemasList();
 
             // extract the name of each schema and save in an array
             List<String> schemaNameList = new ArrayList<String>();
@@ -140,13 +226,13 @@ public class GPSSWrapper
         }
     }
 
-    private List<String> listTables(String schemaName) {
+    private List<String> listTables(GpssConnectionManager.Lease lease, String schemaName) {
         try {
             // create a list table request builder
-            ListTableRequest ltReq = ListTableRequest.newBuilder().setSession(mSession).setSchema(schemaName).build();
+            ListTableRequest ltReq = ListTableRequest.newBuilder().setSession(lease.session()).setSchema(schemaName).build();
 
             // use the blocking stub to call the ListTable service
-            List<TableInfo> tblList = bStub.listTable(ltReq).getTablesList();
+            List<TableInfo> tblList = lease.stub().listTable(ltReq).getTablesList();
 
             // extract the name of each table only and save in an array
             List<String> tblNameList = new ArrayList<String>();
@@ -163,16 +249,16 @@ public class GPSSWrapper
     }
 
 
-    private Map<String, String> fetchTableInfo(String tableName) {
+    private Map<String, String> fetchTableInfo(GpssConnectionManager.Lease lease, String tableName) {
         // create a describe table request builder
         DescribeTableRequest dtReq = DescribeTableRequest.newBuilder()
-                .setSession(mSession)
+                .setSession(lease.session())
                 .setSchemaName(config.dbSchema)
                 .setTableName(tableName)
                 .build();
 
         // use the blocking stub to call the DescribeTable service
-        List<ColumnInfo> columnList = bStub.describeTable(dtReq).getColumnsList();
+        List<ColumnInfo> columnList = lease.stub().describeTable(dtReq).getColumnsList();
         Map<String, String> columnsMap = new HashMap<String, String>();
         // print the name and type of each column
         for(ColumnInfo ci : columnList) {
@@ -184,11 +270,95 @@ public class GPSSWrapper
     }
 
 
+    /**
+     * Write data to the long-lived transaction of the table, see {@link GpssTransactions}.
+     */
+    public void appendBatch(GpssTransactions transactions, String tableName, List<String> insertColumns, List<String> matchColumns, List<String> updateColumns, List<ColumnDetails> columnsWithDataType, String condition, ColumnarBatch batch, List<SinkRecord> batchRecords, List<SinkRecord> records) {
+        if(config.printDebugLogs){
+            log.info("GPSSWrapper:appendBatch:tableName: " + tableName + " rows: " + batch.rowCount());
+        }
+        OpenRequest template = openRequest(Session.getDefaultInstance(), tableName, insertColumns, matchColumns, updateColumns, columnsWithDataType, condition);
+        transactions.write(tableName, template, encoder(), batch, batchRecords, records);
+    }
+
+    /**
+     * Ingest serialized record values as they are, see {@link GpssPassThroughService}.
+     */
+    public void ingestPayloads(String tableName, ColumnarBatch payloads, List<SinkRecord> batchRecords) {
+        if(config.printDebugLogs){
+            log.info("GPSSWrapper:ingestPayloads:tableName: " + tableName + " rows: " + payloads.rowCount());
+        }
+        try (GpssConnectionManager.Lease lease = connections.acquire(config)) {
+            try {
+                lease.stub().open(passThroughOpenRequest(lease.session(), tableName));
+                RowEncoder encoder = new GpssPayloadEncoder();
+                writeToTable(lease, tableName, payloads, null, encoder);
+                TransferStats stats = closeTable(lease);
+                log.info("GP table Write CloseRequest tStats: " + stats);
+                reportRejected(tableName, stats, payloads, encoder, batchRecords);
+            } catch (RuntimeException e) {
+                lease.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    public void appendPayloads(GpssTransactions transactions, String tableName, ColumnarBatch payloads, List<SinkRecord> batchRecords, List<SinkRecord> records) {
+        if(config.printDebugLogs){
+            log.info("GPSSWrapper:appendPayloads:tableName: " + tableName + " rows: " + payloads.rowCount());
+        }
+        OpenRequest template = passThroughOpenRequest(Session.getDefaultInstance(), tableName);
+        transactions.write(tableName, template, new GpssPayloadEncoder(), payloads, batchRecords, records);
+    }
+
+    /**
+     * Describes the payloads once: GPSS parses every row as one JSON or Avro value and loads it into
+     * {@code gpss.passthrough.column}.
+     */
+    private OpenRequest passThroughOpenRequest(Session session, String tableName) {
+        if (config.insertMode != JdbcSinkConfig.InsertMode.INSERT) {
+            throw new RuntimeException("gpss.format " + config.gpssFormat + " only supports insert mode INSERT, not " + config.insertMode);
+        }
+        OpenRequest.Builder oReq = OpenRequest.newBuilder()
+                .setSession(session)
+                .setSchemaName(config.dbSchema)
+                .setTableName(tableName)
+                .setTimeout(config.gpssTimeout)
+                .setInsertOption(InsertOption.newBuilder()
+                        .addInsertColumns(config.gpssPassThroughColumn)
+                        .setErrorLimitCount(config.gpErrorsLimit)
+                        .setErrorLimitPercentage(config.gpErrorsPercentageLimit)
+                        .build());
+        if (config.gpssFormat == JdbcSinkConfig.GpssFormat.AVRO) {
+            FormatAvro.Builder avro = FormatAvro.newBuilder().setSourceColumnName(config.gpssPassThroughColumn);
+            if (config.gpssAvroSchemaUrl != null && !config.gpssAvroSchemaUrl.isEmpty()) {
+                avro.setSchemaUrl(config.gpssAvroSchemaUrl);
+            }
+            oReq.setAvro(avro.build());
+        } else {
+            oReq.setJson(FormatJSON.newBuilder()
+                    .setColumn(IntermediateColumn.newBuilder().setName(config.gpssPassThroughColumn).setType("json").build())
+                    .build());
+        }
+        return oReq.build();
+    }
+
+    private RowEncoder encoder() {
+        if (config.gpssFormat == JdbcSinkConfig.GpssFormat.BINARY) {
+            return new GpssRowEncoder();
+        }
+        return DelimitedRowEncoder.csv(config.delimiter, config.csvQuote, config.nullString, config.dataLineSeparator);
+    }
+
 //    string Condition = 4;
 //    int64 ErrorLimitCount = 5;
 //    int32 ErrorLimitPercentage = 6;
-    private void openTableForWrite(String tableName, List<String> insertColumns, List<String> matchColumns, List<String> updateColumns, List<ColumnDetails> columnsWithDataType, String condition ) {
-        // TODO - support multiple formats
+    private void openTableForWrite(GpssConnectionManager.Lease lease, String tableName, List<String> insertColumns, List<String> matchColumns, List<String> updateColumns, List<ColumnDetails> columnsWithDataType, String condition ) {
+        // use the blocking stub to call the Open service; it returns nothing
+        lease.stub().open(openRequest(lease.session(), tableName, insertColumns, matchColumns, updateColumns, columnsWithDataType, condition));
+    }
+
+    private OpenRequest openRequest(Session session, String tableName, List<String> insertColumns, List<String> matchColumns, List<String> updateColumns, List<ColumnDetails> columnsWithDataType, String condition) {
         FormatCSV.Builder csvBuilder = FormatCSV.newBuilder().setDelimiter(config.delimiter).setQuote(config.csvQuote).setHeader(false);
 //
 //       for (ColumnDetails col : columnsWithDataType) {
@@ -203,11 +373,14 @@ public class GPSSWrapper
             csvBuilder.setNull(config.nullString);
         }
         OpenRequest.Builder oReq = OpenRequest.newBuilder()
-                .setSession(mSession)
+                .setSession(session)
                 .setSchemaName(config.dbSchema)
                 .setTableName(tableName)
-                .setTimeout(config.gpssTimeout)
-                .setCsv(csvBuilder.build());
+                .setTimeout(config.gpssTimeout);
+        // without a format GPSS reads each row as a protobuf Row, see GpssRowEncoder
+        if (config.gpssFormat == JdbcSinkConfig.GpssFormat.CSV) {
+            oReq.setCsv(csvBuilder.build());
+        }
 
         if(config.insertMode == JdbcSinkConfig.InsertMode.MERGE || config.insertMode == JdbcSinkConfig.InsertMode.UPSERT) {
             MergeOption iOpt = MergeOption.newBuilder()
@@ -240,36 +413,41 @@ public class GPSSWrapper
             throw new RuntimeException("Unsupported insert mode: " + config.insertMode);
         }
 
-        // use the blocking stub to call the Open service; it returns nothing
-        bStub.open(oReq.build());
+        return oReq.build();
     }
 
-    private void writeToTable(List<List<String>> data) {
+    private void writeToTable(GpssConnectionManager.Lease lease, String label, ColumnarBatch batch, int[] rows, RowEncoder encoder) {
         try {
-            List<RowData> rows = new ArrayList<>();
-            for (int i = 0; i < data.size(); i++) {
-                List<String> row = data.get(i);
-                RowData.Builder rowbuilder = RowData.newBuilder().setData(ByteString.copyFromUtf8(String.join(config.delimiter, row)+(i<data.size() ? config.dataLineSeparator:"")));
-                rows.add(rowbuilder.build());
-            }
-
-            WriteRequest wReq = WriteRequest.newBuilder().setSession(mSession).addAllRows(rows).build();
-            // use the blocking stub to call the Write service; it returns nothing
-            bStub.write(wReq);
+            GpssChunkedWriter writer = new GpssChunkedWriter(lease.futureStub(), lease.session(), config.gpssWriteChunkBytes, config.gpssWriteMaxInFlight);
+            GpssChunkedWriter.Stats stats = writer.write(batch, rows, encoder);
+            log.info("GP table " + label + " Write: " + stats);
         } catch (Exception e) {
             log.error("Exception while writing to table", e);
             throw new RuntimeException("Exception while writing to table", e);
         }
     }
-   private String closeTable() {
-        // create a close request builder
-        TransferStats tStats = null;
+   private TransferStats closeTable(GpssConnectionManager.Lease lease) {
+        // create a close request builder; the rejected rows are only needed if they can be reported
         CloseRequest cReq = CloseRequest.newBuilder()
-                .setSession(mSession)
+                .setSession(lease.session())
+                .setMaxErrorRows(reporter != null ? -1 : 0)
                 .build();
         // use the blocking stub to call the Close service
-        tStats = bStub.close(cReq);
-        return tStats.toString();
+        return lease.stub().close(cReq);
+    }
+
+    private void reportRejected(String tableName, TransferStats stats, ColumnarBatch batch, RowEncoder encoder, List<SinkRecord> batchRecords) {
+        if (stats.getErrorCount() == 0) {
+            return;
+        }
+        if (reporter == null) {
+            log.warn("Greenplum rejected " + stats.getErrorCount() + " rows of " + tableName + ", no errant record reporter to send them to");
+            return;
+        }
+        // only encoded again when something was rejected
+        GpssRejectedRows rejectedRows = new GpssRejectedRows();
+        rejectedRows.add(batch, encoder, batchRecords);
+        rejectedRows.report(tableName, stats, reporter);
     }
 }
 
@@ -0,0 +1,174 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Empty;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.RowEncoder;
+import io.confluent.connect.jdbc.gp.gpss.api.RowData;
+import io.confluent.connect.jdbc.gp.gpss.api.Session;
+import io.confluent.connect.jdbc.gp.gpss.api.WriteRequest;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Streams the rows of a batch to an open GPSS table as a sequence of size-bounded Write requests.
+ *
+ * <p>Up to {@code maxInFlight} requests are sent through the future stub before the writer waits
+ * for the oldest one, so the next chunk is encoded while earlier chunks are on the wire. The first
+ * failed request fails the whole write and the requests still in flight are cancelled.
+ */
+public class GpssChunkedWriter {
+
+    /** Bytes a RowData entry adds to a WriteRequest on top of its data: tag and length varints. */
+    private static final int ROW_OVERHEAD = 8;
+
+    private final GpssGrpc.GpssFutureStub stub;
+    private final Session session;
+    private final int chunkBytes;
+    private final int maxInFlight;
+
+    public GpssChunkedWriter(GpssGrpc.GpssFutureStub stub, Session session, int chunkBytes, int maxInFlight) {
+        this.stub = stub;
+        this.session = session;
+        this.chunkBytes = chunkBytes;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    public Stats write(ColumnarBatch batch, RowEncoder encoder) throws IOException {
+        return write(batch, null, encoder);
+    }
+
+    /**
+     * Writes the given rows of the batch, in that order; {@code rows} null means all rows.
+     */
+    public Stats write(ColumnarBatch batch, int[] rows, RowEncoder encoder) throws IOException {
+        Stats stats = new Stats();
+        Deque<PendingWrite> inFlight = new ArrayDeque<>(maxInFlight);
+        ByteString.Output out = ByteString.newOutput();
+        WriteRequest.Builder chunk = WriteRequest.newBuilder().setSession(session);
+        long chunkSize = 0;
+        try {
+            int rowCount = rows == null ? batch.rowCount() : rows.length;
+            for (int n = 0; n < rowCount; n++) {
+                encoder.writeRow(batch, rows == null ? n : rows[n], out);
+                int rowSize = out.size() + ROW_OVERHEAD;
+                if (chunk.getRowsCount() > 0 && chunkSize + rowSize > chunkBytes) {
+                    send(chunk.build(), chunkSize, inFlight, stats);
+                    chunk = WriteRequest.newBuilder().setSession(session);
+                    chunkSize = 0;
+                }
+                chunk.addRows(RowData.newBuilder().setData(out.toByteString()));
+                chunkSize += rowSize;
+                out.reset();
+            }
+            if (chunk.getRowsCount() > 0) {
+                send(chunk.build(), chunkSize, inFlight, stats);
+            }
+            while (!inFlight.isEmpty()) {
+                await(inFlight.pollFirst(), stats);
+            }
+        } finally {
+            for (PendingWrite pending : inFlight) {
+                pending.future.cancel(true);
+            }
+        }
+        stats.elapsedNanos = System.nanoTime() - stats.startNanos;
+        return stats;
+    }
+
+    private void send(WriteRequest request, long size, Deque<PendingWrite> inFlight, Stats stats) {
+        while (inFlight.size() >= maxInFlight) {
+            await(inFlight.pollFirst(), stats);
+        }
+        PendingWrite pending = new PendingWrite(stub.write(request), request.getRowsCount(), size);
+        pending.future.addListener(pending::completed, Runnable::run);
+        inFlight.addLast(pending);
+    }
+
+    private void await(PendingWrite pending, Stats stats) {
+        try {
+            pending.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while writing to GPSS", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Exception while writing to table", e.getCause());
+        }
+        stats.record(pending);
+    }
+
+    private static final class PendingWrite {
+        final ListenableFuture<Empty> future;
+        final int rows;
+        final long bytes;
+        final long sentNanos = System.nanoTime();
+        volatile long completedNanos;
+
+        PendingWrite(ListenableFuture<Empty> future, int rows, long bytes) {
+            this.future = future;
+            this.rows = rows;
+            this.bytes = bytes;
+        }
+
+        void completed() {
+            completedNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Throughput and per-request latency of one {@link #write} call.
+     */
+    public static final class Stats {
+        private final long startNanos = System.nanoTime();
+        private long elapsedNanos;
+        private int requests;
+        private long rows;
+        private long bytes;
+        private long totalLatencyNanos;
+        private long maxLatencyNanos;
+
+        private void record(PendingWrite pending) {
+            long completed = pending.completedNanos != 0 ? pending.completedNanos : System.nanoTime();
+            long latency = completed - pending.sentNanos;
+            requests++;
+            rows += pending.rows;
+            bytes += pending.bytes;
+            totalLatencyNanos += latency;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+        }
+
+        public int requests() {
+            return requests;
+        }
+
+        public long rows() {
+            return rows;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        public double bytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes * 1_000_000_000d / elapsedNanos;
+        }
+
+        public double averageLatencyMillis() {
+            return requests == 0 ? 0 : totalLatencyNanos / 1_000_000d / requests;
+        }
+
+        public double maxLatencyMillis() {
+            return maxLatencyNanos / 1_000_000d;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows, %d bytes in %d write requests, %.1f ms, %.0f bytes/s, rpc latency avg %.1f ms max %.1f ms",
+                    rows, bytes, requests, elapsedNanos / 1_000_000d, bytesPerSecond(), averageLatencyMillis(), maxLatencyMillis());
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import io.confluent.connect.jdbc.gp.gpss.api.ConnectRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.ListSchemaRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.Session;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.util.ConnectionURLParser;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps GPSS channels and sessions alive between batches.
+ *
+ * <p>There is one {@link ManagedChannel} per GPSS host and port, shared by every task in the worker,
+ * and one pool of idle {@link Session}s per Greenplum database and user on that channel. A GPSS
+ * session can only have one table open at a time, so a session is lent to a single caller through
+ * a {@link Lease} and goes back to the pool when the lease is closed.
+ *
+ * <p>Sessions that have been idle longer than {@code gpss.health.check.interval.ms} are probed with
+ * a ListSchema call before they are lent out. Failed connects are retried with an exponential
+ * backoff that starts at {@code retry.backoff.ms}; the backoff is shared by all callers of the same
+ * GPSS server so that a restarting server is not hammered by every task at once.
+ */
+public class GpssConnectionManager {
+
+    static final Log log = LogFactory.getLog(GpssConnectionManager.class);
+
+    private static final GpssConnectionManager instance = new GpssConnectionManager((host, port, useTls) -> {
+        ManagedChannelBuilder<?> builder = ManagedChannelBuilder.forAddress(host, port);
+        return (useTls ? builder.useTransportSecurity() : builder.usePlaintext()).build();
+    });
+
+    public static GpssConnectionManager getInstance() {
+        return instance;
+    }
+
+    interface ChannelFactory {
+        /**
+         * @param useTls whether the channel must use TLS, see {@code gpss.use.tls}
+         */
+        ManagedChannel create(String host, int port, boolean useTls);
+    }
+
+    private final ChannelFactory channelFactory;
+    private final Map<String, Endpoint> endpoints = new HashMap<>();
+
+    GpssConnectionManager(ChannelFactory channelFactory) {
+        this.channelFactory = channelFactory;
+    }
+
+    /**
+     * Registers a user of the GPSS server configured in {@code config}. The channel and its sessions
+     * are closed once every registered user has called {@link #release(JdbcSinkConfig)}.
+     */
+    public synchronized void retain(JdbcSinkConfig config) {
+        endpoint(config).references++;
+    }
+
+    public void release(JdbcSinkConfig config) {
+        Endpoint endpoint;
+        synchronized (this) {
+            String key = endpointKey(config);
+            endpoint = endpoints.get(key);
+            if (endpoint == null || --endpoint.references > 0) {
+                return;
+            }
+            endpoints.remove(key);
+        }
+        endpoint.shutdown();
+    }
+
+    /**
+     * Lends a connected session to the caller, connecting a new one if no healthy idle session is
+     * available. The lease must be closed after use.
+     */
+    public Lease acquire(JdbcSinkConfig config) {
+        Endpoint endpoint;
+        synchronized (this) {
+            endpoint = endpoint(config);
+        }
+        return endpoint.acquire(config);
+    }
+
+    private Endpoint endpoint(JdbcSinkConfig config) {
+        return endpoints.computeIfAbsent(endpointKey(config),
+                key -> new Endpoint(config.gpssHost, Integer.parseInt(config.gpssPort), config.gpssUseTls));
+    }
+
+    private static String endpointKey(JdbcSinkConfig config) {
+        return config.gpssHost + ":" + config.gpssPort + (config.gpssUseTls ? "/tls" : "");
+    }
+
+    /**
+     * A session lent to one caller, together with the stub of the channel it was opened on.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final Endpoint endpoint;
+        private final String database;
+        private final Session session;
+        private final GpssGrpc.GpssBlockingStub stub;
+        private final GpssGrpc.GpssFutureStub futureStub;
+        private final boolean keepSession;
+        private boolean broken;
+        private boolean closed;
+
+        private Lease(Endpoint endpoint, String database, Session session, boolean keepSession) {
+            this.endpoint = endpoint;
+            this.database = database;
+            this.session = session;
+            this.stub = endpoint.stub();
+            this.futureStub = endpoint.futureStub();
+            this.keepSession = keepSession;
+        }
+
+        public Session session() {
+            return session;
+        }
+
+        public GpssGrpc.GpssBlockingStub stub() {
+            return stub;
+        }
+
+        /**
+         * Stub on the same channel for calls that should not block the caller, e.g. pipelined writes.
+         */
+        public GpssGrpc.GpssFutureStub futureStub() {
+            return futureStub;
+        }
+
+        /**
+         * Marks the session as unusable, it is disconnected instead of going back to the pool.
+         */
+        public void invalidate() {
+            broken = true;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (broken) {
+                endpoint.disconnectQuietly(session);
+                endpoint.checkChannel();
+            } else if (keepSession) {
+                endpoint.giveBack(database, session);
+            } else {
+                endpoint.disconnectQuietly(session);
+            }
+        }
+    }
+
+    private static final class IdleSession {
+        final Session session;
+        final long idleSince;
+
+        IdleSession(Session session, long idleSince) {
+            this.session = session;
+            this.idleSince = idleSince;
+        }
+    }
+
+    private final class Endpoint {
+        private final String host;
+        private final int port;
+        private final boolean useTls;
+        private final Map<String, Deque<IdleSession>> idleSessions = new HashMap<>();
+        private ManagedChannel channel;
+        private GpssGrpc.GpssBlockingStub stub;
+        private GpssGrpc.GpssFutureStub futureStub;
+        private int references;
+        private int failures;
+        private long nextAttemptAt;
+
+        Endpoint(String host, int port, boolean useTls) {
+            this.host = host;
+            this.port = port;
+            this.useTls = useTls;
+        }
+
+        Lease acquire(JdbcSinkConfig config) {
+            ConnectionURLParser connection = new ConnectionURLParser(config.connectionUrl);
+            String database = connection.getHost() + ":" + connection.getPort() + "/" + connection.getDatabase() + "/" + connection.getUsername();
+
+            IdleSession idle;
+            while ((idle = pollIdle(database)) != null) {
+                boolean recent = System.currentTimeMillis() - idle.idleSince < config.gpssHealthCheckIntervalMs;
+                if (recent || isAlive(idle.session, config)) {
+                    return new Lease(this, database, idle.session, config.gpssUseStickySession);
+                }
+                log.info("Dropping stale GPSS session to " + database);
+                disconnectQuietly(idle.session);
+            }
+            return new Lease(this, database, connect(config, connection), config.gpssUseStickySession);
+        }
+
+        private Session connect(JdbcSinkConfig config, ConnectionURLParser connection) {
+            ConnectRequest connReq = ConnectRequest.newBuilder().setHost(connection.getHost()).setPort(connection.getPort())
+                    .setUsername(connection.getUsername()).setPassword(connection.getPassword()).setDB(connection.getDatabase())
+                    .setUseSSL(false).build();
+            for (int attempt = 0; ; attempt++) {
+                waitForBackoff();
+                try {
+                    Session session = stub().connect(connReq);
+                    connected();
+                    return session;
+                } catch (RuntimeException e) {
+                    long backoff = failed(config);
+                    if (attempt >= config.maxRetries) {
+                        log.error("Exception while connecting to Greenplum Server", e);
+                        throw new RuntimeException("Exception while connecting to Greenplum Server", e);
+                    }
+                    log.warn("Could not connect to Greenplum through GPSS " + host + ":" + port + ", retrying in " + backoff + " ms", e);
+                }
+            }
+        }
+
+        private boolean isAlive(Session session, JdbcSinkConfig config) {
+            try {
+                stub().withDeadlineAfter(config.gpssTimeout, TimeUnit.MILLISECONDS)
+                        .listSchema(ListSchemaRequest.newBuilder().setSession(session).build());
+                return true;
+            } catch (RuntimeException e) {
+                log.debug("GPSS session health check failed", e);
+                return false;
+            }
+        }
+
+        synchronized GpssGrpc.GpssBlockingStub stub() {
+            if (channel == null || channel.isShutdown()) {
+                log.debug("Opening " + (useTls ? "TLS" : "plaintext") + " GPSS channel to " + host + ":" + port);
+                channel = channelFactory.create(host, port, useTls);
+                stub = GpssGrpc.newBlockingStub(channel);
+                futureStub = GpssGrpc.newFutureStub(channel);
+            }
+            return stub;
+        }
+
+        synchronized GpssGrpc.GpssFutureStub futureStub() {
+            stub();
+            return futureStub;
+        }
+
+        /**
+         * Replaces the channel if it has been shut down underneath us. Transient failures are left
+         * to the channel's own reconnect logic.
+         */
+        synchronized void checkChannel() {
+            if (channel != null && (channel.isShutdown() || channel.getState(false) == ConnectivityState.SHUTDOWN)) {
+                channel.shutdownNow();
+                channel = null;
+                stub = null;
+                futureStub = null;
+                idleSessions.clear();
+            }
+        }
+
+        private void waitForBackoff() {
+            long wait;
+            synchronized (this) {
+                wait = nextAttemptAt - System.currentTimeMillis();
+            }
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting to reconnect to GPSS", e);
+                }
+            }
+        }
+
+        private synchronized void connected() {
+            failures = 0;
+            nextAttemptAt = 0;
+        }
+
+        private synchronized long failed(JdbcSinkConfig config) {
+            failures++;
+            long backoff = Math.min((long) config.retryBackoffMs << Math.min(failures - 1, 20), config.gpssReconnectBackoffMaxMs);
+            nextAttemptAt = System.currentTimeMillis() + backoff;
+            checkChannel();
+            return backoff;
+        }
+
+        private synchronized IdleSession pollIdle(String database) {
+            Deque<IdleSession> sessions = idleSessions.get(database);
+            return sessions == null ? null : sessions.pollFirst();
+        }
+
+        synchronized void giveBack(String database, Session session) {
+            idleSessions.computeIfAbsent(database, key -> new ArrayDeque<>())
+                    .addFirst(new IdleSession(session, System.currentTimeMillis()));
+        }
+
+        void disconnectQuietly(Session session) {
+            try {
+                GpssGrpc.GpssBlockingStub current;
+                synchronized (this) {
+                    current = stub;
+                }
+                if (current != null) {
+                    current.disconnect(session);
+                }
+            } catch (RuntimeException e) {
+                log.debug("Exception while disconnecting GPSS session", e);
+            }
+        }
+
+        void shutdown() {
+            List<Session> sessions = new ArrayList<>();
+            ManagedChannel closing;
+            synchronized (this) {
+                for (Deque<IdleSession> idle : idleSessions.values()) {
+                    for (IdleSession session : idle) {
+                        sessions.add(session.session);
+                    }
+                }
+                idleSessions.clear();
+                closing = channel;
+            }
+            sessions.forEach(this::disconnectQuietly);
+            synchronized (this) {
+                channel = null;
+                stub = null;
+                futureStub = null;
+            }
+            if (closing != null) {
+                log.debug("Closing GPSS channel to " + host + ":" + port);
+                try {
+                    closing.shutdown().awaitTermination(3, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    closing.shutdownNow();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import io.confluent.connect.jdbc.gp.IGPDataIngestionService;
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.sink.ErrantRecordReporter;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Loads record values that are already JSON or Avro without decoding them. Each value is sent to
+ * GPSS as one row and the format and target column are described once in the Open request, so no
+ * Structs, strings or CSV are built on the way.
+ *
+ * <p>Values must reach the connector serialized, i.e. as {@code byte[]}, {@link ByteBuffer} or
+ * {@link String}; tombstones are skipped.
+ */
+public class GpssPassThroughService implements IGPDataIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(GpssPassThroughService.class);
+
+    private final JdbcSinkConfig config;
+    private final String tableName;
+    private final GPSSWrapper gpssWrapper;
+    private final GpssTransactions transactions;
+    private ColumnarBatch payloads;
+    private final List<SinkRecord> batchRecords = new ArrayList<>();
+
+    /**
+     * @param transactions the task's open GPSS transactions, or null to open and close the table for every batch
+     * @param reporter receives the records of values Greenplum rejected, may be null
+     */
+    public GpssPassThroughService(JdbcSinkConfig config, String tableName, GpssTransactions transactions, ErrantRecordReporter reporter) {
+        this(config, tableName, transactions, new GPSSWrapper(config, reporter));
+    }
+
+    GpssPassThroughService(JdbcSinkConfig config, String tableName, GpssTransactions transactions, GPSSWrapper gpssWrapper) {
+        this.config = config;
+        this.tableName = tableName;
+        this.transactions = transactions;
+        this.gpssWrapper = gpssWrapper;
+    }
+
+    @Override
+    public void ingest(List<SinkRecord> records) {
+        ColumnarBatch batch = payloads(records);
+        if (batch.rowCount() == 0) {
+            log.info("No values to load into {}", tableName);
+            return;
+        }
+        if (transactions != null) {
+            gpssWrapper.appendPayloads(transactions, tableName, batch, batchRecords, records);
+        } else {
+            gpssWrapper.ingestPayloads(tableName, batch, batchRecords);
+        }
+    }
+
+    /**
+     * Whether records passed to {@link #ingest(List)} may still be uncommitted when it returns.
+     */
+    public boolean defersCommit() {
+        return transactions != null;
+    }
+
+    ColumnarBatch payloads(List<SinkRecord> records) {
+        if (payloads == null) {
+            payloads = new ColumnarBatch(Collections.singletonList(config.gpssPassThroughColumn),
+                    Collections.singletonList(ColumnVector.Type.BINARY), records.size());
+        } else {
+            payloads.reset();
+        }
+        batchRecords.clear();
+        ColumnVector column = payloads.column(0);
+        for (SinkRecord record : records) {
+            Object value = record.value();
+            if (value == null) {
+                continue;
+            }
+            if (!(value instanceof byte[] || value instanceof ByteBuffer || value instanceof String)) {
+                throw new DataException(String.format(
+                        "gpss.format %s requires serialized record values, but found %s at (topic='%s',partition=%d,offset=%d). "
+                                + "Use a value.converter that keeps the raw bytes, such as ByteArrayConverter.",
+                        config.gpssFormat, value.getClass().getName(), record.topic(), record.kafkaPartition(), record.kafkaOffset()));
+            }
+            column.appendObject(value);
+            payloads.endRow();
+            batchRecords.add(record);
+        }
+        return payloads;
+    }
+}
@@ -0,0 +1,21 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import io.confluent.connect.jdbc.gp.batch.BytesColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.RowEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the bytes of the first column as they are. Used for pass-through formats, where every row
+ * of the batch is one serialized record value that GPSS parses itself.
+ */
+public class GpssPayloadEncoder implements RowEncoder {
+
+    @Override
+    public void writeRow(ColumnarBatch batch, int row, OutputStream out) throws IOException {
+        BytesColumnVector payloads = (BytesColumnVector) batch.column(0);
+        out.write(payloads.data(), payloads.start(row), payloads.length(row));
+    }
+}
@@ -0,0 +1,113 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.RowEncoder;
+import io.confluent.connect.jdbc.gp.gpss.api.TransferStats;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.sink.ErrantRecordReporter;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the rows GPSS rejected back to the records they were encoded from.
+ *
+ * <p>Rows under the error limit are not loaded, but the load succeeds and {@link TransferStats}
+ * only lists the raw data of the rejected rows. Every written row is remembered by a 64-bit hash
+ * of its encoded bytes, without the line terminator, so that each error row can be looked up
+ * without keeping the encoded data around. Error rows that match no written row, which is the case
+ * for the protobuf formats, are only counted.
+ */
+public class GpssRejectedRows {
+
+    static final Log log = LogFactory.getLog(GpssRejectedRows.class);
+
+    private final Map<Long, List<SinkRecord>> recordsByHash = new HashMap<>();
+    private final ByteArrayOutputStream row = new ByteArrayOutputStream(256);
+
+    /**
+     * Remembers the rows of a batch; {@code batchRecords} holds the record of each row, in row order.
+     */
+    public void add(ColumnarBatch batch, RowEncoder encoder, List<SinkRecord> batchRecords) {
+        if (batchRecords.size() != batch.rowCount()) {
+            throw new IllegalArgumentException("Got " + batchRecords.size() + " records for " + batch.rowCount() + " rows");
+        }
+        try {
+            for (int i = 0; i < batch.rowCount(); i++) {
+                row.reset();
+                encoder.writeRow(batch, i, row);
+                byte[] bytes = row.toByteArray();
+                recordsByHash.computeIfAbsent(hash(bytes, trimmedLength(bytes)), k -> new ArrayList<>(1)).add(batchRecords.get(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the records of the given error rows. A row that was written several times matches
+     * every record it was written for.
+     */
+    public List<SinkRecord> resolve(List<String> errorRows) {
+        List<SinkRecord> rejected = new ArrayList<>();
+        for (String errorRow : errorRows) {
+            byte[] bytes = errorRow.getBytes(StandardCharsets.UTF_8);
+            List<SinkRecord> records = recordsByHash.remove(hash(bytes, trimmedLength(bytes)));
+            if (records != null) {
+                rejected.addAll(records);
+            }
+        }
+        return rejected;
+    }
+
+    public boolean isEmpty() {
+        return recordsByHash.isEmpty();
+    }
+
+    /**
+     * Reports the records behind the error rows of {@code stats} to {@code reporter}, and logs the
+     * rejected rows that could not be traced back.
+     */
+    public void report(String tableName, TransferStats stats, ErrantRecordReporter reporter) {
+        if (stats.getErrorCount() == 0) {
+            return;
+        }
+        List<SinkRecord> rejected = resolve(stats.getErrorRowsList());
+        for (SinkRecord record : rejected) {
+            reporter.report(record, new DataException("Row rejected by Greenplum while loading " + tableName));
+        }
+        long untraced = stats.getErrorCount() - rejected.size();
+        log.warn("Greenplum rejected " + stats.getErrorCount() + " rows of " + tableName + ", reported " + rejected.size() + " records"
+                + (untraced > 0 ? ", " + untraced + " rows could not be matched to a record" : ""));
+        if (untraced > 0 && log.isDebugEnabled()) {
+            stats.getErrorRowsList().forEach(errorRow -> log.debug("Rejected row of " + tableName + ": " + errorRow));
+        }
+    }
+
+    private static int trimmedLength(byte[] bytes) {
+        int length = bytes.length;
+        while (length > 0 && (bytes[length - 1] == '\n' || bytes[length - 1] == '\r')) {
+            length--;
+        }
+        return length;
+    }
+
+    // FNV-1a
+    private static long hash(byte[] bytes, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            hash ^= bytes[i] & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
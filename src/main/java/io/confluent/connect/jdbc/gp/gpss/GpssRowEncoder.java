@@ -0,0 +1,68 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.NullValue;
+import io.confluent.connect.jdbc.gp.batch.BooleanColumnVector;
+import io.confluent.connect.jdbc.gp.batch.BytesColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.DoubleColumnVector;
+import io.confluent.connect.jdbc.gp.batch.LongColumnVector;
+import io.confluent.connect.jdbc.gp.batch.RowEncoder;
+import io.confluent.connect.jdbc.gp.gpss.api.DBValue;
+import io.confluent.connect.jdbc.gp.gpss.api.Row;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes rows as protobuf {@link Row} messages of typed {@link DBValue} columns, the format GPSS
+ * expects when an Open request has no format set.
+ *
+ * <p>Integers and floating point values are sent as numbers, Connect BYTES as raw bytes and text
+ * as UTF-8 strings, so values are never quoted or escaped and delimiters inside them are harmless.
+ * Booleans have no DBValue type and are sent as {@code true}/{@code false} strings.
+ */
+public class GpssRowEncoder implements RowEncoder {
+
+    private static final DBValue NULL = DBValue.newBuilder().setNullValue(NullValue.NULL_VALUE).build();
+    private static final DBValue TRUE = DBValue.newBuilder().setStringValue("true").build();
+    private static final DBValue FALSE = DBValue.newBuilder().setStringValue("false").build();
+
+    private final Row.Builder row = Row.newBuilder();
+    private final DBValue.Builder value = DBValue.newBuilder();
+
+    @Override
+    public void writeRow(ColumnarBatch batch, int rowIndex, OutputStream out) throws IOException {
+        row.clear();
+        for (int i = 0; i < batch.columnCount(); i++) {
+            row.addColumns(toValue(batch.column(i), rowIndex));
+        }
+        row.build().writeTo(out);
+    }
+
+    private DBValue toValue(ColumnVector column, int rowIndex) {
+        if (column.isNull(rowIndex)) {
+            return NULL;
+        }
+        value.clear();
+        switch (column.type()) {
+            case LONG:
+                return value.setInt64Value(((LongColumnVector) column).getLong(rowIndex)).build();
+            case FLOAT:
+                return value.setFloat32Value((float) ((DoubleColumnVector) column).getDouble(rowIndex)).build();
+            case DOUBLE:
+                return value.setFloat64Value(((DoubleColumnVector) column).getDouble(rowIndex)).build();
+            case BOOLEAN:
+                return ((BooleanColumnVector) column).getBoolean(rowIndex) ? TRUE : FALSE;
+            case BINARY: {
+                BytesColumnVector bytes = (BytesColumnVector) column;
+                return value.setBytesValue(ByteString.copyFrom(bytes.data(), bytes.start(rowIndex), bytes.length(rowIndex))).build();
+            }
+            default: {
+                BytesColumnVector text = (BytesColumnVector) column;
+                return value.setStringValueBytes(ByteString.copyFrom(text.data(), text.start(rowIndex), text.length(rowIndex))).build();
+            }
+        }
+    }
+}
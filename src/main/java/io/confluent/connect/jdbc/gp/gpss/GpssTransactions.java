@@ -0,0 +1,227 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.RowEncoder;
+import io.confluent.connect.jdbc.gp.gpss.api.CloseRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.OpenRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.TransferStats;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.OffsetTracker;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.ErrantRecordReporter;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GPSS tables that stay open across batches when {@code gpss.transaction.enabled} is set.
+ *
+ * <p>Every batch for a table is written to the same Open request; the table is closed, which
+ * commits the Greenplum transaction, once it reaches the row, byte or time limit, when the columns
+ * or load options of the table change, or when the task commits offsets. Only then are the offsets
+ * of the written records handed to the {@link OffsetTracker}, after the records of rows Greenplum
+ * rejected have been sent to the errant record reporter. With a reporter, the records of an open
+ * transaction stay referenced until it is closed.
+ *
+ * <p>Each open table holds its own GPSS session. Instances belong to one task and are not thread
+ * safe.
+ */
+public class GpssTransactions {
+
+    static final Log log = LogFactory.getLog(GpssTransactions.class);
+
+    private final JdbcSinkConfig config;
+    private final OffsetTracker offsetTracker;
+    private final GpssConnectionManager connections;
+    private final ErrantRecordReporter reporter;
+    private final Map<String, OpenTable> openTables = new LinkedHashMap<>();
+
+    /**
+     * @param reporter receives the records of rows Greenplum rejected, may be null
+     */
+    public GpssTransactions(JdbcSinkConfig config, OffsetTracker offsetTracker, ErrantRecordReporter reporter) {
+        this(config, offsetTracker, GpssConnectionManager.getInstance(), reporter);
+    }
+
+    GpssTransactions(JdbcSinkConfig config, OffsetTracker offsetTracker, GpssConnectionManager connections) {
+        this(config, offsetTracker, connections, null);
+    }
+
+    GpssTransactions(JdbcSinkConfig config, OffsetTracker offsetTracker, GpssConnectionManager connections, ErrantRecordReporter reporter) {
+        this.config = config;
+        this.offsetTracker = offsetTracker;
+        this.connections = connections;
+        this.reporter = reporter;
+    }
+
+    /**
+     * Writes a batch to the open transaction of the table, opening one with {@code openRequest} if
+     * needed. The session of {@code openRequest} is ignored. {@code batchRecords} holds the record of
+     * each row of the batch, {@code records} all records the batch stands for.
+     */
+    public void write(String tableName, OpenRequest openRequest, RowEncoder encoder, ColumnarBatch batch, List<SinkRecord> batchRecords, Collection<SinkRecord> records) {
+        OpenTable table = openTables.get(tableName);
+        if (table != null && !table.openRequest.equals(openRequest)) {
+            log.info("Load options of " + tableName + " changed, closing its open transaction");
+            close(tableName);
+            table = null;
+        }
+        if (table == null) {
+            table = open(tableName, openRequest);
+        }
+        try {
+            GpssChunkedWriter writer = new GpssChunkedWriter(table.lease.futureStub(), table.lease.session(), config.gpssWriteChunkBytes, config.gpssWriteMaxInFlight);
+            GpssChunkedWriter.Stats stats = writer.write(batch, encoder);
+            log.info("GP table Write: " + stats);
+            table.rows += stats.rows();
+            table.bytes += stats.bytes();
+            table.pending(records);
+            if (table.rejectedRows != null) {
+                table.rejectedRows.add(batch, encoder, batchRecords);
+            }
+        } catch (Exception e) {
+            abort(tableName);
+            log.error("Exception while writing to table", e);
+            throw new RuntimeException("Exception while writing to table", e);
+        }
+        if (table.isDue(config, System.currentTimeMillis())) {
+            close(tableName);
+        }
+    }
+
+    /**
+     * Closes the transactions that have been open longer than {@code gpss.transaction.max.ms}.
+     */
+    public void closeExpired() {
+        long now = System.currentTimeMillis();
+        List<String> expired = new ArrayList<>();
+        for (Map.Entry<String, OpenTable> entry : openTables.entrySet()) {
+            if (entry.getValue().isDue(config, now)) {
+                expired.add(entry.getKey());
+            }
+        }
+        expired.forEach(this::close);
+    }
+
+    /**
+     * Closes every open transaction. All tables are attempted; the first failure is rethrown.
+     */
+    public void closeAll() {
+        RuntimeException failure = null;
+        for (String tableName : new ArrayList<>(openTables.keySet())) {
+            try {
+                close(tableName);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Drops every open transaction without closing it. GPSS rolls them back when their sessions are
+     * disconnected, and their records are not marked durable.
+     */
+    public void abortAll() {
+        for (String tableName : new ArrayList<>(openTables.keySet())) {
+            abort(tableName);
+        }
+    }
+
+    public boolean isEmpty() {
+        return openTables.isEmpty();
+    }
+
+    private OpenTable open(String tableName, OpenRequest openRequest) {
+        GpssConnectionManager.Lease lease = connections.acquire(config);
+        try {
+            log.debug("Opening GP table " + tableName + " for a long-lived transaction");
+            lease.stub().open(openRequest.toBuilder().setSession(lease.session()).build());
+        } catch (RuntimeException e) {
+            lease.invalidate();
+            lease.close();
+            log.error("Exception while opening table " + tableName, e);
+            throw new RuntimeException("Exception while opening table " + tableName, e);
+        }
+        OpenTable table = new OpenTable(openRequest, lease, System.currentTimeMillis(), reporter != null ? new GpssRejectedRows() : null);
+        openTables.put(tableName, table);
+        return table;
+    }
+
+    private void close(String tableName) {
+        OpenTable table = openTables.remove(tableName);
+        if (table == null) {
+            return;
+        }
+        TransferStats stats;
+        try {
+            stats = table.lease.stub().close(CloseRequest.newBuilder()
+                    .setSession(table.lease.session())
+                    .setMaxErrorRows(reporter != null ? -1 : 0)
+                    .build());
+            log.info("GP table " + tableName + " transaction closed after " + table.rows + " rows, " + table.bytes + " bytes, "
+                    + (System.currentTimeMillis() - table.openedAt) + " ms. CloseRequest tStats: " + stats);
+        } catch (RuntimeException e) {
+            table.lease.invalidate();
+            log.error("Exception while closing table " + tableName, e);
+            throw new RuntimeException("Exception while closing table " + tableName, e);
+        } finally {
+            table.lease.close();
+        }
+        if (table.rejectedRows != null) {
+            table.rejectedRows.report(tableName, stats, reporter);
+        } else if (stats.getErrorCount() > 0) {
+            log.warn("Greenplum rejected " + stats.getErrorCount() + " rows of " + tableName + ", no errant record reporter to send them to");
+        }
+        offsetTracker.markDurable(table.pendingOffsets);
+    }
+
+    private void abort(String tableName) {
+        OpenTable table = openTables.remove(tableName);
+        if (table != null) {
+            log.warn("Aborting open transaction of " + tableName + " with " + table.rows + " rows");
+            table.lease.invalidate();
+            table.lease.close();
+        }
+    }
+
+    private static final class OpenTable {
+        final OpenRequest openRequest;
+        final GpssConnectionManager.Lease lease;
+        final long openedAt;
+        final Map<TopicPartition, Long> pendingOffsets = new HashMap<>();
+        final GpssRejectedRows rejectedRows;
+        long rows;
+        long bytes;
+
+        OpenTable(OpenRequest openRequest, GpssConnectionManager.Lease lease, long openedAt, GpssRejectedRows rejectedRows) {
+            this.openRequest = openRequest;
+            this.lease = lease;
+            this.openedAt = openedAt;
+            this.rejectedRows = rejectedRows;
+        }
+
+        void pending(Collection<SinkRecord> records) {
+            OffsetTracker.maxOffsets(records).forEach((partition, offset) -> pendingOffsets.merge(partition, offset, Math::max));
+        }
+
+        boolean isDue(JdbcSinkConfig config, long now) {
+            return (config.gpssTransactionMaxRows > 0 && rows >= config.gpssTransactionMaxRows)
+                    || (config.gpssTransactionMaxBytes > 0 && bytes >= config.gpssTransactionMaxBytes)
+                    || (config.gpssTransactionMaxMs > 0 && now - openedAt >= config.gpssTransactionMaxMs);
+        }
+    }
+}
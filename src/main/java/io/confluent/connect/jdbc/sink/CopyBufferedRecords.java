@@ -0,0 +1,231 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import io.confluent.connect.jdbc.dialect.PostgreSqlDatabaseDialect;
+import io.confluent.connect.jdbc.gp.KeyDeduplicator;
+import io.confluent.connect.jdbc.util.ColumnId;
+import io.confluent.connect.jdbc.util.TableId;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Buffered records that PostgreSQL loads with {@code COPY ... FROM STDIN} instead of a batch of
+ * prepared statements, for {@code batch.insert.mode=copy}.
+ *
+ * <p>Insert mode copies straight into the table. Upsert and update modes copy into a temporary
+ * staging table and apply it with one {@code INSERT ... ON CONFLICT} or {@code UPDATE ... FROM}
+ * statement, keeping only the last record of every key. Deletes still go through the prepared
+ * delete statement, after the copied rows like in {@link BufferedRecords}. Records with array, map
+ * or struct fields, and update mode without key columns, fall back to the prepared statements.
+ */
+public class CopyBufferedRecords extends BufferedRecords {
+
+  private final PostgreSqlDatabaseDialect copyDialect;
+  private boolean checked;
+  private Schema checkedKeySchema;
+  private Schema checkedValueSchema;
+  private boolean copySupported;
+
+  public CopyBufferedRecords(
+      JdbcSinkConfig config,
+      TableId tableId,
+      PostgreSqlDatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      Connection connection
+  ) {
+    super(config, tableId, dbDialect, dbStructure, connection);
+    this.copyDialect = dbDialect;
+  }
+
+  @Override
+  public List<SinkRecord> flush() throws SQLException {
+    if (records.isEmpty() || !copySupported()) {
+      return super.flush();
+    }
+    log.debug("Copying {} buffered records", records.size());
+    final List<SinkRecord> rows = new ArrayList<>(records.size());
+    for (SinkRecord record : records) {
+      if (isNull(record.value())) {
+        if (nonNull(deleteStatementBinder)) {
+          deleteStatementBinder.bindRecord(record);
+        }
+      } else {
+        rows.add(record);
+      }
+    }
+    if (!rows.isEmpty()) {
+      copyRows(rows);
+    }
+    executeDeletes();
+
+    final List<SinkRecord> flushedRecords = records;
+    records = new ArrayList<>();
+    deletesInBatch = false;
+    return flushedRecords;
+  }
+
+  private void copyRows(List<SinkRecord> rows) throws SQLException {
+    final Collection<ColumnId> keyColumns = asColumns(fieldsMetadata.keyFieldNames);
+    final Collection<ColumnId> nonKeyColumns = asColumns(fieldsMetadata.nonKeyFieldNames);
+    if (!staged()) {
+      copy(copyDialect.buildCopyStatement(tableId, keyColumns, nonKeyColumns), rows);
+      return;
+    }
+
+    final List<SinkRecord> lastPerKey = config.pkMode == JdbcSinkConfig.PrimaryKeyMode.KAFKA
+        ? rows
+        : KeyDeduplicator.forColumns(new ArrayList<>(fieldsMetadata.keyFieldNames),
+            rows.get(0).keySchema(), rows.get(0).valueSchema()).select(rows, true, false);
+    final TableId staging = stagingTable();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(copyDialect.buildCreateStagingTableStatement(
+          staging, tableId, keyColumns, nonKeyColumns));
+      copy(copyDialect.buildCopyStatement(staging, keyColumns, nonKeyColumns), lastPerKey);
+      statement.executeUpdate(copyDialect.buildMergeFromStagingStatement(
+          tableId, staging, keyColumns, nonKeyColumns, config.insertMode));
+      statement.execute("DROP TABLE " + copyDialect.expressionBuilder().append(staging));
+    }
+  }
+
+  private void copy(String copySql, List<SinkRecord> rows) throws SQLException {
+    final StringBuilder row = new StringBuilder(256);
+    try (OutputStream out = copyDialect.copyIn(connection, copySql)) {
+      for (SinkRecord record : rows) {
+        row.setLength(0);
+        appendRow(row, record);
+        row.append('\n');
+        out.write(row.toString().getBytes(StandardCharsets.UTF_8));
+      }
+    } catch (IOException e) {
+      throw new SQLException("Failed to copy records into " + tableId, e);
+    }
+  }
+
+  private void appendRow(StringBuilder row, SinkRecord record) {
+    boolean first = true;
+    switch (config.pkMode) {
+      case NONE:
+        break;
+      case KAFKA:
+        copyDialect.appendCopyValue(row, Schema.STRING_SCHEMA, record.topic());
+        row.append(',').append(record.kafkaPartition()).append(',').append(record.kafkaOffset());
+        first = false;
+        break;
+      case RECORD_KEY:
+        if (record.keySchema().type().isPrimitive()) {
+          copyDialect.appendCopyValue(row, record.keySchema(), record.key());
+          first = false;
+        } else {
+          for (String fieldName : fieldsMetadata.keyFieldNames) {
+            final Field field = record.keySchema().field(fieldName);
+            first = appendDelimiter(row, first);
+            copyDialect.appendCopyValue(row, field.schema(), ((Struct) record.key()).get(field));
+          }
+        }
+        break;
+      case RECORD_VALUE:
+        for (String fieldName : fieldsMetadata.keyFieldNames) {
+          final Field field = record.valueSchema().field(fieldName);
+          first = appendDelimiter(row, first);
+          copyDialect.appendCopyValue(row, field.schema(), ((Struct) record.value()).get(field));
+        }
+        break;
+      default:
+        throw new ConnectException("Unknown primary key mode: " + config.pkMode);
+    }
+    final Struct value = (Struct) record.value();
+    for (String fieldName : fieldsMetadata.nonKeyFieldNames) {
+      final Field field = value.schema().field(fieldName);
+      first = appendDelimiter(row, first);
+      copyDialect.appendCopyValue(row, field.schema(), value.get(field));
+    }
+  }
+
+  private static boolean appendDelimiter(StringBuilder row, boolean first) {
+    if (!first) {
+      row.append(',');
+    }
+    return false;
+  }
+
+  private boolean staged() {
+    return config.insertMode == JdbcSinkConfig.InsertMode.UPSERT
+        || config.insertMode == JdbcSinkConfig.InsertMode.UPDATE;
+  }
+
+  private TableId stagingTable() {
+    String name = "copy_" + tableId.tableName().replaceAll("[^A-Za-z0-9_]", "_").toLowerCase();
+    return new TableId(null, null, name.length() > 48 ? name.substring(0, 48) : name);
+  }
+
+  /**
+   * Whether the buffered records can be copied, checked once per schema. The schemas of the
+   * buffer already belong to the next record while a schema change flushes, so the buffered
+   * records' own schemas are checked.
+   */
+  private boolean copySupported() {
+    final SinkRecord sample = records.stream()
+        .filter(record -> nonNull(record.value()))
+        .findFirst()
+        .orElse(null);
+    if (isNull(sample)) {
+      return true;
+    }
+    final Schema keySchema = sample.keySchema();
+    final Schema valueSchema = sample.valueSchema();
+    if (checked && checkedKeySchema == keySchema && checkedValueSchema == valueSchema) {
+      return copySupported;
+    }
+    checked = true;
+    checkedKeySchema = keySchema;
+    checkedValueSchema = valueSchema;
+    copySupported = !(config.insertMode == JdbcSinkConfig.InsertMode.UPDATE
+                      && fieldsMetadata.keyFieldNames.isEmpty())
+        && (config.pkMode != JdbcSinkConfig.PrimaryKeyMode.RECORD_KEY || keySupported(keySchema))
+        && (valueSchema == null || valueSchema.fields().stream()
+            .allMatch(field -> copyDialect.supportsCopy(field.schema())));
+    if (!copySupported) {
+      log.info("Records for {} cannot be copied, using prepared statements", tableId);
+    }
+    return copySupported;
+  }
+
+  private boolean keySupported(Schema keySchema) {
+    if (keySchema.type().isPrimitive()) {
+      return true;
+    }
+    return keySchema.type() == Schema.Type.STRUCT
+        && keySchema.fields().stream().allMatch(field -> copyDialect.supportsCopy(field.schema()));
+  }
+}
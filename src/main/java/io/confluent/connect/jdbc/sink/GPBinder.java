@@ -5,11 +5,14 @@ import io.confluent.connect.jdbc.dialect.DatabaseDialect.StatementBinder;
 import io.confluent.connect.jdbc.gp.GpDataIngestionService;
 import io.confluent.connect.jdbc.gp.gpfdist.GpfdistDataIngestionService;
 import io.confluent.connect.jdbc.gp.gpload.GPLoadDataIngestionService;
+import io.confluent.connect.jdbc.gp.gpload.GploadPipeline;
 import io.confluent.connect.jdbc.gp.gpss.GPSSDataIngestionService;
+import io.confluent.connect.jdbc.gp.gpss.GpssTransactions;
 import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
 import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
 import io.confluent.connect.jdbc.util.TableDefinition;
 import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.ErrantRecordReporter;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +31,7 @@ public class GPBinder implements StatementBinder {
     private final DatabaseDialect dialect;
     private final TableDefinition tabDef;
     private final JdbcSinkConfig config;
+    private final OffsetTracker offsetTracker;
 
 
     private List<SinkRecord> records;
@@ -63,6 +67,28 @@ public class GPBinder implements StatementBinder {
             TableDefinition tabDef,
             JdbcSinkConfig.InsertMode insertMode,
             JdbcSinkConfig config
+    ) {
+        this(dialect, pkMode, schemaPair, fieldsMetadata, tabDef, insertMode, config, null, null, null, null);
+    }
+
+    /**
+     * @param offsetTracker told about records once they are committed to Greenplum, may be null
+     * @param gpssTransactions the task's long-lived GPSS transactions, null unless gpss.transaction.enabled is set
+     * @param gploadPipeline the task's background gpload runs, null unless gpload.concurrent.loads is set
+     * @param reporter receives records Greenplum rejected, may be null
+     */
+    public GPBinder(
+            DatabaseDialect dialect,
+            JdbcSinkConfig.PrimaryKeyMode pkMode,
+            SchemaPair schemaPair,
+            FieldsMetadata fieldsMetadata,
+            TableDefinition tabDef,
+            JdbcSinkConfig.InsertMode insertMode,
+            JdbcSinkConfig config,
+            OffsetTracker offsetTracker,
+            GpssTransactions gpssTransactions,
+            GploadPipeline gploadPipeline,
+            ErrantRecordReporter reporter
     ) {
         this.dialect = dialect;
         this.pkMode = pkMode;
@@ -72,14 +98,15 @@ public class GPBinder implements StatementBinder {
         this.tabDef = tabDef;
         this.records = new ArrayList<>();
         this.config = config;
+        this.offsetTracker = offsetTracker;
 
         if (config.batchInsertMode == JdbcSinkConfig.BatchInsertMode.GPLOAD) {
             log.info("Using GPLOAD to insert records");
-            gpDataIngestor = new GPLoadDataIngestionService(this.config, this.dialect, this.tabDef, this.fieldsMetadata , this.schemaPair);
+            gpDataIngestor = new GPLoadDataIngestionService(this.config, this.dialect, this.tabDef, this.fieldsMetadata , this.schemaPair, gploadPipeline);
 
         } else if (config.batchInsertMode == JdbcSinkConfig.BatchInsertMode.GPSS) {
             log.info("Using GPSS to insert records");
-              gpDataIngestor = new GPSSDataIngestionService(config, dialect, tabDef, this.fieldsMetadata, this.schemaPair );
+              gpDataIngestor = new GPSSDataIngestionService(config, dialect, tabDef, this.fieldsMetadata, this.schemaPair, gpssTransactions, reporter);
         } else if (config.batchInsertMode == JdbcSinkConfig.BatchInsertMode.GPFDIST) {
             log.info("Using GPFDIST to insert records");
             gpDataIngestor =  new GpfdistDataIngestionService(config, dialect, tabDef, this.fieldsMetadata, this.schemaPair);
@@ -119,6 +146,9 @@ public class GPBinder implements StatementBinder {
 //        };
 
         gpDataIngestor.ingest(records);
+        if (offsetTracker != null && !gpDataIngestor.defersCommit()) {
+            offsetTracker.markDurable(records);
+        }
         records.clear();
     }
 
@@ -16,9 +16,12 @@
 package io.confluent.connect.jdbc.sink;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.gp.gpload.GploadPipeline;
+import io.confluent.connect.jdbc.gp.gpss.GpssTransactions;
 import io.confluent.connect.jdbc.sink.metadata.FieldsMetadata;
 import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
 import io.confluent.connect.jdbc.util.TableId;
+import org.apache.kafka.connect.sink.ErrantRecordReporter;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,8 +35,31 @@ import static java.util.Objects.nonNull;
 public class GPBufferedRecords extends BufferedRecords{
   private static final Logger log = LoggerFactory.getLogger(GPBufferedRecords.class);
   private GPBinder updateStatementBinder;
+  private final OffsetTracker offsetTracker;
+  private final GpssTransactions gpssTransactions;
+  private final GploadPipeline gploadPipeline;
+  private final ErrantRecordReporter reporter;
+
   public GPBufferedRecords(JdbcSinkConfig config, TableId tableId, DatabaseDialect dbDialect, DbStructure dbStructure, Connection connection) {
+    this(config, tableId, dbDialect, dbStructure, connection, null, null, null, null);
+  }
+
+  public GPBufferedRecords(
+      JdbcSinkConfig config,
+      TableId tableId,
+      DatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      Connection connection,
+      OffsetTracker offsetTracker,
+      GpssTransactions gpssTransactions,
+      GploadPipeline gploadPipeline,
+      ErrantRecordReporter reporter
+  ) {
     super(config, tableId, dbDialect, dbStructure, connection);
+    this.offsetTracker = offsetTracker;
+    this.gpssTransactions = gpssTransactions;
+    this.gploadPipeline = gploadPipeline;
+    this.reporter = reporter;
   }
 
   @Override
@@ -101,7 +127,7 @@ public class GPBufferedRecords extends BufferedRecords{
               schemaPair,
               fieldsMetadata,
               dbStructure.tableDefinition(connection, tableId),
-              config.insertMode, config);
+              config.insertMode, config, offsetTracker, gpssTransactions, gploadPipeline, reporter);
 
       if (config.deleteEnabled && nonNull(deleteSql)) {
         if (config.deleteEnabled && nonNull(deleteSql)) {
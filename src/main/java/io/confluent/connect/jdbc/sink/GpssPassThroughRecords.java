@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.gp.gpss.GpssPassThroughService;
+import io.confluent.connect.jdbc.gp.gpss.GpssTransactions;
+import io.confluent.connect.jdbc.util.TableId;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.ErrantRecordReporter;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffers records for a GPSS pass-through format (gpss.format JSON or AVRO). Record values are not
+ * inspected, so there is no schema tracking, table creation or validation of Struct values; the
+ * target table has to exist with the configured pass-through column.
+ */
+public class GpssPassThroughRecords extends BufferedRecords {
+
+  private final OffsetTracker offsetTracker;
+  private final GpssPassThroughService service;
+
+  public GpssPassThroughRecords(
+      JdbcSinkConfig config,
+      TableId tableId,
+      DatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      Connection connection,
+      OffsetTracker offsetTracker,
+      GpssTransactions gpssTransactions,
+      ErrantRecordReporter reporter
+  ) {
+    this(config, tableId, dbDialect, dbStructure, connection, offsetTracker,
+        new GpssPassThroughService(config, tableId.tableName(), gpssTransactions, reporter));
+  }
+
+  GpssPassThroughRecords(
+      JdbcSinkConfig config,
+      TableId tableId,
+      DatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      Connection connection,
+      OffsetTracker offsetTracker,
+      GpssPassThroughService service
+  ) {
+    super(config, tableId, dbDialect, dbStructure, connection);
+    if (config.insertMode != JdbcSinkConfig.InsertMode.INSERT) {
+      throw new ConnectException(String.format(
+          "%s=%s only supports %s=%s, but %s is configured",
+          JdbcSinkConfig.GPSS_FORMAT,
+          config.gpssFormat,
+          JdbcSinkConfig.INSERT_MODE,
+          JdbcSinkConfig.InsertMode.INSERT,
+          config.insertMode
+      ));
+    }
+    this.offsetTracker = offsetTracker;
+    this.service = service;
+  }
+
+  @Override
+  public List<SinkRecord> add(SinkRecord record) {
+    final List<SinkRecord> flushed = new ArrayList<>();
+    records.add(record);
+    if (records.size() >= config.batchSize) {
+      flushed.addAll(flush());
+    }
+    return flushed;
+  }
+
+  @Override
+  public List<SinkRecord> flush() {
+    if (records.isEmpty()) {
+      return new ArrayList<>();
+    }
+    log.info("Flushing {} buffered records to {} as {}", records.size(), tableId, config.gpssFormat);
+    service.ingest(records);
+    if (offsetTracker != null && !service.defersCommit()) {
+      offsetTracker.markDurable(records);
+    }
+    final List<SinkRecord> flushedRecords = records;
+    records = new ArrayList<>();
+    return flushedRecords;
+  }
+
+  @Override
+  public void close() {
+    // no statements to close
+  }
+}
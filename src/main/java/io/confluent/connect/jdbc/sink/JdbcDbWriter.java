@@ -16,13 +16,22 @@
 package io.confluent.connect.jdbc.sink;
 
 import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.ErrantRecordReporter;
 import org.apache.kafka.connect.sink.SinkRecord;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.dialect.PostgreSqlDatabaseDialect;
+import io.confluent.connect.jdbc.gp.gpload.GploadPipeline;
+import io.confluent.connect.jdbc.gp.gpss.GpssTransactions;
 import io.confluent.connect.jdbc.util.CachedConnectionProvider;
 import io.confluent.connect.jdbc.util.TableId;
 import org.slf4j.Logger;
@@ -34,12 +43,51 @@ public class JdbcDbWriter {
   private final JdbcSinkConfig config;
   private final DatabaseDialect dbDialect;
   private final DbStructure dbStructure;
+  private final OffsetTracker offsetTracker;
+  private final GpssTransactions gpssTransactions;
+  private final GploadPipeline gploadPipeline;
+  private final ErrantRecordReporter reporter;
+  private final ExecutorService flushExecutor;
   final CachedConnectionProvider cachedConnectionProvider;
+  final Map<TableId, CachedConnectionProvider> connectionByTable = new HashMap<>();
 
   JdbcDbWriter(final JdbcSinkConfig config, DatabaseDialect dbDialect, DbStructure dbStructure) {
+    this(config, dbDialect, dbStructure, new OffsetTracker(), null);
+  }
+
+  /**
+   * @param reporter receives the records of rows Greenplum rejected while loading them through
+   *     GPSS, may be null
+   */
+  JdbcDbWriter(
+      final JdbcSinkConfig config,
+      DatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      OffsetTracker offsetTracker,
+      ErrantRecordReporter reporter
+  ) {
     this.config = config;
     this.dbDialect = dbDialect;
     this.dbStructure = dbStructure;
+    this.offsetTracker = offsetTracker;
+    this.reporter = reporter;
+    this.gpssTransactions =
+        config.batchInsertMode == JdbcSinkConfig.BatchInsertMode.GPSS
+            && config.gpssTransactionEnabled
+        ? new GpssTransactions(config, offsetTracker, reporter) : null;
+    this.gploadPipeline =
+        config.batchInsertMode == JdbcSinkConfig.BatchInsertMode.GPLOAD
+            && config.gploadConcurrentLoads > 0
+        ? new GploadPipeline(config, offsetTracker) : null;
+    final AtomicInteger flushThreads = new AtomicInteger();
+    this.flushExecutor =
+        config.flushParallelism > 0 && !loadsThroughGreenplum(config.batchInsertMode)
+        ? Executors.newFixedThreadPool(config.flushParallelism, runnable -> {
+          Thread thread = new Thread(runnable, "jdbc-sink-flush-" + flushThreads.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        })
+        : null;
 
     this.cachedConnectionProvider = connectionProvider(
         config.connectionAttempts,
@@ -58,28 +106,43 @@ public class JdbcDbWriter {
   }
 
   final Map<TableId, BufferedRecords> bufferByTable = new HashMap<>();
+  // the records handed to a table's buffer on the flush threads that are not durable yet
+  private final Map<TableId, List<SinkRecord>> pendingByTable = new HashMap<>();
+  private final Map<TableId, TableRetry> retryByTable = new HashMap<>();
+
   void write(final Collection<SinkRecord> records)
       throws SQLException, TableAlterOrCreateException {
     log.info("Flushing records in JDBC Writer "+records.size());
+    if (flushExecutor != null) {
+      writeTables(records);
+      return;
+    }
     final Connection connection = cachedConnectionProvider.getConnection();
+    // records of plain JDBC buffers become durable with the commit below, the GP buffers
+    // report theirs to the offset tracker when Greenplum has committed them
+    final List<SinkRecord> flushed = new ArrayList<>();
     try {
 
       for (SinkRecord record : records) {
         final TableId tableId = destinationTable(record.topic());
         BufferedRecords buffer = bufferByTable.get(tableId);
         if (buffer == null) {
-          buffer = config.batchInsertMode == JdbcSinkConfig.BatchInsertMode.GPLOAD
-                  || config.batchInsertMode == JdbcSinkConfig.BatchInsertMode.GPSS
-                  || config.batchInsertMode == JdbcSinkConfig.BatchInsertMode.GPFDIST
-                  ? new GPBufferedRecords(config, tableId, dbDialect, dbStructure, connection) : new BufferedRecords(config, tableId, dbDialect, dbStructure, connection);
+          buffer = newBuffer(tableId, connection);
           buffer.setLastFlushTime(System.currentTimeMillis());
           bufferByTable.put(tableId, buffer);
         }
-        buffer.add(record);
+        collectCommitted(buffer, buffer.add(record), flushed);
       }
       // to remove entries from bufferByTable
-      commitPendingRecords();
+      flushExpiredBuffers(flushed);
       connection.commit();
+      offsetTracker.markDurable(flushed);
+      if (gpssTransactions != null) {
+        gpssTransactions.closeExpired();
+      }
+      if (gploadPipeline != null) {
+        gploadPipeline.poll();
+      }
     } catch (SQLException | TableAlterOrCreateException e) {
       try {
         connection.rollback();
@@ -92,9 +155,263 @@ public class JdbcDbWriter {
   }
 
   void closeQuietly() {
+    if (gpssTransactions != null) {
+      gpssTransactions.abortAll();
+    }
+    if (gploadPipeline != null) {
+      gploadPipeline.close();
+    }
+    if (flushExecutor != null) {
+      flushExecutor.shutdownNow();
+    }
+    for (CachedConnectionProvider provider : connectionByTable.values()) {
+      provider.close();
+    }
     cachedConnectionProvider.close();
   }
 
+  /**
+   * Writes the records of every table on the flush threads, each table on its own connection. A
+   * table's buffer is flushed once it is older than {@code max.batch.wait.time}. Every table
+   * commits on its own and the offsets of its records are marked durable once that commit
+   * succeeded, so a failing table does not hold back the others. Buffers are only created and
+   * removed on the calling thread.
+   *
+   * <p>A failed table is not retried through the put, which would write the tables that did
+   * commit again. It drops its buffer, keeps the records that are not durable yet and writes them
+   * again after {@code retry.backoff.ms}, up to {@code max.retries} times; records that arrive
+   * meanwhile queue behind them. After that its records are reported one by one to the errant
+   * record reporter, or the task fails if there is none.
+   */
+  private void writeTables(Collection<SinkRecord> records) {
+    final Map<TableId, List<SinkRecord>> recordsByTable = new LinkedHashMap<>();
+    for (SinkRecord record : records) {
+      recordsByTable.computeIfAbsent(destinationTable(record.topic()), t -> new ArrayList<>())
+          .add(record);
+    }
+    final Map<TableId, TableRetry> retrying = new HashMap<>();
+    final Iterator<Map.Entry<TableId, TableRetry>> retries = retryByTable.entrySet().iterator();
+    while (retries.hasNext()) {
+      final Map.Entry<TableId, TableRetry> entry = retries.next();
+      final TableRetry retry = entry.getValue();
+      final List<SinkRecord> tableRecords = recordsByTable.remove(entry.getKey());
+      if (tableRecords != null) {
+        retry.records.addAll(tableRecords);
+      }
+      if (System.currentTimeMillis() >= retry.retryAt) {
+        retrying.put(entry.getKey(), retry);
+        recordsByTable.put(entry.getKey(), retry.records);
+        retries.remove();
+      }
+    }
+    for (TableId tableId : recordsByTable.keySet()) {
+      if (!bufferByTable.containsKey(tableId)) {
+        final Connection connection = connectionByTable
+            .computeIfAbsent(tableId, t ->
+                connectionProvider(config.connectionAttempts, config.connectionBackoffMs))
+            .getConnection();
+        final BufferedRecords buffer = newBuffer(tableId, connection);
+        buffer.setLastFlushTime(System.currentTimeMillis());
+        bufferByTable.put(tableId, buffer);
+      }
+    }
+
+    final long now = System.currentTimeMillis();
+    final Map<TableId, Future<List<SinkRecord>>> writes = new LinkedHashMap<>();
+    final Set<TableId> expired = new HashSet<>();
+    for (Map.Entry<TableId, BufferedRecords> entry : bufferByTable.entrySet()) {
+      final TableId tableId = entry.getKey();
+      final BufferedRecords buffer = entry.getValue();
+      final List<SinkRecord> tableRecords =
+          recordsByTable.getOrDefault(tableId, Collections.emptyList());
+      // a retry is flushed right away, so that it is known whether it succeeded
+      final boolean flush = retrying.containsKey(tableId)
+          || now - buffer.getLastFlushTime() >= config.maxBatchWaitTime;
+      if (tableRecords.isEmpty() && !flush) {
+        continue;
+      }
+      if (flush) {
+        expired.add(tableId);
+      }
+      pendingByTable.computeIfAbsent(tableId, t -> new ArrayList<>()).addAll(tableRecords);
+      final CachedConnectionProvider provider = connectionByTable.get(tableId);
+      writes.put(tableId, flushExecutor.submit(
+          () -> writeTable(tableId, buffer, provider.getConnection(), tableRecords, flush)));
+    }
+
+    final Map<TableId, TableRetry> exhausted = new LinkedHashMap<>();
+    for (Map.Entry<TableId, Future<List<SinkRecord>>> write : writes.entrySet()) {
+      final TableId tableId = write.getKey();
+      try {
+        final List<SinkRecord> committed = write.getValue().get();
+        offsetTracker.markDurable(committed);
+        final Set<SinkRecord> durable = Collections.newSetFromMap(new IdentityHashMap<>());
+        durable.addAll(committed);
+        pendingByTable.get(tableId).removeIf(durable::contains);
+        if (expired.contains(tableId)) {
+          bufferByTable.remove(tableId);
+          pendingByTable.remove(tableId);
+        }
+      } catch (ExecutionException e) {
+        final Exception cause = e.getCause() instanceof Exception
+            ? (Exception) e.getCause() : new ConnectException(e.getCause());
+        final TableRetry retry = retrying.getOrDefault(tableId, new TableRetry());
+        retry.records = discardTable(tableId);
+        retry.failure = cause;
+        retry.attempts++;
+        if (cause instanceof SQLException && retry.attempts <= config.maxRetries) {
+          log.warn("Write of {} records to table {} failed, remainingRetries={}",
+              retry.records.size(), tableId, config.maxRetries - retry.attempts, cause);
+          retry.retryAt = System.currentTimeMillis() + config.retryBackoffMs;
+          retryByTable.put(tableId, retry);
+        } else {
+          exhausted.put(tableId, retry);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ConnectException("Interrupted while writing records", e);
+      }
+    }
+
+    for (Map.Entry<TableId, TableRetry> entry : exhausted.entrySet()) {
+      final TableRetry retry = entry.getValue();
+      if (reporter != null) {
+        unrollTable(entry.getKey(), retry.records);
+      } else if (retry.failure instanceof RuntimeException) {
+        throw (RuntimeException) retry.failure;
+      } else {
+        throw new ConnectException(String.format(
+            "Failed to write %d records to table %s after %d attempts",
+            retry.records.size(), entry.getKey(), retry.attempts), retry.failure);
+      }
+    }
+  }
+
+  /**
+   * Drops the buffer of a table whose write failed and rolled back.
+   *
+   * @return the records the table had been given that are not durable
+   */
+  private List<SinkRecord> discardTable(TableId tableId) {
+    final BufferedRecords buffer = bufferByTable.remove(tableId);
+    if (buffer != null) {
+      try {
+        buffer.close();
+      } catch (SQLException e) {
+        log.warn("Error while closing the buffer of table ID: {}", tableId, e);
+      }
+    }
+    final List<SinkRecord> pending = pendingByTable.remove(tableId);
+    return pending != null ? pending : new ArrayList<>();
+  }
+
+  /**
+   * Writes the records of a table that ran out of retries one at a time, and reports those that
+   * fail to the errant record reporter.
+   */
+  private void unrollTable(TableId tableId, List<SinkRecord> records) {
+    final Connection connection = connectionByTable.get(tableId).getConnection();
+    for (SinkRecord record : records) {
+      try {
+        final BufferedRecords buffer = newBuffer(tableId, connection);
+        buffer.add(record);
+        buffer.flush();
+        buffer.close();
+        connection.commit();
+      } catch (SQLException | TableAlterOrCreateException e) {
+        log.debug("Reporting record of table ID: {}", tableId, e);
+        try {
+          connection.rollback();
+        } catch (SQLException sqle) {
+          e.addSuppressed(sqle);
+        }
+        reporter.report(record, e);
+      }
+    }
+    offsetTracker.markDurable(records);
+  }
+
+  /**
+   * Adds the records of one table to its buffer, flushes the buffer if asked to and commits the
+   * table's connection. Runs on a flush thread.
+   *
+   * @return the records the commit made durable
+   */
+  private List<SinkRecord> writeTable(
+      TableId tableId,
+      BufferedRecords buffer,
+      Connection connection,
+      List<SinkRecord> records,
+      boolean flush
+  ) throws SQLException, TableAlterOrCreateException {
+    final List<SinkRecord> flushed = new ArrayList<>();
+    try {
+      for (SinkRecord record : records) {
+        flushed.addAll(buffer.add(record));
+      }
+      if (flush) {
+        log.info("Flushing records in JDBC Writer for table ID: {}", tableId);
+        flushed.addAll(buffer.flush());
+        buffer.close();
+      }
+      connection.commit();
+      return flushed;
+    } catch (SQLException | TableAlterOrCreateException e) {
+      log.error("Error while writing records in JDBC Writer for table ID: {}", tableId, e);
+      try {
+        connection.rollback();
+      } catch (SQLException sqle) {
+        e.addSuppressed(sqle);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Closes the open GPSS transactions, so that the offset tracker covers every record written to
+   * Greenplum so far, and retries failed background gpload runs. Called before offsets are
+   * committed.
+   */
+  void commitOpenTransactions() {
+    if (gpssTransactions != null) {
+      gpssTransactions.closeAll();
+    }
+    if (gploadPipeline != null) {
+      gploadPipeline.poll();
+    }
+  }
+
+  private BufferedRecords newBuffer(TableId tableId, Connection connection) {
+    if (config.batchInsertMode == JdbcSinkConfig.BatchInsertMode.GPSS
+        && config.gpssFormat.isPassThrough()) {
+      return new GpssPassThroughRecords(config, tableId, dbDialect, dbStructure, connection,
+          offsetTracker, gpssTransactions, reporter);
+    }
+    if (config.batchInsertMode == JdbcSinkConfig.BatchInsertMode.COPY) {
+      if (!(dbDialect instanceof PostgreSqlDatabaseDialect)) {
+        throw new ConnectException(String.format(
+            "Batch insert mode COPY is not supported with the %s dialect.",
+            dbDialect.name()
+        ));
+      }
+      return new CopyBufferedRecords(config, tableId, (PostgreSqlDatabaseDialect) dbDialect,
+          dbStructure, connection);
+    }
+    if (config.batchInsertMode == JdbcSinkConfig.BatchInsertMode.MULTI_ROW) {
+      return new MultiRowBufferedRecords(config, tableId, dbDialect, dbStructure, connection);
+    }
+    return loadsThroughGreenplum(config.batchInsertMode)
+            ? new GPBufferedRecords(config, tableId, dbDialect, dbStructure, connection,
+                offsetTracker, gpssTransactions, gploadPipeline, reporter)
+            : new BufferedRecords(config, tableId, dbDialect, dbStructure, connection);
+  }
+
+  private static boolean loadsThroughGreenplum(JdbcSinkConfig.BatchInsertMode mode) {
+    return mode == JdbcSinkConfig.BatchInsertMode.GPLOAD
+        || mode == JdbcSinkConfig.BatchInsertMode.GPSS
+        || mode == JdbcSinkConfig.BatchInsertMode.GPFDIST;
+  }
+
   TableId destinationTable(String topic) {
     final String tableName = config.tableNameFormat.replace("${topic}", topic);
     if (tableName.isEmpty()) {
@@ -108,7 +425,33 @@ public class JdbcDbWriter {
   }
 
   public void commitPendingRecords() {
-    if (bufferByTable == null || bufferByTable.isEmpty()) {
+    if (gpssTransactions != null) {
+      gpssTransactions.closeExpired();
+    }
+    if (gploadPipeline != null) {
+      gploadPipeline.poll();
+    }
+    if (flushExecutor != null) {
+      // also retries the tables whose write failed
+      writeTables(Collections.emptyList());
+      return;
+    }
+    if (bufferByTable.isEmpty()) {
+      return;
+    }
+    final List<SinkRecord> flushed = new ArrayList<>();
+    try {
+      final Connection connection = cachedConnectionProvider.getConnection();
+      flushExpiredBuffers(flushed);
+      connection.commit();
+      offsetTracker.markDurable(flushed);
+    } catch (SQLException e) {
+      log.error("Error while committing pending records in JDBC Writer", e);
+    }
+  }
+
+  private void flushExpiredBuffers(List<SinkRecord> flushed) {
+    if (bufferByTable.isEmpty()) {
       return;
     }
     List<TableId> toRemoveEntries = new ArrayList<>();
@@ -122,7 +465,7 @@ public class JdbcDbWriter {
       toRemoveEntries.add(tableId);
       log.info("Flushing records in JDBC Writer for table ID: {}", tableId);
       try {
-        buffer.flush();
+        collectCommitted(buffer, buffer.flush(), flushed);
         buffer.close();
       } catch (SQLException e) {
         log.error("Error while flushing records in JDBC Writer for table ID: {}", tableId);
@@ -133,4 +476,21 @@ public class JdbcDbWriter {
       bufferByTable.remove(tableId);
     }
   }
+
+  private static final class TableRetry {
+    List<SinkRecord> records = new ArrayList<>();
+    Exception failure;
+    int attempts;
+    long retryAt;
+  }
+
+  private static void collectCommitted(
+      BufferedRecords buffer,
+      List<SinkRecord> records,
+      List<SinkRecord> flushed
+  ) {
+    if (!(buffer instanceof GPBufferedRecords || buffer instanceof GpssPassThroughRecords)) {
+      flushed.addAll(records);
+    }
+  }
 }
@@ -28,9 +28,13 @@ import org.apache.kafka.common.config.AbstractConfig;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.common.config.ConfigException;
 import org.apache.kafka.common.config.types.Password;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class JdbcSinkConfig extends AbstractConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(JdbcSinkConfig.class);
+
     // gp fast match
     public static final String GP_FAST_MATCH = "gp.fast.match";
     private static final boolean GP_FAST_MATCH_DEFAULT = false;
@@ -40,9 +44,153 @@ public class JdbcSinkConfig extends AbstractConfig {
     // gp reuse table
     public static final String GP_REUSE_TABLE = "gp.reuse.table";
     private static final boolean GP_REUSE_TABLE_DEFAULT = true;
-    private static final String GP_REUSE_TABLE_DOC = "Whether to reuse the table for gpload.";
+    private static final String GP_REUSE_TABLE_DOC = "Whether to reuse the table for gpload. In gpfdist mode, external and staging tables are named after the target table and a signature of their definition and kept across batches instead of being created and dropped for every batch.";
     private static final String GP_REUSE_TABLE_DISPLAY = "GP Reuse Table";
 
+    // key deduplication for update modes
+    public static final String UPDATE_MODE_OFFHEAP_THRESHOLD = "update.mode.offheap.threshold";
+    private static final int UPDATE_MODE_OFFHEAP_THRESHOLD_DEFAULT = 0;
+    private static final String UPDATE_MODE_OFFHEAP_THRESHOLD_DOC = "Batch size from which the key index used by the FIRST_ROW_ONLY and LAST_ROW_ONLY update modes is kept off-heap. 0 keeps it on the heap.";
+    private static final String UPDATE_MODE_OFFHEAP_THRESHOLD_DISPLAY = "Update Mode Off-heap Threshold";
+
+    // gpss connection pooling
+    public static final String GPSS_HEALTH_CHECK_INTERVAL_MS = "gpss.health.check.interval.ms";
+    private static final int GPSS_HEALTH_CHECK_INTERVAL_MS_DEFAULT = 30000;
+    private static final String GPSS_HEALTH_CHECK_INTERVAL_MS_DOC = "How long a pooled GPSS session can stay idle before it is checked with a ListSchema call when it is reused.";
+    private static final String GPSS_HEALTH_CHECK_INTERVAL_MS_DISPLAY = "GPSS Health Check Interval (millis)";
+
+    public static final String GPSS_RECONNECT_BACKOFF_MAX_MS = "gpss.reconnect.backoff.max.ms";
+    private static final int GPSS_RECONNECT_BACKOFF_MAX_MS_DEFAULT = 30000;
+    private static final String GPSS_RECONNECT_BACKOFF_MAX_MS_DOC = "Upper bound of the exponential backoff between GPSS connect attempts. The backoff starts at ``retry.backoff.ms`` and at most ``max.retries`` retries are made.";
+    private static final String GPSS_RECONNECT_BACKOFF_MAX_MS_DISPLAY = "GPSS Reconnect Backoff Max (millis)";
+
+    // gpss write streaming
+    public static final String GPSS_WRITE_CHUNK_BYTES = "gpss.write.chunk.bytes";
+    private static final int GPSS_WRITE_CHUNK_BYTES_DEFAULT = 2 * 1024 * 1024;
+    private static final String GPSS_WRITE_CHUNK_BYTES_DOC = "Approximate upper bound of the row data sent in one gpss Write request. Keep it below the gpss server's maximum gRPC message size; a single row larger than this is sent on its own.";
+    private static final String GPSS_WRITE_CHUNK_BYTES_DISPLAY = "GPSS Write Chunk Size (bytes)";
+
+    public static final String GPSS_WRITE_MAX_IN_FLIGHT = "gpss.write.max.in.flight";
+    private static final int GPSS_WRITE_MAX_IN_FLIGHT_DEFAULT = 1;
+    private static final String GPSS_WRITE_MAX_IN_FLIGHT_DOC = "How many gpss Write requests of a batch can be on the wire at once. The next chunk is encoded while earlier ones are sent. With more than one the server may apply chunks out of order, so this only applies to ``insert.mode=insert``; upsert, update and merge batches always send one request at a time, keeping the last row of a repeated key last, and log a warning when a larger value is set.";
+    private static final String GPSS_WRITE_MAX_IN_FLIGHT_DISPLAY = "GPSS Write Max In-flight Requests";
+
+    // gpss long-lived transactions
+    public static final String GPSS_TRANSACTION_ENABLED = "gpss.transaction.enabled";
+    private static final boolean GPSS_TRANSACTION_ENABLED_DEFAULT = false;
+    private static final String GPSS_TRANSACTION_ENABLED_DOC = "Whether to keep gpss tables open across batches. Rows are written to the open table and committed by a single Close once one of the gpss.transaction.max.* limits is reached or when Connect commits offsets. Only offsets of closed transactions are committed to Kafka.";
+    private static final String GPSS_TRANSACTION_ENABLED_DISPLAY = "GPSS Long-lived Transactions";
+
+    public static final String GPSS_TRANSACTION_MAX_ROWS = "gpss.transaction.max.rows";
+    private static final int GPSS_TRANSACTION_MAX_ROWS_DEFAULT = 1000000;
+    private static final String GPSS_TRANSACTION_MAX_ROWS_DOC = "Rows after which an open gpss transaction is closed. 0 means no limit.";
+    private static final String GPSS_TRANSACTION_MAX_ROWS_DISPLAY = "GPSS Transaction Max Rows";
+
+    public static final String GPSS_TRANSACTION_MAX_BYTES = "gpss.transaction.max.bytes";
+    private static final long GPSS_TRANSACTION_MAX_BYTES_DEFAULT = 512L * 1024 * 1024;
+    private static final String GPSS_TRANSACTION_MAX_BYTES_DOC = "Bytes of row data after which an open gpss transaction is closed. 0 means no limit.";
+    private static final String GPSS_TRANSACTION_MAX_BYTES_DISPLAY = "GPSS Transaction Max Bytes";
+
+    public static final String GPSS_TRANSACTION_MAX_MS = "gpss.transaction.max.ms";
+    private static final long GPSS_TRANSACTION_MAX_MS_DEFAULT = 60000;
+    private static final String GPSS_TRANSACTION_MAX_MS_DOC = "Time after which an open gpss transaction is closed. It is checked whenever the task receives records, so it should be well above the consumer poll interval. 0 means no limit.";
+    private static final String GPSS_TRANSACTION_MAX_MS_DISPLAY = "GPSS Transaction Max Time (millis)";
+
+    public enum GpssFormat {
+        CSV,
+        BINARY,
+        JSON,
+        AVRO;
+
+        /**
+         * Whether record values are forwarded to GPSS as they are instead of being decoded into columns.
+         */
+        public boolean isPassThrough() {
+            return this == JSON || this == AVRO;
+        }
+    }
+
+    public static final String GPSS_FORMAT = "gpss.format";
+    private static final String GPSS_FORMAT_DEFAULT = GpssFormat.CSV.name();
+    private static final String GPSS_FORMAT_DOC = "How rows are encoded for gpss. ``CSV`` sends delimited text that GPSS parses with the configured delimiter, quote and null string. ``BINARY`` sends typed protobuf rows: numbers and bytes are sent as-is, and nothing is quoted or escaped. ``JSON`` and ``AVRO`` forward the serialized record values untouched into the ``gpss.passthrough.column`` column and let GPSS parse them; they need a ``value.converter`` that keeps the raw bytes, such as ``ByteArrayConverter``, and only support ``insert.mode=INSERT``.";
+    private static final String GPSS_FORMAT_DISPLAY = "GPSS Format";
+
+    public static final String GPSS_PASSTHROUGH_COLUMN = "gpss.passthrough.column";
+    private static final String GPSS_PASSTHROUGH_COLUMN_DEFAULT = "data";
+    private static final String GPSS_PASSTHROUGH_COLUMN_DOC = "Column that receives the record values when gpss.format is JSON or AVRO. It should be of type json or jsonb.";
+    private static final String GPSS_PASSTHROUGH_COLUMN_DISPLAY = "GPSS Pass-through Column";
+
+    public static final String GPSS_AVRO_SCHEMA_URL = "gpss.avro.schema.url";
+    private static final String GPSS_AVRO_SCHEMA_URL_DEFAULT = "";
+    private static final String GPSS_AVRO_SCHEMA_URL_DOC = "Schema registry url GPSS fetches Avro schemas from when gpss.format is AVRO. Values then have to be in the schema registry wire format.";
+    private static final String GPSS_AVRO_SCHEMA_URL_DISPLAY = "GPSS Avro Schema Registry Url";
+
+    public static final String GPSS_WRITE_SESSIONS = "gpss.write.sessions";
+    private static final int GPSS_WRITE_SESSIONS_DEFAULT = 1;
+    private static final String GPSS_WRITE_SESSIONS_DOC = "Number of gpss sessions a batch is written through in parallel. Rows are assigned to sessions by hash of the key columns, so all changes to one key go through one session. Every session commits on its own and a batch that fails is written again by the retry, so only insert modes merge, upsert and update use several sessions, and only when all key columns are written; insert mode always uses one session. Not used when gpss.transaction.enabled is set.";
+    private static final String GPSS_WRITE_SESSIONS_DISPLAY = "GPSS Write Sessions";
+
+    public enum GpfdistEngine {
+        HTTP_SERVER,
+        NIO
+    }
+
+    public static final String GPFDIST_SERVER_ENGINE = "gpfdist.server.engine";
+    private static final String GPFDIST_SERVER_ENGINE_DEFAULT = GpfdistEngine.HTTP_SERVER.name();
+    private static final String GPFDIST_SERVER_ENGINE_DOC = "HTTP server the gpfdist endpoint runs on. ``HTTP_SERVER`` uses the JDK http server with a thread per request in progress. ``NIO`` serves all requests from a few non-blocking event loops, which suits many segments pulling at once. The first task of a worker that starts the server decides.";
+    private static final String GPFDIST_SERVER_ENGINE_DISPLAY = "Gpfdist Server Engine";
+
+    public static final String GPFDIST_SERVER_WORKERS = "gpfdist.server.workers";
+    private static final int GPFDIST_SERVER_WORKERS_DEFAULT = 0;
+    private static final String GPFDIST_SERVER_WORKERS_DOC = "Number of gpfdist server threads: request threads for HTTP_SERVER, event loops for NIO. 0 gives HTTP_SERVER a thread per request, virtual threads on JDKs that have them, and NIO one event loop per processor.";
+    private static final String GPFDIST_SERVER_WORKERS_DISPLAY = "Gpfdist Server Workers";
+
+    public static final String GPFDIST_SERVER_KEEP_ALIVE = "gpfdist.server.keep.alive";
+    private static final boolean GPFDIST_SERVER_KEEP_ALIVE_DEFAULT = false;
+    private static final String GPFDIST_SERVER_KEEP_ALIVE_DOC = "Whether segments may keep their gpfdist connection open for further requests. When disabled every response closes its connection.";
+    private static final String GPFDIST_SERVER_KEEP_ALIVE_DISPLAY = "Gpfdist Server Keep-Alive";
+
+    public enum MergeStrategy {
+        UPDATE_INSERT,
+        DELETE_USING,
+        ON_CONFLICT
+    }
+
+    public static final String GP_MERGE_STRATEGY = "gp.merge.strategy";
+    private static final String GP_MERGE_STRATEGY_DEFAULT = MergeStrategy.UPDATE_INSERT.name();
+    private static final String GP_MERGE_STRATEGY_DOC = "How gpfdist loads in merge mode apply the staged rows. ``UPDATE_INSERT`` updates matching rows from the staging table and inserts the staged rows that have no match in the target. ``DELETE_USING`` updates matching rows, deletes them from the staging table and inserts what is left, so the insert does not join the target again. ``ON_CONFLICT`` loads straight from the external table with INSERT ... ON CONFLICT DO UPDATE and needs no staging table; it requires Greenplum 7 and a unique index on the key columns. Since one statement cannot update a row twice, ``ON_CONFLICT`` loads only the last record of every key in a batch, as with ``update.mode=LAST_ROW_ONLY``, unless ``update.mode`` picks ``FIRST_ROW_ONLY``.";
+    private static final String GP_MERGE_STRATEGY_DISPLAY = "Greenplum Merge Strategy";
+
+    public static final String GPFDIST_DISTRIBUTION_AWARE = "gpfdist.distribution.aware";
+    private static final boolean GPFDIST_DISTRIBUTION_AWARE_DEFAULT = true;
+    private static final String GPFDIST_DISTRIBUTION_AWARE_DOC = "Whether the gpfdist server sends every segment the rows it stores, by hashing the distribution key of the target table read from gp_distribution_policy. Rows then do not have to be moved between segments after they are read. Only applies to Greenplum 6 and later, to tables distributed by integer or text columns, and to loads where all segments of the table read.";
+    private static final String GPFDIST_DISTRIBUTION_AWARE_DISPLAY = "Gpfdist Distribution Aware";
+
+    public static final String GPFDIST_REGISTER_TIMEOUT_MS = "gpfdist.register.timeout.ms";
+    private static final long GPFDIST_REGISTER_TIMEOUT_MS_DEFAULT = 60000L;
+    private static final String GPFDIST_REGISTER_TIMEOUT_MS_DOC = "How long a gpfdist flush waits for the previous load of the same table to finish, since the external table of a table always reads the same location. When it does not finish in time the flush fails with a retriable error and the batch is retried.";
+    private static final String GPFDIST_REGISTER_TIMEOUT_MS_DISPLAY = "Gpfdist Register Timeout (ms)";
+
+    public static final String GPLOAD_CONCURRENT_LOADS = "gpload.concurrent.loads";
+    private static final int GPLOAD_CONCURRENT_LOADS_DEFAULT = 0;
+    private static final String GPLOAD_CONCURRENT_LOADS_DOC = "Number of gpload runs per table that may run in the background while the task keeps consuming. Offsets of the records of a run are committed once it and all runs before it succeeded; failed runs are retried after retry.backoff.ms, up to max.retries times. Runs of one table are serialized for the update and upsert insert modes. 0 runs gpload synchronously for every batch.";
+    private static final String GPLOAD_CONCURRENT_LOADS_DISPLAY = "Gpload Concurrent Loads";
+
+    public enum SpoolCompression {
+        NONE,
+        GZIP
+    }
+
+    public static final String GPLOAD_SPOOL_COMPRESSION = "gpload.spool.compression";
+    private static final String GPLOAD_SPOOL_COMPRESSION_DEFAULT = SpoolCompression.NONE.name();
+    private static final String GPLOAD_SPOOL_COMPRESSION_DOC = "Compression of the data files gpload mode spools to disk. ``GZIP`` writes ``.csv.gz`` files, which gpfdist decompresses while serving them, so far fewer bytes go to and from disk at the cost of CPU on the worker.";
+    private static final String GPLOAD_SPOOL_COMPRESSION_DISPLAY = "Gpload Spool Compression";
+
+    public static final String FLUSH_PARALLELISM = "flush.parallelism";
+    private static final int FLUSH_PARALLELISM_DEFAULT = 0;
+    private static final String FLUSH_PARALLELISM_DOC = "Number of threads that write the records of different tables at the same time. Every table then gets its own database connection and is committed on its own, and the offsets of a table's records are committed once its commit succeeded. A table whose write fails is retried on its own, up to ``max.retries`` times ``retry.backoff.ms`` apart, while the other tables go on; its records are then reported to the errant record reporter, or the task fails. 0 writes all tables one after another on one connection and commits them together. Not used by the gpload, gpss and gpfdist batch insert modes.";
+    private static final String FLUSH_PARALLELISM_DISPLAY = "Flush Parallelism";
+
 
 
     public static final String UPDATE_COLUMN_EXCLUDE_LIST = "update.column.exclude.list";
@@ -101,32 +249,32 @@ public class JdbcSinkConfig extends AbstractConfig {
     // configs for timestamp.from.format and timestamp.to.format, date.from.format and date.to.format, time.from.format and time.to.format and timezone
     public static final String TIMESTAMP_FROM_FORMAT = "timestamp.from.format";
     private static final String TIMESTAMP_FROM_FORMAT_DEFAULT = "EEE MMM dd HH:mm:ss zzz yyyy";
-    private static final String TIMESTAMP_FROM_FORMAT_DOC = "The format of the timestamp in the source record.";
+    private static final String TIMESTAMP_FROM_FORMAT_DOC = "The format of the timestamp in the source record, as a java.text.SimpleDateFormat pattern. Several formats can be given separated by '#', they are tried in order.";
     public static final String TIMESTAMP_FROM_FORMAT_DISPLAY = "Timestamp From Format";
 
     public static final String TIMESTAMP_TO_FORMAT = "timestamp.to.format";
     private static final String TIMESTAMP_TO_FORMAT_DEFAULT = "yyyy-MM-dd HH:mm:ss";
-    private static final String TIMESTAMP_TO_FORMAT_DOC = "The format of the timestamp in the sink record.";
+    private static final String TIMESTAMP_TO_FORMAT_DOC = "The format of the timestamp in the sink record, as a java.text.SimpleDateFormat pattern. Letters keep their SimpleDateFormat meaning although values are converted with java.time, for example ``S`` is milliseconds and ``u`` the day number of the week.";
     public static final String TIMESTAMP_TO_FORMAT_DISPLAY = "Timestamp To Format";
 
     public static final String DATE_FROM_FORMAT = "date.from.format";
     private static final String DATE_FROM_FORMAT_DEFAULT = "EEE MMM dd HH:mm:ss zzz yyyy";
-    private static final String DATE_FROM_FORMAT_DOC = "The format of the date in the source record.";
+    private static final String DATE_FROM_FORMAT_DOC = "The format of the date in the source record, as a java.text.SimpleDateFormat pattern. Several formats can be given separated by '#', they are tried in order.";
     public static final String DATE_FROM_FORMAT_DISPLAY = "Date From Format";
 
     public static final String DATE_TO_FORMAT = "date.to.format";
     private static final String DATE_TO_FORMAT_DEFAULT = "yyyy-MM-dd";
-    private static final String DATE_TO_FORMAT_DOC = "The format of the date in the sink record.";
+    private static final String DATE_TO_FORMAT_DOC = "The format of the date in the sink record, as a java.text.SimpleDateFormat pattern. Letters keep their SimpleDateFormat meaning although values are converted with java.time, for example ``S`` is milliseconds and ``u`` the day number of the week.";
     public static final String DATE_TO_FORMAT_DISPLAY = "Date To Format";
 
     public static final String TIME_FROM_FORMAT = "time.from.format";
     private static final String TIME_FROM_FORMAT_DEFAULT = "EEE MMM dd HH:mm:ss zzz yyyy";
-    private static final String TIME_FROM_FORMAT_DOC = "The format of the time in the source record.";
+    private static final String TIME_FROM_FORMAT_DOC = "The format of the time in the source record, as a java.text.SimpleDateFormat pattern. Several formats can be given separated by '#', they are tried in order.";
     public static final String TIME_FROM_FORMAT_DISPLAY = "Time From Format";
 
     public static final String TIME_TO_FORMAT = "time.to.format";
     private static final String TIME_TO_FORMAT_DEFAULT = "HH:mm:ss";
-    private static final String TIME_TO_FORMAT_DOC = "The format of the time in the sink record.";
+    private static final String TIME_TO_FORMAT_DOC = "The format of the time in the sink record, as a java.text.SimpleDateFormat pattern. Letters keep their SimpleDateFormat meaning although values are converted with java.time, for example ``S`` is milliseconds and ``u`` the day number of the week.";
     public static final String TIME_TO_FORMAT_DISPLAY = "Time To Format";
 
 
@@ -179,12 +327,16 @@ public class JdbcSinkConfig extends AbstractConfig {
 
     public static final String GPSS_USE_STICKY_SESSION = "gpss.use.sticky.session";
     private static final boolean GPSS_USE_STICKY_SESSION_DEFAULT = false;
-    private static final String GPSS_USE_STICKY_SESSION_DOC = "Whether to use sticky session for gpss mode.";
+    private static final String GPSS_USE_STICKY_SESSION_DOC = "Whether to keep the gpss session open between batches for gpss mode. When disabled the session is disconnected after every batch, the channel to the gpss server is kept either way.";
 
     public static final String GPSS_PORT = "gpss.port";
     private static final String GPSS_PORT_DEFAULT = "5000";
     private static final String GPSS_PORT_DOC = "The gpss port for gpss mode.";
 
+    public static final String GPSS_USE_TLS = "gpss.use.tls";
+    private static final boolean GPSS_USE_TLS_DEFAULT = false;
+    private static final String GPSS_USE_TLS_DOC = "Whether to connect to the gpss server over TLS, the server certificate is verified against the JVM's default trust store. When disabled the gRPC channel to gpss is plaintext, including the Greenplum credentials sent to it, so only disable it on a trusted network.";
+
 
     public static final String DB_SCHEMA = "db.schema";
     private static final String DB_SCHEMA_DEFAULT = null;
@@ -261,6 +413,8 @@ public class JdbcSinkConfig extends AbstractConfig {
         GPSS,
 
         GPFDIST,
+        COPY,
+        MULTI_ROW,
 //        GPKAFKA, // https://github.com/yanivbhemo/greenplum-gpss
 //        DSH
 
@@ -384,7 +538,9 @@ public class JdbcSinkConfig extends AbstractConfig {
                     + "    Use gpload utility to load data by creating a yml file at runtime (For greenplum only). Make sure that the gpload is in your path \n"
                     + "``GPSS``\n"
                     + "    Use greenplum streaming server (For greenplum only) https://docs.vmware.com/en/VMware-Greenplum-Streaming-Server/1.10/greenplum-streaming-server/ref-gpss.html\n" +
-                    "``GPFDIST`` Use gpfdist in memory server\n";
+                    "``GPFDIST`` Use gpfdist in memory server\n" +
+                    "``COPY`` Use PostgreSQL ``COPY ... FROM STDIN``; upserts and updates go through a temporary staging table (For PostgreSQL and Greenplum)\n" +
+                    "``MULTI_ROW`` Insert up to ``batch.size`` rows with one ``INSERT ... VALUES (...), (...)`` statement, within the bind variable limit of the database; other insert modes use standard statements\n";
     private static final String BATCH_INSERT_MODE_DISPLAY = "Batch Insert Mode";
     public static final String INSERT_MODE = "insert.mode";
     private static final String INSERT_MODE_DEFAULT = "insert";
@@ -885,6 +1041,12 @@ public class JdbcSinkConfig extends AbstractConfig {
                     ConfigDef.Importance.MEDIUM,
                     GP_ERRORS_PERCENTAGE_LIMIT_DOC
 
+            ).define(
+                    GPSS_USE_TLS,
+                    ConfigDef.Type.BOOLEAN,
+                    GPSS_USE_TLS_DEFAULT,
+                    ConfigDef.Importance.MEDIUM,
+                    GPSS_USE_TLS_DOC
             ).define(
                     GPSS_USE_STICKY_SESSION,
                     ConfigDef.Type.BOOLEAN,
@@ -1059,7 +1221,29 @@ public class JdbcSinkConfig extends AbstractConfig {
             .define(UPDATE_COLUMN_EXCLUDE_LIST, ConfigDef.Type.STRING, UPDATE_COLUMN_EXCLUDE_LIST_DEFAULT, ConfigDef.Importance.MEDIUM, UPDATE_COLUMN_EXCLUDE_LIST_DOC, WRITES_GROUP, 1, ConfigDef.Width.LONG, UPDATE_COLUMN_EXCLUDE_LIST_DISPLAY)
             .define(INSERT_COLUMN_EXCLUDE_LIST, ConfigDef.Type.STRING, INSERT_COLUMN_EXCLUDE_LIST_DEFAULT, ConfigDef.Importance.MEDIUM, INSERT_COLUMN_EXCLUDE_LIST_DOC, WRITES_GROUP, 1, ConfigDef.Width.LONG, INSERT_COLUMN_EXCLUDE_LIST_DISPLAY)
             .define(GP_FAST_MATCH, ConfigDef.Type.BOOLEAN, GP_FAST_MATCH_DEFAULT, ConfigDef.Importance.MEDIUM, GP_FAST_MATCH_DOC, WRITES_GROUP, 1, ConfigDef.Width.MEDIUM, GP_FAST_MATCH_DISPLAY)
-            .define(GP_REUSE_TABLE, ConfigDef.Type.BOOLEAN, GP_REUSE_TABLE_DEFAULT, ConfigDef.Importance.MEDIUM, GP_REUSE_TABLE_DOC, WRITES_GROUP, 1, ConfigDef.Width.MEDIUM, GP_REUSE_TABLE_DISPLAY);
+            .define(GP_REUSE_TABLE, ConfigDef.Type.BOOLEAN, GP_REUSE_TABLE_DEFAULT, ConfigDef.Importance.MEDIUM, GP_REUSE_TABLE_DOC, WRITES_GROUP, 1, ConfigDef.Width.MEDIUM, GP_REUSE_TABLE_DISPLAY)
+            .define(UPDATE_MODE_OFFHEAP_THRESHOLD, ConfigDef.Type.INT, UPDATE_MODE_OFFHEAP_THRESHOLD_DEFAULT, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, UPDATE_MODE_OFFHEAP_THRESHOLD_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, UPDATE_MODE_OFFHEAP_THRESHOLD_DISPLAY)
+            .define(GPSS_HEALTH_CHECK_INTERVAL_MS, ConfigDef.Type.INT, GPSS_HEALTH_CHECK_INTERVAL_MS_DEFAULT, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, GPSS_HEALTH_CHECK_INTERVAL_MS_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPSS_HEALTH_CHECK_INTERVAL_MS_DISPLAY)
+            .define(GPSS_RECONNECT_BACKOFF_MAX_MS, ConfigDef.Type.INT, GPSS_RECONNECT_BACKOFF_MAX_MS_DEFAULT, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, GPSS_RECONNECT_BACKOFF_MAX_MS_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPSS_RECONNECT_BACKOFF_MAX_MS_DISPLAY)
+            .define(GPSS_WRITE_CHUNK_BYTES, ConfigDef.Type.INT, GPSS_WRITE_CHUNK_BYTES_DEFAULT, ConfigDef.Range.atLeast(1024), ConfigDef.Importance.LOW, GPSS_WRITE_CHUNK_BYTES_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPSS_WRITE_CHUNK_BYTES_DISPLAY)
+            .define(GPSS_WRITE_MAX_IN_FLIGHT, ConfigDef.Type.INT, GPSS_WRITE_MAX_IN_FLIGHT_DEFAULT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, GPSS_WRITE_MAX_IN_FLIGHT_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPSS_WRITE_MAX_IN_FLIGHT_DISPLAY)
+            .define(GPSS_TRANSACTION_ENABLED, ConfigDef.Type.BOOLEAN, GPSS_TRANSACTION_ENABLED_DEFAULT, ConfigDef.Importance.MEDIUM, GPSS_TRANSACTION_ENABLED_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPSS_TRANSACTION_ENABLED_DISPLAY)
+            .define(GPSS_TRANSACTION_MAX_ROWS, ConfigDef.Type.INT, GPSS_TRANSACTION_MAX_ROWS_DEFAULT, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, GPSS_TRANSACTION_MAX_ROWS_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPSS_TRANSACTION_MAX_ROWS_DISPLAY)
+            .define(GPSS_TRANSACTION_MAX_BYTES, ConfigDef.Type.LONG, GPSS_TRANSACTION_MAX_BYTES_DEFAULT, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, GPSS_TRANSACTION_MAX_BYTES_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPSS_TRANSACTION_MAX_BYTES_DISPLAY)
+            .define(GPSS_TRANSACTION_MAX_MS, ConfigDef.Type.LONG, GPSS_TRANSACTION_MAX_MS_DEFAULT, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, GPSS_TRANSACTION_MAX_MS_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPSS_TRANSACTION_MAX_MS_DISPLAY)
+            .define(GPSS_FORMAT, ConfigDef.Type.STRING, GPSS_FORMAT_DEFAULT, EnumValidator.in(GpssFormat.values()), ConfigDef.Importance.MEDIUM, GPSS_FORMAT_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPSS_FORMAT_DISPLAY)
+            .define(GPSS_PASSTHROUGH_COLUMN, ConfigDef.Type.STRING, GPSS_PASSTHROUGH_COLUMN_DEFAULT, ConfigDef.Importance.LOW, GPSS_PASSTHROUGH_COLUMN_DOC, WRITES_GROUP, 1, ConfigDef.Width.MEDIUM, GPSS_PASSTHROUGH_COLUMN_DISPLAY)
+            .define(GPSS_AVRO_SCHEMA_URL, ConfigDef.Type.STRING, GPSS_AVRO_SCHEMA_URL_DEFAULT, ConfigDef.Importance.LOW, GPSS_AVRO_SCHEMA_URL_DOC, WRITES_GROUP, 1, ConfigDef.Width.LONG, GPSS_AVRO_SCHEMA_URL_DISPLAY)
+            .define(GPSS_WRITE_SESSIONS, ConfigDef.Type.INT, GPSS_WRITE_SESSIONS_DEFAULT, ConfigDef.Range.atLeast(1), ConfigDef.Importance.LOW, GPSS_WRITE_SESSIONS_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPSS_WRITE_SESSIONS_DISPLAY)
+            .define(GPFDIST_SERVER_ENGINE, ConfigDef.Type.STRING, GPFDIST_SERVER_ENGINE_DEFAULT, EnumValidator.in(GpfdistEngine.values()), ConfigDef.Importance.LOW, GPFDIST_SERVER_ENGINE_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPFDIST_SERVER_ENGINE_DISPLAY)
+            .define(GPFDIST_SERVER_WORKERS, ConfigDef.Type.INT, GPFDIST_SERVER_WORKERS_DEFAULT, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, GPFDIST_SERVER_WORKERS_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPFDIST_SERVER_WORKERS_DISPLAY)
+            .define(GPFDIST_SERVER_KEEP_ALIVE, ConfigDef.Type.BOOLEAN, GPFDIST_SERVER_KEEP_ALIVE_DEFAULT, ConfigDef.Importance.LOW, GPFDIST_SERVER_KEEP_ALIVE_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPFDIST_SERVER_KEEP_ALIVE_DISPLAY)
+            .define(GP_MERGE_STRATEGY, ConfigDef.Type.STRING, GP_MERGE_STRATEGY_DEFAULT, EnumValidator.in(MergeStrategy.values()), ConfigDef.Importance.MEDIUM, GP_MERGE_STRATEGY_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GP_MERGE_STRATEGY_DISPLAY)
+            .define(GPFDIST_DISTRIBUTION_AWARE, ConfigDef.Type.BOOLEAN, GPFDIST_DISTRIBUTION_AWARE_DEFAULT, ConfigDef.Importance.LOW, GPFDIST_DISTRIBUTION_AWARE_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPFDIST_DISTRIBUTION_AWARE_DISPLAY)
+            .define(GPFDIST_REGISTER_TIMEOUT_MS, ConfigDef.Type.LONG, GPFDIST_REGISTER_TIMEOUT_MS_DEFAULT, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, GPFDIST_REGISTER_TIMEOUT_MS_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPFDIST_REGISTER_TIMEOUT_MS_DISPLAY)
+            .define(GPLOAD_CONCURRENT_LOADS, ConfigDef.Type.INT, GPLOAD_CONCURRENT_LOADS_DEFAULT, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, GPLOAD_CONCURRENT_LOADS_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPLOAD_CONCURRENT_LOADS_DISPLAY)
+            .define(GPLOAD_SPOOL_COMPRESSION, ConfigDef.Type.STRING, GPLOAD_SPOOL_COMPRESSION_DEFAULT, EnumValidator.in(SpoolCompression.values()), ConfigDef.Importance.LOW, GPLOAD_SPOOL_COMPRESSION_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, GPLOAD_SPOOL_COMPRESSION_DISPLAY)
+            .define(FLUSH_PARALLELISM, ConfigDef.Type.INT, FLUSH_PARALLELISM_DEFAULT, ConfigDef.Range.atLeast(0), ConfigDef.Importance.LOW, FLUSH_PARALLELISM_DOC, WRITES_GROUP, 1, ConfigDef.Width.SHORT, FLUSH_PARALLELISM_DISPLAY);
     public static void printConfigDefTable(ConfigDef configDef) {
 
         System.out.format("%-30s %-20s %-30s %-15s %-50s%n", "Name", "Type", "Default", "Importance", "Documentation");
@@ -1119,7 +1303,29 @@ public class JdbcSinkConfig extends AbstractConfig {
     public final String gpssHost;
     public final String gpssPort;
     public final Integer gpErrorsPercentageLimit;
+    public final boolean gpssUseTls;
     public final boolean gpssUseStickySession;
+    public final int gpssHealthCheckIntervalMs;
+    public final int gpssReconnectBackoffMaxMs;
+    public final int gpssWriteChunkBytes;
+    public final int gpssWriteMaxInFlight;
+    public final boolean gpssTransactionEnabled;
+    public final int gpssTransactionMaxRows;
+    public final long gpssTransactionMaxBytes;
+    public final long gpssTransactionMaxMs;
+    public final GpssFormat gpssFormat;
+    public final String gpssPassThroughColumn;
+    public final String gpssAvroSchemaUrl;
+    public final int gpssWriteSessions;
+    public final GpfdistEngine gpfdistServerEngine;
+    public final int gpfdistServerWorkers;
+    public final boolean gpfdistServerKeepAlive;
+    public final MergeStrategy gpMergeStrategy;
+    public final boolean gpfdistDistributionAware;
+    public final long gpfdistRegisterTimeoutMs;
+    public final int gploadConcurrentLoads;
+    public final SpoolCompression gploadSpoolCompression;
+    public final int flushParallelism;
 
     public boolean printDebugLogs;
 
@@ -1172,6 +1378,7 @@ public class JdbcSinkConfig extends AbstractConfig {
 
     public final boolean gpFastMatch;
     public final boolean gpReuseTable;
+    public final int updateModeOffHeapThreshold;
 
     public JdbcSinkConfig(Map<?, ?> props) {
         super(CONFIG_DEF, props);
@@ -1221,6 +1428,7 @@ public class JdbcSinkConfig extends AbstractConfig {
         gpssPort = getString(GPSS_PORT);
 
         gpErrorsPercentageLimit = getInt(GP_ERRORS_PERCENTAGE_LIMIT);
+        gpssUseTls = getBoolean(GPSS_USE_TLS);
         gpssUseStickySession = getBoolean(GPSS_USE_STICKY_SESSION);
         gpMaxLineLength = getLong(GP_MAX_LINE_LENGTH);
 
@@ -1272,6 +1480,35 @@ public class JdbcSinkConfig extends AbstractConfig {
         }
         gpFastMatch = getBoolean(GP_FAST_MATCH);
         gpReuseTable = getBoolean(GP_REUSE_TABLE);
+        updateModeOffHeapThreshold = getInt(UPDATE_MODE_OFFHEAP_THRESHOLD);
+        gpssHealthCheckIntervalMs = getInt(GPSS_HEALTH_CHECK_INTERVAL_MS);
+        gpssReconnectBackoffMaxMs = getInt(GPSS_RECONNECT_BACKOFF_MAX_MS);
+        gpssWriteChunkBytes = getInt(GPSS_WRITE_CHUNK_BYTES);
+        // out of order chunks could apply an older row of a key after a newer one
+        int maxInFlight = getInt(GPSS_WRITE_MAX_IN_FLIGHT);
+        if (insertMode != InsertMode.INSERT && maxInFlight > 1) {
+            log.warn("Ignoring {}={} with {}={}, GPSS writes are sent one at a time to keep rows of the same key in order",
+                    GPSS_WRITE_MAX_IN_FLIGHT, maxInFlight, INSERT_MODE, insertMode.name().toLowerCase());
+            maxInFlight = 1;
+        }
+        gpssWriteMaxInFlight = maxInFlight;
+        gpssTransactionEnabled = getBoolean(GPSS_TRANSACTION_ENABLED);
+        gpssTransactionMaxRows = getInt(GPSS_TRANSACTION_MAX_ROWS);
+        gpssTransactionMaxBytes = getLong(GPSS_TRANSACTION_MAX_BYTES);
+        gpssTransactionMaxMs = getLong(GPSS_TRANSACTION_MAX_MS);
+        gpssFormat = GpssFormat.valueOf(getString(GPSS_FORMAT).toUpperCase());
+        gpssPassThroughColumn = getString(GPSS_PASSTHROUGH_COLUMN);
+        gpssAvroSchemaUrl = getString(GPSS_AVRO_SCHEMA_URL);
+        gpssWriteSessions = getInt(GPSS_WRITE_SESSIONS);
+        gpfdistServerEngine = GpfdistEngine.valueOf(getString(GPFDIST_SERVER_ENGINE).toUpperCase());
+        gpfdistServerWorkers = getInt(GPFDIST_SERVER_WORKERS);
+        gpfdistServerKeepAlive = getBoolean(GPFDIST_SERVER_KEEP_ALIVE);
+        gpMergeStrategy = MergeStrategy.valueOf(getString(GP_MERGE_STRATEGY).toUpperCase());
+        gpfdistDistributionAware = getBoolean(GPFDIST_DISTRIBUTION_AWARE);
+        gpfdistRegisterTimeoutMs = getLong(GPFDIST_REGISTER_TIMEOUT_MS);
+        gploadConcurrentLoads = getInt(GPLOAD_CONCURRENT_LOADS);
+        gploadSpoolCompression = SpoolCompression.valueOf(getString(GPLOAD_SPOOL_COMPRESSION).toUpperCase());
+        flushParallelism = getInt(FLUSH_PARALLELISM);
 
     }
 
@@ -16,6 +16,7 @@
 package io.confluent.connect.jdbc.sink;
 
 import io.confluent.connect.jdbc.gp.gpfdist.framweork.GpfdistSimpleServer;
+import io.confluent.connect.jdbc.gp.gpss.GpssConnectionManager;
 import io.confluent.connect.jdbc.util.LogUtil;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
@@ -30,6 +31,7 @@ import org.slf4j.LoggerFactory;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
@@ -43,7 +45,10 @@ public class JdbcSinkTask extends SinkTask {
   DatabaseDialect dialect;
   JdbcSinkConfig config;
   JdbcDbWriter writer;
+  OffsetTracker offsetTracker;
   int remainingRetries;
+  // the last offsets received before partitions were read again after a failed put
+  final Map<TopicPartition, Long> replayUntil = new HashMap<>();
 
   boolean shouldTrimSensitiveLogs;
   GpfdistSimpleServer httpServer;
@@ -52,15 +57,21 @@ public class JdbcSinkTask extends SinkTask {
   public void start(final Map<String, String> props) {
     log.info("Starting JDBC Sink task");
     config = new JdbcSinkConfig(props);
-    initWriter();
-    remainingRetries = config.maxRetries;
-    shouldTrimSensitiveLogs = config.trimSensitiveLogsEnabled;
+    offsetTracker = new OffsetTracker();
+    if (config.batchInsertMode == JdbcSinkConfig.BatchInsertMode.GPSS) {
+      // GPSS channels and sessions are shared by the tasks of this worker and outlive retries
+      GpssConnectionManager.getInstance().retain(config);
+    }
     try {
       reporter = context.errantRecordReporter();
     } catch (NoSuchMethodError | NoClassDefFoundError e) {
       // Will occur in Connect runtimes earlier than 2.6
       reporter = null;
     }
+    // the writer hands records Greenplum rejected to the reporter
+    initWriter();
+    remainingRetries = config.maxRetries;
+    shouldTrimSensitiveLogs = config.trimSensitiveLogsEnabled;
   }
 
   void initWriter() {
@@ -72,7 +83,7 @@ public class JdbcSinkTask extends SinkTask {
     }
     final DbStructure dbStructure = new DbStructure(dialect);
     log.info("Initializing writer using SQL dialect: {}", dialect.getClass().getSimpleName());
-    writer = new JdbcDbWriter(config, dialect, dbStructure);
+    writer = new JdbcDbWriter(config, dialect, dbStructure, offsetTracker, reporter);
 
 //
     if(config.batchInsertMode == JdbcSinkConfig.BatchInsertMode.GPFDIST){
@@ -103,10 +114,12 @@ public class JdbcSinkTask extends SinkTask {
         + "database...",
         recordsCount, first.topic(), first.kafkaPartition(), first.kafkaOffset()
     );
+    offsetTracker.markReceived(records);
     try {
       writer.write(records);
     } catch (TableAlterOrCreateException tace) {
-      if (reporter != null) {
+      // failing the task reads the records of earlier puts again, unrolling would lose them
+      if (reporter != null && !dropsEarlierRecords(records)) {
         unrollAndRetry(records);
       } else {
         log.error(tace.toString());
@@ -127,12 +140,23 @@ public class JdbcSinkTask extends SinkTask {
       }
       SQLException sqlAllMessagesException = getAllMessagesException(sqle);
       if (remainingRetries > 0) {
+        final boolean dropsEarlierRecords = dropsEarlierRecords(records);
+        final Map<TopicPartition, Long> pending = offsetTracker.pendingOffsets();
         writer.closeQuietly();
         initWriter();
         remainingRetries--;
         context.timeout(config.retryBackoffMs);
         log.debug(sqlAllMessagesException.toString());
+        if (dropsEarlierRecords) {
+          // Connect only puts these records again, read everything that is not durable instead
+          log.warn("Reading partitions again from the last durable offsets {}", pending);
+          replayUntil.putAll(offsetTracker.rewind(pending));
+          context.offset(pending);
+          return;
+        }
         throw new RetriableException(sqlAllMessagesException);
+      } else if (dropsEarlierRecords(records)) {
+        throw failDroppingEarlierRecords(sqlAllMessagesException);
       } else {
         if (reporter != null) {
           unrollAndRetry(records);
@@ -150,7 +174,27 @@ public class JdbcSinkTask extends SinkTask {
         }
       }
     }
-    remainingRetries = config.maxRetries;
+    if (replayUntil.isEmpty() || offsetTracker.isDurable(replayUntil)) {
+      // the retries of records read again only start over once they made it
+      replayUntil.clear();
+      remainingRetries = config.maxRetries;
+    }
+  }
+
+  /**
+   * Whether closing the writer loses more than the given records, which Connect puts again:
+   * records of earlier puts that are not durable yet, such as buffered records or records in open
+   * GPSS transactions. Also holds when some of the given records are durable already, since
+   * putting them again would write them twice.
+   */
+  private boolean dropsEarlierRecords(Collection<SinkRecord> records) {
+    return !offsetTracker.pendingOffsets().equals(OffsetTracker.minOffsets(records));
+  }
+
+  private ConnectException failDroppingEarlierRecords(Exception cause) {
+    log.error("Failing task after exhausting retries; records of earlier puts are not durable "
+        + "yet and are read again from the last committed offsets once the task restarts");
+    return new ConnectException(cause);
   }
 
   private void unrollAndRetry(Collection<SinkRecord> records) {
@@ -189,6 +233,22 @@ public class JdbcSinkTask extends SinkTask {
     // Not necessary
   }
 
+  @Override
+  public Map<TopicPartition, OffsetAndMetadata> preCommit(
+      Map<TopicPartition, OffsetAndMetadata> currentOffsets
+  ) {
+    // Records can still sit in the writer's buffers or in open GPSS transactions, only commit
+    // what has reached the database
+    writer.commitOpenTransactions();
+    return offsetTracker.committableOffsets(currentOffsets);
+  }
+
+  @Override
+  public void close(Collection<TopicPartition> partitions) {
+    offsetTracker.forget(partitions);
+    replayUntil.keySet().removeAll(partitions);
+  }
+
   public void stop() {
     log.info("Stopping task");
     try {
@@ -202,6 +262,9 @@ public class JdbcSinkTask extends SinkTask {
         log.warn("Error while closing the {} dialect: ", dialect.name(), t);
       } finally {
         dialect = null;
+        if (config != null && config.batchInsertMode == JdbcSinkConfig.BatchInsertMode.GPSS) {
+          GpssConnectionManager.getInstance().release(config);
+        }
       }
     }
   }
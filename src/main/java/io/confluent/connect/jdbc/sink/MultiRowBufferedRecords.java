@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.sink.metadata.SchemaPair;
+import io.confluent.connect.jdbc.util.TableId;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Buffered records that are inserted with multi-row {@code INSERT ... VALUES (...), (...)}
+ * statements instead of a batch of single-row statements, for {@code batch.insert.mode=multi_row}.
+ * Drivers that do not rewrite batches then need one round trip per statement instead of per row.
+ *
+ * <p>A flush inserts full statements of as many rows as the batch size and the dialect's
+ * {@link DatabaseDialect#maxMultiRowInsertRows(int) bind variable limit} allow, and the remaining
+ * rows with statements of power of two sizes, so that only a few statements are prepared per
+ * schema. The prepared statements are kept until the schema changes. Insert modes other than
+ * {@code insert}, and dialects without multi-row inserts, use the single-row statements of
+ * {@link BufferedRecords}.
+ */
+public class MultiRowBufferedRecords extends BufferedRecords {
+
+  private final Map<Integer, PreparedStatement> insertStatements = new HashMap<>();
+  private final Map<Integer, PreparedStatementBinder> insertBinders = new HashMap<>();
+  private final Map<Integer, PreparedStatement> pendingStatements = new LinkedHashMap<>();
+
+  public MultiRowBufferedRecords(
+      JdbcSinkConfig config,
+      TableId tableId,
+      DatabaseDialect dbDialect,
+      DbStructure dbStructure,
+      Connection connection
+  ) {
+    super(config, tableId, dbDialect, dbStructure, connection);
+  }
+
+  @Override
+  public List<SinkRecord> flush() throws SQLException {
+    if (records.isEmpty()) {
+      // the first record of a table flushes before the fields metadata is known
+      return super.flush();
+    }
+    final int maxRows = maxRowsPerStatement();
+    if (maxRows <= 1) {
+      return super.flush();
+    }
+    log.debug("Flushing {} buffered records with up to {} rows per statement",
+        records.size(), maxRows);
+    final List<SinkRecord> rows = new ArrayList<>(records.size());
+    for (SinkRecord record : records) {
+      if (isNull(record.value())) {
+        if (nonNull(deleteStatementBinder)) {
+          deleteStatementBinder.bindRecord(record);
+        }
+      } else {
+        rows.add(record);
+      }
+    }
+    try {
+      int from = 0;
+      while (from < rows.size()) {
+        final int remaining = rows.size() - from;
+        final int size = remaining >= maxRows ? maxRows : Integer.highestOneBit(remaining);
+        bindRows(size, rows.subList(from, from + size), rows.get(0));
+        from += size;
+      }
+      executeInserts();
+    } catch (SQLException | RuntimeException e) {
+      // drop what was batched so that the next flush does not send it again
+      clearPendingBatches(e);
+      throw e;
+    }
+    executeDeletes();
+
+    final List<SinkRecord> flushedRecords = records;
+    records = new ArrayList<>();
+    deletesInBatch = false;
+    return flushedRecords;
+  }
+
+  @Override
+  public void close() throws SQLException {
+    try {
+      for (PreparedStatement statement : insertStatements.values()) {
+        statement.close();
+      }
+    } finally {
+      insertStatements.clear();
+      insertBinders.clear();
+      pendingStatements.clear();
+      super.close();
+    }
+  }
+
+  private int maxRowsPerStatement() {
+    if (config.insertMode != JdbcSinkConfig.InsertMode.INSERT) {
+      return 1;
+    }
+    final int columns =
+        fieldsMetadata.keyFieldNames.size() + fieldsMetadata.nonKeyFieldNames.size();
+    return Math.min(config.batchSize, dbDialect.maxMultiRowInsertRows(Math.max(columns, 1)));
+  }
+
+  private void bindRows(int size, List<SinkRecord> rows, SinkRecord sample) throws SQLException {
+    final PreparedStatementBinder binder = insertBinder(size, sample);
+    int index = 1;
+    for (SinkRecord record : rows) {
+      index = binder.bindInsertRow(record, index);
+    }
+    final PreparedStatement statement = insertStatements.get(size);
+    statement.addBatch();
+    pendingStatements.put(size, statement);
+  }
+
+  /**
+   * The binder of the statement with {@code size} rows. The schemas are taken from a buffered
+   * record, because a schema change flushes after the buffer switched to the new schemas.
+   */
+  private PreparedStatementBinder insertBinder(int size, SinkRecord sample) throws SQLException {
+    PreparedStatementBinder binder = insertBinders.get(size);
+    if (binder == null) {
+      final String sql = dbDialect.buildMultiRowInsertStatement(
+          tableId,
+          asColumns(fieldsMetadata.keyFieldNames),
+          asColumns(fieldsMetadata.nonKeyFieldNames),
+          dbStructure.tableDefinition(connection, tableId),
+          size
+      );
+      log.debug("Preparing insert of {} rows", size);
+      final PreparedStatement statement = dbDialect.createPreparedStatement(connection, sql);
+      binder = new PreparedStatementBinder(
+          dbDialect,
+          statement,
+          config.pkMode,
+          new SchemaPair(sample.keySchema(), sample.valueSchema()),
+          fieldsMetadata,
+          dbStructure.tableDefinition(connection, tableId),
+          config.insertMode
+      );
+      insertStatements.put(size, statement);
+      insertBinders.put(size, binder);
+    }
+    return binder;
+  }
+
+  private void executeInserts() throws SQLException {
+    final Iterator<PreparedStatement> statements = pendingStatements.values().iterator();
+    while (statements.hasNext()) {
+      final PreparedStatement statement = statements.next();
+      int[] batchStatus = statement.executeBatch();
+      statements.remove();
+      for (int updateCount : batchStatus) {
+        if (updateCount == Statement.EXECUTE_FAILED) {
+          throw new BatchUpdateException(
+              "Execution failed for part of the batch insert", batchStatus);
+        }
+      }
+    }
+  }
+
+  private void clearPendingBatches(Exception failure) {
+    for (PreparedStatement statement : pendingStatements.values()) {
+      try {
+        statement.clearBatch();
+      } catch (SQLException e) {
+        failure.addSuppressed(e);
+      }
+    }
+    pendingStatements.clear();
+  }
+}
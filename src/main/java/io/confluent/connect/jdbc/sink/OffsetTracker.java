@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers, per topic partition, the last offset whose record has been made durable in the
+ * database.
+ *
+ * <p>Records of one partition always go to the same table and are written in offset order, so
+ * everything up to that offset is durable too. The task only commits these offsets, which keeps
+ * records that are still buffered, or written to a GPSS transaction that has not been closed yet,
+ * from being committed to Kafka before they are in the database.
+ *
+ * <p>It also remembers the range of offsets the task received per partition, so that the records
+ * the writer dropped before they became durable can be read again with
+ * {@link #pendingOffsets()}.
+ */
+public class OffsetTracker {
+
+  private final Map<TopicPartition, Long> durable = new HashMap<>();
+  private final Map<TopicPartition, Long> firstReceived = new HashMap<>();
+  private final Map<TopicPartition, Long> lastReceived = new HashMap<>();
+
+  public synchronized void markReceived(Collection<SinkRecord> records) {
+    for (Map.Entry<TopicPartition, Long> entry : minOffsets(records).entrySet()) {
+      firstReceived.putIfAbsent(entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<TopicPartition, Long> entry : maxOffsets(records).entrySet()) {
+      lastReceived.merge(entry.getKey(), entry.getValue(), Math::max);
+    }
+  }
+
+  public synchronized void markDurable(Collection<SinkRecord> records) {
+    markDurable(maxOffsets(records));
+  }
+
+  public synchronized void markDurable(Map<TopicPartition, Long> offsets) {
+    for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
+      durable.merge(entry.getKey(), entry.getValue(), Math::max);
+    }
+  }
+
+  /**
+   * Returns the offsets that can be committed for the given partitions: the offset after the last
+   * durable record, but never beyond what the framework has consumed. Partitions without durable
+   * records are left out so that their previously committed offset stays in place.
+   */
+  public synchronized Map<TopicPartition, OffsetAndMetadata> committableOffsets(
+      Map<TopicPartition, OffsetAndMetadata> currentOffsets
+  ) {
+    Map<TopicPartition, OffsetAndMetadata> committable = new HashMap<>();
+    for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : currentOffsets.entrySet()) {
+      Long offset = durable.get(entry.getKey());
+      if (offset == null) {
+        continue;
+      }
+      long next = Math.min(offset + 1, entry.getValue().offset());
+      committable.put(entry.getKey(), new OffsetAndMetadata(next, entry.getValue().metadata()));
+    }
+    return committable;
+  }
+
+  /**
+   * Returns, for every partition with received records that are not durable, the offset to read
+   * it from again: the one after the last durable record, or the first received one if none is.
+   */
+  public synchronized Map<TopicPartition, Long> pendingOffsets() {
+    Map<TopicPartition, Long> pending = new HashMap<>();
+    for (Map.Entry<TopicPartition, Long> entry : lastReceived.entrySet()) {
+      Long offset = durable.get(entry.getKey());
+      long next = offset != null ? offset + 1 : firstReceived.get(entry.getKey());
+      if (entry.getValue() >= next) {
+        pending.put(entry.getKey(), next);
+      }
+    }
+    return pending;
+  }
+
+  /**
+   * Notes that the given partitions are read again from the given offsets.
+   *
+   * @return the last offset received of each of the partitions before
+   */
+  public synchronized Map<TopicPartition, Long> rewind(Map<TopicPartition, Long> offsets) {
+    Map<TopicPartition, Long> received = new HashMap<>();
+    for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
+      Long last = lastReceived.put(entry.getKey(), entry.getValue() - 1);
+      if (last != null) {
+        received.put(entry.getKey(), last);
+      }
+    }
+    return received;
+  }
+
+  /**
+   * Whether the records up to the given offsets are durable.
+   */
+  public synchronized boolean isDurable(Map<TopicPartition, Long> offsets) {
+    for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
+      Long offset = durable.get(entry.getKey());
+      if (offset == null || offset < entry.getValue()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public synchronized void forget(Collection<TopicPartition> partitions) {
+    durable.keySet().removeAll(partitions);
+    firstReceived.keySet().removeAll(partitions);
+    lastReceived.keySet().removeAll(partitions);
+  }
+
+  /**
+   * Collects the lowest offset per partition of the given records.
+   */
+  public static Map<TopicPartition, Long> minOffsets(Collection<SinkRecord> records) {
+    Map<TopicPartition, Long> offsets = new HashMap<>();
+    for (SinkRecord record : records) {
+      offsets.merge(
+          new TopicPartition(record.topic(), record.kafkaPartition()),
+          record.kafkaOffset(),
+          Math::min
+      );
+    }
+    return offsets;
+  }
+
+  /**
+   * Collects the highest offset per partition of the given records.
+   */
+  public static Map<TopicPartition, Long> maxOffsets(Collection<SinkRecord> records) {
+    Map<TopicPartition, Long> offsets = new HashMap<>();
+    for (SinkRecord record : records) {
+      offsets.merge(
+          new TopicPartition(record.topic(), record.kafkaPartition()),
+          record.kafkaOffset(),
+          Math::max
+      );
+    }
+    return offsets;
+  }
+}
@@ -115,6 +115,17 @@ public class PreparedStatementBinder implements StatementBinder {
     statement.addBatch();
   }
 
+  /**
+   * Binds the fields of an inserted record starting at the variable {@code index}, without adding
+   * a batch, for statements that insert several records.
+   *
+   * @return the index of the variable after the record's last one
+   */
+  public int bindInsertRow(SinkRecord record, int index) throws SQLException {
+    index = bindKeyFields(record, index);
+    return bindNonKeyFields(record, (Struct) record.value(), index);
+  }
+
   protected int bindKeyFields(SinkRecord record, int index) throws SQLException {
     switch (pkMode) {
       case NONE:
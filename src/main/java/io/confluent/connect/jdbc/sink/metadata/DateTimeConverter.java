@@ -0,0 +1,132 @@
+package io.confluent.connect.jdbc.sink.metadata;
+
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import org.apache.kafka.connect.data.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts the value of one date, time or timestamp column to the text form configured by the
+ * {@code *.to.format} setting. Instances are immutable and can be shared between tasks.
+ *
+ * <p>{@link java.util.Date} values (Connect Timestamp, Date and Time logical types) are formatted
+ * from their epoch millis directly. Anything else is parsed as text with each of the
+ * {@code *.from.format} patterns in turn, and left unchanged if none of them matches.
+ *
+ * <p>Patterns use the {@link java.text.SimpleDateFormat} syntax the settings always had, they are
+ * compiled to {@link DateTimeFormatter}s by {@link SimpleDateFormatPatterns}.
+ */
+public final class DateTimeConverter {
+    private static final Logger log = LoggerFactory.getLogger(DateTimeConverter.class);
+
+    /**
+     * Separates alternative patterns in the {@code *.from.format} settings, so the patterns cannot
+     * contain '#' themselves.
+     */
+    public static final String FORMAT_SEPARATOR = "#";
+
+    private final DateTimeFormatter[] inputFormats;
+    private final DateTimeFormatter outputFormat;
+    private final ZoneId fromZone;
+    private final ZoneId toZone;
+    private final boolean utcCalendarValue;
+    private final boolean debug;
+
+    private DateTimeConverter(DateTimeFormatter[] inputFormats, DateTimeFormatter outputFormat, ZoneId fromZone, ZoneId toZone, boolean utcCalendarValue, boolean debug) {
+        this.inputFormats = inputFormats;
+        this.outputFormat = outputFormat;
+        this.fromZone = fromZone;
+        this.toZone = toZone;
+        this.utcCalendarValue = utcCalendarValue;
+        this.debug = debug;
+    }
+
+    /**
+     * Compiles the converter for a column of the given type.
+     *
+     * @param logicalName the Connect logical type of the source field, or null. Connect Date and
+     *                    Time values are calendar values in UTC and are not shifted between zones.
+     */
+    public static DateTimeConverter compile(DateType type, JdbcSinkConfig config, String logicalName) {
+        ZoneId fromZone = config.dateFromTimezone != null ? config.dateFromTimezone.toZoneId() : ZoneId.systemDefault();
+        ZoneId toZone = config.dateToTimezone != null ? config.dateToTimezone.toZoneId() : ZoneId.systemDefault();
+        return of(type.fromFormat(config), type.toFormat(config), fromZone, toZone, logicalName, config.printDebugLogs);
+    }
+
+    public static DateTimeConverter of(String fromFormat, String toFormat, ZoneId fromZone, ZoneId toZone, String logicalName, boolean debug) {
+        List<DateTimeFormatter> inputs = new ArrayList<>();
+        if (fromFormat != null) {
+            for (String pattern : fromFormat.split(FORMAT_SEPARATOR)) {
+                if (!pattern.trim().isEmpty()) {
+                    inputs.add(SimpleDateFormatPatterns.toFormatter(pattern.trim()));
+                }
+            }
+        }
+        DateTimeFormatter output = toFormat == null || toFormat.isEmpty() ? null : SimpleDateFormatPatterns.toFormatter(toFormat);
+        boolean utcCalendarValue = org.apache.kafka.connect.data.Date.LOGICAL_NAME.equals(logicalName) || Time.LOGICAL_NAME.equals(logicalName);
+        return new DateTimeConverter(inputs.toArray(new DateTimeFormatter[0]), output, fromZone, toZone, utcCalendarValue, debug);
+    }
+
+    public String convert(Object value) {
+        if (outputFormat != null && value instanceof java.util.Date) {
+            try {
+                return formatEpochMillis(((java.util.Date) value).getTime());
+            } catch (DateTimeException e) {
+                logFailure(value, e);
+                return String.valueOf(value);
+            }
+        }
+        String text = String.valueOf(value);
+        if (outputFormat == null || text.isEmpty()) {
+            return text;
+        }
+        for (DateTimeFormatter inputFormat : inputFormats) {
+            try {
+                TemporalAccessor parsed = inputFormat.parseBest(text, ZonedDateTime::from, LocalDateTime::from, LocalDate::from, LocalTime::from);
+                return outputFormat.format(toTargetZone(parsed));
+            } catch (DateTimeException e) {
+                // try the next format
+            }
+        }
+        logFailure(text, null);
+        return text;
+    }
+
+    private String formatEpochMillis(long epochMillis) {
+        ZoneId zone = utcCalendarValue ? ZoneOffset.UTC : toZone;
+        return outputFormat.format(Instant.ofEpochMilli(epochMillis).atZone(zone));
+    }
+
+    private ZonedDateTime toTargetZone(TemporalAccessor parsed) {
+        ZonedDateTime dateTime;
+        if (parsed instanceof ZonedDateTime) {
+            dateTime = (ZonedDateTime) parsed;
+        } else if (parsed instanceof LocalDateTime) {
+            dateTime = ((LocalDateTime) parsed).atZone(fromZone);
+        } else if (parsed instanceof LocalDate) {
+            dateTime = ((LocalDate) parsed).atStartOfDay(fromZone);
+        } else {
+            dateTime = ((LocalTime) parsed).atDate(LocalDate.ofEpochDay(0)).atZone(fromZone);
+        }
+        return dateTime.withZoneSameInstant(toZone);
+    }
+
+    private void logFailure(Object value, Exception e) {
+        if (debug) {
+            log.info("Could not convert date value {}, keeping it unchanged", value, e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.confluent.connect.jdbc.sink.metadata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hash distribution of a Greenplum table as recorded in {@code gp_distribution_policy}: the
+ * distribution key columns in key order, with their type and hash operator class, and the number
+ * of segments the table is spread over.
+ */
+public class DistributionPolicy {
+
+    public static class KeyColumn {
+        private final String name;
+        private final String typeName;
+        private final String opclass;
+
+        public KeyColumn(String name, String typeName, String opclass) {
+            this.name = name;
+            this.typeName = typeName;
+            this.opclass = opclass;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getTypeName() {
+            return typeName;
+        }
+
+        public String getOpclass() {
+            return opclass;
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + typeName + " " + opclass;
+        }
+    }
+
+    private final List<KeyColumn> keyColumns;
+    private final int numSegments;
+
+    public DistributionPolicy(List<KeyColumn> keyColumns, int numSegments) {
+        this.keyColumns = Collections.unmodifiableList(new ArrayList<>(keyColumns));
+        this.numSegments = numSegments;
+    }
+
+    public List<KeyColumn> getKeyColumns() {
+        return keyColumns;
+    }
+
+    public int getNumSegments() {
+        return numSegments;
+    }
+
+    @Override
+    public String toString() {
+        return "DistributionPolicy{keyColumns=" + keyColumns + ", numSegments=" + numSegments + "}";
+    }
+}
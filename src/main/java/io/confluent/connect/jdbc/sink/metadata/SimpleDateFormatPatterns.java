@@ -0,0 +1,198 @@
+package io.confluent.connect.jdbc.sink.metadata;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.SignStyle;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalField;
+import java.time.temporal.WeekFields;
+import java.util.Locale;
+
+/**
+ * Compiles {@link java.text.SimpleDateFormat} patterns, the syntax of the {@code *.from.format}
+ * and {@code *.to.format} settings, into equivalent {@link DateTimeFormatter}s.
+ *
+ * <p>The two syntaxes share most letters but not all: {@code u} is the day number of the week
+ * instead of the year, {@code S} counts milliseconds instead of fractions of a second, {@code Z}
+ * is always an RFC 822 offset, and any number of repeated letters is allowed. Numeric fields
+ * directly followed by another numeric field are parsed with the fixed width of the pattern, as
+ * {@code SimpleDateFormat} does for patterns like {@code yyyyMMdd}.
+ */
+final class SimpleDateFormatPatterns {
+
+    private static final WeekFields WEEK_FIELDS = WeekFields.of(Locale.US);
+
+    private SimpleDateFormatPatterns() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code pattern} is not a valid SimpleDateFormat pattern
+     */
+    static DateTimeFormatter toFormatter(String pattern) {
+        DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+        boolean hasAmPm = false;
+        boolean hasAmPmHour = false;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                i = appendQuoted(builder, pattern, i);
+            } else if (isLetter(c)) {
+                int count = 1;
+                while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+                    count++;
+                }
+                i += count;
+                boolean adjacent = i < pattern.length() && isNumeric(pattern.charAt(i), runLength(pattern, i));
+                appendField(builder, c, count, adjacent);
+                hasAmPm |= c == 'a';
+                hasAmPmHour |= c == 'h' || c == 'K';
+            } else {
+                builder.appendLiteral(c);
+                i++;
+            }
+        }
+        if (hasAmPmHour && !hasAmPm) {
+            // SimpleDateFormat reads 12 hour clock values without a marker as AM
+            builder.parseDefaulting(ChronoField.AMPM_OF_DAY, 0);
+        }
+        return builder.toFormatter(Locale.ENGLISH);
+    }
+
+    private static int appendQuoted(DateTimeFormatterBuilder builder, String pattern, int start) {
+        if (start + 1 < pattern.length() && pattern.charAt(start + 1) == '\'') {
+            builder.appendLiteral('\'');
+            return start + 2;
+        }
+        StringBuilder literal = new StringBuilder();
+        int i = start + 1;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                    literal.append('\'');
+                    i += 2;
+                    continue;
+                }
+                builder.appendLiteral(literal.toString());
+                return i + 1;
+            }
+            literal.append(c);
+            i++;
+        }
+        throw new IllegalArgumentException("Unterminated quote in date format pattern " + pattern);
+    }
+
+    private static void appendField(DateTimeFormatterBuilder builder, char letter, int count, boolean adjacent) {
+        switch (letter) {
+            case 'G':
+                builder.appendText(ChronoField.ERA, count >= 4 ? TextStyle.FULL : TextStyle.SHORT);
+                break;
+            case 'y':
+                if (count == 2) {
+                    // two digit years fall within 80 years before and 20 years after now
+                    builder.appendValueReduced(ChronoField.YEAR_OF_ERA, 2, 2, LocalDate.now().minusYears(80));
+                } else {
+                    appendNumber(builder, ChronoField.YEAR_OF_ERA, count, adjacent);
+                }
+                break;
+            case 'Y':
+                if (count == 2) {
+                    builder.appendValueReduced(WEEK_FIELDS.weekBasedYear(), 2, 2, LocalDate.now().minusYears(80));
+                } else {
+                    appendNumber(builder, WEEK_FIELDS.weekBasedYear(), count, adjacent);
+                }
+                break;
+            case 'M':
+            case 'L':
+                if (count >= 3) {
+                    boolean standalone = letter == 'L';
+                    TextStyle style = count >= 4
+                            ? (standalone ? TextStyle.FULL_STANDALONE : TextStyle.FULL)
+                            : (standalone ? TextStyle.SHORT_STANDALONE : TextStyle.SHORT);
+                    builder.appendText(ChronoField.MONTH_OF_YEAR, style);
+                } else {
+                    appendNumber(builder, ChronoField.MONTH_OF_YEAR, count, adjacent);
+                }
+                break;
+            case 'E':
+                builder.appendText(ChronoField.DAY_OF_WEEK, count >= 4 ? TextStyle.FULL : TextStyle.SHORT);
+                break;
+            case 'a':
+                builder.appendText(ChronoField.AMPM_OF_DAY, TextStyle.SHORT);
+                break;
+            case 'z':
+                builder.appendZoneText(count >= 4 ? TextStyle.FULL : TextStyle.SHORT);
+                break;
+            case 'Z':
+                builder.appendOffset("+HHMM", "+0000");
+                break;
+            case 'X':
+                if (count > 3) {
+                    throw new IllegalArgumentException("Invalid ISO 8601 format: length=" + count);
+                }
+                builder.appendOffset(count == 1 ? "+HHmm" : count == 2 ? "+HHMM" : "+HH:MM", "Z");
+                break;
+            default:
+                TemporalField field = numericField(letter);
+                if (field == null) {
+                    throw new IllegalArgumentException("Illegal pattern character '" + letter + "'");
+                }
+                appendNumber(builder, field, count, adjacent);
+        }
+    }
+
+    private static void appendNumber(DateTimeFormatterBuilder builder, TemporalField field, int count, boolean adjacent) {
+        if (adjacent) {
+            builder.appendValue(field, count);
+        } else {
+            builder.appendValue(field, count, 19, SignStyle.NORMAL);
+        }
+    }
+
+    private static TemporalField numericField(char letter) {
+        switch (letter) {
+            case 'w': return WEEK_FIELDS.weekOfWeekBasedYear();
+            case 'W': return WEEK_FIELDS.weekOfMonth();
+            case 'D': return ChronoField.DAY_OF_YEAR;
+            case 'd': return ChronoField.DAY_OF_MONTH;
+            case 'F': return ChronoField.ALIGNED_WEEK_OF_MONTH;
+            case 'u': return ChronoField.DAY_OF_WEEK;
+            case 'H': return ChronoField.HOUR_OF_DAY;
+            case 'k': return ChronoField.CLOCK_HOUR_OF_DAY;
+            case 'K': return ChronoField.HOUR_OF_AMPM;
+            case 'h': return ChronoField.CLOCK_HOUR_OF_AMPM;
+            case 'm': return ChronoField.MINUTE_OF_HOUR;
+            case 's': return ChronoField.SECOND_OF_MINUTE;
+            case 'S': return ChronoField.MILLI_OF_SECOND;
+            default: return null;
+        }
+    }
+
+    private static boolean isNumeric(char letter, int count) {
+        switch (letter) {
+            case 'y':
+            case 'Y':
+                return true;
+            case 'M':
+            case 'L':
+                return count <= 2;
+            default:
+                return numericField(letter) != null;
+        }
+    }
+
+    private static int runLength(String pattern, int start) {
+        int end = start;
+        while (end < pattern.length() && pattern.charAt(end) == pattern.charAt(start)) {
+            end++;
+        }
+        return end - start;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
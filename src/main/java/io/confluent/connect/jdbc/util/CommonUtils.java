@@ -5,9 +5,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.Inet4Address;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
 
 public class CommonUtils {
 
@@ -41,25 +45,58 @@ public class CommonUtils {
     }
 
     public static ArrayList<String> executeCommand(String command) throws Exception{
+        List<String> arguments = new ArrayList<>();
+        StringTokenizer tokenizer = new StringTokenizer(command);
+        while (tokenizer.hasMoreTokens()) {
+            arguments.add(tokenizer.nextToken());
+        }
+        return executeCommand(arguments);
+    }
+
+    /**
+     * Runs a command and returns the lines it printed to stdout and stderr. The output is read on
+     * another thread while the command runs, so a command printing more than the pipe buffer cannot
+     * block, and the command is killed when the calling thread is interrupted while waiting for it.
+     *
+     * @throws IOException when the command exits with a non-zero code
+     */
+    public static ArrayList<String> executeCommand(List<String> command) throws Exception{
 
         ArrayList<String> output = new ArrayList<String>();
 
-        Process p;
+        Process p = null;
+        int exitCode;
 
         try {
 
-            p = Runtime.getRuntime().exec(command);
-            p.waitFor();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()));
-
-            String line = "";
-            while ((line = reader.readLine()) != null) {
-                output.add(line + "\n");
-            }
+            p = new ProcessBuilder(command).redirectErrorStream(true).start();
+            final InputStream in = p.getInputStream();
+            Thread reader = new Thread(() -> {
+                try (BufferedReader lines = new BufferedReader(new InputStreamReader(in))) {
+                    String line;
+                    while ((line = lines.readLine()) != null) {
+                        output.add(line + "\n");
+                    }
+                } catch (IOException e) {
+                    log.warn("Error reading the output of command {}", command, e);
+                }
+            }, "command-output");
+            reader.setDaemon(true);
+            reader.start();
+            exitCode = p.waitFor();
+            reader.join();
+        } catch (InterruptedException e) {
+            p.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw e;
         } catch (Exception e) {
             log.error("Error executing command {}", command, e);
             throw  e;
         }
+        if (exitCode != 0) {
+            log.error("Command {} exited with {}, output: {}", command, exitCode, output);
+            throw new IOException("Command " + command + " exited with " + exitCode);
+        }
         return output;
     }
 }
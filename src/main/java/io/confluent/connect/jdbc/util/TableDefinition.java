@@ -16,6 +16,7 @@
 package io.confluent.connect.jdbc.util;
 
 import io.confluent.connect.jdbc.sink.metadata.ColumnDetails;
+import io.confluent.connect.jdbc.sink.metadata.DistributionPolicy;
 
 import java.util.*;
 
@@ -29,6 +30,7 @@ public class TableDefinition {
   private final TableType type;
   private String schema;
   private LinkedHashMap<String, ColumnDetails> orderedColumnsMap;
+  private DistributionPolicy distributionPolicy;
 
   public TableDefinition(
       TableId id,
@@ -150,4 +152,16 @@ public class TableDefinition {
       this.orderedColumnsMap.put(column.getColumnName(), column);
     }
   }
+
+  /**
+   * Returns the hash distribution of the table, or null when the table is not hash distributed
+   * or the database does not record one.
+   */
+  public DistributionPolicy getDistributionPolicy() {
+    return distributionPolicy;
+  }
+
+  public void setDistributionPolicy(DistributionPolicy distributionPolicy) {
+    this.distributionPolicy = distributionPolicy;
+  }
 }
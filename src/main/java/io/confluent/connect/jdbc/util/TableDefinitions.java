@@ -20,19 +20,20 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.confluent.connect.jdbc.dialect.DatabaseDialect;
 
 /**
- * A simple cache of {@link TableDefinition} keyed.
+ * A simple cache of {@link TableDefinition} keyed. Thread safe, since the sink can write several
+ * tables at the same time through one {@code DbStructure}.
  */
 public class TableDefinitions {
 
   private static final Logger log = LoggerFactory.getLogger(TableDefinitions.class);
 
-  private final Map<TableId, TableDefinition> cache = new HashMap<>();
+  private final Map<TableId, TableDefinition> cache = new ConcurrentHashMap<>();
   private final DatabaseDialect dialect;
 
   /**
@@ -61,8 +62,12 @@ public class TableDefinitions {
       if (dialect.tableExists(connection, tableId)) {
         dbTable = dialect.describeTable(connection, tableId);
         if (dbTable != null) {
+          // keep a definition another thread stored in the meantime, it is at least as recent
+          TableDefinition existing = cache.putIfAbsent(tableId, dbTable);
+          if (existing != null) {
+            return existing;
+          }
           log.info("Setting metadata for table {} to {}", tableId, dbTable);
-          cache.put(tableId, dbTable);
         }
       }
     }
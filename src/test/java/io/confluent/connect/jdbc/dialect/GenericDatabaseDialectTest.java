@@ -281,6 +281,16 @@ public class GenericDatabaseDialectTest extends BaseDialectTest<GenericDatabaseD
         dialect.buildInsertStatement(tableId, pkColumns, columnsAtoD));
   }
 
+  @Test
+  public void testBuildMultiRowInsertStatement() {
+    newDialectFor(TABLE_TYPES, null);
+    assertEquals(
+        "INSERT INTO \"myTable\"(\"id1\",\"id2\",\"columnA\") VALUES(?,?,?),(?,?,?)",
+        dialect.buildMultiRowInsertStatement(
+            tableId, pkColumns, Collections.singletonList(columnA), null, 2));
+    assertEquals(333, dialect.maxMultiRowInsertRows(6));
+  }
+
   @Test
   public void testBuildDeleteStatement() {
     newDialectFor(TABLE_TYPES, null);
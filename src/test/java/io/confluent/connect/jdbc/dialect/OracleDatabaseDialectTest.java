@@ -178,6 +178,11 @@ public class OracleDatabaseDialectTest extends BaseDialectTest<OracleDatabaseDia
     );
   }
 
+  @Test
+  public void shouldNotSupportMultiRowInserts() {
+    assertEquals(0, dialect.maxMultiRowInsertRows(6));
+  }
+
   @Test
   public void shouldBuildUpsertStatement() {
     String expected = "merge into \"myTable\" using (select ? \"id1\", ? \"id2\", ? \"columnA\", " +
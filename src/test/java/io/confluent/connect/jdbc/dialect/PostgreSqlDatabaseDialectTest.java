@@ -15,6 +15,7 @@
 
 package io.confluent.connect.jdbc.dialect;
 
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
 import io.confluent.connect.jdbc.util.ColumnDefinition;
 import io.confluent.connect.jdbc.util.ColumnId;
 import io.confluent.connect.jdbc.util.QuoteMethod;
@@ -233,6 +234,26 @@ public class PostgreSqlDatabaseDialectTest extends BaseDialectTest<PostgreSqlDat
         dialect.buildInsertStatement(tableId, pkColumns, nonPkColumns, tableDefn)
     );
   }
+
+  @Test
+  public void shouldBuildMultiRowInsertStatement() {
+    TableDefinitionBuilder builder = new TableDefinitionBuilder().withTable("myTable");
+    builder.withColumn("id1").type("int", JDBCType.INTEGER, Integer.class);
+    builder.withColumn("uuidColumn").type("uuid", JDBCType.OTHER, UUID.class);
+    TableDefinition tableDefn = builder.build();
+    assertEquals(
+        "INSERT INTO \"myTable\" (\"id1\",\"uuidColumn\") VALUES " +
+        "(?,?::uuid),(?,?::uuid),(?,?::uuid)",
+        dialect.buildMultiRowInsertStatement(
+            tableId,
+            Collections.singletonList(columnPK1),
+            Collections.singletonList(new ColumnId(tableId, "uuidColumn")),
+            tableDefn,
+            3
+        )
+    );
+    assertEquals(5461, dialect.maxMultiRowInsertRows(6));
+  }
   @Test
   public void shouldBuildUpsertStatement() {
     TableDefinitionBuilder builder = new TableDefinitionBuilder().withTable("myTable");
@@ -593,4 +614,65 @@ public class PostgreSqlDatabaseDialectTest extends BaseDialectTest<PostgreSqlDat
     assertEquals(5, dialect.decimalScale(definition));
   }
 
+  @Test
+  public void shouldBuildCopyStatement() {
+    assertEquals(
+        "COPY \"myTable\" (\"id1\",\"id2\",\"columnA\",\"columnB\",\"columnC\",\"columnD\") "
+        + "FROM STDIN (FORMAT csv)",
+        dialect.buildCopyStatement(tableId, pkColumns, columnsAtoD)
+    );
+  }
+
+  @Test
+  public void shouldBuildStagingStatements() {
+    TableId staging = new TableId(null, null, "copy_mytable");
+    assertEquals(
+        "CREATE TEMPORARY TABLE \"copy_mytable\" ON COMMIT DROP AS SELECT \"id1\",\"columnA\" "
+        + "FROM \"myTable\" WITH NO DATA",
+        dialect.buildCreateStagingTableStatement(staging, tableId,
+            Collections.singletonList(columnPK1), Collections.singletonList(columnA))
+    );
+    assertEquals(
+        "INSERT INTO \"myTable\" (\"id1\",\"columnA\") SELECT \"id1\",\"columnA\" "
+        + "FROM \"copy_mytable\" ON CONFLICT (\"id1\") DO UPDATE SET \"columnA\"=EXCLUDED.\"columnA\"",
+        dialect.buildMergeFromStagingStatement(tableId, staging,
+            Collections.singletonList(columnPK1), Collections.singletonList(columnA),
+            JdbcSinkConfig.InsertMode.UPSERT)
+    );
+    assertEquals(
+        "INSERT INTO \"myTable\" (\"id1\") SELECT \"id1\" FROM \"copy_mytable\" "
+        + "ON CONFLICT (\"id1\") DO NOTHING",
+        dialect.buildMergeFromStagingStatement(tableId, staging,
+            Collections.singletonList(columnPK1), Collections.emptyList(),
+            JdbcSinkConfig.InsertMode.UPSERT)
+    );
+    assertEquals(
+        "UPDATE \"myTable\" AS dst SET \"columnA\" = src.\"columnA\", \"columnB\" = src.\"columnB\" "
+        + "FROM \"copy_mytable\" AS src WHERE dst.\"id1\" = src.\"id1\" AND dst.\"id2\" = src.\"id2\"",
+        dialect.buildMergeFromStagingStatement(tableId, staging, pkColumns,
+            Arrays.asList(columnA, columnB), JdbcSinkConfig.InsertMode.UPDATE)
+    );
+  }
+
+  @Test
+  public void shouldAppendCopyValues() {
+    assertEquals("", copyValue(Schema.OPTIONAL_STRING_SCHEMA, null));
+    assertEquals("\"\"", copyValue(Schema.STRING_SCHEMA, ""));
+    assertEquals("\"a,\"\"b\"\"\nc\"", copyValue(Schema.STRING_SCHEMA, "a,\"b\"\nc"));
+    assertEquals("-12", copyValue(Schema.INT32_SCHEMA, -12));
+    assertEquals("t", copyValue(Schema.BOOLEAN_SCHEMA, true));
+    assertEquals("\\x00ff10", copyValue(Schema.BYTES_SCHEMA, new byte[]{0, (byte) 0xff, 0x10}));
+    assertEquals("12345678901234567890.5",
+        copyValue(Decimal.schema(1), new java.math.BigDecimal("1.23456789012345678905E19")));
+    assertEquals("1970-01-02", copyValue(Date.SCHEMA, new java.util.Date(86400000L)));
+    assertEquals("1970-01-01 00:00:01.500+00:00",
+        copyValue(Timestamp.SCHEMA, new java.util.Date(1500L)));
+  }
+
+  private String copyValue(Schema schema, Object value) {
+    StringBuilder row = new StringBuilder();
+    dialect.appendCopyValue(row, schema, value);
+    return row.toString();
+  }
+
 }
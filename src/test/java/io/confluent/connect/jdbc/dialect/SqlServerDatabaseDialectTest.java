@@ -225,6 +225,12 @@ public class SqlServerDatabaseDialectTest extends BaseDialectTest<SqlServerDatab
     );
   }
 
+  @Test
+  public void shouldLimitMultiRowInsertRows() {
+    assertEquals(1000, dialect.maxMultiRowInsertRows(1));
+    assertEquals(349, dialect.maxMultiRowInsertRows(6));
+  }
+
   @Test
   public void shouldBuildUpsertStatement() {
     dialect = createDialect(sinkConfigWithUrl("jdbc:jtds:sqlsserver://something"));
@@ -0,0 +1,101 @@
+package io.confluent.connect.jdbc.gp;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeyDeduplicatorTest {
+
+    private static final Schema KEY_SCHEMA = SchemaBuilder.struct()
+            .field("a", Schema.STRING_SCHEMA)
+            .field("b", Schema.STRING_SCHEMA)
+            .build();
+    private static final Schema VALUE_SCHEMA = SchemaBuilder.struct()
+            .field("a", Schema.STRING_SCHEMA)
+            .field("b", Schema.STRING_SCHEMA)
+            .field("v", Schema.INT32_SCHEMA)
+            .build();
+
+    private final List<SinkRecord> records = new ArrayList<>();
+
+    private void add(String a, String b, int v) {
+        Struct key = new Struct(KEY_SCHEMA).put("a", a).put("b", b);
+        Struct value = new Struct(VALUE_SCHEMA).put("a", a).put("b", b).put("v", v);
+        records.add(new SinkRecord("topic", 0, KEY_SCHEMA, key, VALUE_SCHEMA, value, records.size()));
+    }
+
+    private List<Integer> values(List<SinkRecord> selected) {
+        List<Integer> values = new ArrayList<>();
+        for (SinkRecord record : selected) {
+            values.add(((Struct) record.value()).getInt32("v"));
+        }
+        return values;
+    }
+
+    @Test
+    public void shouldKeepFirstRowPerKey() {
+        add("x", "1", 1);
+        add("y", "1", 2);
+        add("x", "1", 3);
+        add("y", "2", 4);
+
+        KeyDeduplicator deduplicator = KeyDeduplicator.forColumns(Arrays.asList("a", "b"), KEY_SCHEMA, VALUE_SCHEMA);
+        assertEquals(Arrays.asList(1, 2, 4), values(deduplicator.select(records, false, false)));
+    }
+
+    @Test
+    public void shouldKeepLastRowPerKeyInOriginalOrder() {
+        add("x", "1", 1);
+        add("y", "1", 2);
+        add("x", "1", 3);
+        add("y", "2", 4);
+
+        KeyDeduplicator deduplicator = KeyDeduplicator.forColumns(Arrays.asList("a", "b"), KEY_SCHEMA, VALUE_SCHEMA);
+        assertEquals(Arrays.asList(2, 3, 4), values(deduplicator.select(records, true, false)));
+    }
+
+    @Test
+    public void shouldNotMergeKeysWithEqualConcatenation() {
+        add("1", "23", 1);
+        add("12", "3", 2);
+
+        KeyDeduplicator deduplicator = KeyDeduplicator.forColumns(Arrays.asList("a", "b"), KEY_SCHEMA, VALUE_SCHEMA);
+        assertEquals(Arrays.asList(1, 2), values(deduplicator.select(records, false, false)));
+    }
+
+    @Test
+    public void shouldGiveSameResultOffHeap() {
+        for (int i = 0; i < 5000; i++) {
+            add("k" + (i % 700), "p" + (i % 3), i);
+        }
+
+        KeyDeduplicator deduplicator = KeyDeduplicator.forColumns(Arrays.asList("a", "b"), KEY_SCHEMA, VALUE_SCHEMA);
+        List<Integer> onHeap = values(deduplicator.select(records, true, false));
+        assertEquals(2100, onHeap.size());
+        assertEquals(onHeap, values(deduplicator.select(records, true, true)));
+    }
+
+    @Test
+    public void shouldFallBackToValueFields() {
+        add("x", "1", 1);
+        add("x", "2", 2);
+        add("x", "1", 3);
+
+        KeyDeduplicator deduplicator = KeyDeduplicator.forColumns(Arrays.asList("v"), KEY_SCHEMA, VALUE_SCHEMA);
+        assertEquals(Arrays.asList(1, 2, 3), values(deduplicator.select(records, false, false)));
+    }
+
+    @Test(expected = ConnectException.class)
+    public void shouldRejectUnknownKeyColumn() {
+        KeyDeduplicator.forColumns(Arrays.asList("missing"), KEY_SCHEMA, VALUE_SCHEMA);
+    }
+}
@@ -0,0 +1,64 @@
+package io.confluent.connect.jdbc.gp;
+
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RowExtractionPlanTest {
+
+    private static final Schema VALUE_SCHEMA = SchemaBuilder.struct()
+            .field("id", Schema.INT64_SCHEMA)
+            .field("name", Schema.OPTIONAL_STRING_SCHEMA)
+            .field("score", Schema.FLOAT64_SCHEMA)
+            .field("legacy_name", Schema.OPTIONAL_STRING_SCHEMA)
+            .build();
+
+    private JdbcSinkConfig config(String columnAlternative) {
+        Map<String, Object> props = new HashMap<>();
+        props.put("connection.url", "jdbc:postgresql://localhost:5432/test");
+        if (columnAlternative != null) {
+            props.put(JdbcSinkConfig.COLUMN_ALTERNATIVE, columnAlternative);
+        }
+        return new JdbcSinkConfig(props);
+    }
+
+    @Test
+    public void shouldResolveFieldsByIndex() {
+        RowExtractionPlan plan = RowExtractionPlan.compile(config(null), VALUE_SCHEMA, null, Arrays.asList("score", "id", "name"));
+
+        assertEquals(Arrays.asList(ColumnVector.Type.DOUBLE, ColumnVector.Type.LONG, ColumnVector.Type.BYTES), plan.columnTypes());
+
+        ColumnarBatch batch = plan.newBatch(1);
+        plan.appendRow(new Struct(VALUE_SCHEMA).put("id", 7L).put("score", 0.5d).put("name", "a"), batch);
+        plan.appendRow(new Struct(VALUE_SCHEMA).put("id", 8L).put("score", 1d), batch);
+
+        assertEquals(2, batch.rowCount());
+        assertEquals("0.5", batch.column(0).getString(0));
+        assertEquals("8", batch.column(1).getString(1));
+        assertTrue(batch.column(2).isNull(1));
+    }
+
+    @Test
+    public void shouldResolveAlternativesAtCompileTime() {
+        JdbcSinkConfig config = config("full_name:legacy_name,source:#kafka,row_id:#uuid");
+        RowExtractionPlan plan = RowExtractionPlan.compile(config, VALUE_SCHEMA, null, Arrays.asList("full_name", "source", "row_id", "unknown"));
+
+        Struct value = new Struct(VALUE_SCHEMA).put("id", 1L).put("score", 1d).put("legacy_name", "old");
+        assertEquals("old", plan.extract(0, value));
+        assertEquals("kafka", plan.extract(1, value));
+        assertEquals(36, String.valueOf(plan.extract(2, value)).length());
+        assertNull(plan.extract(3, value));
+    }
+}
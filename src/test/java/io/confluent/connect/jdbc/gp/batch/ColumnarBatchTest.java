@@ -0,0 +1,160 @@
+package io.confluent.connect.jdbc.gp.batch;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnarBatchTest {
+
+    private static final DelimitedRowEncoder ENCODER = DelimitedRowEncoder.text("|", "\\N", "\n");
+
+    private ColumnarBatch newBatch(int capacity) {
+        return new ColumnarBatch(
+                Arrays.asList("id", "price", "ratio", "active", "name"),
+                Arrays.asList(ColumnVector.Type.LONG, ColumnVector.Type.DOUBLE, ColumnVector.Type.FLOAT,
+                        ColumnVector.Type.BOOLEAN, ColumnVector.Type.BYTES),
+                capacity);
+    }
+
+    private void addRow(ColumnarBatch batch, Object... values) {
+        for (int i = 0; i < values.length; i++) {
+            batch.column(i).appendObject(values[i]);
+        }
+        batch.endRow();
+    }
+
+    private String encode(ColumnarBatch batch) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < batch.rowCount(); i++) {
+            ENCODER.writeRow(batch, i, out);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void shouldEncodeTypedValues() throws Exception {
+        ColumnarBatch batch = newBatch(2);
+        addRow(batch, 42L, 1.5d, 1.1f, true, "plain");
+        addRow(batch, (byte) -7, 2d, 0f, false, "na\u00efve \uD83D\uDE00");
+
+        assertEquals(2, batch.rowCount());
+        assertEquals("42|1.5|1.1|true|plain\n-7|2.0|0.0|false|na\u00efve \uD83D\uDE00\n", encode(batch));
+    }
+
+    @Test
+    public void shouldTrackNulls() throws Exception {
+        ColumnarBatch batch = newBatch(1);
+        addRow(batch, null, null, null, null, null);
+        addRow(batch, 1, null, 2f, null, "x");
+
+        for (int i = 0; i < batch.columnCount(); i++) {
+            assertTrue(batch.column(i).isNull(0));
+        }
+        assertFalse(batch.column(0).isNull(1));
+        assertTrue(batch.column(1).isNull(1));
+        assertEquals("\\N|\\N|\\N|\\N|\\N\n1|\\N|2.0|\\N|x\n", encode(batch));
+    }
+
+    @Test
+    public void shouldGrowPastInitialCapacity() {
+        ColumnarBatch batch = newBatch(1);
+        for (int i = 0; i < 200; i++) {
+            addRow(batch, (long) i, (double) i, (float) i, i % 2 == 0, i % 3 == 0 ? null : "row-" + i);
+        }
+
+        assertEquals(200, batch.rowCount());
+        assertEquals(199L, ((LongColumnVector) batch.column(0)).getLong(199));
+        assertTrue(batch.column(4).isNull(198));
+        assertEquals("row-199", batch.column(4).getString(199));
+        assertTrue(((BooleanColumnVector) batch.column(3)).getBoolean(128));
+    }
+
+    @Test
+    public void shouldEncodeLongBoundaries() throws Exception {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("v"), Arrays.asList(ColumnVector.Type.LONG), 4);
+        for (long value : new long[]{0L, -1L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            batch.column(0).appendObject(value);
+            batch.endRow();
+        }
+        assertEquals("0\n-1\n" + Long.MAX_VALUE + "\n" + Long.MIN_VALUE + "\n", encode(batch));
+    }
+
+    @Test
+    public void shouldReturnRowValuesWithNullSubstitute() {
+        ColumnarBatch batch = newBatch(1);
+        addRow(batch, 3L, null, 1f, true, "a");
+
+        assertArrayEquals(new String[]{"3", "", "1.0", "true", "a"}, batch.rowValues(0, "", null));
+    }
+
+    @Test
+    public void shouldResetForReuse() throws Exception {
+        ColumnarBatch batch = newBatch(1);
+        addRow(batch, null, 1d, 1f, true, null);
+        batch.reset();
+        addRow(batch, 5L, 1d, 1f, true, "b");
+
+        assertEquals(1, batch.rowCount());
+        assertEquals("5|1.0|1.0|true|b\n", encode(batch));
+    }
+
+    @Test
+    public void shouldPartitionRowsByKey() {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("key", "v"),
+                Arrays.asList(ColumnVector.Type.BYTES, ColumnVector.Type.LONG), 100);
+        for (int i = 0; i < 100; i++) {
+            batch.column(0).appendObject(i % 7 == 0 ? null : "key-" + (i % 10));
+            batch.column(1).appendObject((long) i);
+            batch.endRow();
+        }
+
+        int[][] partitions = batch.partitionRows(new int[] {0}, 4);
+
+        assertEquals(4, partitions.length);
+        Map<String, Integer> partitionOfKey = new HashMap<>();
+        int total = 0;
+        for (int p = 0; p < partitions.length; p++) {
+            for (int i = 0; i < partitions[p].length; i++) {
+                int row = partitions[p][i];
+                if (i > 0) {
+                    assertTrue(partitions[p][i - 1] < row);
+                }
+                assertEquals(Integer.valueOf(p), partitionOfKey.merge(String.valueOf(batch.column(0).getString(row)), p, (a, b) -> a));
+                total++;
+            }
+        }
+        assertEquals(100, total);
+        assertEquals(11, partitionOfKey.size());
+    }
+
+    @Test
+    public void shouldSplitRowsIntoRangesWithoutKeys() {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("v"), Arrays.asList(ColumnVector.Type.LONG), 10);
+        for (int i = 0; i < 10; i++) {
+            batch.column(0).appendObject((long) i);
+            batch.endRow();
+        }
+
+        int[][] partitions = batch.partitionRows(new int[0], 3);
+
+        assertArrayEquals(new int[] {0, 1, 2, 3}, partitions[0]);
+        assertArrayEquals(new int[] {4, 5, 6}, partitions[1]);
+        assertArrayEquals(new int[] {7, 8, 9}, partitions[2]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectIncompleteRow() {
+        ColumnarBatch batch = newBatch(1);
+        batch.column(0).appendObject(1L);
+        batch.endRow();
+    }
+}
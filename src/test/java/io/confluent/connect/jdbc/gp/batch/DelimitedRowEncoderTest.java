@@ -0,0 +1,97 @@
+package io.confluent.connect.jdbc.gp.batch;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class DelimitedRowEncoderTest {
+
+    private static ColumnarBatch textBatch(String... values) {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("v"), Arrays.asList(ColumnVector.Type.BYTES), values.length);
+        for (String value : values) {
+            batch.column(0).appendObject(value);
+            batch.endRow();
+        }
+        return batch;
+    }
+
+    private static String encode(DelimitedRowEncoder encoder, ColumnarBatch batch) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writeRows(batch, 0, batch.rowCount(), out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void csvShouldQuoteOnlyWhenNeeded() throws Exception {
+        DelimitedRowEncoder encoder = DelimitedRowEncoder.csv(",", "\"", null, "\n");
+        ColumnarBatch batch = textBatch("plain", "a,b", "say \"hi\"", "two\nlines", "", null, "\\.", "caf\u00e9");
+
+        assertEquals("plain\n\"a,b\"\n\"say \"\"hi\"\"\"\n\"two\nlines\"\n\"\"\n\n\"\\.\"\ncaf\u00e9\n", encode(encoder, batch));
+    }
+
+    @Test
+    public void csvShouldQuoteValuesEqualToNullString() throws Exception {
+        DelimitedRowEncoder encoder = DelimitedRowEncoder.csv("|", "'", "NULL", "\n");
+        ColumnarBatch batch = textBatch("NULL", null, "", "it's");
+
+        assertEquals("'NULL'\nNULL\n\n'it''s'\n", encode(encoder, batch));
+    }
+
+    @Test
+    public void textShouldEscapeSpecialCharacters() throws Exception {
+        DelimitedRowEncoder encoder = DelimitedRowEncoder.text("\t", null, "\n");
+        ColumnarBatch batch = textBatch("a\tb", "back\\slash", "line\r\nbreak", null, "");
+
+        assertEquals("a\\\tb\nback\\\\slash\nline\\r\\nbreak\n\\N\n\n", encode(encoder, batch));
+    }
+
+    @Test
+    public void shouldWriteTypedColumnsAndHeader() throws Exception {
+        DelimitedRowEncoder encoder = DelimitedRowEncoder.csv(",", "\"", "", "\r\n");
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("id", "weird,name"),
+                Arrays.asList(ColumnVector.Type.LONG, ColumnVector.Type.DOUBLE), 2);
+        batch.column(0).appendObject(-12L);
+        batch.column(1).appendObject(3.25d);
+        batch.endRow();
+        batch.column(0).appendObject(null);
+        batch.column(1).appendObject(null);
+        batch.endRow();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.writeHeader(batch.columnNames(), out);
+        encoder.writeRows(batch, 0, batch.rowCount(), out);
+        assertEquals("id,\"weird,name\"\r\n-12,3.25\r\n,\r\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldQuoteNumbersWhenDelimiterCanAppearInThem() throws Exception {
+        DelimitedRowEncoder encoder = DelimitedRowEncoder.csv(".", "\"", null, "\n");
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("a", "b"),
+                Arrays.asList(ColumnVector.Type.DOUBLE, ColumnVector.Type.LONG), 1);
+        batch.column(0).appendObject(1.5d);
+        batch.column(1).appendObject(7L);
+        batch.endRow();
+
+        assertEquals("\"1.5\".7\n", encode(encoder, batch));
+    }
+
+    @Test
+    public void shouldWriteBinaryColumnsAsByteaHex() throws Exception {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("b"), Arrays.asList(ColumnVector.Type.BINARY), 2);
+        batch.column(0).appendObject(new byte[] {0x00, 0x2c, (byte) 0xff});
+        batch.endRow();
+        batch.column(0).appendObject(null);
+        batch.endRow();
+
+        assertEquals("\\x002cff\n\n", encode(DelimitedRowEncoder.csv(",", "\"", null, "\n"), batch));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMultiCharacterDelimiter() {
+        DelimitedRowEncoder.csv("||", "\"", null, "\n");
+    }
+}
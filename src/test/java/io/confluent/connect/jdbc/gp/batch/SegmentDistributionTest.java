@@ -0,0 +1,87 @@
+package io.confluent.connect.jdbc.gp.batch;
+
+import io.confluent.connect.jdbc.sink.metadata.DistributionPolicy;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentDistributionTest {
+
+    private static ColumnarBatch batch(int rows) {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("id", "name"),
+                Arrays.asList(ColumnVector.Type.LONG, ColumnVector.Type.BYTES), rows);
+        for (int i = 0; i < rows; i++) {
+            batch.column(0).appendObject((long) i);
+            batch.column(1).appendObject("name-" + i);
+            batch.endRow();
+        }
+        return batch;
+    }
+
+    private static DistributionPolicy policy(String column, String opclass, int segments) {
+        return new DistributionPolicy(Collections.singletonList(new DistributionPolicy.KeyColumn(column, "", opclass)), segments);
+    }
+
+    @Test
+    public void shouldHashLikePostgres() {
+        // SELECT hashint4(1), hashint4(0), hashint8(1)
+        assertEquals(-1905060026, SegmentDistribution.hashInt4(1));
+        assertEquals(-272711505, SegmentDistribution.hashInt4(0));
+        assertEquals(SegmentDistribution.hashInt4(1), SegmentDistribution.hashInt8(1L));
+        assertEquals(SegmentDistribution.hashInt4(-5), SegmentDistribution.hashInt8(-5L));
+    }
+
+    @Test
+    public void shouldHashBytesAtAnyOffset() {
+        byte[] value = "a distribution key longer than twelve bytes".getBytes(StandardCharsets.UTF_8);
+        byte[] padded = new byte[value.length + 3];
+        System.arraycopy(value, 0, padded, 3, value.length);
+
+        assertEquals(SegmentDistribution.hashBytes(value, 0, value.length), SegmentDistribution.hashBytes(padded, 3, value.length));
+    }
+
+    @Test
+    public void shouldKeepKeysOnTheirSegmentWhenSegmentsAreAdded() {
+        for (int hash = -50000; hash < 50000; hash += 7) {
+            int before = SegmentDistribution.jumpConsistentHash(hash, 7);
+            int after = SegmentDistribution.jumpConsistentHash(hash, 8);
+            assertTrue(before >= 0 && before < 7);
+            assertTrue(after == before || after == 7);
+        }
+    }
+
+    @Test
+    public void shouldGroupRowsBySegment() {
+        ColumnarBatch batch = batch(1000);
+        SegmentDistribution distribution = SegmentDistribution.of(policy("name", "text_ops", 4), batch);
+
+        int[][] segmentRows = distribution.segmentRows(batch);
+        int rows = 0;
+        for (int segment = 0; segment < segmentRows.length; segment++) {
+            assertTrue(segmentRows[segment].length > 150);
+            for (int row : segmentRows[segment]) {
+                assertEquals(segment, distribution.segmentOf(batch, row));
+            }
+            rows += segmentRows[segment].length;
+        }
+        assertEquals(1000, rows);
+    }
+
+    @Test
+    public void shouldOnlyDistributeSupportedKeys() {
+        ColumnarBatch batch = batch(1);
+
+        assertNotNull(SegmentDistribution.of(policy("ID", "int8_ops", 2), batch));
+        assertNull(SegmentDistribution.of(policy("id", "cdbhash_int8_ops", 2), batch));
+        assertNull(SegmentDistribution.of(policy("id", "text_ops", 2), batch));
+        assertNull(SegmentDistribution.of(policy("missing", "int4_ops", 2), batch));
+        assertNull(SegmentDistribution.of(null, batch));
+    }
+}
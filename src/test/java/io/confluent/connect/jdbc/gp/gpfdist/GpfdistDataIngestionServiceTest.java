@@ -0,0 +1,37 @@
+package io.confluent.connect.jdbc.gp.gpfdist;
+
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class GpfdistDataIngestionServiceTest {
+
+    private static JdbcSinkConfig config(String insertMode, String mergeStrategy, String updateMode) {
+        Map<String, Object> props = new HashMap<>();
+        props.put("connection.url", "jdbc:postgresql://localhost:5432/test?user=gpadmin&password=secret");
+        props.put("insert.mode", insertMode);
+        props.put(JdbcSinkConfig.GP_MERGE_STRATEGY, mergeStrategy);
+        props.put(JdbcSinkConfig.UPDATE_MODE, updateMode);
+        return new JdbcSinkConfig(props);
+    }
+
+    @Test
+    public void shouldKeepTheLastRowPerKeyForOnConflictMerges() {
+        assertEquals(JdbcSinkConfig.UpdateMode.LAST_ROW_ONLY,
+                GpfdistDataIngestionService.updateMode(config("merge", "on_conflict", "default")));
+    }
+
+    @Test
+    public void shouldKeepTheConfiguredUpdateMode() {
+        assertEquals(JdbcSinkConfig.UpdateMode.FIRST_ROW_ONLY,
+                GpfdistDataIngestionService.updateMode(config("merge", "on_conflict", "first_row_only")));
+        assertEquals(JdbcSinkConfig.UpdateMode.DEFAULT,
+                GpfdistDataIngestionService.updateMode(config("merge", "update_insert", "default")));
+        assertEquals(JdbcSinkConfig.UpdateMode.DEFAULT,
+                GpfdistDataIngestionService.updateMode(config("insert", "on_conflict", "default")));
+    }
+}
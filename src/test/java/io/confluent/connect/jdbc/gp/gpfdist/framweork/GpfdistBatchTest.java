@@ -0,0 +1,82 @@
+package io.confluent.connect.jdbc.gp.gpfdist.framweork;
+
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.DelimitedRowEncoder;
+import io.confluent.connect.jdbc.gp.batch.SegmentDistribution;
+import io.confluent.connect.jdbc.sink.metadata.DistributionPolicy;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GpfdistBatchTest {
+
+    private static ColumnarBatch batch(int rows) {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("v"), Arrays.asList(ColumnVector.Type.LONG), rows);
+        for (int i = 0; i < rows; i++) {
+            batch.column(0).appendObject((long) i);
+            batch.endRow();
+        }
+        return batch;
+    }
+
+    private static GpfdistBatch registered(int rows, Runnable onClose) {
+        return new GpfdistBatch("/data/t/1", batch(rows), DelimitedRowEncoder.csv(",", "\"", null, "\n"), onClose);
+    }
+
+    @Test
+    public void shouldShareScansOfOneQuery() {
+        GpfdistBatch registered = registered(4, () -> { });
+
+        assertSame(registered.scan("1:2:3", 2), registered.scan("1:2:3", 2));
+        assertNotSame(registered.scan("1:2:3", 2), registered.scan("1:3:3", 2));
+        assertNotSame(registered.scan(null, 2), registered.scan(null, 2));
+    }
+
+    @Test
+    public void shouldBeServedOnceOneScanSentEveryRow() throws Exception {
+        GpfdistBatch registered = registered(4, () -> { });
+        GpfdistScan first = registered.scan("1:2:3", 2);
+        GpfdistScan second = registered.scan("1:2:4", 2);
+
+        registered.sent(first, 3);
+        registered.sent(second, 3);
+        assertFalse(registered.isServed());
+
+        registered.sent(first, 1);
+        assertTrue(registered.awaitServed(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldUnregisterOnClose() {
+        AtomicInteger closed = new AtomicInteger();
+        try (GpfdistBatch registered = registered(0, closed::incrementAndGet)) {
+            assertTrue(registered.isServed());
+        }
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void shouldDistributeScansOverTheSegmentsOfTheTable() {
+        ColumnarBatch batch = batch(100);
+        DistributionPolicy policy = new DistributionPolicy(
+                Collections.singletonList(new DistributionPolicy.KeyColumn("v", "int8", "int8_ops")), 4);
+        GpfdistBatch registered = new GpfdistBatch("/data/t/1", batch, DelimitedRowEncoder.csv(",", "\"", null, "\n"),
+                SegmentDistribution.of(policy, batch), () -> { });
+
+        assertNotNull(registered.scan("1:2:3", 4).order());
+        assertNull(registered.scan("1:2:4", 3).order());
+        assertNull(registered.scan(null, 4).order());
+    }
+}
@@ -0,0 +1,108 @@
+package io.confluent.connect.jdbc.gp.gpfdist.framweork;
+
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.DelimitedRowEncoder;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class GpfdistBlockWriterTest {
+
+    private static final DelimitedRowEncoder CSV = DelimitedRowEncoder.csv(",", "\"", null, "\n");
+
+    private static ColumnarBatch batch(String... values) {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("v"), Arrays.asList(ColumnVector.Type.BYTES), values.length);
+        for (String value : values) {
+            batch.column(0).appendObject(value);
+            batch.endRow();
+        }
+        return batch;
+    }
+
+    /**
+     * Parses protocol 1 blocks into "line:data" strings, stopping at the end marker.
+     */
+    private static List<String> blocks(byte[] response) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(response));
+        List<String> blocks = new ArrayList<>();
+        while (true) {
+            assertEquals('F', in.readByte());
+            in.skipBytes(in.readInt());
+            assertEquals('O', in.readByte());
+            assertEquals(8, in.readInt());
+            in.readLong();
+            assertEquals('L', in.readByte());
+            assertEquals(8, in.readInt());
+            long line = in.readLong();
+            assertEquals('D', in.readByte());
+            byte[] data = new byte[in.readInt()];
+            if (data.length == 0) {
+                assertEquals(-1, in.read());
+                return blocks;
+            }
+            in.readFully(data);
+            blocks.add(line + ":" + new String(data, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void shouldSendBlocksOfWholeLines() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GpfdistBlockWriter writer = new GpfdistBlockWriter(out, true, "/data/t/1", 6);
+
+        writer.writeRows(CSV, batch("aaa", "bbb", "ccc", "ddd"), 0, 3);
+        writer.finish();
+
+        assertEquals(Arrays.asList("1:aaa\nbbb\n", "3:ccc\n"), blocks(out.toByteArray()));
+        assertEquals(3, writer.rows());
+        assertEquals(12, writer.bytes());
+    }
+
+    @Test
+    public void shouldStartNewBlockAfterGapInRows() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GpfdistBlockWriter writer = new GpfdistBlockWriter(out, true, "/data/t/1", 1024);
+        ColumnarBatch batch = batch("a", "b", "c", "d");
+
+        writer.writeRows(CSV, batch, 2, 4);
+        writer.writeRows(CSV, batch, 0, 1);
+        writer.writeRows(CSV, batch, 1, 2);
+        writer.finish();
+
+        assertEquals(Arrays.asList("3:c\nd\n", "1:a\nb\n"), blocks(out.toByteArray()));
+    }
+
+    @Test
+    public void shouldKeepMultiByteCharactersIntact() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GpfdistBlockWriter writer = new GpfdistBlockWriter(out, false, "/data/t/1", 2);
+
+        writer.writeRows(CSV, batch("zürich", "東京"), 0, 2);
+        writer.finish();
+
+        assertEquals("zürich\n東京\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(out.size(), writer.bytes());
+    }
+
+    @Test
+    public void shouldWriteRowsInScanOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GpfdistBlockWriter writer = new GpfdistBlockWriter(out, true, "/data/t/1", 1024);
+        int[] order = {3, 0, 2, 1};
+
+        assertEquals(4, writer.writeBlock(CSV, batch("a", "b", "c", "d"), order, 1, 4));
+        writer.finish();
+
+        assertEquals(Arrays.asList("2:a\nc\nb\n"), blocks(out.toByteArray()));
+    }
+}
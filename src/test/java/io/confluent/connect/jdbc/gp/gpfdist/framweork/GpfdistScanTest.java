@@ -0,0 +1,109 @@
+package io.confluent.connect.jdbc.gp.gpfdist.framweork;
+
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class GpfdistScanTest {
+
+    private static ColumnarBatch batch(int rows) {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("v"), Arrays.asList(ColumnVector.Type.LONG), rows);
+        for (int i = 0; i < rows; i++) {
+            batch.column(0).appendObject((long) i);
+            batch.endRow();
+        }
+        return batch;
+    }
+
+    private static List<Integer> drain(GpfdistScan scan, int segmentId) {
+        List<Integer> blocks = new ArrayList<>();
+        for (int b = scan.claim(segmentId); b >= 0; b = scan.claim(segmentId)) {
+            blocks.add(b);
+        }
+        return blocks;
+    }
+
+    @Test
+    public void shouldGiveSegmentsTheirOwnBlocksFirst() {
+        GpfdistScan scan = new GpfdistScan(batch(12), 3, 2);
+
+        assertEquals(0, scan.claim(0));
+        assertEquals(1, scan.claim(1));
+        assertEquals(2, scan.claim(2));
+        assertEquals(3, scan.claim(0));
+        assertEquals(4, scan.firstRow(2));
+        assertEquals(6, scan.endRow(2));
+    }
+
+    @Test
+    public void shouldServeEveryRowOnceWhenSegmentsAreMissing() {
+        GpfdistScan scan = new GpfdistScan(batch(11), 4, 2);
+
+        List<Integer> first = drain(scan, 1);
+        List<Integer> second = drain(scan, 3);
+
+        BitSet rows = new BitSet();
+        for (int block : first) {
+            for (int row = scan.firstRow(block); row < scan.endRow(block); row++) {
+                assertFalse(rows.get(row));
+                rows.set(row);
+            }
+        }
+        assertEquals(Arrays.asList(1, 5, 0, 2, 3, 4), first);
+        assertEquals(0, second.size());
+        assertEquals(11, rows.cardinality());
+        assertEquals(11, scan.endRow(5));
+    }
+
+    @Test
+    public void shouldEndEmptyScansImmediately() {
+        assertEquals(-1, new GpfdistScan(batch(0), 4).claim(0));
+    }
+
+    @Test
+    public void shouldBoundBlockSize() {
+        assertEquals(1, GpfdistScan.defaultRowsPerBlock(3, 64));
+        assertEquals(25, GpfdistScan.defaultRowsPerBlock(100, 1));
+        assertEquals(GpfdistScan.MAX_ROWS_PER_BLOCK, GpfdistScan.defaultRowsPerBlock(10000000, 2));
+    }
+
+    @Test
+    public void shouldSendSegmentsTheirOwnRows() {
+        int[][] segmentRows = {{1, 4, 6}, {0, 2, 3, 5}};
+        GpfdistScan scan = new GpfdistScan(batch(7), 2, 2, segmentRows);
+
+        assertEquals(2, scan.claim(1));
+        assertEquals(0, scan.claim(0));
+        assertEquals(3, scan.claim(1));
+        assertEquals(1, scan.claim(0));
+        assertEquals(-1, scan.claim(1));
+        assertEquals(3, scan.firstRow(2));
+        assertEquals(5, scan.endRow(2));
+        assertEquals(0, scan.order()[3]);
+        assertEquals(5, scan.order()[6]);
+    }
+
+    @Test
+    public void shouldServeOtherSegmentsRowsWhenTheyAreMissing() {
+        int[][] segmentRows = {{0, 1, 2}, {3, 4, 5, 6}, {}};
+        GpfdistScan scan = new GpfdistScan(batch(7), 3, 2, segmentRows);
+
+        List<Integer> blocks = drain(scan, 2);
+        BitSet rows = new BitSet();
+        for (int block : blocks) {
+            for (int position = scan.firstRow(block); position < scan.endRow(block); position++) {
+                rows.set(scan.order()[position]);
+            }
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3), blocks);
+        assertEquals(7, rows.cardinality());
+    }
+}
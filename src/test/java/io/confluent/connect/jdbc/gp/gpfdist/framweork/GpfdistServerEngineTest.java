@@ -0,0 +1,115 @@
+package io.confluent.connect.jdbc.gp.gpfdist.framweork;
+
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.DelimitedRowEncoder;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class GpfdistServerEngineTest {
+
+    private static final int ROWS = 5000;
+    private static final int SEGMENTS = 4;
+
+    private final GpfdistBatch registered = new GpfdistBatch("/data/t/1", batch(), DelimitedRowEncoder.csv(",", "\"", null, "\n"), () -> { });
+    private GpfdistServerEngine engine;
+
+    @After
+    public void tearDown() {
+        engine.stop(0);
+    }
+
+    private static ColumnarBatch batch() {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("v"), Arrays.asList(ColumnVector.Type.BYTES), ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            batch.column(0).appendObject("row-" + i + "-ü");
+            batch.endRow();
+        }
+        return batch;
+    }
+
+    private int start(GpfdistServerEngine engine) throws Exception {
+        this.engine = engine;
+        return engine.start(0, "/data", (path, headers, body) -> {
+            if (!path.equals(registered.path())) {
+                return null;
+            }
+            int segmentId = GpfdistProtocol.intHeader(headers, GpfdistProtocol.SEGMENT_ID, 0);
+            GpfdistScan scan = registered.scan(GpfdistProtocol.scanId(headers), GpfdistProtocol.intHeader(headers, GpfdistProtocol.SEGMENT_COUNT, 1));
+            return new GpfdistResponse(registered, scan, segmentId, false, path, body);
+        });
+    }
+
+    private static List<String> get(int port, String path, int segmentId) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        connection.setRequestProperty(GpfdistProtocol.XID, "1");
+        connection.setRequestProperty(GpfdistProtocol.CID, "1");
+        connection.setRequestProperty(GpfdistProtocol.SN, "1");
+        connection.setRequestProperty(GpfdistProtocol.SEGMENT_ID, String.valueOf(segmentId));
+        connection.setRequestProperty(GpfdistProtocol.SEGMENT_COUNT, String.valueOf(SEGMENTS));
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+                data.write(buffer, 0, n);
+            }
+        }
+        String body = new String(data.toByteArray(), StandardCharsets.UTF_8);
+        return body.isEmpty() ? new ArrayList<>() : Arrays.asList(body.split("\n"));
+    }
+
+    private void assertSegmentsReadEveryRowOnce(int port) throws Exception {
+        ExecutorService segments = Executors.newFixedThreadPool(SEGMENTS);
+        try {
+            List<Future<List<String>>> responses = new ArrayList<>();
+            for (int segment = 0; segment < SEGMENTS; segment++) {
+                int segmentId = segment;
+                responses.add(segments.submit(() -> get(port, registered.path(), segmentId)));
+            }
+            Set<String> rows = new HashSet<>();
+            int count = 0;
+            for (Future<List<String>> response : responses) {
+                count += response.get().size();
+                rows.addAll(response.get());
+            }
+            assertEquals(ROWS, count);
+            assertEquals(ROWS, rows.size());
+        } finally {
+            segments.shutdown();
+        }
+    }
+
+    @Test
+    public void httpServerShouldServeDisjointSlices() throws Exception {
+        assertSegmentsReadEveryRowOnce(start(new HttpServerEngine(2, false)));
+    }
+
+    @Test
+    public void nioShouldServeDisjointSlices() throws Exception {
+        assertSegmentsReadEveryRowOnce(start(new NioServerEngine(2, true)));
+    }
+
+    @Test
+    public void nioShouldAnswerUnknownPathsWithNotFound() throws Exception {
+        int port = start(new NioServerEngine(1, false));
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/data/other/1").openConnection();
+
+        assertEquals(404, connection.getResponseCode());
+    }
+}
@@ -0,0 +1,58 @@
+package io.confluent.connect.jdbc.gp.gpfdist.framweork;
+
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.DelimitedRowEncoder;
+import org.apache.kafka.connect.errors.RetriableException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class GpfdistSimpleServerTest {
+
+    private static final DelimitedRowEncoder ENCODER = DelimitedRowEncoder.csv(",", "\"", null, "\n");
+
+    private static ColumnarBatch batch() {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("v"), Arrays.asList(ColumnVector.Type.LONG), 1);
+        batch.column(0).appendObject(1L);
+        batch.endRow();
+        return batch;
+    }
+
+    @Test
+    public void shouldFailRetriablyWhenThePreviousLoadDoesNotFinish() throws Exception {
+        GpfdistSimpleServer server = GpfdistSimpleServer.getInstance();
+        try (GpfdistBatch first = server.register("busy_table", batch(), ENCODER, 0)) {
+            try {
+                server.register("busy_table", batch(), ENCODER, 50);
+                fail("expected the second flush to give up waiting");
+            } catch (RetriableException expected) {
+                // the first load still holds the location
+            }
+        }
+        server.register("busy_table", batch(), ENCODER, 0).close();
+    }
+
+    @Test
+    public void shouldRegisterOnceThePreviousLoadFinished() throws Exception {
+        GpfdistSimpleServer server = GpfdistSimpleServer.getInstance();
+        GpfdistBatch first = server.register("next_table", batch(), ENCODER, 0);
+        CompletableFuture<GpfdistBatch> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return server.register("next_table", batch(), ENCODER, 10000);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        first.close();
+
+        try (GpfdistBatch registered = second.get(10, TimeUnit.SECONDS)) {
+            assertEquals(first.path(), registered.path());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.confluent.connect.jdbc.gp.gpfdist.framweork.support;
+
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SqlUtilsTest {
+
+    @Test
+    public void shouldSignTableNamesWithTheirDefinition() {
+        String name = SqlUtils.signedTableName("ext_orders", "CREATE READABLE EXTERNAL TABLE ext_orders ( id int8 )");
+
+        assertEquals(name, SqlUtils.signedTableName("ext_orders", "CREATE READABLE EXTERNAL TABLE ext_orders ( id int8 )"));
+        assertNotEquals(name, SqlUtils.signedTableName("ext_orders", "CREATE READABLE EXTERNAL TABLE ext_orders ( id int4 )"));
+        assertTrue(name.startsWith("ext_orders_"));
+        assertEquals("ext_orders_".length() + 12, name.length());
+    }
+
+    @Test
+    public void shouldKeepSignedNamesWithinIdentifierLength() {
+        StringBuilder longName = new StringBuilder("ext_");
+        for (int i = 0; i < 100; i++) {
+            longName.append('t');
+        }
+
+        assertEquals(63, SqlUtils.signedTableName(longName.toString(), "definition").length());
+    }
+
+    @Test
+    public void shouldDeriveStagingTableNames() {
+        assertEquals("stg_next_ext_1", SqlUtils.stagingTableName("ext_next_ext_1"));
+    }
+
+    @Test
+    public void shouldExcludeMatchedRowsWhenInsertingFromStaging() {
+        assertEquals("INSERT INTO orders (id,qty)  (SELECT from_table.id, from_table.qty FROM "
+                        + "(SELECT *, ROW_NUMBER() OVER (PARTITION BY id) AS gpload_row_number FROM stg_orders) AS from_table "
+                        + "LEFT OUTER JOIN orders into_table ON into_table.id=from_table.id "
+                        + "WHERE into_table.id IS NULL AND gpload_row_number=1)",
+                SqlUtils.insertFromStaging(mergeConfiguration()));
+    }
+
+    @Test
+    public void shouldDeleteMatchedRowsFromStaging() {
+        LoadConfiguration config = mergeConfiguration();
+        config.setMatchColumns(Arrays.asList("id", "region"));
+
+        assertEquals("DELETE FROM stg_orders staging_table USING orders into_table "
+                        + "WHERE staging_table.id=into_table.id AND staging_table.region=into_table.region",
+                SqlUtils.deleteMatchedFromStaging(config));
+        assertEquals("INSERT INTO orders (id,qty)  (SELECT from_table.id, from_table.qty FROM "
+                        + "(SELECT *, ROW_NUMBER() OVER (PARTITION BY id, region) AS gpload_row_number FROM stg_orders) AS from_table "
+                        + " WHERE gpload_row_number=1)",
+                SqlUtils.insertRemainingFromStaging(config));
+    }
+
+    @Test
+    public void shouldUpsertFromExternalTable() {
+        LoadConfiguration config = mergeConfiguration();
+
+        assertEquals("INSERT INTO orders AS into_table (id,qty) SELECT id,qty FROM ext_orders "
+                        + "ON CONFLICT (id) DO UPDATE SET qty=EXCLUDED.qty",
+                SqlUtils.upsertFromExternal(config));
+
+        config.setUpdateColumns(Collections.emptyList());
+        assertEquals("INSERT INTO orders AS into_table (id,qty) SELECT id,qty FROM ext_orders "
+                        + "ON CONFLICT (id) DO NOTHING",
+                SqlUtils.upsertFromExternal(config));
+    }
+
+    private static LoadConfiguration mergeConfiguration() {
+        ReadableTable externalTable = new ReadableTable();
+        externalTable.setName("ext_orders");
+        LoadConfiguration config = new LoadConfiguration("orders", "id,qty", "id int8, qty int4", externalTable,
+                JdbcSinkConfig.InsertMode.MERGE, Collections.singletonList("id"), Collections.singletonList("qty"), "");
+        config.setStagingTableName("stg_orders");
+        return config;
+    }
+}
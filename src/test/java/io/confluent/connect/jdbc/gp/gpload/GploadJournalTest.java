@@ -0,0 +1,83 @@
+package io.confluent.connect.jdbc.gp.gpload;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GploadJournalTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("table", ".journal").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void shouldRecoverLoadsAfterRestart() {
+        GploadJournal journal = new GploadJournal(file);
+        journal.spooled("a");
+        journal.spooled("b");
+        journal.failed("c");
+        journal.done("a");
+
+        GploadJournal restarted = new GploadJournal(file);
+
+        assertEquals(Collections.singletonList("b"), restarted.takeRecoveredSpooled());
+        assertEquals(Collections.emptyList(), restarted.takeRecoveredSpooled());
+        assertEquals(Collections.singletonList("c"), restarted.claimFailed());
+        assertEquals(1, restarted.size());
+    }
+
+    @Test
+    public void shouldNotClaimFailedLoadsTwice() {
+        GploadJournal journal = new GploadJournal(file);
+        journal.failed("a");
+        journal.failed("b");
+
+        assertEquals(Arrays.asList("a", "b"), journal.claimFailed());
+        assertEquals(Collections.emptyList(), journal.claimFailed());
+
+        journal.failed("a");
+        journal.done("b");
+        assertEquals(Collections.singletonList("a"), journal.claimFailed());
+    }
+
+    @Test
+    public void shouldCountFailuresUntilDone() {
+        GploadJournal journal = new GploadJournal(file);
+        assertEquals(1, journal.failed("a"));
+        journal.claimFailed();
+        assertEquals(2, journal.failed("a"));
+
+        journal.done("a");
+        assertEquals(1, journal.failed("a"));
+    }
+
+    @Test
+    public void shouldTruncateWhenNothingIsLeft() {
+        GploadJournal journal = new GploadJournal(file);
+        journal.spooled("a");
+        journal.failed("b");
+        assertTrue(file.length() > 0);
+
+        journal.done("a");
+        journal.done("b");
+
+        assertEquals(0, file.length());
+        assertEquals(0, new GploadJournal(file).size());
+    }
+}
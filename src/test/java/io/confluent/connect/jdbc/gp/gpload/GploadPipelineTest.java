@@ -0,0 +1,182 @@
+package io.confluent.connect.jdbc.gp.gpload;
+
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.OffsetTracker;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GploadPipelineTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("topic", 0);
+
+    private File dir;
+    private GploadJournal journal;
+    private OffsetTracker offsetTracker;
+    private GploadPipeline pipeline;
+
+    private class FakeLoad extends SpooledLoad {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+        volatile int failures;
+
+        FakeLoad(String name) {
+            super(dir, name);
+        }
+
+        @Override
+        public boolean run(String gploadBinary) throws Exception {
+            runs.incrementAndGet();
+            release.await(10, TimeUnit.SECONDS);
+            if (failures > 0) {
+                failures--;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("gpload").toFile();
+        journal = new GploadJournal(new File(dir, "table.journal"));
+        offsetTracker = new OffsetTracker();
+    }
+
+    @After
+    public void tearDown() {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    private GploadPipeline pipeline(String insertMode, int maxRetries) {
+        Map<String, Object> props = new HashMap<>();
+        props.put("connection.url", "jdbc:postgresql://localhost:5432/test?user=gpadmin&password=secret");
+        props.put(JdbcSinkConfig.INSERT_MODE, insertMode);
+        props.put(JdbcSinkConfig.GPLOAD_CONCURRENT_LOADS, 2);
+        props.put(JdbcSinkConfig.MAX_RETRIES, maxRetries);
+        props.put(JdbcSinkConfig.RETRY_BACKOFF_MS, 0);
+        pipeline = new GploadPipeline(new JdbcSinkConfig(props), offsetTracker);
+        return pipeline;
+    }
+
+    private static List<SinkRecord> records(long offset) {
+        return Collections.singletonList(new SinkRecord("topic", 0, null, null, Schema.INT64_SCHEMA, offset, offset));
+    }
+
+    private Long committed() {
+        OffsetAndMetadata offset = offsetTracker.committableOffsets(
+                Collections.singletonMap(PARTITION, new OffsetAndMetadata(1000))).get(PARTITION);
+        return offset == null ? null : offset.offset();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void shouldCommitOffsetsInSubmissionOrder() throws Exception {
+        pipeline("insert", 0);
+        FakeLoad first = new FakeLoad("first");
+        FakeLoad second = new FakeLoad("second");
+        pipeline.submit("table", journal, first, records(10));
+        pipeline.submit("table", journal, second, records(20));
+        await(() -> first.runs.get() == 1 && second.runs.get() == 1);
+
+        second.release.countDown();
+        Thread.sleep(50);
+        assertEquals(null, committed());
+
+        first.release.countDown();
+        await(() -> journal.size() == 0);
+        assertEquals(Long.valueOf(21), committed());
+    }
+
+    @Test
+    public void shouldRunOneLoadPerTableWhenMerging() throws Exception {
+        pipeline("upsert", 0);
+        FakeLoad first = new FakeLoad("first");
+        FakeLoad second = new FakeLoad("second");
+        pipeline.submit("table", journal, first, records(10));
+        pipeline.submit("table", journal, second, records(20));
+        await(() -> first.runs.get() == 1);
+        Thread.sleep(50);
+        assertEquals(0, second.runs.get());
+
+        first.release.countDown();
+        await(() -> second.runs.get() == 1);
+        second.release.countDown();
+        await(() -> journal.size() == 0);
+        assertEquals(Long.valueOf(21), committed());
+    }
+
+    @Test
+    public void shouldRetryFailedLoadsOnPoll() throws Exception {
+        pipeline("insert", 1);
+        FakeLoad load = new FakeLoad("load");
+        load.failures = 1;
+        load.release.countDown();
+        pipeline.submit("table", journal, load, records(10));
+        await(() -> load.runs.get() == 1);
+        Thread.sleep(50);
+        assertEquals(null, committed());
+
+        pipeline.poll();
+        await(() -> journal.size() == 0);
+        assertEquals(2, load.runs.get());
+        assertEquals(Long.valueOf(11), committed());
+    }
+
+    @Test
+    public void shouldFailWhenRetriesAreExhausted() throws Exception {
+        pipeline("insert", 1);
+        FakeLoad load = new FakeLoad("load");
+        load.failures = 2;
+        load.release.countDown();
+        pipeline.submit("table", journal, load, records(10));
+        await(() -> load.runs.get() == 1);
+        Thread.sleep(50);
+        pipeline.poll();
+        await(() -> load.runs.get() == 2);
+        Thread.sleep(50);
+
+        try {
+            pipeline.poll();
+            fail("expected the exhausted load to fail the task");
+        } catch (ConnectException e) {
+            assertTrue(e.getMessage().contains("load"));
+        }
+        assertEquals(null, committed());
+    }
+}
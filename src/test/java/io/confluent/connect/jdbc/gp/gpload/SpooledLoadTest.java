@@ -0,0 +1,129 @@
+package io.confluent.connect.jdbc.gp.gpload;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SpooledLoadTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("gpload").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    private static byte[] data() {
+        StringBuilder csv = new StringBuilder("id,name\n");
+        for (int i = 0; i < 10000; i++) {
+            csv.append(i).append(",name-").append(i).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void shouldWritePlainData() throws Exception {
+        SpooledLoad load = SpooledLoad.create(dir, "table", false);
+        try (OutputStream out = load.openData()) {
+            out.write(data());
+        }
+
+        assertTrue(load.csvFile().getName().endsWith(".csv"));
+        assertEquals(new String(data(), StandardCharsets.UTF_8), new String(Files.readAllBytes(load.csvFile().toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldWriteGzipDataAndFindItAgain() throws Exception {
+        SpooledLoad load = SpooledLoad.create(dir, "table", true);
+        try (OutputStream out = load.openData()) {
+            out.write(data());
+        }
+        assertTrue(load.csvFile().getName().endsWith(".csv.gz"));
+        assertTrue(load.csvFile().length() < data().length / 2);
+
+        SpooledLoad found = new SpooledLoad(dir, load.name());
+        assertEquals(load.csvFile(), found.csvFile());
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(found.csvFile().toPath()))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                decompressed.write(buffer, 0, read);
+            }
+        }
+        assertEquals(new String(data(), StandardCharsets.UTF_8), new String(decompressed.toByteArray(), StandardCharsets.UTF_8));
+
+        found.delete();
+        assertFalse(load.csvFile().exists());
+    }
+
+    private File gpload(String script) throws Exception {
+        File gpload = new File(dir, "gpload");
+        Files.write(gpload.toPath(), ("#!/bin/sh\n" + script + "\n").getBytes(StandardCharsets.UTF_8));
+        assertTrue(gpload.setExecutable(true));
+        return gpload;
+    }
+
+    @Test
+    public void shouldReportErrorLines() throws Exception {
+        File gpload = gpload("echo '2024-01-01 10:00:00|INFO|running'; echo '2024-01-01 10:00:01|ERROR|bad row'");
+        assertFalse(SpooledLoad.create(dir, "table", false).run(gpload.getAbsolutePath()));
+        gpload = gpload("echo '2024-01-01 10:00:00|INFO|running'");
+        assertTrue(SpooledLoad.create(dir, "table", false).run(gpload.getAbsolutePath()));
+    }
+
+    @Test
+    public void shouldFailOnNonZeroExitCode() throws Exception {
+        File gpload = gpload("echo 'Traceback (most recent call last):'; exit 2");
+        try {
+            SpooledLoad.create(dir, "table", false).run(gpload.getAbsolutePath());
+            fail("expected the exit code to fail the run");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("exited with 2"));
+        }
+    }
+
+    @Test
+    public void shouldKillGploadWhenInterrupted() throws Exception {
+        File gpload = gpload("exec sleep 30");
+        SpooledLoad load = SpooledLoad.create(dir, "table", false);
+        CompletableFuture<Exception> failure = new CompletableFuture<>();
+        Thread runner = new Thread(() -> {
+            try {
+                load.run(gpload.getAbsolutePath());
+                failure.complete(null);
+            } catch (Exception e) {
+                failure.complete(e);
+            }
+        });
+        runner.start();
+        Thread.sleep(200);
+        runner.interrupt();
+
+        assertTrue(failure.get(10, TimeUnit.SECONDS) instanceof InterruptedException);
+    }
+}
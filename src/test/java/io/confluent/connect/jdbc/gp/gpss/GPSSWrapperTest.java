@@ -0,0 +1,192 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import com.google.protobuf.Empty;
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.gpss.api.CloseRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.ConnectRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.OpenRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.RowData;
+import io.confluent.connect.jdbc.gp.gpss.api.Session;
+import io.confluent.connect.jdbc.gp.gpss.api.TransferStats;
+import io.confluent.connect.jdbc.gp.gpss.api.WriteRequest;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GPSSWrapperTest {
+
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final AtomicInteger opens = new AtomicInteger();
+    private final Map<String, List<String>> rowsBySession = new ConcurrentHashMap<>();
+    private volatile String failingSession;
+
+    private Server server;
+    private GpssConnectionManager connections;
+
+    @Before
+    public void setUp() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).addService(new GpssGrpc.GpssImplBase() {
+            @Override
+            public void connect(ConnectRequest request, StreamObserver<Session> responseObserver) {
+                responseObserver.onNext(Session.newBuilder().setID("s" + sessions.incrementAndGet()).build());
+                responseObserver.onCompleted();
+            }
+
+            @Override
+            public void disconnect(Session request, StreamObserver<Empty> responseObserver) {
+                responseObserver.onNext(Empty.getDefaultInstance());
+                responseObserver.onCompleted();
+            }
+
+            @Override
+            public void open(OpenRequest request, StreamObserver<Empty> responseObserver) {
+                opens.incrementAndGet();
+                responseObserver.onNext(Empty.getDefaultInstance());
+                responseObserver.onCompleted();
+            }
+
+            @Override
+            public void write(WriteRequest request, StreamObserver<Empty> responseObserver) {
+                if (request.getSession().getID().equals(failingSession)) {
+                    responseObserver.onError(Status.INTERNAL.withDescription("broken").asRuntimeException());
+                    return;
+                }
+                List<String> rows = rowsBySession.computeIfAbsent(request.getSession().getID(), id -> Collections.synchronizedList(new ArrayList<>()));
+                for (RowData row : request.getRowsList()) {
+                    rows.add(row.getData().toStringUtf8());
+                }
+                responseObserver.onNext(Empty.getDefaultInstance());
+                responseObserver.onCompleted();
+            }
+
+            @Override
+            public void close(CloseRequest request, StreamObserver<TransferStats> responseObserver) {
+                List<String> rows = rowsBySession.getOrDefault(request.getSession().getID(), Collections.emptyList());
+                responseObserver.onNext(TransferStats.newBuilder().setSuccessCount(rows.size()).build());
+                responseObserver.onCompleted();
+            }
+        }).build().start();
+        connections = new GpssConnectionManager((host, port, useTls) -> InProcessChannelBuilder.forName(name).build());
+    }
+
+    @After
+    public void tearDown() {
+        server.shutdownNow();
+    }
+
+    private GPSSWrapper wrapper(int writeSessions) {
+        return wrapper(writeSessions, "upsert");
+    }
+
+    private GPSSWrapper wrapper(int writeSessions, String insertMode) {
+        Map<String, Object> props = new HashMap<>();
+        props.put("connection.url", "jdbc:postgresql://localhost:5432/test?user=gpadmin&password=secret");
+        props.put("insert.mode", insertMode);
+        props.put(JdbcSinkConfig.GPSS_WRITE_SESSIONS, writeSessions);
+        return new GPSSWrapper(new JdbcSinkConfig(props), connections);
+    }
+
+    private static ColumnarBatch batch(int rows, List<SinkRecord> records) {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("k", "v"),
+                Arrays.asList(ColumnVector.Type.BYTES, ColumnVector.Type.LONG), rows);
+        for (int i = 0; i < rows; i++) {
+            batch.column(0).appendObject("key-" + (i % 20));
+            batch.column(1).appendObject((long) i);
+            batch.endRow();
+            records.add(new SinkRecord("topic", 0, null, null, Schema.STRING_SCHEMA, "v", i));
+        }
+        return batch;
+    }
+
+    private void ingest(GPSSWrapper wrapper, ColumnarBatch batch, List<SinkRecord> records) {
+        wrapper.ingestBatch("t", Arrays.asList("k", "v"), Collections.singletonList("k"), Collections.singletonList("v"),
+                Collections.emptyList(), "", batch, records);
+    }
+
+    @Test
+    public void shouldWriteThroughOneSessionByDefault() {
+        List<SinkRecord> records = new ArrayList<>();
+        ingest(wrapper(1), batch(100, records), records);
+
+        assertEquals(1, opens.get());
+        assertEquals(1, rowsBySession.size());
+    }
+
+    @Test
+    public void shouldPartitionRowsByKeyAcrossSessions() {
+        List<SinkRecord> records = new ArrayList<>();
+        ingest(wrapper(4), batch(1000, records), records);
+
+        assertTrue(opens.get() > 1 && opens.get() <= 4);
+        Map<String, String> sessionOfKey = new HashMap<>();
+        int total = 0;
+        for (Map.Entry<String, List<String>> session : rowsBySession.entrySet()) {
+            long previous = -1;
+            for (String row : session.getValue()) {
+                String[] cells = row.trim().split(",");
+                assertEquals(session.getKey(), sessionOfKey.merge(cells[0], session.getKey(), (a, b) -> a));
+                // rows keep their batch order within a session
+                assertTrue(Long.parseLong(cells[1]) > previous);
+                previous = Long.parseLong(cells[1]);
+                total++;
+            }
+        }
+        assertEquals(1000, total);
+        assertEquals(20, sessionOfKey.size());
+    }
+
+    @Test
+    public void shouldWriteInsertsThroughOneSession() {
+        List<SinkRecord> records = new ArrayList<>();
+        ingest(wrapper(4, "insert"), batch(1000, records), records);
+
+        assertEquals(1, opens.get());
+        assertEquals(1, rowsBySession.size());
+    }
+
+    @Test
+    public void shouldWriteThroughOneSessionWithoutAllMatchColumns() {
+        List<SinkRecord> records = new ArrayList<>();
+        wrapper(4).ingestBatch("t", Arrays.asList("k", "v"), Arrays.asList("k", "other"), Collections.singletonList("v"),
+                Collections.emptyList(), "", batch(1000, records), records);
+
+        assertEquals(1, opens.get());
+        assertEquals(1, rowsBySession.size());
+    }
+
+    @Test
+    public void shouldFailWhenAnySessionFails() {
+        failingSession = "s2";
+        List<SinkRecord> records = new ArrayList<>();
+        try {
+            ingest(wrapper(4), batch(1000, records), records);
+            fail("expected the failed session to fail the batch");
+        } catch (RuntimeException expected) {
+            // the other sessions still completed
+            assertEquals(opens.get() - 1, rowsBySession.size());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import com.google.protobuf.Empty;
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.DelimitedRowEncoder;
+import io.confluent.connect.jdbc.gp.gpss.api.RowData;
+import io.confluent.connect.jdbc.gp.gpss.api.Session;
+import io.confluent.connect.jdbc.gp.gpss.api.WriteRequest;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GpssChunkedWriterTest {
+
+    private final List<WriteRequest> received = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean failWrites;
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @Before
+    public void setUp() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).addService(new GpssGrpc.GpssImplBase() {
+            @Override
+            public void write(WriteRequest request, StreamObserver<Empty> responseObserver) {
+                if (failWrites) {
+                    responseObserver.onError(Status.INTERNAL.withDescription("broken").asRuntimeException());
+                    return;
+                }
+                received.add(request);
+                responseObserver.onNext(Empty.getDefaultInstance());
+                responseObserver.onCompleted();
+            }
+        }).build().start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    @After
+    public void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    private static ColumnarBatch batch(int rows) {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("v"), Arrays.asList(ColumnVector.Type.BYTES), rows);
+        for (int i = 0; i < rows; i++) {
+            batch.column(0).appendObject(String.format("row-%04d", i));
+            batch.endRow();
+        }
+        return batch;
+    }
+
+    private GpssChunkedWriter writer(int chunkBytes, int maxInFlight) {
+        return new GpssChunkedWriter(GpssGrpc.newFutureStub(channel), Session.newBuilder().setID("s").build(), chunkBytes, maxInFlight);
+    }
+
+    @Test
+    public void shouldSplitRowsIntoBoundedChunksInOrder() throws Exception {
+        // each row is "row-0000\n" (9 bytes) plus the per-row overhead, so three rows fit in 60 bytes
+        GpssChunkedWriter.Stats stats = writer(60, 1).write(batch(10), DelimitedRowEncoder.csv(",", "\"", null, "\n"));
+
+        assertEquals(4, received.size());
+        assertEquals(4, stats.requests());
+        assertEquals(10, stats.rows());
+        List<String> rows = new ArrayList<>();
+        for (WriteRequest request : received) {
+            assertEquals("s", request.getSession().getID());
+            assertTrue(request.getRowsCount() <= 3);
+            for (RowData row : request.getRowsList()) {
+                rows.add(row.getData().toStringUtf8());
+            }
+        }
+        assertEquals("row-0000\n", rows.get(0));
+        assertEquals("row-0009\n", rows.get(9));
+    }
+
+    @Test
+    public void shouldSendAllRowsWithSeveralRequestsInFlight() throws Exception {
+        GpssChunkedWriter.Stats stats = writer(1024, 4).write(batch(1000), DelimitedRowEncoder.csv(",", "\"", null, "\n"));
+
+        int rows = 0;
+        synchronized (received) {
+            for (WriteRequest request : received) {
+                rows += request.getRowsCount();
+            }
+        }
+        assertEquals(1000, rows);
+        assertEquals(received.size(), stats.requests());
+        assertTrue(stats.requests() > 4);
+    }
+
+    @Test
+    public void shouldSendOversizedRowsOnTheirOwn() throws Exception {
+        writer(5, 2).write(batch(3), DelimitedRowEncoder.csv(",", "\"", null, "\n"));
+
+        assertEquals(3, received.size());
+        for (WriteRequest request : received) {
+            assertEquals(1, request.getRowsCount());
+        }
+    }
+
+    @Test
+    public void shouldNotSendEmptyBatches() throws Exception {
+        GpssChunkedWriter.Stats stats = writer(1024, 2).write(batch(0), DelimitedRowEncoder.csv(",", "\"", null, "\n"));
+
+        assertEquals(0, received.size());
+        assertEquals(0, stats.requests());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldFailWhenAnyRequestFails() throws Exception {
+        failWrites = true;
+        writer(60, 2).write(batch(10), DelimitedRowEncoder.csv(",", "\"", null, "\n"));
+    }
+}
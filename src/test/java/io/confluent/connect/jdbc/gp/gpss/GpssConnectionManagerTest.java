@@ -0,0 +1,180 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import com.google.protobuf.Empty;
+import io.confluent.connect.jdbc.gp.gpss.api.ConnectRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.ListSchemaRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.Schemas;
+import io.confluent.connect.jdbc.gp.gpss.api.Session;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class GpssConnectionManagerTest {
+
+    private final AtomicInteger connects = new AtomicInteger();
+    private final AtomicInteger disconnects = new AtomicInteger();
+    private final AtomicInteger failingConnects = new AtomicInteger();
+    private final AtomicInteger channels = new AtomicInteger();
+    private final AtomicInteger tlsChannels = new AtomicInteger();
+
+    private String serverName;
+    private Server server;
+    private GpssConnectionManager manager;
+
+    @Before
+    public void setUp() throws Exception {
+        serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName).directExecutor().addService(new GpssGrpc.GpssImplBase() {
+            @Override
+            public void connect(ConnectRequest request, StreamObserver<Session> responseObserver) {
+                if (failingConnects.getAndDecrement() > 0) {
+                    responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+                    return;
+                }
+                responseObserver.onNext(Session.newBuilder().setID("session-" + connects.incrementAndGet()).build());
+                responseObserver.onCompleted();
+            }
+
+            @Override
+            public void disconnect(Session request, StreamObserver<Empty> responseObserver) {
+                disconnects.incrementAndGet();
+                responseObserver.onNext(Empty.getDefaultInstance());
+                responseObserver.onCompleted();
+            }
+
+            @Override
+            public void listSchema(ListSchemaRequest request, StreamObserver<Schemas> responseObserver) {
+                responseObserver.onNext(Schemas.getDefaultInstance());
+                responseObserver.onCompleted();
+            }
+        }).build().start();
+        manager = new GpssConnectionManager((host, port, useTls) -> {
+            channels.incrementAndGet();
+            if (useTls) {
+                tlsChannels.incrementAndGet();
+            }
+            return InProcessChannelBuilder.forName(serverName).directExecutor().build();
+        });
+    }
+
+    @After
+    public void tearDown() {
+        server.shutdownNow();
+    }
+
+    private JdbcSinkConfig config(boolean sticky) {
+        return config(sticky, false);
+    }
+
+    private JdbcSinkConfig config(boolean sticky, boolean tls) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(JdbcSinkConfig.GPSS_USE_TLS, tls);
+        props.put("connection.url", "jdbc:postgresql://localhost:5432/test?user=gpadmin&password=secret");
+        props.put(JdbcSinkConfig.GPSS_USE_STICKY_SESSION, sticky);
+        props.put(JdbcSinkConfig.MAX_RETRIES, 2);
+        props.put(JdbcSinkConfig.RETRY_BACKOFF_MS, 1);
+        return new JdbcSinkConfig(props);
+    }
+
+    @Test
+    public void shouldReuseStickySessionsAndChannel() {
+        JdbcSinkConfig config = config(true);
+        manager.retain(config);
+
+        String first;
+        try (GpssConnectionManager.Lease lease = manager.acquire(config)) {
+            first = lease.session().getID();
+        }
+        try (GpssConnectionManager.Lease lease = manager.acquire(config)) {
+            assertEquals(first, lease.session().getID());
+        }
+        assertEquals(1, connects.get());
+        assertEquals(1, channels.get());
+
+        manager.release(config);
+        assertEquals(1, disconnects.get());
+    }
+
+    @Test
+    public void shouldDisconnectNonStickySessionsButKeepChannel() {
+        JdbcSinkConfig config = config(false);
+
+        for (int i = 0; i < 3; i++) {
+            try (GpssConnectionManager.Lease lease = manager.acquire(config)) {
+                lease.session();
+            }
+        }
+        assertEquals(3, connects.get());
+        assertEquals(3, disconnects.get());
+        assertEquals(1, channels.get());
+    }
+
+    @Test
+    public void shouldNotLendTheSameSessionTwice() {
+        JdbcSinkConfig config = config(true);
+
+        try (GpssConnectionManager.Lease first = manager.acquire(config);
+             GpssConnectionManager.Lease second = manager.acquire(config)) {
+            assertNotEquals(first.session().getID(), second.session().getID());
+        }
+        assertEquals(2, connects.get());
+    }
+
+    @Test
+    public void shouldDropInvalidatedSessions() {
+        JdbcSinkConfig config = config(true);
+
+        String first;
+        try (GpssConnectionManager.Lease lease = manager.acquire(config)) {
+            first = lease.session().getID();
+            lease.invalidate();
+        }
+        try (GpssConnectionManager.Lease lease = manager.acquire(config)) {
+            assertNotEquals(first, lease.session().getID());
+        }
+        assertEquals(1, disconnects.get());
+    }
+
+    @Test
+    public void shouldOpenSeparateChannelForTls() {
+        try (GpssConnectionManager.Lease lease = manager.acquire(config(true, false))) {
+            lease.session();
+        }
+        assertEquals(0, tlsChannels.get());
+
+        try (GpssConnectionManager.Lease lease = manager.acquire(config(true, true))) {
+            lease.session();
+        }
+        assertEquals(2, channels.get());
+        assertEquals(1, tlsChannels.get());
+    }
+
+    @Test
+    public void shouldRetryConnectWithBackoff() {
+        failingConnects.set(2);
+
+        try (GpssConnectionManager.Lease lease = manager.acquire(config(true))) {
+            assertEquals("session-1", lease.session().getID());
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldGiveUpAfterMaxRetries() {
+        failingConnects.set(3);
+
+        manager.acquire(config(true));
+    }
+}
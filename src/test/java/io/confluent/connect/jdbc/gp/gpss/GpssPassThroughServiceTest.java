@@ -0,0 +1,149 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import com.google.protobuf.Empty;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.gpss.api.CloseRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.ConnectRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.OpenRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.Session;
+import io.confluent.connect.jdbc.gp.gpss.api.TransferStats;
+import io.confluent.connect.jdbc.gp.gpss.api.WriteRequest;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GpssPassThroughServiceTest {
+
+    private final List<OpenRequest> opened = new ArrayList<>();
+    private final List<WriteRequest> written = new ArrayList<>();
+
+    private Server server;
+    private GpssConnectionManager connections;
+
+    @Before
+    public void setUp() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).directExecutor().addService(new GpssGrpc.GpssImplBase() {
+            @Override
+            public void connect(ConnectRequest request, StreamObserver<Session> responseObserver) {
+                responseObserver.onNext(Session.newBuilder().setID("s").build());
+                responseObserver.onCompleted();
+            }
+
+            @Override
+            public void open(OpenRequest request, StreamObserver<Empty> responseObserver) {
+                opened.add(request);
+                responseObserver.onNext(Empty.getDefaultInstance());
+                responseObserver.onCompleted();
+            }
+
+            @Override
+            public void write(WriteRequest request, StreamObserver<Empty> responseObserver) {
+                written.add(request);
+                responseObserver.onNext(Empty.getDefaultInstance());
+                responseObserver.onCompleted();
+            }
+
+            @Override
+            public void close(CloseRequest request, StreamObserver<TransferStats> responseObserver) {
+                responseObserver.onNext(TransferStats.newBuilder().setSuccessCount(2).build());
+                responseObserver.onCompleted();
+            }
+        }).build().start();
+        connections = new GpssConnectionManager((host, port, useTls) -> InProcessChannelBuilder.forName(name).directExecutor().build());
+    }
+
+    @After
+    public void tearDown() {
+        server.shutdownNow();
+    }
+
+    private GpssPassThroughService service(String format) {
+        Map<String, Object> props = new HashMap<>();
+        props.put("connection.url", "jdbc:postgresql://localhost:5432/test?user=gpadmin&password=secret");
+        props.put(JdbcSinkConfig.GPSS_FORMAT, format);
+        props.put(JdbcSinkConfig.GPSS_PASSTHROUGH_COLUMN, "doc");
+        JdbcSinkConfig config = new JdbcSinkConfig(props);
+        return new GpssPassThroughService(config, "events", null, new GPSSWrapper(config, connections));
+    }
+
+    private static SinkRecord record(Object value, long offset) {
+        return new SinkRecord("topic", 0, null, null, Schema.OPTIONAL_BYTES_SCHEMA, value, offset);
+    }
+
+    @Test
+    public void shouldForwardValuesUntouched() {
+        service("JSON").ingest(Arrays.asList(
+                record("{\"id\":1,\"name\":\"a,b\"}".getBytes(StandardCharsets.UTF_8), 0),
+                record(null, 1),
+                record(ByteBuffer.wrap("{\"id\":2}".getBytes(StandardCharsets.UTF_8)), 2)));
+
+        assertEquals(1, opened.size());
+        OpenRequest open = opened.get(0);
+        assertEquals("events", open.getTableName());
+        assertEquals("doc", open.getJson().getColumn().getName());
+        assertEquals("json", open.getJson().getColumn().getType());
+        assertEquals(Collections.singletonList("doc"), open.getInsertOption().getInsertColumnsList());
+        assertTrue(!open.hasCsv());
+
+        assertEquals(1, written.size());
+        assertEquals(2, written.get(0).getRowsCount());
+        assertEquals("{\"id\":1,\"name\":\"a,b\"}", written.get(0).getRows(0).getData().toStringUtf8());
+        assertEquals("{\"id\":2}", written.get(0).getRows(1).getData().toStringUtf8());
+    }
+
+    @Test
+    public void shouldDescribeAvroSource() {
+        service("AVRO").ingest(Collections.singletonList(record(new byte[] {0, 0, 0, 0, 1, 2}, 0)));
+
+        assertEquals("doc", opened.get(0).getAvro().getSourceColumnName());
+        assertTrue(!opened.get(0).hasJson());
+    }
+
+    @Test
+    public void shouldSkipBatchesWithoutValues() {
+        service("JSON").ingest(Collections.singletonList(record(null, 0)));
+
+        assertTrue(opened.isEmpty());
+    }
+
+    @Test(expected = DataException.class)
+    public void shouldRejectDecodedValues() {
+        Schema schema = SchemaBuilder.struct().field("id", Schema.INT32_SCHEMA).build();
+        service("JSON").payloads(Collections.singletonList(
+                new SinkRecord("topic", 0, null, null, schema, new Struct(schema).put("id", 1), 0)));
+    }
+
+    @Test
+    public void shouldReuseThePayloadBatch() {
+        GpssPassThroughService service = service("JSON");
+        ColumnarBatch first = service.payloads(Collections.singletonList(record("{}", 0)));
+        ColumnarBatch second = service.payloads(Arrays.asList(record("[]", 1), record("[1]", 2)));
+
+        assertTrue(first == second);
+        assertEquals(2, second.rowCount());
+        assertEquals("\\x5b315d", second.column(0).getString(1));
+    }
+}
@@ -0,0 +1,79 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.DelimitedRowEncoder;
+import io.confluent.connect.jdbc.gp.gpss.api.TransferStats;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GpssRejectedRowsTest {
+
+    private static final DelimitedRowEncoder CSV = DelimitedRowEncoder.csv(",", "\"", null, "\r\n");
+
+    private final List<SinkRecord> records = new ArrayList<>();
+
+    private ColumnarBatch batch(String... names) {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("id", "name"),
+                Arrays.asList(ColumnVector.Type.LONG, ColumnVector.Type.BYTES), names.length);
+        for (String name : names) {
+            batch.column(0).appendObject((long) records.size());
+            batch.column(1).appendObject(name);
+            batch.endRow();
+            records.add(new SinkRecord("topic", 0, null, null, Schema.STRING_SCHEMA, name, records.size()));
+        }
+        return batch;
+    }
+
+    @Test
+    public void shouldResolveErrorRowsToTheirRecords() {
+        GpssRejectedRows rejectedRows = new GpssRejectedRows();
+        rejectedRows.add(batch("ok", "bad,value", "fine"), CSV, records);
+
+        List<SinkRecord> rejected = rejectedRows.resolve(Arrays.asList("1,\"bad,value\"", "7,unknown"));
+
+        assertEquals(Collections.singletonList(records.get(1)), rejected);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectRecordsNotMatchingTheRows() {
+        new GpssRejectedRows().add(batch("a"), CSV, Collections.emptyList());
+    }
+
+    @Test
+    public void shouldReportResolvedRecords() {
+        GpssRejectedRows rejectedRows = new GpssRejectedRows();
+        rejectedRows.add(batch("a", "b"), CSV, new ArrayList<>(records));
+        rejectedRows.add(batch("c"), CSV, records.subList(2, 3));
+        List<SinkRecord> reported = new ArrayList<>();
+
+        rejectedRows.report("t", TransferStats.newBuilder().setErrorCount(3).addErrorRows("2,c\n").addErrorRows("0,a").addErrorRows("garbage").build(),
+                (record, error) -> {
+                    reported.add(record);
+                    return CompletableFuture.completedFuture(null);
+                });
+
+        assertEquals(Arrays.asList(records.get(2), records.get(0)), reported);
+    }
+
+    @Test
+    public void shouldNotReportWithoutErrors() {
+        GpssRejectedRows rejectedRows = new GpssRejectedRows();
+        rejectedRows.add(batch("a"), CSV, records);
+
+        rejectedRows.report("t", TransferStats.newBuilder().setSuccessCount(1).build(), (record, error) -> {
+            throw new AssertionError("nothing was rejected");
+        });
+        assertTrue(!rejectedRows.isEmpty());
+    }
+}
@@ -0,0 +1,53 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.DelimitedRowEncoder;
+import io.confluent.connect.jdbc.gp.batch.RowEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Compares the CSV and binary GPSS row encodings on a mixed numeric/text batch.
+ * Run the main method; it is not part of the unit test suite.
+ */
+public class GpssRowEncoderBenchmark {
+
+    private static final int ROWS = 100000;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws Exception {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("id", "amount", "ratio", "flag", "name", "comment"),
+                Arrays.asList(ColumnVector.Type.LONG, ColumnVector.Type.LONG, ColumnVector.Type.DOUBLE,
+                        ColumnVector.Type.BOOLEAN, ColumnVector.Type.BYTES, ColumnVector.Type.BYTES), ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            batch.column(0).appendObject((long) i);
+            batch.column(1).appendObject(i * 1000003L);
+            batch.column(2).appendObject(i / 7.0d);
+            batch.column(3).appendObject(i % 2 == 0);
+            batch.column(4).appendObject("customer-" + i);
+            batch.column(5).appendObject(i % 10 == 0 ? "needs, \"quoting\"" : "plain text value");
+            batch.endRow();
+        }
+
+        run("csv", DelimitedRowEncoder.csv(",", "\"", null, "\n"), batch);
+        run("binary", new GpssRowEncoder(), batch);
+    }
+
+    private static void run(String name, RowEncoder encoder, ColumnarBatch batch) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024 * 1024);
+        long best = Long.MAX_VALUE;
+        long bytes = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            out.reset();
+            long start = System.nanoTime();
+            for (int row = 0; row < batch.rowCount(); row++) {
+                encoder.writeRow(batch, row, out);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+            bytes = out.size();
+        }
+        System.out.printf("%-6s %8.1f ns/row %6.1f bytes/row%n", name, (double) best / batch.rowCount(), (double) bytes / batch.rowCount());
+    }
+}
@@ -0,0 +1,64 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import com.google.protobuf.ByteString;
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.gpss.api.DBValue;
+import io.confluent.connect.jdbc.gp.gpss.api.Row;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class GpssRowEncoderTest {
+
+    private static Row encode(ColumnarBatch batch, int row) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new GpssRowEncoder().writeRow(batch, row, out);
+        return Row.parseFrom(out.toByteArray());
+    }
+
+    @Test
+    public void shouldWriteTypedValues() throws Exception {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("id", "ratio", "score", "flag", "name", "payload"),
+                Arrays.asList(ColumnVector.Type.LONG, ColumnVector.Type.FLOAT, ColumnVector.Type.DOUBLE,
+                        ColumnVector.Type.BOOLEAN, ColumnVector.Type.BYTES, ColumnVector.Type.BINARY), 1);
+        batch.column(0).appendObject(42L);
+        batch.column(1).appendObject(0.5f);
+        batch.column(2).appendObject(1.25d);
+        batch.column(3).appendObject(true);
+        batch.column(4).appendObject("a,\"b\"\nc");
+        batch.column(5).appendObject(new byte[] {0x00, 0x0a, (byte) 0xff});
+        batch.endRow();
+
+        Row row = encode(batch, 0);
+
+        assertEquals(6, row.getColumnsCount());
+        assertEquals(42L, row.getColumns(0).getInt64Value());
+        assertEquals(0.5f, row.getColumns(1).getFloat32Value(), 0.0f);
+        assertEquals(1.25d, row.getColumns(2).getFloat64Value(), 0.0d);
+        assertEquals("true", row.getColumns(3).getStringValue());
+        assertEquals("a,\"b\"\nc", row.getColumns(4).getStringValue());
+        assertEquals(ByteString.copyFrom(new byte[] {0x00, 0x0a, (byte) 0xff}), row.getColumns(5).getBytesValue());
+    }
+
+    @Test
+    public void shouldWriteNullsAsNullValues() throws Exception {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("id", "name"),
+                Arrays.asList(ColumnVector.Type.LONG, ColumnVector.Type.BYTES), 2);
+        batch.column(0).appendObject(1L);
+        batch.column(1).appendObject("x");
+        batch.endRow();
+        batch.column(0).appendObject(null);
+        batch.column(1).appendObject(null);
+        batch.endRow();
+
+        Row row = encode(batch, 1);
+
+        assertEquals(DBValue.DBTypeCase.NULLVALUE, row.getColumns(0).getDBTypeCase());
+        assertEquals(DBValue.DBTypeCase.NULLVALUE, row.getColumns(1).getDBTypeCase());
+        assertEquals(1L, encode(batch, 0).getColumns(0).getInt64Value());
+    }
+}
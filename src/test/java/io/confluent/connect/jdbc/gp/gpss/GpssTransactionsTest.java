@@ -0,0 +1,224 @@
+package io.confluent.connect.jdbc.gp.gpss;
+
+import com.google.protobuf.Empty;
+import io.confluent.connect.jdbc.gp.batch.ColumnVector;
+import io.confluent.connect.jdbc.gp.batch.ColumnarBatch;
+import io.confluent.connect.jdbc.gp.batch.DelimitedRowEncoder;
+import io.confluent.connect.jdbc.gp.gpss.api.CloseRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.ConnectRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.OpenRequest;
+import io.confluent.connect.jdbc.gp.gpss.api.Session;
+import io.confluent.connect.jdbc.gp.gpss.api.TransferStats;
+import io.confluent.connect.jdbc.gp.gpss.api.WriteRequest;
+import io.confluent.connect.jdbc.sink.JdbcSinkConfig;
+import io.confluent.connect.jdbc.sink.OffsetTracker;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.ErrantRecordReporter;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GpssTransactionsTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("topic", 0);
+
+    private final AtomicInteger opens = new AtomicInteger();
+    private final AtomicInteger writes = new AtomicInteger();
+    private final AtomicInteger closes = new AtomicInteger();
+    private final AtomicInteger disconnects = new AtomicInteger();
+    private final List<CloseRequest> closeRequests = new ArrayList<>();
+    private TransferStats closeStats = TransferStats.getDefaultInstance();
+
+    private Server server;
+    private GpssConnectionManager connections;
+    private OffsetTracker offsetTracker;
+    private long nextOffset;
+
+    @Before
+    public void setUp() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).directExecutor().addService(new GpssGrpc.GpssImplBase() {
+            @Override
+            public void connect(ConnectRequest request, StreamObserver<Session> responseObserver) {
+                responseObserver.onNext(Session.newBuilder().setID("s").build());
+                responseObserver.onCompleted();
+            }
+
+            @Override
+            public void disconnect(Session request, StreamObserver<Empty> responseObserver) {
+                disconnects.incrementAndGet();
+                responseObserver.onNext(Empty.getDefaultInstance());
+                responseObserver.onCompleted();
+            }
+
+            @Override
+            public void open(OpenRequest request, StreamObserver<Empty> responseObserver) {
+                opens.incrementAndGet();
+                responseObserver.onNext(Empty.getDefaultInstance());
+                responseObserver.onCompleted();
+            }
+
+            @Override
+            public void write(WriteRequest request, StreamObserver<Empty> responseObserver) {
+                writes.incrementAndGet();
+                responseObserver.onNext(Empty.getDefaultInstance());
+                responseObserver.onCompleted();
+            }
+
+            @Override
+            public void close(CloseRequest request, StreamObserver<TransferStats> responseObserver) {
+                closes.incrementAndGet();
+                closeRequests.add(request);
+                responseObserver.onNext(closeStats);
+                responseObserver.onCompleted();
+            }
+        }).build().start();
+        connections = new GpssConnectionManager((host, port, useTls) -> InProcessChannelBuilder.forName(name).directExecutor().build());
+        offsetTracker = new OffsetTracker();
+    }
+
+    @After
+    public void tearDown() {
+        server.shutdownNow();
+    }
+
+    private GpssTransactions transactions(int maxRows) {
+        return transactions(maxRows, null);
+    }
+
+    private GpssTransactions transactions(int maxRows, ErrantRecordReporter reporter) {
+        Map<String, Object> props = new HashMap<>();
+        props.put("connection.url", "jdbc:postgresql://localhost:5432/test?user=gpadmin&password=secret");
+        props.put(JdbcSinkConfig.GPSS_TRANSACTION_ENABLED, true);
+        props.put(JdbcSinkConfig.GPSS_TRANSACTION_MAX_ROWS, maxRows);
+        props.put(JdbcSinkConfig.GPSS_TRANSACTION_MAX_MS, 0L);
+        return new GpssTransactions(new JdbcSinkConfig(props), offsetTracker, connections, reporter);
+    }
+
+    private static OpenRequest openRequest(String table) {
+        return OpenRequest.newBuilder().setTableName(table).build();
+    }
+
+    private void write(GpssTransactions transactions, OpenRequest openRequest, int rows) {
+        ColumnarBatch batch = new ColumnarBatch(Arrays.asList("v"), Arrays.asList(ColumnVector.Type.LONG), rows);
+        List<SinkRecord> records = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            batch.column(0).appendObject(nextOffset);
+            batch.endRow();
+            records.add(new SinkRecord("topic", 0, null, null, Schema.INT64_SCHEMA, nextOffset, nextOffset));
+            nextOffset++;
+        }
+        transactions.write(openRequest.getTableName(), openRequest, DelimitedRowEncoder.csv(",", "\"", null, "\n"), batch, records, records);
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> committable() {
+        return offsetTracker.committableOffsets(Collections.singletonMap(PARTITION, new OffsetAndMetadata(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void shouldKeepTableOpenUntilCommit() {
+        GpssTransactions transactions = transactions(0);
+
+        write(transactions, openRequest("t"), 3);
+        write(transactions, openRequest("t"), 3);
+
+        assertEquals(1, opens.get());
+        assertEquals(2, writes.get());
+        assertEquals(0, closes.get());
+        assertTrue(committable().isEmpty());
+
+        transactions.closeAll();
+
+        assertEquals(1, closes.get());
+        assertEquals(new OffsetAndMetadata(6), committable().get(PARTITION));
+        assertTrue(transactions.isEmpty());
+    }
+
+    @Test
+    public void shouldCloseWhenRowLimitIsReached() {
+        GpssTransactions transactions = transactions(5);
+
+        write(transactions, openRequest("t"), 3);
+        assertEquals(0, closes.get());
+        write(transactions, openRequest("t"), 3);
+        assertEquals(1, closes.get());
+        assertEquals(new OffsetAndMetadata(6), committable().get(PARTITION));
+
+        write(transactions, openRequest("t"), 1);
+        assertEquals(2, opens.get());
+        assertEquals(new OffsetAndMetadata(6), committable().get(PARTITION));
+    }
+
+    @Test
+    public void shouldCloseWhenLoadOptionsChange() {
+        GpssTransactions transactions = transactions(0);
+
+        write(transactions, openRequest("t"), 2);
+        write(transactions, openRequest("t").toBuilder().setTimeout(5).build(), 2);
+
+        assertEquals(2, opens.get());
+        assertEquals(1, closes.get());
+        assertEquals(new OffsetAndMetadata(2), committable().get(PARTITION));
+    }
+
+    @Test
+    public void shouldNotMarkAbortedRecords() {
+        GpssTransactions transactions = transactions(0);
+
+        write(transactions, openRequest("t"), 2);
+        transactions.abortAll();
+
+        assertEquals(0, closes.get());
+        assertEquals(1, disconnects.get());
+        assertTrue(committable().isEmpty());
+        assertTrue(transactions.isEmpty());
+    }
+
+    @Test
+    public void shouldReportRejectedRowsOnClose() {
+        List<SinkRecord> reported = new ArrayList<>();
+        GpssTransactions transactions = transactions(0, (record, error) -> {
+            reported.add(record);
+            return CompletableFuture.completedFuture(null);
+        });
+        closeStats = TransferStats.newBuilder().setSuccessCount(3).setErrorCount(1).addErrorRows("2").build();
+
+        write(transactions, openRequest("t"), 2);
+        write(transactions, openRequest("t"), 2);
+        transactions.closeAll();
+
+        assertEquals(-1, closeRequests.get(0).getMaxErrorRows());
+        assertEquals(1, reported.size());
+        assertEquals(2L, reported.get(0).kafkaOffset());
+        assertEquals(new OffsetAndMetadata(4), committable().get(PARTITION));
+    }
+
+    @Test
+    public void shouldNotAskForErrorRowsWithoutReporter() {
+        GpssTransactions transactions = transactions(0);
+
+        write(transactions, openRequest("t"), 1);
+        transactions.closeAll();
+
+        assertEquals(0, closeRequests.get(0).getMaxErrorRows());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialects;
+import io.confluent.connect.jdbc.dialect.PostgreSqlDatabaseDialect;
+import io.confluent.connect.jdbc.util.TableId;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the prepared statement batches of {@link BufferedRecords} with the COPY path of
+ * {@link CopyBufferedRecords} on an embedded PostgreSQL, for inserts and upserts.
+ * Run the main method; it is not part of the test suite.
+ */
+public class CopyBufferedRecordsBenchmark {
+
+  private static final int ROWS = 100000;
+  private static final int BATCH_SIZE = 5000;
+  private static final int ROUNDS = 5;
+
+  private static final Schema KEY_SCHEMA = SchemaBuilder.struct()
+      .field("id", Schema.INT64_SCHEMA)
+      .build();
+  private static final Schema VALUE_SCHEMA = SchemaBuilder.struct()
+      .field("id", Schema.INT64_SCHEMA)
+      .field("amount", Schema.INT64_SCHEMA)
+      .field("ratio", Schema.FLOAT64_SCHEMA)
+      .field("name", Schema.STRING_SCHEMA)
+      .field("comment", Schema.OPTIONAL_STRING_SCHEMA)
+      .build();
+
+  public static void main(String[] args) throws Exception {
+    List<SinkRecord> records = new ArrayList<>(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      Struct key = new Struct(KEY_SCHEMA).put("id", (long) i);
+      Struct value = new Struct(VALUE_SCHEMA)
+          .put("id", (long) i)
+          .put("amount", i * 1000003L)
+          .put("ratio", i / 7.0d)
+          .put("name", "customer-" + i)
+          .put("comment", i % 10 == 0 ? "needs, \"quoting\"" : "plain text value");
+      records.add(new SinkRecord("bench", 0, KEY_SCHEMA, key, VALUE_SCHEMA, value, i));
+    }
+
+    try (EmbeddedPostgres pg = EmbeddedPostgres.start()) {
+      for (String insertMode : new String[]{"insert", "upsert"}) {
+        run(pg, insertMode, "none", records);
+        run(pg, insertMode, "copy", records);
+      }
+    }
+  }
+
+  private static void run(EmbeddedPostgres pg, String insertMode, String batchInsertMode,
+      List<SinkRecord> records) throws Exception {
+    Map<String, Object> props = new HashMap<>();
+    String url = String.format("jdbc:postgresql://localhost:%s/postgres", pg.getPort());
+    props.put(JdbcSinkConfig.CONNECTION_URL, url);
+    props.put(JdbcSinkConfig.CONNECTION_USER, "postgres");
+    props.put(JdbcSinkConfig.BATCH_INSERT_MODE, batchInsertMode);
+    props.put("batch.size", BATCH_SIZE);
+    props.put("auto.create", true);
+    props.put("insert.mode", insertMode);
+    props.put("pk.mode", "record_key");
+    props.put("pk.fields", "id");
+    JdbcSinkConfig config = new JdbcSinkConfig(props);
+    PostgreSqlDatabaseDialect dialect =
+        (PostgreSqlDatabaseDialect) DatabaseDialects.findBestFor(url, config);
+    DbStructure dbStructure = new DbStructure(dialect);
+    TableId tableId = new TableId(null, null, "bench");
+
+    long best = Long.MAX_VALUE;
+    try (Connection connection = pg.getPostgresDatabase().getConnection()) {
+      connection.setAutoCommit(false);
+      for (int round = 0; round < ROUNDS; round++) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("DROP TABLE IF EXISTS bench");
+        }
+        connection.commit();
+        BufferedRecords buffer = "copy".equals(batchInsertMode)
+            ? new CopyBufferedRecords(config, tableId, dialect, dbStructure, connection)
+            : new BufferedRecords(config, tableId, dialect, dbStructure, connection);
+        // the first record creates the table, keep it out of the measurement
+        buffer.add(records.get(0));
+        buffer.flush();
+        connection.commit();
+
+        long start = System.nanoTime();
+        for (int i = 1; i < records.size(); i++) {
+          buffer.add(records.get(i));
+        }
+        buffer.flush();
+        connection.commit();
+        best = Math.min(best, System.nanoTime() - start);
+        buffer.close();
+      }
+    }
+    System.out.printf("%-6s %-5s %8.0f rows/s%n", insertMode, batchInsertMode,
+        (records.size() - 1) * 1e9 / best);
+  }
+}
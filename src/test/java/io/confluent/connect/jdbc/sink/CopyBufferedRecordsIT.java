@@ -0,0 +1,174 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import io.confluent.common.utils.IntegrationTest;
+import io.confluent.connect.jdbc.dialect.DatabaseDialects;
+import io.confluent.connect.jdbc.dialect.PostgreSqlDatabaseDialect;
+import io.confluent.connect.jdbc.util.TableId;
+import io.zonky.test.db.postgres.junit.EmbeddedPostgresRules;
+import io.zonky.test.db.postgres.junit.SingleInstancePostgresRule;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(IntegrationTest.class)
+public class CopyBufferedRecordsIT {
+
+  private static final Schema KEY_SCHEMA = SchemaBuilder.struct()
+      .field("id", Schema.INT64_SCHEMA)
+      .build();
+  private static final Schema VALUE_SCHEMA = SchemaBuilder.struct()
+      .field("id", Schema.INT64_SCHEMA)
+      .field("name", Schema.OPTIONAL_STRING_SCHEMA)
+      .field("payload", Schema.OPTIONAL_BYTES_SCHEMA)
+      .build();
+
+  @Rule
+  public SingleInstancePostgresRule pg = EmbeddedPostgresRules.singleInstance();
+
+  private Map<String, Object> props;
+  private Connection connection;
+
+  @Before
+  public void setUp() throws SQLException {
+    props = new HashMap<>();
+    props.put(JdbcSinkConfig.CONNECTION_URL, String.format(
+        "jdbc:postgresql://localhost:%s/postgres", pg.getEmbeddedPostgres().getPort()));
+    props.put(JdbcSinkConfig.CONNECTION_USER, "postgres");
+    props.put(JdbcSinkConfig.BATCH_INSERT_MODE, "copy");
+    props.put("batch.size", 1000);
+    props.put("auto.create", true);
+    props.put("pk.mode", "record_key");
+    props.put("pk.fields", "id");
+    connection = pg.getEmbeddedPostgres().getPostgresDatabase().getConnection();
+    connection.setAutoCommit(false);
+  }
+
+  @After
+  public void tearDown() throws SQLException {
+    connection.close();
+  }
+
+  private CopyBufferedRecords buffer(String insertMode) {
+    props.put("insert.mode", insertMode);
+    JdbcSinkConfig config = new JdbcSinkConfig(props);
+    PostgreSqlDatabaseDialect dialect = (PostgreSqlDatabaseDialect) DatabaseDialects.findBestFor(
+        (String) props.get(JdbcSinkConfig.CONNECTION_URL), config);
+    return new CopyBufferedRecords(config, new TableId(null, null, "copied"), dialect,
+        new DbStructure(dialect), connection);
+  }
+
+  private static SinkRecord record(long id, String name, long offset) {
+    Struct key = new Struct(KEY_SCHEMA).put("id", id);
+    Struct value = new Struct(VALUE_SCHEMA)
+        .put("id", id)
+        .put("name", name)
+        .put("payload", name == null ? null : name.getBytes());
+    return new SinkRecord("copied", 0, KEY_SCHEMA, key, VALUE_SCHEMA, value, offset);
+  }
+
+  private List<String> rows() throws SQLException {
+    List<String> rows = new ArrayList<>();
+    try (Statement statement = connection.createStatement();
+         ResultSet rs = statement.executeQuery(
+             "SELECT id, name, payload FROM copied ORDER BY id")) {
+      while (rs.next()) {
+        byte[] payload = rs.getBytes(3);
+        rows.add(rs.getLong(1) + ":" + rs.getString(2) + ":"
+            + (payload == null ? null : new String(payload)));
+      }
+    }
+    return rows;
+  }
+
+  @Test
+  public void shouldCopyInserts() throws SQLException {
+    CopyBufferedRecords buffer = buffer("insert");
+    buffer.add(record(1, "a,\"quoted\"", 0));
+    buffer.add(record(2, "", 1));
+    buffer.add(record(3, null, 2));
+
+    assertEquals(3, buffer.flush().size());
+    connection.commit();
+
+    assertEquals(Arrays.asList("1:a,\"quoted\":a,\"quoted\"", "2::", "3:null:null"), rows());
+  }
+
+  @Test
+  public void shouldUpsertTheLastRecordOfEveryKey() throws SQLException {
+    CopyBufferedRecords buffer = buffer("upsert");
+    buffer.add(record(1, "first", 0));
+    buffer.add(record(2, "second", 1));
+    buffer.flush();
+    connection.commit();
+
+    buffer.add(record(2, "updated", 2));
+    buffer.add(record(3, "third", 3));
+    buffer.add(record(3, "third again", 4));
+    buffer.flush();
+    buffer.add(record(1, "in the same transaction", 5));
+    buffer.flush();
+    connection.commit();
+
+    assertEquals(Arrays.asList("1:in the same transaction:in the same transaction",
+        "2:updated:updated", "3:third again:third again"), rows());
+  }
+
+  @Test
+  public void shouldUpdateThroughTheStagingTable() throws SQLException {
+    CopyBufferedRecords inserts = buffer("insert");
+    inserts.add(record(1, "first", 0));
+    inserts.add(record(2, "second", 1));
+    inserts.flush();
+    connection.commit();
+
+    CopyBufferedRecords updates = buffer("update");
+    updates.add(record(2, "updated", 2));
+    updates.add(record(3, "missing", 3));
+    updates.flush();
+    connection.commit();
+
+    assertEquals(Arrays.asList("1:first:first", "2:updated:updated"), rows());
+    try (Statement statement = connection.createStatement();
+         ResultSet rs = statement.executeQuery(
+             "SELECT count(*) FROM pg_tables WHERE tablename = 'copy_copied'")) {
+      assertTrue(rs.next());
+      assertEquals(0, rs.getInt(1));
+      assertFalse(rs.next());
+    }
+  }
+}
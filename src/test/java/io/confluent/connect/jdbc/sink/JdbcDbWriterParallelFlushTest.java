@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.dialect.DatabaseDialects;
+import io.confluent.connect.jdbc.source.EmbeddedDerby;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Writes many tables through one {@link DbStructure} on several flush threads, so that tables are
+ * created, described and cached at the same time, and checks that a failing table is retried on
+ * its own.
+ */
+public class JdbcDbWriterParallelFlushTest {
+
+  private static final int TABLES = 8;
+  private static final int ROUNDS = 5;
+  private static final int RECORDS_PER_TABLE = 20;
+
+  private static final Schema VALUE_SCHEMA = SchemaBuilder.struct()
+      .field("id", Schema.INT64_SCHEMA)
+      .field("name", Schema.STRING_SCHEMA)
+      .build();
+
+  private EmbeddedDerby db;
+  private DatabaseDialect dialect;
+  private JdbcDbWriter writer;
+
+  @Before
+  public void setUp() {
+    db = new EmbeddedDerby();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (writer != null) {
+      writer.closeQuietly();
+    }
+    if (dialect != null) {
+      dialect.close();
+    }
+    db.close();
+    db.dropDatabase();
+  }
+
+  @Test
+  public void writesEveryTableOnTheFlushThreads() throws SQLException {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", db.getUrl());
+    props.put("auto.create", "true");
+    props.put("flush.parallelism", "4");
+    props.put("max.batch.wait.time", "0");
+    JdbcSinkConfig config = new JdbcSinkConfig(props);
+    dialect = DatabaseDialects.findBestFor(db.getUrl(), config);
+    OffsetTracker offsetTracker = new OffsetTracker();
+    writer = new JdbcDbWriter(config, dialect, new DbStructure(dialect), offsetTracker, null);
+
+    long offset = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      List<SinkRecord> records = new ArrayList<>();
+      for (int i = 0; i < RECORDS_PER_TABLE; i++) {
+        for (int table = 0; table < TABLES; table++) {
+          Struct value = new Struct(VALUE_SCHEMA)
+              .put("id", offset)
+              .put("name", "row" + offset);
+          records.add(new SinkRecord(topic(table), 0, null, null, VALUE_SCHEMA, value, offset));
+        }
+        offset++;
+      }
+      writer.write(records);
+    }
+
+    Map<TopicPartition, OffsetAndMetadata> consumed = new HashMap<>();
+    for (int table = 0; table < TABLES; table++) {
+      assertEquals(ROUNDS * RECORDS_PER_TABLE, count(topic(table)));
+      consumed.put(new TopicPartition(topic(table), 0), new OffsetAndMetadata(offset));
+    }
+    assertEquals(consumed, offsetTracker.committableOffsets(consumed));
+  }
+
+  @Test
+  public void retriesAFailedTableWithoutWritingTheOthersAgain() throws SQLException {
+    // names longer than three characters do not fit until the column is widened
+    execute("CREATE TABLE \"parallel_bad\" (\"id\" BIGINT NOT NULL, \"name\" VARCHAR(3))");
+    final OffsetTracker offsetTracker = new OffsetTracker();
+    writer = newWriter("2", offsetTracker);
+
+    List<SinkRecord> records = new ArrayList<>(records("parallel_good", 10));
+    records.addAll(records("parallel_bad", 10));
+    writer.write(records);
+    assertEquals(10, count("parallel_good"));
+    assertEquals(0, count("parallel_bad"));
+
+    execute("ALTER TABLE \"parallel_bad\" ALTER COLUMN \"name\" SET DATA TYPE VARCHAR(100)");
+    writer.commitPendingRecords();
+    assertEquals(10, count("parallel_good"));
+    assertEquals(10, count("parallel_bad"));
+
+    Map<TopicPartition, OffsetAndMetadata> consumed = new HashMap<>();
+    consumed.put(new TopicPartition("parallel_good", 0), new OffsetAndMetadata(10));
+    consumed.put(new TopicPartition("parallel_bad", 0), new OffsetAndMetadata(10));
+    assertEquals(consumed, offsetTracker.committableOffsets(consumed));
+  }
+
+  @Test
+  public void failsOnceAFailedTableRunsOutOfRetries() throws SQLException {
+    execute("CREATE TABLE \"parallel_bad\" (\"id\" BIGINT NOT NULL, \"name\" VARCHAR(3))");
+    final OffsetTracker offsetTracker = new OffsetTracker();
+    writer = newWriter("1", offsetTracker);
+
+    List<SinkRecord> records = new ArrayList<>(records("parallel_good", 10));
+    records.addAll(records("parallel_bad", 10));
+    writer.write(records);
+    assertThrows(ConnectException.class, () -> writer.commitPendingRecords());
+    assertEquals(10, count("parallel_good"));
+    assertEquals(0, count("parallel_bad"));
+
+    Map<TopicPartition, OffsetAndMetadata> consumed = new HashMap<>();
+    consumed.put(new TopicPartition("parallel_good", 0), new OffsetAndMetadata(10));
+    consumed.put(new TopicPartition("parallel_bad", 0), new OffsetAndMetadata(10));
+    assertEquals(
+        Collections.singletonMap(new TopicPartition("parallel_good", 0), new OffsetAndMetadata(10)),
+        offsetTracker.committableOffsets(consumed));
+  }
+
+  private JdbcDbWriter newWriter(String maxRetries, OffsetTracker offsetTracker) {
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", db.getUrl());
+    props.put("auto.create", "true");
+    props.put("flush.parallelism", "2");
+    props.put("max.batch.wait.time", "0");
+    props.put("max.retries", maxRetries);
+    props.put("retry.backoff.ms", "0");
+    JdbcSinkConfig config = new JdbcSinkConfig(props);
+    dialect = DatabaseDialects.findBestFor(db.getUrl(), config);
+    return new JdbcDbWriter(config, dialect, new DbStructure(dialect), offsetTracker, null);
+  }
+
+  private static List<SinkRecord> records(String topic, int count) {
+    List<SinkRecord> records = new ArrayList<>();
+    for (long offset = 0; offset < count; offset++) {
+      Struct value = new Struct(VALUE_SCHEMA)
+          .put("id", offset)
+          .put("name", "row" + offset);
+      records.add(new SinkRecord(topic, 0, null, null, VALUE_SCHEMA, value, offset));
+    }
+    return records;
+  }
+
+  private void execute(String sql) throws SQLException {
+    try (Statement statement = db.getConnection().createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  private static String topic(int table) {
+    return "parallel_" + table;
+  }
+
+  private int count(String table) throws SQLException {
+    try (Statement statement = db.getConnection().createStatement();
+         ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM \"" + table + "\"")) {
+      rs.next();
+      return rs.getInt(1);
+    }
+  }
+}
@@ -15,6 +15,8 @@
 
 package io.confluent.connect.jdbc.sink;
 
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.connect.data.Date;
 import org.apache.kafka.connect.data.Decimal;
 import org.apache.kafka.connect.data.Field;
@@ -34,7 +36,10 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
@@ -168,6 +173,58 @@ public class JdbcDbWriterTest {
     return e;
   }
 
+  @Test
+  public void parallelFlushCommitsEveryTableOnItsOwn() throws SQLException {
+    Connection failingConnection = mock(Connection.class);
+    Connection succeedingConnection = mock(Connection.class);
+    doThrow(new SQLException()).when(failingConnection).commit();
+    // the writer's own connection first, then one per table in the order the tables appear
+    Deque<Connection> connections = new ArrayDeque<>(Arrays.asList(
+        mock(Connection.class), failingConnection, succeedingConnection));
+
+    Map<String, String> props = new HashMap<>();
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("flush.parallelism", "2");
+    props.put("max.batch.wait.time", "0");
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+    dialect = mock(DatabaseDialect.class);
+    final OffsetTracker offsetTracker = new OffsetTracker();
+    writer = new JdbcDbWriter(config, dialect, mock(DbStructure.class), offsetTracker, null) {
+      @Override
+      protected CachedConnectionProvider connectionProvider(int maxConnAttempts, long retryBackoff) {
+        CachedConnectionProvider mockConnectionProvider = mock(CachedConnectionProvider.class);
+        when(mockConnectionProvider.getConnection()).thenReturn(connections.poll());
+        return mockConnectionProvider;
+      }
+    };
+
+    PreparedStatement mockStatement = mock(PreparedStatement.class);
+    when(dialect.parseTableIdentifier("failing")).thenReturn(new TableId(null, null, "failing"));
+    when(dialect.parseTableIdentifier("succeeding"))
+        .thenReturn(new TableId(null, null, "succeeding"));
+    when(dialect.createPreparedStatement(any(), any())).thenReturn(mockStatement);
+    when(dialect.statementBinder(any(), any(), any(), any(), any(), any()))
+        .thenReturn(mock(PreparedStatementBinder.class));
+    when(mockStatement.executeBatch()).thenReturn(new int[1]);
+
+    Schema valueSchema = SchemaBuilder.struct().field("title", Schema.STRING_SCHEMA).build();
+    Struct value = new Struct(valueSchema).put("title", "Villa Incognito");
+
+    // the failing table is retried on its own instead of failing the put
+    writer.write(Arrays.asList(
+        new SinkRecord("failing", 0, null, null, valueSchema, value, 7),
+        new SinkRecord("succeeding", 0, null, null, valueSchema, value, 9)));
+
+    verify(failingConnection, times(1)).rollback();
+    verify(succeedingConnection, times(1)).commit();
+    Map<TopicPartition, OffsetAndMetadata> consumed = new HashMap<>();
+    consumed.put(new TopicPartition("failing", 0), new OffsetAndMetadata(8));
+    consumed.put(new TopicPartition("succeeding", 0), new OffsetAndMetadata(10));
+    assertEquals(
+        Collections.singletonMap(new TopicPartition("succeeding", 0), new OffsetAndMetadata(10)),
+        offsetTracker.committableOffsets(consumed));
+  }
+
   @Test
   public void autoCreateWithAutoEvolve() throws SQLException {
     String topic = "books";
@@ -133,6 +133,24 @@ public class JdbcSinkConfigTest {
     assertTableTypes(TableType.TABLE);
   }
 
+  @Test
+  public void shouldKeepGpssWritesInFlightForInserts() {
+    props.put(JdbcSinkConfig.GPSS_WRITE_MAX_IN_FLIGHT, "4");
+    props.put("insert.mode", "insert");
+    createConfig();
+    assertEquals(4, config.gpssWriteMaxInFlight);
+  }
+
+  @Test
+  public void shouldSendOneGpssWriteAtATimeForKeyedModes() {
+    props.put(JdbcSinkConfig.GPSS_WRITE_MAX_IN_FLIGHT, "4");
+    for (String insertMode : Arrays.asList("upsert", "update", "merge")) {
+      props.put("insert.mode", insertMode);
+      createConfig();
+      assertEquals(insertMode, 1, config.gpssWriteMaxInFlight);
+    }
+  }
+
   protected void createConfig() {
     config = new JdbcSinkConfig(props);
   }
@@ -40,6 +40,7 @@ import java.util.Map;
 import java.util.TimeZone;
 import java.util.concurrent.CompletableFuture;
 
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
@@ -305,6 +306,43 @@ public class JdbcSinkTaskTest extends EasyMockSupport {
     verifyAll();
   }
 
+  @Test
+  public void readsRecordsOfEarlierPutsAgainWhenRetrying() throws SQLException {
+    final int retryBackoffMs = 1000;
+    List<SinkRecord> buffered = Collections.singletonList(
+        new SinkRecord("stub", 0, null, null, null, null, 5));
+    List<SinkRecord> failing = Collections.singletonList(
+        new SinkRecord("stub", 0, null, null, null, null, 6));
+
+    mockWriter.write(buffered);
+    expectLastCall();
+    mockWriter.write(failing);
+    expectLastCall().andThrow(new SQLException("cause 1"));
+    mockWriter.closeQuietly();
+    expectLastCall();
+    ctx.timeout(retryBackoffMs);
+    expectLastCall();
+    // closing the writer dropped the buffered record too, which Connect would not put again
+    ctx.offset(Collections.singletonMap(new TopicPartition("stub", 0), 5L));
+    expectLastCall();
+
+    JdbcSinkTask task = new JdbcSinkTask() {
+      @Override
+      void initWriter() {
+        this.writer = mockWriter;
+      }
+    };
+    task.initialize(ctx);
+    expect(ctx.errantRecordReporter()).andReturn(null);
+    replayAll();
+
+    task.start(setupBasicProps(1, retryBackoffMs));
+    task.put(buffered);
+    task.put(failing);
+
+    verifyAll();
+  }
+
   @Test
   public void errorReporting() throws SQLException {
     List<SinkRecord> records = createRecordsList(1);
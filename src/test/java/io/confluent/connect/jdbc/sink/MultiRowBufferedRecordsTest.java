@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License (the "License"); you may not use
+ * this file except in compliance with the License.  You may obtain a copy of the
+ * License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.confluent.connect.jdbc.dialect.DatabaseDialect;
+import io.confluent.connect.jdbc.dialect.DatabaseDialects;
+import io.confluent.connect.jdbc.util.TableId;
+
+import static org.junit.Assert.assertEquals;
+
+public class MultiRowBufferedRecordsTest {
+
+  private static final Schema SCHEMA_A = SchemaBuilder.struct()
+      .field("name", Schema.STRING_SCHEMA)
+      .field("age", Schema.OPTIONAL_INT32_SCHEMA)
+      .build();
+  private static final Schema SCHEMA_B = SchemaBuilder.struct()
+      .field("name", Schema.STRING_SCHEMA)
+      .field("age", Schema.OPTIONAL_INT32_SCHEMA)
+      .field("city", Schema.OPTIONAL_STRING_SCHEMA)
+      .build();
+
+  private final SqliteHelper sqliteHelper = new SqliteHelper(getClass().getSimpleName());
+
+  private Map<Object, Object> props;
+
+  @Before
+  public void setUp() throws IOException, SQLException {
+    sqliteHelper.setUp();
+    props = new HashMap<>();
+    props.put("name", "my-connector");
+    props.put("connection.url", sqliteHelper.sqliteUri());
+    props.put("batch.size", 1000);
+    props.put("batch.insert.mode", "multi_row");
+    props.put("auto.create", true);
+    props.put("auto.evolve", true);
+  }
+
+  @After
+  public void tearDown() throws IOException, SQLException {
+    sqliteHelper.tearDown();
+  }
+
+  private MultiRowBufferedRecords buffer() {
+    final JdbcSinkConfig config = new JdbcSinkConfig(props);
+    final DatabaseDialect dbDialect =
+        DatabaseDialects.findBestFor(sqliteHelper.sqliteUri(), config);
+    return new MultiRowBufferedRecords(config, new TableId(null, null, "dummy"), dbDialect,
+        new DbStructure(dbDialect), sqliteHelper.connection);
+  }
+
+  private static SinkRecord recordA(int i) {
+    final Struct value = new Struct(SCHEMA_A)
+        .put("name", "name" + i)
+        .put("age", i % 3 == 0 ? null : i);
+    return new SinkRecord("dummy", 0, null, null, SCHEMA_A, value, i);
+  }
+
+  private static SinkRecord recordB(int i) {
+    final Struct value = new Struct(SCHEMA_B)
+        .put("name", "name" + i)
+        .put("age", i)
+        .put("city", "city" + i);
+    return new SinkRecord("dummy", 0, null, null, SCHEMA_B, value, i);
+  }
+
+  private List<String> rows() throws SQLException {
+    final List<String> rows = new ArrayList<>();
+    sqliteHelper.select("SELECT name, age FROM dummy ORDER BY name",
+        rs -> rows.add(rs.getString(1) + ":" + rs.getObject(2)));
+    return rows;
+  }
+
+  @Test
+  public void insertsEveryRowOfUnevenBatches() throws SQLException {
+    final MultiRowBufferedRecords buffer = buffer();
+    final List<SinkRecord> records = new ArrayList<>();
+    final List<String> expected = new ArrayList<>();
+    for (int i = 10; i < 21; i++) {
+      records.add(recordA(i));
+      expected.add("name" + i + ":" + (i % 3 == 0 ? null : i));
+    }
+    for (SinkRecord record : records) {
+      assertEquals(Collections.emptyList(), buffer.add(record));
+    }
+
+    assertEquals(records, buffer.flush());
+    assertEquals(expected, rows());
+    buffer.close();
+  }
+
+  @Test
+  public void splitsStatementsAtTheBatchSize() throws SQLException {
+    props.put("batch.size", 4);
+    final MultiRowBufferedRecords buffer = buffer();
+    final List<SinkRecord> flushed = new ArrayList<>();
+    for (int i = 10; i < 20; i++) {
+      flushed.addAll(buffer.add(recordA(i)));
+    }
+    assertEquals(8, flushed.size());
+    assertEquals(2, buffer.flush().size());
+
+    assertEquals(10, rows().size());
+    buffer.close();
+  }
+
+  @Test
+  public void preparesNewStatementsAfterSchemaChange() throws SQLException {
+    final MultiRowBufferedRecords buffer = buffer();
+    buffer.add(recordA(10));
+    buffer.add(recordA(11));
+    buffer.add(recordA(12));
+
+    assertEquals(3, buffer.add(recordB(13)).size());
+    buffer.add(recordB(14));
+    buffer.add(recordB(15));
+    assertEquals(3, buffer.flush().size());
+
+    assertEquals(6, rows().size());
+    assertEquals(3, sqliteHelper.select("SELECT city FROM dummy WHERE city IS NOT NULL",
+        rs -> { }));
+    buffer.close();
+  }
+}
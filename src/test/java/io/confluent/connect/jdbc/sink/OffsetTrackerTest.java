@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 Confluent Inc.
+ *
+ * Licensed under the Confluent Community License; you may not use this file
+ * except in compliance with the License.  You may obtain a copy of the License at
+ *
+ * http://www.confluent.io/confluent-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package io.confluent.connect.jdbc.sink;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OffsetTrackerTest {
+
+  private static final TopicPartition P0 = new TopicPartition("topic", 0);
+  private static final TopicPartition P1 = new TopicPartition("topic", 1);
+
+  private static SinkRecord record(int partition, long offset) {
+    return new SinkRecord("topic", partition, null, null, Schema.STRING_SCHEMA, "v", offset);
+  }
+
+  private static Map<TopicPartition, OffsetAndMetadata> consumed(long p0, long p1) {
+    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    offsets.put(P0, new OffsetAndMetadata(p0));
+    offsets.put(P1, new OffsetAndMetadata(p1));
+    return offsets;
+  }
+
+  @Test
+  public void shouldOnlyCommitDurableOffsets() {
+    OffsetTracker tracker = new OffsetTracker();
+    tracker.markDurable(Arrays.asList(record(0, 10), record(0, 12), record(0, 11)));
+
+    Map<TopicPartition, OffsetAndMetadata> committable = tracker.committableOffsets(consumed(20, 5));
+
+    assertEquals(Collections.singletonMap(P0, new OffsetAndMetadata(13)), committable);
+  }
+
+  @Test
+  public void shouldNotCommitBeyondConsumedOffsets() {
+    OffsetTracker tracker = new OffsetTracker();
+    tracker.markDurable(Collections.singletonMap(P1, 40L));
+
+    assertEquals(new OffsetAndMetadata(30), tracker.committableOffsets(consumed(0, 30)).get(P1));
+  }
+
+  @Test
+  public void shouldNeverMoveBackwards() {
+    OffsetTracker tracker = new OffsetTracker();
+    tracker.markDurable(Collections.singletonMap(P0, 40L));
+    tracker.markDurable(Collections.singletonMap(P0, 7L));
+
+    assertEquals(new OffsetAndMetadata(41), tracker.committableOffsets(consumed(100, 0)).get(P0));
+  }
+
+  @Test
+  public void shouldForgetRevokedPartitions() {
+    OffsetTracker tracker = new OffsetTracker();
+    tracker.markDurable(Arrays.asList(record(0, 1), record(1, 1)));
+    tracker.forget(Collections.singletonList(P0));
+
+    Map<TopicPartition, OffsetAndMetadata> committable = tracker.committableOffsets(consumed(5, 5));
+    assertTrue(committable.containsKey(P1));
+    assertEquals(1, committable.size());
+  }
+
+  @Test
+  public void shouldReadRecordsThatAreNotDurableAgain() {
+    OffsetTracker tracker = new OffsetTracker();
+    tracker.markReceived(Arrays.asList(record(0, 10), record(0, 11), record(0, 12)));
+    tracker.markReceived(Arrays.asList(record(1, 5), record(1, 6)));
+    tracker.markDurable(Collections.singletonMap(P0, 11L));
+
+    Map<TopicPartition, Long> pending = new HashMap<>();
+    pending.put(P0, 12L);
+    pending.put(P1, 5L);
+    assertEquals(pending, tracker.pendingOffsets());
+
+    Map<TopicPartition, Long> received = new HashMap<>();
+    received.put(P0, 12L);
+    received.put(P1, 6L);
+    assertEquals(received, tracker.rewind(pending));
+    assertEquals(Collections.emptyMap(), tracker.pendingOffsets());
+    assertFalse(tracker.isDurable(received));
+
+    tracker.markReceived(Arrays.asList(record(0, 12), record(1, 5), record(1, 6)));
+    tracker.markDurable(Arrays.asList(record(0, 12), record(1, 6)));
+    assertTrue(tracker.isDurable(received));
+    assertEquals(Collections.emptyMap(), tracker.pendingOffsets());
+  }
+}
@@ -0,0 +1,97 @@
+package io.confluent.connect.jdbc.sink.metadata;
+
+import org.apache.kafka.connect.data.Timestamp;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class DateTimeConverterTest {
+
+    private static final ZoneId KARACHI = ZoneId.of("Asia/Karachi");
+
+    @Test
+    public void shouldFormatTimestampsFromEpochMillis() {
+        DateTimeConverter converter = DateTimeConverter.of("EEE MMM dd HH:mm:ss zzz yyyy", "yyyy-MM-dd HH:mm:ss", ZoneOffset.UTC, KARACHI, Timestamp.LOGICAL_NAME, false);
+
+        assertEquals("2023-06-07 05:50:10", converter.convert(new Date(1686099010000L)));
+    }
+
+    @Test
+    public void shouldNotShiftConnectDates() {
+        DateTimeConverter converter = DateTimeConverter.of(null, "yyyy-MM-dd", ZoneOffset.UTC, ZoneId.of("America/New_York"),
+                org.apache.kafka.connect.data.Date.LOGICAL_NAME, false);
+
+        assertEquals("2023-06-07", converter.convert(new Date(1686096000000L)));
+    }
+
+    @Test
+    public void shouldParseTextAndConvertZones() {
+        DateTimeConverter converter = DateTimeConverter.of("yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd HH:mm:ss", ZoneId.of("America/Los_Angeles"), KARACHI, null, false);
+
+        assertEquals("2023-06-07 05:50:10", converter.convert("2023-06-06 17:50:10"));
+    }
+
+    @Test
+    public void shouldTryEachInputFormat() {
+        DateTimeConverter converter = DateTimeConverter.of("dd/MM/yyyy HH:mm#yyyy-MM-dd'T'HH:mm:ssXXX#yyyy-MM-dd", "yyyy-MM-dd HH:mm:ss", ZoneOffset.UTC, ZoneOffset.UTC, null, false);
+
+        assertEquals("2023-06-06 17:50:00", converter.convert("06/06/2023 17:50"));
+        assertEquals("2023-06-06 12:50:10", converter.convert("2023-06-06T17:50:10+05:00"));
+        assertEquals("2023-06-06 00:00:00", converter.convert("2023-06-06"));
+    }
+
+    @Test
+    public void shouldReadLegacySimpleDateFormatPatterns() {
+        DateTimeConverter millis = DateTimeConverter.of("yyyyMMddHHmmssSSS", "yyyy-MM-dd HH:mm:ss.S", ZoneOffset.UTC, ZoneOffset.UTC, null, false);
+        assertEquals("2023-06-06 17:50:10.5", millis.convert("20230606175010005"));
+
+        DateTimeConverter dayNumber = DateTimeConverter.of("yyyy-MM-dd", "u yyyy", ZoneOffset.UTC, ZoneOffset.UTC, null, false);
+        assertEquals("2 2023", dayNumber.convert("2023-06-06"));
+
+        DateTimeConverter offset = DateTimeConverter.of("yyyy-MM-dd HH:mm:ss Z", "yyyy-MM-dd HH:mm:ssZ", ZoneOffset.UTC, KARACHI, null, false);
+        assertEquals("2023-06-06 22:50:10+0500", offset.convert("2023-06-06 17:50:10 +0000"));
+    }
+
+    @Test
+    public void shouldKeepUnparseableValues() {
+        DateTimeConverter converter = DateTimeConverter.of("yyyy-MM-dd", "dd.MM.yyyy", ZoneOffset.UTC, ZoneOffset.UTC, null, false);
+
+        assertEquals("not a date", converter.convert("not a date"));
+        assertEquals("", converter.convert(""));
+    }
+
+    @Test
+    public void shouldBeSafeToShareBetweenThreads() throws Exception {
+        final DateTimeConverter converter = DateTimeConverter.of("yyyy-MM-dd HH:mm:ss", "dd.MM.yyyy HH:mm:ss", ZoneOffset.UTC, ZoneOffset.UTC, null, false);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int day = t + 1;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        String expected = String.format("%02d.06.2023 10:%02d:00", day, i % 60);
+                        if (!expected.equals(converter.convert(String.format("2023-06-%02d 10:%02d:00", day, i % 60)))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertEquals(true, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
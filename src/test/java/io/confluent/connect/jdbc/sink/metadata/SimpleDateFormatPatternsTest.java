@@ -0,0 +1,56 @@
+package io.confluent.connect.jdbc.sink.metadata;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+public class SimpleDateFormatPatternsTest {
+
+    private static final String[] LEGACY_PATTERNS = {
+            "EEE MMM dd HH:mm:ss zzz yyyy",
+            "yyyy-MM-dd HH:mm:ss.SSS",
+            "yyyyMMddHHmmss",
+            "dd/MM/yy h:mm a",
+            "yyyy-MM-dd'T'HH:mm:ssZ",
+            "yyyy-MM-dd'T'HH:mm:ssXXX",
+            "u EEEE MMMM d, yyyy",
+            "YYYY-'W'ww-u",
+            "SSSSSS",
+            "hh 'o''clock' a",
+            "D F G k K",
+            "yyyy-MM-dd [a] {G}",
+    };
+
+    private static final long[] INSTANTS = {1686099010123L, 1577664000005L, 0L, 1703980800999L};
+
+    @Test
+    public void shouldFormatLikeSimpleDateFormat() {
+        for (String zone : new String[]{"UTC", "America/New_York", "Asia/Karachi"}) {
+            for (String pattern : LEGACY_PATTERNS) {
+                SimpleDateFormat legacy = new SimpleDateFormat(pattern, Locale.ENGLISH);
+                legacy.setTimeZone(TimeZone.getTimeZone(zone));
+                for (long millis : INSTANTS) {
+                    assertEquals(pattern + " in " + zone, legacy.format(new Date(millis)),
+                            SimpleDateFormatPatterns.toFormatter(pattern).format(Instant.ofEpochMilli(millis).atZone(ZoneId.of(zone))));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectLettersSimpleDateFormatDoesNotKnow() {
+        SimpleDateFormatPatterns.toFormatter("yyyy-MM-dd q");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnterminatedQuotes() {
+        SimpleDateFormatPatterns.toFormatter("yyyy-MM-dd 'at");
+    }
+}